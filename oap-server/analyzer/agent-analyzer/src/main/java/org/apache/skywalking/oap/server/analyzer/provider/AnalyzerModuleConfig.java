@@ -113,6 +113,25 @@ public class AnalyzerModuleConfig extends ModuleConfig {
     @Setter
     private String meterAnalyzerActiveFiles = Const.EMPTY_STRING;
 
+    /**
+     * The max number of the series kept in the window of the MAL increase/rate/irate functions, shared by all the MAL
+     * rules. The least recently used series are evicted beyond it.
+     *
+     * @since 10.1.0
+     */
+    @Setter
+    @Getter
+    private int meterCounterWindowMaxSeries = 1_000_000;
+    /**
+     * The time(minute) since the last sample of a series, after which the series is evicted from the window of the MAL
+     * increase/rate/irate functions, unless the range of the function is longer.
+     *
+     * @since 10.1.0
+     */
+    @Setter
+    @Getter
+    private int meterCounterWindowIdleTimeout = 60;
+
     /**
      * Sample the trace segment if the segment has span(s) tagged as error status, and ignore the sampleRate
      * configuration.
@@ -19,7 +19,9 @@
 package org.apache.skywalking.oap.server.analyzer.provider;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import lombok.Getter;
+import org.apache.skywalking.oap.meter.analyzer.dsl.counter.CounterWindow;
 import org.apache.skywalking.oap.server.analyzer.module.AnalyzerModule;
 import org.apache.skywalking.oap.server.analyzer.provider.meter.config.MeterConfig;
 import org.apache.skywalking.oap.server.analyzer.provider.meter.config.MeterConfigs;
@@ -48,6 +50,7 @@ import org.apache.skywalking.oap.server.library.module.ModuleProvider;
 import org.apache.skywalking.oap.server.library.module.ModuleStartException;
 import org.apache.skywalking.oap.server.library.module.ServiceNotProvidedException;
 import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
 
 public class AnalyzerModuleProvider extends ModuleProvider {
     @Getter
@@ -136,6 +139,15 @@ public class AnalyzerModuleProvider extends ModuleProvider {
         segmentParserService.setListenerManager(listenerManager());
 
         processService.start(meterConfigs);
+
+        MetricsCreator metricsCreator = getManager().find(TelemetryModule.NAME)
+                                                    .provider()
+                                                    .getService(MetricsCreator.class);
+        CounterWindow.INSTANCE.setup(
+            moduleConfig.getMeterCounterWindowMaxSeries(),
+            TimeUnit.MINUTES.toMillis(moduleConfig.getMeterCounterWindowIdleTimeout()),
+            metricsCreator
+        );
     }
 
     @Override
@@ -18,7 +18,6 @@
 
 package org.apache.skywalking.oap.log.analyzer.dsl.spec.filter;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.protobuf.Message;
 import com.google.protobuf.TextFormat;
 import groovy.lang.Closure;
@@ -63,15 +62,10 @@ public class FilterSpec extends AbstractSpec {
 
     private final SinkSpec sink;
 
-    private final TypeReference<Map<String, Object>> parsedType;
-
     public FilterSpec(final ModuleManager moduleManager,
                       final LogAnalyzerModuleConfig moduleConfig) throws ModuleStartException {
         super(moduleManager, moduleConfig);
 
-        parsedType = new TypeReference<Map<String, Object>>() {
-        };
-
         sinkListenerFactories = Arrays.asList(
             new RecordSinkListener.Factory(moduleManager(), moduleConfig()),
             new TrafficSinkListener.Factory(moduleManager(), moduleConfig())
@@ -100,15 +94,14 @@ public class FilterSpec extends AbstractSpec {
         if (BINDING.get().shouldAbort()) {
             return;
         }
+        jsonParser.resetFields();
         cl.setDelegate(jsonParser);
         cl.call();
 
         final LogData.Builder logData = BINDING.get().log();
         try {
 
-            final Map<String, Object> parsed = jsonParser.create().readValue(
-                logData.getBody().getJson().getJson(), parsedType
-            );
+            final Map<String, Object> parsed = jsonParser.parse(logData.getBody().getJson().getJson());
 
             BINDING.get().parsed(parsed);
         } catch (final Exception e) {
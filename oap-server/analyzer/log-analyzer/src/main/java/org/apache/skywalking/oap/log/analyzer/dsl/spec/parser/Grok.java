@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.log.analyzer.dsl.spec.parser;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Grok is a regexp composed of the named patterns, {@code %{NAME}} matches the pattern NAME, and
+ * {@code %{NAME:field}} captures the matched text as the field. The named patterns are loaded from the
+ * {@code lal-grok-patterns} file, and could refer to each other.
+ *
+ * The grok is expanded into one regexp, once, the fields are captured by the generated groups, as the field names are
+ * not always valid group names.
+ */
+final class Grok {
+    static final Map<String, String> PATTERNS = loadPatterns("lal-grok-patterns");
+
+    private static final Pattern REFERENCE = Pattern.compile("%\\{(\\w+)(?::([^:}]+))?}");
+
+    private static final int MAX_DEPTH = 32;
+
+    private final Pattern pattern;
+
+    private final String[] fields;
+
+    /**
+     * The group capturing every field, the groups are named as the regexp may have unnamed groups too.
+     */
+    private final String[] groups;
+
+    private Grok(final Pattern pattern, final String[] fields) {
+        this.pattern = pattern;
+        this.fields = fields;
+        this.groups = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            groups[i] = group(i);
+        }
+    }
+
+    static Grok compile(final String grok) {
+        final StringBuilder regexp = new StringBuilder();
+        final List<String> fields = new ArrayList<>();
+        expand(grok, PATTERNS, regexp, fields, 0);
+        return new Grok(Pattern.compile(regexp.toString()), fields.toArray(new String[0]));
+    }
+
+    /**
+     * @return the captured fields, or null if the text doesn't match.
+     */
+    Map<String, Object> match(final String text) {
+        final Matcher matcher = pattern.matcher(text);
+        if (!matcher.find()) {
+            return null;
+        }
+        final Map<String, Object> result = new HashMap<>();
+        for (int i = 0; i < fields.length; i++) {
+            final String value = matcher.group(groups[i]);
+            if (value != null) {
+                result.putIfAbsent(fields[i], value);
+            }
+        }
+        return result;
+    }
+
+    private static void expand(final String grok,
+                               final Map<String, String> patterns,
+                               final StringBuilder regexp,
+                               final List<String> fields,
+                               final int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Grok patterns are nested too deep, there may be a cycle: " + grok);
+        }
+        final Matcher matcher = REFERENCE.matcher(grok);
+        int last = 0;
+        while (matcher.find()) {
+            final String name = matcher.group(1);
+            final String field = matcher.group(2);
+            final String definition = patterns.get(name);
+            if (definition == null) {
+                throw new IllegalArgumentException("Unknown grok pattern: " + name);
+            }
+            regexp.append(grok, last, matcher.start());
+            if (field != null) {
+                regexp.append("(?<").append(group(fields.size())).append('>');
+                fields.add(field);
+            } else {
+                regexp.append("(?:");
+            }
+            expand(definition, patterns, regexp, fields, depth + 1);
+            regexp.append(')');
+            last = matcher.end();
+        }
+        regexp.append(grok, last, grok.length());
+    }
+
+    private static String group(final int index) {
+        return "grok" + index;
+    }
+
+    private static Map<String, String> loadPatterns(final String resource) {
+        final ImmutableMap.Builder<String, String> patterns = ImmutableMap.builder();
+        try (InputStream is = Grok.class.getClassLoader().getResourceAsStream(resource)) {
+            if (is == null) {
+                throw new IllegalStateException("Grok patterns are not found: " + resource);
+            }
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+            for (String line; (line = reader.readLine()) != null; ) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                final int space = line.indexOf(' ');
+                patterns.put(line.substring(0, space), line.substring(space + 1));
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return patterns.build();
+    }
+}
@@ -18,13 +18,32 @@
 
 package org.apache.skywalking.oap.log.analyzer.dsl.spec.parser;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 import org.apache.skywalking.oap.log.analyzer.provider.LogAnalyzerModuleConfig;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 
 public class JsonParserSpec extends AbstractParserSpec {
+    private static final TypeReference<Map<String, Object>> PARSED_TYPE = new TypeReference<Map<String, Object>>() {
+    };
+
     private final ObjectMapper mapper;
 
+    /**
+     * The top level fields to read, set by the evaluating log of every thread, as the spec is shared by the threads
+     * evaluating the script.
+     */
+    private final ThreadLocal<Fields> fields = ThreadLocal.withInitial(Fields::new);
+
     public JsonParserSpec(final ModuleManager moduleManager,
                           final LogAnalyzerModuleConfig moduleConfig) {
         super(moduleManager, moduleConfig);
@@ -37,4 +56,60 @@ public class JsonParserSpec extends AbstractParserSpec {
     public ObjectMapper create() {
         return mapper;
     }
+
+    /**
+     * Only read the given top level fields of the logs, the other fields are skipped without being deserialized, and
+     * the rest of the log is not read once all the given fields are read.
+     */
+    @SuppressWarnings("unused") // used in user LAL scripts
+    public void fields(final String... names) {
+        final Fields fields = this.fields.get();
+        final Set<String> current = fields.names;
+        if (current == null || current.size() != names.length || !current.containsAll(Arrays.asList(names))) {
+            fields.names = ImmutableSet.copyOf(names);
+        }
+        fields.enabled = true;
+    }
+
+    /**
+     * Read all the fields of the log, until {@link #fields(String...)} is called again. It is reset before every
+     * {@code json} block, so the fields given in one block never apply to the others.
+     */
+    public void resetFields() {
+        fields.get().enabled = false;
+    }
+
+    public Map<String, Object> parse(final String json) throws IOException {
+        final Fields current = this.fields.get();
+        if (!current.enabled) {
+            return mapper.readValue(json, PARSED_TYPE);
+        }
+        final Set<String> fields = current.names;
+
+        final Map<String, Object> parsed = new LinkedHashMap<>();
+        try (JsonParser parser = mapper.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "The log is not a JSON object");
+            }
+            while (parsed.size() < fields.size() && parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.currentName();
+                parser.nextToken();
+                if (fields.contains(name)) {
+                    parsed.put(name, mapper.readValue(parser, Object.class));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * The fields of the last {@link #fields(String...)} call of the thread, kept to avoid copying the same names for
+     * every log.
+     */
+    private static class Fields {
+        private Set<String> names;
+        private boolean enabled;
+    }
 }
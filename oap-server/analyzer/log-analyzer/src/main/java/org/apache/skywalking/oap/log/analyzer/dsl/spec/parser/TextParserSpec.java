@@ -18,6 +18,9 @@
 
 package org.apache.skywalking.oap.log.analyzer.dsl.spec.parser;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.apache.skywalking.apm.network.logging.v3.LogData;
@@ -25,6 +28,16 @@ import org.apache.skywalking.oap.log.analyzer.provider.LogAnalyzerModuleConfig;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 
 public class TextParserSpec extends AbstractParserSpec {
+    /**
+     * The max number of the compiled patterns and groks cached by a script, the scripts build them from literals
+     * mostly, more of them are compiled every time.
+     */
+    private static final int MAX_CACHED_PATTERNS = 100;
+
+    private final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
+    private final Map<String, Grok> groks = new ConcurrentHashMap<>();
+
     public TextParserSpec(final ModuleManager moduleManager,
                           final LogAnalyzerModuleConfig moduleConfig) {
         super(moduleManager, moduleConfig);
@@ -32,7 +45,7 @@ public class TextParserSpec extends AbstractParserSpec {
 
     @SuppressWarnings("unused")
     public void regexp(final String regexp) {
-        regexp(Pattern.compile(regexp));
+        regexp(cached(patterns, regexp, Pattern::compile));
     }
 
     public void regexp(final Pattern pattern) {
@@ -49,9 +62,38 @@ public class TextParserSpec extends AbstractParserSpec {
         }
     }
 
+    /**
+     * Parse the log by the grok, which is a regexp composed of the named patterns, such as
+     * {@code %{IPORHOST:clientip} %{NOTSPACE:request}}, the fields captured are put into the parsed map.
+     *
+     * @return whether the log matches the grok.
+     */
+    @SuppressWarnings("unused")
     public boolean grok(final String grok) {
-        // TODO
+        if (BINDING.get().shouldAbort()) {
+            return false;
+        }
+        final LogData.Builder log = BINDING.get().log();
+        final Map<String, Object> parsed = cached(groks, grok, Grok::compile).match(log.getBody().getText().getText());
+        if (parsed != null) {
+            BINDING.get().parsed(parsed);
+            return true;
+        }
+        if (abortOnFailure()) {
+            BINDING.get().abort();
+        }
         return false;
     }
 
+    private static <T> T cached(final Map<String, T> cache, final String key, final Function<String, T> compile) {
+        final T cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        final T compiled = compile.apply(key);
+        if (cache.size() < MAX_CACHED_PATTERNS) {
+            cache.putIfAbsent(key, compiled);
+        }
+        return compiled;
+    }
 }
@@ -29,14 +29,24 @@ import org.yaml.snakeyaml.representer.Representer;
 public class YamlParserSpec extends AbstractParserSpec {
     private final LoaderOptions loaderOptions;
 
+    /**
+     * Yaml is not thread safe, every thread reuses its own one.
+     */
+    private final ThreadLocal<Yaml> yaml;
+
     public YamlParserSpec(final ModuleManager moduleManager,
                           final LogAnalyzerModuleConfig moduleConfig) {
         super(moduleManager, moduleConfig);
 
         loaderOptions = new LoaderOptions();
+        yaml = ThreadLocal.withInitial(this::newYaml);
     }
 
     public Yaml create() {
+        return yaml.get();
+    }
+
+    private Yaml newYaml() {
         final var dumperOptions = new DumperOptions();
         return new Yaml(
                 new SafeConstructor(loaderOptions),
@@ -58,6 +58,21 @@ public class DSLTest {
                                 "  }" +
                                 "}",
                 },
+                new String[] {
+                        "parser-grok",
+                        "filter {\n" +
+                                "  json {\n" +
+                                "    abortOnFailure false // for test purpose, we want to persist all logs\n" +
+                                "    fields 'level', 'service'\n" +
+                                "  }\n" +
+                                "  text {\n" +
+                                "    abortOnFailure false // for test purpose, we want to persist all logs\n" +
+                                "    if (!grok('%{TIMESTAMP_ISO8601:timestamp} \\[%{DATA:thread}\\] %{LOGLEVEL:level} %{GREEDYDATA:msg}')) {\n" +
+                                "      grok '%{COMBINEDAPACHELOG}'\n" +
+                                "    }\n" +
+                                "  }\n" +
+                                "}",
+                },
                 new String[] {
                         "extractor",
                         "filter {\n" +
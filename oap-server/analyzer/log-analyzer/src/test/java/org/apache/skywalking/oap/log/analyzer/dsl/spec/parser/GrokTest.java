@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.log.analyzer.dsl.spec.parser;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class GrokTest {
+    @Test
+    public void testCombinedAccessLog() {
+        final Map<String, Object> parsed = Grok.compile("%{COMBINEDAPACHELOG}").match(
+            "127.0.0.1 - frank [10/Oct/2000:13:55:36 -0700] \"GET /apache_pb.gif HTTP/1.0\" 200 2326 "
+                + "\"http://www.example.com/start.html\" \"Mozilla/4.08 [en] (Win98; I ;Nav)\"");
+
+        assertEquals("127.0.0.1", parsed.get("clientip"));
+        assertEquals("frank", parsed.get("auth"));
+        assertEquals("10/Oct/2000:13:55:36 -0700", parsed.get("timestamp"));
+        assertEquals("GET", parsed.get("verb"));
+        assertEquals("/apache_pb.gif", parsed.get("request"));
+        assertEquals("200", parsed.get("response"));
+        assertEquals("2326", parsed.get("bytes"));
+        assertEquals("\"Mozilla/4.08 [en] (Win98; I ;Nav)\"", parsed.get("agent"));
+    }
+
+    @Test
+    public void testFieldsNotValidAsGroupNames() {
+        final Map<String, Object> parsed = Grok.compile(
+            "(\\w+) %{TIMESTAMP_ISO8601:log.time} \\[%{DATA:thread_name}\\] %{LOGLEVEL:level} %{GREEDYDATA:msg}")
+                                               .match("app 2024-01-02 03:04:05.678 [main] WARN hello world");
+
+        assertEquals(
+            Map.of("log.time", "2024-01-02 03:04:05.678", "thread_name", "main", "level", "WARN", "msg", "hello world"),
+            parsed
+        );
+    }
+
+    @Test
+    public void testMismatch() {
+        assertNull(Grok.compile("%{IP:ip}").match("localhost"));
+    }
+
+    @Test
+    public void testUnknownPattern() {
+        assertThrows(IllegalArgumentException.class, () -> Grok.compile("%{UNKNOWN:field}"));
+    }
+}
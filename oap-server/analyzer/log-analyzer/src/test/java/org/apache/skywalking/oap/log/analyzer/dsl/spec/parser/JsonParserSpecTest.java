@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.log.analyzer.dsl.spec.parser;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.skywalking.oap.log.analyzer.provider.LogAnalyzerModuleConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JsonParserSpecTest {
+    private static final String JSON =
+        "{\"service\":\"svc\",\"body\":{\"a\":[1,2,{\"b\":\"c\"}]},\"level\":\"INFO\",\"tags\":{\"k\":\"v\"},\"broken\":";
+
+    @Test
+    public void testParseAllFields() throws Exception {
+        final JsonParserSpec spec = new JsonParserSpec(null, new LogAnalyzerModuleConfig());
+
+        assertEquals(
+            Map.of("service", "svc", "tags", Map.of("k", "v")),
+            spec.parse("{\"service\":\"svc\",\"tags\":{\"k\":\"v\"}}")
+        );
+    }
+
+    @Test
+    public void testParseGivenFields() throws Exception {
+        final JsonParserSpec spec = new JsonParserSpec(null, new LogAnalyzerModuleConfig());
+        spec.fields("level", "body", "missing");
+
+        // The rest of the log is read when some of the fields are missing.
+        assertThrows(Exception.class, () -> spec.parse(JSON));
+
+        spec.fields("level", "body");
+        assertEquals(Map.of("level", "INFO", "body", Map.of("a", List.of(1, 2, Map.of("b", "c")))), spec.parse(JSON));
+    }
+
+    @Test
+    public void testResetFields() throws Exception {
+        final JsonParserSpec spec = new JsonParserSpec(null, new LogAnalyzerModuleConfig());
+        spec.fields("service");
+        assertEquals(Map.of("service", "svc"), spec.parse("{\"service\":\"svc\",\"level\":\"INFO\"}"));
+
+        spec.resetFields();
+        assertEquals(Map.of("service", "svc", "level", "INFO"), spec.parse("{\"service\":\"svc\",\"level\":\"INFO\"}"));
+
+        // Another thread doesn't see the fields of this thread.
+        spec.fields("service");
+        final AtomicReference<Map<String, Object>> parsed = new AtomicReference<>();
+        final Thread thread = new Thread(() -> {
+            try {
+                parsed.set(spec.parse("{\"service\":\"svc\",\"level\":\"INFO\"}"));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        thread.start();
+        thread.join();
+        assertEquals(Map.of("service", "svc", "level", "INFO"), parsed.get());
+    }
+}
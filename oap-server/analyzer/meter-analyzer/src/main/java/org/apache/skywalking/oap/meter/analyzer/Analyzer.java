@@ -29,6 +29,7 @@ import java.util.Objects;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
@@ -95,6 +96,7 @@ public class Analyzer {
         return analyzer;
     }
 
+    @Getter
     private List<String> samples;
 
     private final String metricName;
@@ -23,6 +23,7 @@ import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import io.vavr.control.Try;
 import java.util.List;
+import java.util.Set;
 import java.util.StringJoiner;
 import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
@@ -35,6 +36,7 @@ import org.apache.skywalking.oap.meter.analyzer.dsl.SampleFamily;
 import org.apache.skywalking.oap.server.core.analysis.meter.MeterSystem;
 
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 
 /**
  * MetricConvert converts {@link SampleFamily} collection to meter-system metrics, then store them to backend storage.
@@ -79,7 +81,10 @@ public class MetricConvert {
         );
     }
 
-    private String formatExp(final String expPrefix, String expSuffix, String exp) {
+    /**
+     * @return the expression of a metrics rule, with the expPrefix and expSuffix of the rule file.
+     */
+    public static String formatExp(final String expPrefix, String expSuffix, String exp) {
         String ret = exp;
         if (!Strings.isNullOrEmpty(expPrefix)) {
             ret = String.format("(%s.%s)", StringUtils.substringBefore(exp, "."), expPrefix);
@@ -94,6 +99,14 @@ public class MetricConvert {
         return ret;
     }
 
+    /**
+     * @return the names of the sample families referred by the expressions of the rule. The other sample families are
+     * ignored by {@link #toMeter(ImmutableMap)}.
+     */
+    public Set<String> getSampleNames() {
+        return analyzers.stream().flatMap(analyzer -> analyzer.getSamples().stream()).collect(toSet());
+    }
+
     /**
      * toMeter transforms {@link SampleFamily} collection  to meter-system metrics.
      *
@@ -19,6 +19,7 @@
 package org.apache.skywalking.oap.meter.analyzer.dsl;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import groovy.lang.Binding;
 import groovy.lang.GroovyShell;
 import groovy.util.DelegatingScript;
@@ -42,6 +43,15 @@ import org.codehaus.groovy.control.customizers.SecureASTCustomizer;
  * DSL combines methods to parse groovy based DSL expression.
  */
 public final class DSL {
+    /**
+     * The classes imported into the expressions.
+     */
+    static final Map<String, Class<?>> IMPORTS = ImmutableMap.of(
+        "K8sRetagType", K8sRetagType.class,
+        "DetectPoint", DetectPoint.class,
+        "Layer", Layer.class,
+        "ProcessRegistry", ProcessRegistry.class
+    );
 
     /**
      * Parse string literal to Expression object, which can be reused.
@@ -51,13 +61,29 @@ public final class DSL {
      * @return Expression object could be executed.
      */
     public static Expression parse(final String metricName, final String expression) {
+        return parse(metricName, expression, true);
+    }
+
+    /**
+     * Parse string literal to Expression object, which can be reused.
+     *
+     * @param metricName the name of metric defined in mal rule
+     * @param expression string literal represents the DSL expression.
+     * @param compile    false to run the expression as Groovy script, even if it could be compiled.
+     * @return Expression object could be executed.
+     * @since 10.1.0
+     */
+    public static Expression parse(final String metricName, final String expression, final boolean compile) {
+        GroovyShell sh = newShell();
+        DelegatingScript script = (DelegatingScript) sh.parse(expression);
+        return new Expression(metricName, expression, script, compile ? sh : null);
+    }
+
+    private static GroovyShell newShell() {
         CompilerConfiguration cc = new CompilerConfiguration();
         cc.setScriptBaseClass(DelegatingScript.class.getName());
         ImportCustomizer icz = new ImportCustomizer();
-        icz.addImport("K8sRetagType", K8sRetagType.class.getName());
-        icz.addImport("DetectPoint", DetectPoint.class.getName());
-        icz.addImport("Layer", Layer.class.getName());
-        icz.addImport("ProcessRegistry", ProcessRegistry.class.getName());
+        IMPORTS.forEach((alias, clazz) -> icz.addImport(alias, clazz.getName()));
         cc.addCompilationCustomizers(icz);
 
         final SecureASTCustomizer secureASTCustomizer = new SecureASTCustomizer();
@@ -81,8 +107,6 @@ public final class DSL {
                 .build());
         cc.addCompilationCustomizers(secureASTCustomizer);
 
-        GroovyShell sh = new GroovyShell(new Binding(), cc);
-        DelegatingScript script = (DelegatingScript) sh.parse(expression);
-        return new Expression(metricName, expression, script);
+        return new GroovyShell(new Binding(), cc);
     }
 }
@@ -19,8 +19,10 @@
 package org.apache.skywalking.oap.meter.analyzer.dsl;
 
 import com.google.common.collect.ImmutableMap;
+import groovy.lang.Closure;
 import groovy.lang.ExpandoMetaClass;
 import groovy.lang.GroovyObjectSupport;
+import groovy.lang.GroovyShell;
 import groovy.util.DelegatingScript;
 import java.time.Instant;
 import java.util.Map;
@@ -30,6 +32,9 @@ import lombok.extern.slf4j.Slf4j;
 
 /**
  * Expression is a reusable monadic container type which represents a DSL expression.
+ *
+ * The expression runs through the nodes compiled by {@link ExpressionCompiler} when it's in the supported syntax, or
+ * as the Groovy script.
  */
 @Slf4j
 @ToString(of = {"literal"})
@@ -42,11 +47,40 @@ public class Expression {
 
     private final DelegatingScript expression;
 
+    private final ExpressionDelegate delegate;
+
+    /**
+     * The compiled expression, or null if it runs as the Groovy script.
+     */
+    private final ExpressionCompiler.CompiledExpression compiled;
+
     public Expression(final String metricName, final String literal, final DelegatingScript expression) {
+        this(metricName, literal, expression, null);
+    }
+
+    /**
+     * @param shell the shell parsed the script, to parse the closures of the compiled expression. Null means the
+     *              expression always runs as the Groovy script.
+     */
+    Expression(final String metricName, final String literal, final DelegatingScript expression,
+               final GroovyShell shell) {
         this.metricName = metricName;
         this.literal = literal;
         this.expression = expression;
+        this.delegate = new ExpressionDelegate(metricName, literal);
         this.empower();
+        this.compiled = shell == null ? null : ExpressionCompiler.compile(metricName, literal, source -> {
+            DelegatingScript closureScript = (DelegatingScript) shell.parse("return " + source);
+            closureScript.setDelegate(delegate);
+            return (Closure<?>) closureScript.run();
+        });
+    }
+
+    /**
+     * @return true if the expression runs through the compiled nodes rather than the Groovy script.
+     */
+    boolean isCompiled() {
+        return compiled != null;
     }
 
     /**
@@ -76,9 +110,12 @@ public class Expression {
      * @return The result of execution.
      */
     public Result run(final Map<String, SampleFamily> sampleFamilies) {
-        PROPERTY_REPOSITORY.set(sampleFamilies);
+        final boolean delegating = compiled == null || compiled.hasClosure;
+        if (delegating) {
+            PROPERTY_REPOSITORY.set(sampleFamilies);
+        }
         try {
-            SampleFamily sf = (SampleFamily) expression.run();
+            SampleFamily sf = compiled == null ? (SampleFamily) expression.run() : compiled.run(sampleFamilies);
             if (sf == SampleFamily.EMPTY) {
                 if (!ExpressionParsingContext.get().isPresent()) {
                     if (log.isDebugEnabled()) {
@@ -92,12 +129,14 @@ public class Expression {
             log.error("failed to run \"{}\"", literal, t);
             return Result.fail(t);
         } finally {
-            PROPERTY_REPOSITORY.remove();
+            if (delegating) {
+                PROPERTY_REPOSITORY.remove();
+            }
         }
     }
 
     private void empower() {
-        expression.setDelegate(new ExpressionDelegate(metricName, literal));
+        expression.setDelegate(delegate);
         extendNumber(Number.class);
     }
 
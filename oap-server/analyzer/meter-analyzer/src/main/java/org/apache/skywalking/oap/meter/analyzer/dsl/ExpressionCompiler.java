@@ -0,0 +1,629 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.meter.analyzer.dsl;
+
+import groovy.lang.Closure;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.expr.ArgumentListExpression;
+import org.codehaus.groovy.ast.expr.BinaryExpression;
+import org.codehaus.groovy.ast.expr.ClosureExpression;
+import org.codehaus.groovy.ast.expr.ConstantExpression;
+import org.codehaus.groovy.ast.expr.ListExpression;
+import org.codehaus.groovy.ast.expr.MethodCallExpression;
+import org.codehaus.groovy.ast.expr.PropertyExpression;
+import org.codehaus.groovy.ast.expr.UnaryMinusExpression;
+import org.codehaus.groovy.ast.expr.VariableExpression;
+import org.codehaus.groovy.ast.stmt.BlockStatement;
+import org.codehaus.groovy.ast.stmt.ExpressionStatement;
+import org.codehaus.groovy.ast.stmt.ReturnStatement;
+import org.codehaus.groovy.ast.stmt.Statement;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.runtime.typehandling.NumberMath;
+import org.codehaus.groovy.syntax.Types;
+
+/**
+ * ExpressionCompiler compiles the AST of a MAL expression into a tree of nodes calling the {@link SampleFamily}
+ * operations directly. The samples are read from the map passed in rather than through the Groovy property lookup, the
+ * methods are resolved once by the static types of their arguments, and the constant arguments are built once. So the
+ * evaluation has no Groovy dynamic dispatch and no {@link Expression} thread local, except in the closure arguments.
+ *
+ * The closure arguments, such as {@code tag({tags -> ...})}, are still Groovy closures. They are parsed through the same
+ * shell and delegate as the script of the expression, and created once at compiling.
+ *
+ * The expressions out of the supported syntax, such as the statements, string operations, static method calls or the
+ * methods not found by the static types, are not compiled, and keep running as Groovy scripts.
+ *
+ * @since 10.1.0
+ */
+@Slf4j
+final class ExpressionCompiler {
+    private static final Map<String, DownsamplingType> DOWNSAMPLING_TYPES = Map.of(
+        "AVG", DownsamplingType.AVG,
+        "SUM", DownsamplingType.SUM,
+        "LATEST", DownsamplingType.LATEST,
+        "SUM_PER_MIN", DownsamplingType.SUM_PER_MIN,
+        "MAX", DownsamplingType.MAX,
+        "MIN", DownsamplingType.MIN
+    );
+
+    private final String metricName;
+    private final String literal;
+    private final String[] lines;
+    /**
+     * Create the closure of the closure expression source, or null if closures are not supported.
+     */
+    private final Function<String, Closure<?>> closureFactory;
+    private boolean hasClosure;
+
+    private ExpressionCompiler(String metricName, String literal, Function<String, Closure<?>> closureFactory) {
+        this.metricName = metricName;
+        this.literal = literal;
+        this.lines = literal.split("\n", -1);
+        this.closureFactory = closureFactory;
+    }
+
+    /**
+     * @param closureFactory creates the closure of the closure expression source, null if closures are not supported.
+     * @return the compiled expression, or null if the expression is out of the supported syntax.
+     */
+    static CompiledExpression compile(String metricName,
+                                      String literal,
+                                      Function<String, Closure<?>> closureFactory) {
+        final ExpressionCompiler compiler = new ExpressionCompiler(metricName, literal, closureFactory);
+        try {
+            final Node root = compiler.compileScript();
+            if (!SampleFamily.class.isAssignableFrom(root.type)) {
+                throw new UnsupportedExpressionException("the result is not a sample family");
+            }
+            return new CompiledExpression(root, compiler.hasClosure);
+        } catch (UnsupportedExpressionException | CompilationFailedException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("\"{}\" is not compiled and runs as Groovy script, {}", literal, e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    private Node compileScript() {
+        final CompilationUnit unit = new CompilationUnit(new CompilerConfiguration());
+        unit.addSource("Script1.groovy", literal);
+        unit.compile(Phases.CONVERSION);
+        final ModuleNode module = unit.getAST().getModules().get(0);
+        if (module.getClasses().size() > 1 || !module.getMethods().isEmpty()) {
+            throw new UnsupportedExpressionException("classes or methods are declared");
+        }
+        final BlockStatement block = module.getStatementBlock();
+        if (block.getStatements().size() != 1) {
+            throw new UnsupportedExpressionException("only one expression statement is supported");
+        }
+        final Statement statement = block.getStatements().get(0);
+        if (statement instanceof ExpressionStatement) {
+            return compile(((ExpressionStatement) statement).getExpression());
+        }
+        if (statement instanceof ReturnStatement) {
+            return compile(((ReturnStatement) statement).getExpression());
+        }
+        throw new UnsupportedExpressionException("unsupported statement " + statement.getText());
+    }
+
+    private Node compile(org.codehaus.groovy.ast.expr.Expression expression) {
+        if (expression instanceof ConstantExpression) {
+            final Object value = ((ConstantExpression) expression).getValue();
+            if (value instanceof Number || value instanceof String) {
+                return constant(value);
+            }
+            throw new UnsupportedExpressionException("unsupported constant " + expression.getText());
+        }
+        if (expression instanceof VariableExpression) {
+            return compileVariable((VariableExpression) expression);
+        }
+        if (expression instanceof PropertyExpression) {
+            return compileProperty((PropertyExpression) expression);
+        }
+        if (expression instanceof ListExpression) {
+            return compileList((ListExpression) expression);
+        }
+        if (expression instanceof ClosureExpression) {
+            return compileClosure((ClosureExpression) expression);
+        }
+        if (expression instanceof UnaryMinusExpression) {
+            return compileNegative(compile(((UnaryMinusExpression) expression).getExpression()));
+        }
+        if (expression instanceof BinaryExpression) {
+            return compileBinary((BinaryExpression) expression);
+        }
+        if (expression instanceof MethodCallExpression) {
+            return compileMethodCall((MethodCallExpression) expression);
+        }
+        throw new UnsupportedExpressionException("unsupported expression " + expression.getText());
+    }
+
+    private Node compileVariable(VariableExpression expression) {
+        final String name = expression.getName();
+        final DownsamplingType downsamplingType = DOWNSAMPLING_TYPES.get(name);
+        if (downsamplingType != null) {
+            return constant(downsamplingType);
+        }
+        if (DSL.IMPORTS.containsKey(name) || "this".equals(name) || "super".equals(name)) {
+            throw new UnsupportedExpressionException("unsupported variable " + name);
+        }
+        return new SampleNode(name, metricName, literal);
+    }
+
+    private Node compileProperty(PropertyExpression expression) {
+        if (!(expression.getObjectExpression() instanceof VariableExpression)
+            || !(expression.getProperty() instanceof ConstantExpression)
+            || expression.isSafe() || expression.isSpreadSafe()) {
+            throw new UnsupportedExpressionException("unsupported property " + expression.getText());
+        }
+        final Class<?> clazz = DSL.IMPORTS.get(((VariableExpression) expression.getObjectExpression()).getName());
+        if (clazz == null || !clazz.isEnum()) {
+            throw new UnsupportedExpressionException("unsupported property " + expression.getText());
+        }
+        final String name = expression.getPropertyAsString();
+        for (final Object constant : clazz.getEnumConstants()) {
+            if (((Enum<?>) constant).name().equals(name)) {
+                return constant(constant);
+            }
+        }
+        throw new UnsupportedExpressionException("unknown enum constant " + expression.getText());
+    }
+
+    private Node compileList(ListExpression expression) {
+        final List<Object> values = new ArrayList<>(expression.getExpressions().size());
+        for (final org.codehaus.groovy.ast.expr.Expression element : expression.getExpressions()) {
+            final Node node = compile(element);
+            if (!node.isConstant()) {
+                throw new UnsupportedExpressionException("only the constant list is supported " + expression.getText());
+            }
+            values.add(node.eval(null));
+        }
+        return constant(Collections.unmodifiableList(values));
+    }
+
+    private Node compileClosure(ClosureExpression expression) {
+        if (closureFactory == null) {
+            throw new UnsupportedExpressionException("closures are not supported");
+        }
+        final String source = sourceOf(expression);
+        if (!source.startsWith("{") || !source.endsWith("}")) {
+            throw new UnsupportedExpressionException("failed to locate the closure " + expression.getText());
+        }
+        final Closure<?> closure;
+        try {
+            closure = closureFactory.apply(source);
+        } catch (RuntimeException e) {
+            throw new UnsupportedExpressionException("failed to create the closure " + source);
+        }
+        hasClosure = true;
+        return constant(closure, Closure.class);
+    }
+
+    private Node compileNegative(Node operand) {
+        if (SampleFamily.class.isAssignableFrom(operand.type)) {
+            return new Node(SampleFamily.class, operand.isConstant()) {
+                @Override
+                Object eval(Map<String, SampleFamily> samples) {
+                    return ((SampleFamily) operand.eval(samples)).negative();
+                }
+            };
+        }
+        if (Number.class.isAssignableFrom(operand.type)) {
+            return number(operand, samples -> NumberMath.subtract(0, (Number) operand.eval(samples)));
+        }
+        throw new UnsupportedExpressionException("unsupported negative of " + operand.type.getSimpleName());
+    }
+
+    private Node compileBinary(BinaryExpression expression) {
+        final int operation = expression.getOperation().getType();
+        if (operation != Types.PLUS && operation != Types.MINUS
+            && operation != Types.MULTIPLY && operation != Types.DIVIDE) {
+            throw new UnsupportedExpressionException("unsupported operator " + expression.getOperation().getText());
+        }
+        final Node left = compile(expression.getLeftExpression());
+        final Node right = compile(expression.getRightExpression());
+        final boolean leftSF = SampleFamily.class.isAssignableFrom(left.type);
+        final boolean rightSF = SampleFamily.class.isAssignableFrom(right.type);
+        final boolean leftNumber = Number.class.isAssignableFrom(left.type);
+        final boolean rightNumber = Number.class.isAssignableFrom(right.type);
+
+        if (leftNumber && rightNumber) {
+            return arithmetic(left, right, operation);
+        }
+        if (leftSF && (rightSF || rightNumber)) {
+            return methodCall(left, methodOfOperator(operation), Collections.singletonList(right));
+        }
+        if (leftNumber && rightSF) {
+            // The number extensions registered by Expression#extendNumber.
+            switch (operation) {
+                case Types.PLUS:
+                    return sampleFamily(right, left, (s, n) -> s.plus(n));
+                case Types.MINUS:
+                    return sampleFamily(right, left, (s, n) -> s.minus(n).negative());
+                case Types.MULTIPLY:
+                    return sampleFamily(right, left, (s, n) -> s.multiply(n));
+                default:
+                    return sampleFamily(right, left, (s, n) -> s.newValue(v -> n.doubleValue() / v));
+            }
+        }
+        throw new UnsupportedExpressionException(
+            "unsupported operands of " + expression.getText() + ", " + left.type.getSimpleName() + " and "
+                + right.type.getSimpleName());
+    }
+
+    private Node compileMethodCall(MethodCallExpression expression) {
+        if (expression.isSafe() || expression.isSpreadSafe() || !(expression.getArguments() instanceof ArgumentListExpression)) {
+            throw new UnsupportedExpressionException("unsupported method call " + expression.getText());
+        }
+        final String method = expression.getMethodAsString();
+        if (method == null) {
+            throw new UnsupportedExpressionException("unsupported dynamic method name " + expression.getText());
+        }
+        final List<org.codehaus.groovy.ast.expr.Expression> arguments =
+            ((ArgumentListExpression) expression.getArguments()).getExpressions();
+        if (expression.isImplicitThis()) {
+            // The methods of the delegate of the script.
+            if ("time".equals(method) && arguments.isEmpty()) {
+                return number(null, samples -> Instant.now().getEpochSecond());
+            }
+            throw new UnsupportedExpressionException("unsupported function " + expression.getText());
+        }
+        final Node target = compile(expression.getObjectExpression());
+        final List<Node> args = new ArrayList<>(arguments.size());
+        for (final org.codehaus.groovy.ast.expr.Expression argument : arguments) {
+            args.add(compile(argument));
+        }
+        return methodCall(target, method, args);
+    }
+
+    private Node methodCall(Node target, String name, List<Node> args) {
+        if (!SampleFamily.class.isAssignableFrom(target.type)) {
+            throw new UnsupportedExpressionException("unsupported method " + name + " of " + target.type.getSimpleName());
+        }
+        Method found = null;
+        Node[] foundArgs = null;
+        for (final Method method : SampleFamily.class.getMethods()) {
+            if (!method.getName().equals(name) || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            final Node[] matched = match(method, args);
+            if (matched == null) {
+                continue;
+            }
+            if (found != null) {
+                throw new UnsupportedExpressionException("ambiguous method " + name + " of " + args.size() + " arguments");
+            }
+            found = method;
+            foundArgs = matched;
+        }
+        if (found == null) {
+            throw new UnsupportedExpressionException("method " + name + " of " + args.size() + " arguments is not found");
+        }
+        return new MethodCallNode(found, target, foundArgs);
+    }
+
+    /**
+     * @return the nodes of the parameters, with the trailing arguments of the array parameter collected into one, or
+     * null if the arguments don't match the method.
+     */
+    private static Node[] match(Method method, List<Node> args) {
+        final Class<?>[] parameters = method.getParameterTypes();
+        final Node[] matched = new Node[parameters.length];
+        final int last = parameters.length - 1;
+        final boolean varargs = last >= 0 && parameters[last].isArray();
+        if (!(args.size() == parameters.length || varargs && args.size() >= last)) {
+            return null;
+        }
+        for (int i = 0; i < parameters.length; i++) {
+            if (i == last && varargs && !(args.size() == parameters.length && accepts(parameters[i], args.get(i)))) {
+                final Node array = arrayOf(parameters[i].getComponentType(), args.subList(last, args.size()));
+                if (array == null) {
+                    return null;
+                }
+                matched[i] = array;
+                continue;
+            }
+            if (!accepts(parameters[i], args.get(i))) {
+                return null;
+            }
+            matched[i] = args.get(i);
+        }
+        return matched;
+    }
+
+    private static boolean accepts(Class<?> parameter, Node arg) {
+        if (parameter == double.class || parameter == Double.class) {
+            return Number.class.isAssignableFrom(arg.type);
+        }
+        return !parameter.isPrimitive() && parameter.isAssignableFrom(arg.type);
+    }
+
+    private static Node arrayOf(Class<?> componentType, List<Node> elements) {
+        final Object array = Array.newInstance(componentType, elements.size());
+        for (int i = 0; i < elements.size(); i++) {
+            final Node element = elements.get(i);
+            if (!element.isConstant() || !componentType.isAssignableFrom(element.type)) {
+                return null;
+            }
+            Array.set(array, i, element.eval(null));
+        }
+        return constant(array, array.getClass());
+    }
+
+    private static String methodOfOperator(int operation) {
+        switch (operation) {
+            case Types.PLUS:
+                return "plus";
+            case Types.MINUS:
+                return "minus";
+            case Types.MULTIPLY:
+                return "multiply";
+            default:
+                return "div";
+        }
+    }
+
+    private static Node arithmetic(Node left, Node right, int operation) {
+        switch (operation) {
+            case Types.PLUS:
+                return arithmetic(left, right, samples -> NumberMath.add(
+                    (Number) left.eval(samples), (Number) right.eval(samples)));
+            case Types.MINUS:
+                return arithmetic(left, right, samples -> NumberMath.subtract(
+                    (Number) left.eval(samples), (Number) right.eval(samples)));
+            case Types.MULTIPLY:
+                return arithmetic(left, right, samples -> NumberMath.multiply(
+                    (Number) left.eval(samples), (Number) right.eval(samples)));
+            default:
+                return arithmetic(left, right, samples -> NumberMath.divide(
+                    (Number) left.eval(samples), (Number) right.eval(samples)));
+        }
+    }
+
+    /**
+     * Calculate the numbers the same as Groovy does, folded if both are constant.
+     */
+    private static Node arithmetic(Node left, Node right, Function<Map<String, SampleFamily>, Number> operation) {
+        if (left.isConstant() && right.isConstant()) {
+            return constant(operation.apply(null));
+        }
+        return number(null, operation);
+    }
+
+    /**
+     * @param operand the only operand, to fold the constant, or null if it's not foldable.
+     */
+    private static Node number(Node operand, Function<Map<String, SampleFamily>, Number> operation) {
+        if (operand != null && operand.isConstant()) {
+            return constant(operation.apply(null));
+        }
+        return new Node(Number.class, false) {
+            @Override
+            Object eval(Map<String, SampleFamily> samples) {
+                return operation.apply(samples);
+            }
+        };
+    }
+
+    private static Node sampleFamily(Node sampleFamily, Node number,
+                                     BiFunction<SampleFamily, Number, SampleFamily> operation) {
+        return new Node(SampleFamily.class, false) {
+            @Override
+            Object eval(Map<String, SampleFamily> samples) {
+                final Number n = (Number) number.eval(samples);
+                return operation.apply((SampleFamily) sampleFamily.eval(samples), n);
+            }
+        };
+    }
+
+    private static Node constant(Object value) {
+        return constant(value, value.getClass());
+    }
+
+    private static Node constant(Object value, Class<?> type) {
+        return new Node(type, true) {
+            @Override
+            Object eval(Map<String, SampleFamily> samples) {
+                return value;
+            }
+        };
+    }
+
+    private String sourceOf(org.codehaus.groovy.ast.ASTNode node) {
+        if (node.getLineNumber() < 1 || node.getLastLineNumber() > lines.length) {
+            return "";
+        }
+        final StringBuilder source = new StringBuilder();
+        for (int line = node.getLineNumber(); line <= node.getLastLineNumber(); line++) {
+            final String text = lines[line - 1];
+            final int from = line == node.getLineNumber() ? node.getColumnNumber() - 1 : 0;
+            final int to = line == node.getLastLineNumber() ? node.getLastColumnNumber() - 1 : text.length();
+            if (from < 0 || to > text.length() || from > to) {
+                return "";
+            }
+            if (source.length() > 0) {
+                source.append('\n');
+            }
+            source.append(text, from, to);
+        }
+        return source.toString().trim();
+    }
+
+    /**
+     * CompiledExpression is the root of the compiled nodes of an expression.
+     */
+    static final class CompiledExpression {
+        private final Node root;
+        /**
+         * The closures could refer to the samples through the delegate of the script, which reads the thread local.
+         */
+        final boolean hasClosure;
+
+        private CompiledExpression(Node root, boolean hasClosure) {
+            this.root = root;
+            this.hasClosure = hasClosure;
+        }
+
+        SampleFamily run(Map<String, SampleFamily> sampleFamilies) {
+            return (SampleFamily) root.eval(sampleFamilies);
+        }
+    }
+
+    private abstract static class Node {
+        private final Class<?> type;
+        private final boolean constant;
+
+        private Node(Class<?> type, boolean constant) {
+            this.type = type;
+            this.constant = constant;
+        }
+
+        boolean isConstant() {
+            return constant;
+        }
+
+        abstract Object eval(Map<String, SampleFamily> samples);
+    }
+
+    /**
+     * SampleNode reads the sample family from the map passed in, the same as {@code ExpressionDelegate#propertyMissing}
+     * does.
+     */
+    private static final class SampleNode extends Node {
+        private final String name;
+        private final String metricName;
+        private final String literal;
+
+        private SampleNode(String name, String metricName, String literal) {
+            super(SampleFamily.class, false);
+            this.name = name;
+            this.metricName = metricName;
+            this.literal = literal;
+        }
+
+        @Override
+        Object eval(Map<String, SampleFamily> samples) {
+            final ExpressionParsingContext ctx = ExpressionParsingContext.get().orElse(null);
+            if (ctx != null && !ctx.samples.contains(name)) {
+                ctx.samples.add(name);
+            }
+            final SampleFamily sampleFamily = samples == null ? null : samples.get(name);
+            if (sampleFamily == null) {
+                if (samples != null && ctx == null) {
+                    log.warn("{} referred by \"{}\" doesn't exist in {}", name, literal, samples.keySet());
+                }
+                return SampleFamily.EMPTY;
+            }
+            sampleFamily.context.setMetricName(metricName);
+            return sampleFamily;
+        }
+    }
+
+    private static final class MethodCallNode extends Node {
+        private final MethodHandle handle;
+        private final Node target;
+        private final Node[] args;
+        /**
+         * The values of the constant arguments, converted to the parameter types.
+         */
+        private final Object[] constants;
+        private final boolean allConstant;
+        private final Class<?>[] parameters;
+
+        private MethodCallNode(Method method, Node target, Node[] args) {
+            super(method.getReturnType(), false);
+            try {
+                this.handle = MethodHandles.publicLookup()
+                                           .unreflect(method)
+                                           .asFixedArity()
+                                           .asSpreader(Object[].class, args.length)
+                                           .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+            } catch (IllegalAccessException e) {
+                throw new UnsupportedExpressionException("method " + method + " is not accessible");
+            }
+            this.target = target;
+            this.args = args;
+            this.constants = new Object[args.length];
+            boolean allConstant = true;
+            this.parameters = method.getParameterTypes();
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].isConstant()) {
+                    constants[i] = convert(parameters[i], args[i].eval(null));
+                } else {
+                    allConstant = false;
+                }
+            }
+            this.allConstant = allConstant;
+        }
+
+        @Override
+        Object eval(Map<String, SampleFamily> samples) {
+            final Object receiver = target.eval(samples);
+            Object[] values = constants;
+            if (!allConstant) {
+                values = constants.clone();
+                for (int i = 0; i < args.length; i++) {
+                    if (!args[i].isConstant()) {
+                        values[i] = convert(parameters[i], args[i].eval(samples));
+                    }
+                }
+            }
+            try {
+                return handle.invokeExact(receiver, values);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        /**
+         * Groovy converts the numbers to the double parameters, such as {@link SampleFamily#valueEqual(double)}.
+         */
+        private static Object convert(Class<?> parameter, Object value) {
+            if ((parameter == double.class || parameter == Double.class) && value instanceof Number) {
+                return ((Number) value).doubleValue();
+            }
+            return value;
+        }
+    }
+
+    private static final class UnsupportedExpressionException extends RuntimeException {
+        private UnsupportedExpressionException(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.meter.analyzer.dsl;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LabelSetIndex groups the samples of a {@link SampleFamily} by the values of some label keys, without building the
+ * label map of every sample.
+ *
+ * The values of every key are interned into a dictionary, so the label set of a sample is a tuple of value codes.
+ * Every distinct tuple gets an id, in the order of first occurrence, and {@link #ids} is the label set id column of
+ * the samples, which the aggregations use to index their primitive accumulators.
+ */
+final class LabelSetIndex {
+    private final List<String> keys;
+    private final int width;
+    /**
+     * The value dictionary of every key, value to code.
+     */
+    private final Map<String, Integer>[] dictionaries;
+    /**
+     * The values of every key, code to value.
+     */
+    private final List<String>[] values;
+
+    /**
+     * The label set id of every sample.
+     */
+    final int[] ids;
+
+    /**
+     * The value codes of the label sets, {@link #width} codes a label set.
+     */
+    private int[] codes;
+    private int[] hashes;
+    private int[] firsts;
+    private int size;
+    /**
+     * Open addressing table of label set ids, shifted by one, so 0 is an empty slot.
+     */
+    private int[] table;
+
+    private ImmutableMap<String, String>[] labels;
+
+    @SuppressWarnings("unchecked")
+    LabelSetIndex(Sample[] samples, List<String> keys) {
+        this.keys = keys;
+        this.width = keys.size();
+        this.dictionaries = new Map[width];
+        this.values = new List[width];
+        for (int k = 0; k < width; k++) {
+            dictionaries[k] = new HashMap<>();
+            values[k] = new ArrayList<>();
+        }
+        this.ids = new int[samples.length];
+        this.codes = new int[16 * Math.max(width, 1)];
+        this.hashes = new int[16];
+        this.firsts = new int[16];
+        this.table = new int[32];
+
+        final int[] tuple = new int[width];
+        for (int i = 0; i < samples.length; i++) {
+            int hash = 1;
+            for (int k = 0; k < width; k++) {
+                tuple[k] = code(k, samples[i].labels.getOrDefault(keys.get(k), ""));
+                hash = 31 * hash + tuple[k];
+            }
+            ids[i] = idOf(tuple, hash, i);
+        }
+    }
+
+    /**
+     * @return the number of distinct label sets.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the index of the first sample of the label set.
+     */
+    int first(int id) {
+        return firsts[id];
+    }
+
+    /**
+     * The label set ids, in the iteration order of a {@link HashMap} keyed by the label maps, which is the order the
+     * grouped samples were emitted in when the operations grouped them by {@code Collectors.groupingBy}. Keeping the
+     * order keeps the results of the operations unchanged. The label maps are built here, one per label set.
+     */
+    @SuppressWarnings("unchecked")
+    int[] order() {
+        labels = new ImmutableMap[size];
+        final Map<ImmutableMap<String, String>, Integer> order = new HashMap<>();
+        for (int id = 0; id < size; id++) {
+            final ImmutableMap.Builder<String, String> builder = ImmutableMap.builderWithExpectedSize(width);
+            for (int k = 0; k < width; k++) {
+                builder.put(keys.get(k), values[k].get(codes[id * width + k]));
+            }
+            labels[id] = builder.build();
+            // computeIfAbsent, as groupingBy does, places the entries the same way.
+            final int label = id;
+            order.computeIfAbsent(labels[id], ignored -> label);
+        }
+        return order.values().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return the label map of the label set, available after {@link #order()}.
+     */
+    ImmutableMap<String, String> labels(int id) {
+        return labels[id];
+    }
+
+    private int code(int k, String value) {
+        final Integer code = dictionaries[k].get(value);
+        if (code != null) {
+            return code;
+        }
+        final int newCode = values[k].size();
+        dictionaries[k].put(value, newCode);
+        values[k].add(value);
+        return newCode;
+    }
+
+    private int idOf(int[] tuple, int hash, int sample) {
+        final int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        for (int id; (id = table[slot] - 1) >= 0; slot = (slot + 1) & mask) {
+            if (hashes[id] == hash && Arrays.equals(codes, id * width, id * width + width, tuple, 0, width)) {
+                return id;
+            }
+        }
+
+        final int id = size++;
+        if (id == firsts.length) {
+            firsts = Arrays.copyOf(firsts, id * 2);
+            hashes = Arrays.copyOf(hashes, id * 2);
+            codes = Arrays.copyOf(codes, id * 2 * width);
+        }
+        System.arraycopy(tuple, 0, codes, id * width, width);
+        hashes[id] = hash;
+        firsts[id] = sample;
+        table[slot] = id + 1;
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        final int mask = table.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+    }
+
+    private static int mix(int hash) {
+        final int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
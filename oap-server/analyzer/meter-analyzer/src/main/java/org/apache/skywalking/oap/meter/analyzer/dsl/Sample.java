@@ -19,15 +19,13 @@
 package org.apache.skywalking.oap.meter.analyzer.dsl;
 
 import com.google.common.collect.ImmutableMap;
-import io.vavr.Function2;
-import io.vavr.Tuple2;
-import java.time.Duration;
-import java.util.function.Function;
+import java.util.function.DoubleUnaryOperator;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
 import org.apache.skywalking.oap.meter.analyzer.dsl.counter.CounterWindow;
+import org.apache.skywalking.oap.meter.analyzer.dsl.counter.LowerBoundFunction;
 
 /**
  * Sample represents the metric data point in a range of time.
@@ -42,19 +40,17 @@ public class Sample {
     final double value;
     final long timestamp;
 
-    Sample newValue(Function<Double, Double> transform) {
-        return toBuilder().value(transform.apply(value)).build();
+    Sample newValue(DoubleUnaryOperator transform) {
+        return toBuilder().value(transform.applyAsDouble(value)).build();
     }
 
-    Sample increase(String range, String metricName, Function2<Double, Long, Double> transform) {
-        Tuple2<Long, Double> i = CounterWindow.INSTANCE.increase(metricName, labels, value, Duration.parse(range).toMillis(), timestamp);
-        double nv = transform.apply(i._2, i._1);
-        return newValue(ignored -> nv);
+    Sample increase(long windowSize, String metricName, LowerBoundFunction transform) {
+        double nv = CounterWindow.INSTANCE.increase(metricName, labels, value, windowSize, timestamp, transform);
+        return toBuilder().value(nv).build();
     }
 
-    Sample increase(String metricName, Function2<Double, Long, Double> transform) {
-        Tuple2<Long, Double> i = CounterWindow.INSTANCE.pop(metricName, labels, value, timestamp);
-        double nv = transform.apply(i._2, i._1);
-        return newValue(ignored -> nv);
+    Sample increase(String metricName, LowerBoundFunction transform) {
+        double nv = CounterWindow.INSTANCE.pop(metricName, labels, value, timestamp, transform);
+        return toBuilder().value(nv).build();
     }
 }
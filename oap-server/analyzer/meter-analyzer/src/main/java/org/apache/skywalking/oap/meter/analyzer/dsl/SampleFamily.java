@@ -39,18 +39,22 @@ import org.apache.skywalking.oap.server.core.analysis.Layer;
 import org.apache.skywalking.oap.server.core.analysis.meter.MeterEntity;
 import org.apache.skywalking.oap.server.core.analysis.meter.ScopeType;
 import org.apache.skywalking.oap.server.core.source.DetectPoint;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.DoubleSummaryStatistics;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import com.google.common.base.Preconditions;
@@ -58,8 +62,6 @@ import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import groovy.lang.Closure;
-import io.vavr.Function2;
-import io.vavr.Function3;
 import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
@@ -83,7 +85,22 @@ public class SampleFamily {
     static SampleFamily build(RunningContext ctx, Sample... samples) {
         Preconditions.checkNotNull(samples);
         Preconditions.checkArgument(samples.length > 0);
-        samples = Arrays.stream(samples).filter(sample -> !Double.isNaN(sample.getValue())).toArray(Sample[]::new);
+        int n = 0;
+        for (final Sample sample : samples) {
+            if (!Double.isNaN(sample.value)) {
+                n++;
+            }
+        }
+        if (n < samples.length) {
+            final Sample[] filtered = new Sample[n];
+            n = 0;
+            for (final Sample sample : samples) {
+                if (!Double.isNaN(sample.value)) {
+                    filtered[n++] = sample;
+                }
+            }
+            samples = filtered;
+        }
         if (samples.length == 0) {
             return EMPTY;
         }
@@ -100,44 +117,50 @@ public class SampleFamily {
 
     /* tag filter operations*/
     public SampleFamily tagEqual(String... labels) {
-        return match(labels, InternalOps::stringComp);
+        return match(labels, lv -> sv -> InternalOps.stringComp(sv, lv));
     }
 
     public SampleFamily tagNotEqual(String[] labels) {
-        return match(labels, (sv, lv) -> !InternalOps.stringComp(sv, lv));
+        return match(labels, lv -> sv -> !InternalOps.stringComp(sv, lv));
     }
 
     public SampleFamily tagMatch(String[] labels) {
-        return match(labels, String::matches);
+        return match(labels, lv -> {
+            final Pattern pattern = Pattern.compile(lv);
+            return sv -> pattern.matcher(sv).matches();
+        });
     }
 
     public SampleFamily tagNotMatch(String[] labels) {
-        return match(labels, (sv, lv) -> !sv.matches(lv));
+        return match(labels, lv -> {
+            final Pattern pattern = Pattern.compile(lv);
+            return sv -> !pattern.matcher(sv).matches();
+        });
     }
 
     /* value filter operations*/
     public SampleFamily valueEqual(double compValue) {
-        return valueMatch(CompType.EQUAL, compValue, InternalOps::doubleComp);
+        return valueMatch(CompType.EQUAL, compValue);
     }
 
     public SampleFamily valueNotEqual(double compValue) {
-        return valueMatch(CompType.NOT_EQUAL, compValue, InternalOps::doubleComp);
+        return valueMatch(CompType.NOT_EQUAL, compValue);
     }
 
     public SampleFamily valueGreater(double compValue) {
-        return valueMatch(CompType.GREATER, compValue, InternalOps::doubleComp);
+        return valueMatch(CompType.GREATER, compValue);
     }
 
     public SampleFamily valueGreaterEqual(double compValue) {
-        return valueMatch(CompType.GREATER_EQUAL, compValue, InternalOps::doubleComp);
+        return valueMatch(CompType.GREATER_EQUAL, compValue);
     }
 
     public SampleFamily valueLess(double compValue) {
-        return valueMatch(CompType.LESS, compValue, InternalOps::doubleComp);
+        return valueMatch(CompType.LESS, compValue);
     }
 
     public SampleFamily valueLessEqual(double compValue) {
-        return valueMatch(CompType.LESS_EQUAL, compValue, InternalOps::doubleComp);
+        return valueMatch(CompType.LESS_EQUAL, compValue);
     }
 
     /* Binary operator overloading*/
@@ -228,19 +251,20 @@ public class SampleFamily {
                 this.context, InternalOps.newSample(samples[0].name, ImmutableMap.of(), samples[0].timestamp, result));
         }
 
-        return SampleFamily.build(
-            this.context,
-            Arrays.stream(samples)
-                  .collect(groupingBy(it -> InternalOps.getLabels(by, it), mapping(identity(), toList())))
-                  .entrySet().stream()
-                  .map(entry -> InternalOps.newSample(
-                      entry.getValue().get(0).getName(),
-                      entry.getKey(),
-                      entry.getValue().get(0).getTimestamp(),
-                      entry.getValue().stream().mapToDouble(Sample::getValue).average().orElse(0.0D)
-                  ))
-                  .toArray(Sample[]::new)
-        );
+        final LabelSetIndex index = new LabelSetIndex(samples, by);
+        final DoubleSummaryStatistics[] statistics = new DoubleSummaryStatistics[index.size()];
+        for (int i = 0; i < samples.length; i++) {
+            final int id = index.ids[i];
+            if (statistics[id] == null) {
+                statistics[id] = new DoubleSummaryStatistics();
+            }
+            statistics[id].accept(samples[i].value);
+        }
+        final double[] results = new double[index.size()];
+        for (int id = 0; id < results.length; id++) {
+            results[id] = statistics[id].getAverage();
+        }
+        return SampleFamily.build(this.context, grouped(index, results));
     }
 
     public SampleFamily count(List<String> by) {
@@ -306,19 +330,27 @@ public class SampleFamily {
             return SampleFamily.build(
                 this.context, InternalOps.newSample(samples[0].name, ImmutableMap.of(), samples[0].timestamp, result));
         }
-        return SampleFamily.build(
-            this.context,
-            Arrays.stream(samples)
-                  .collect(groupingBy(it -> InternalOps.getLabels(by, it), mapping(identity(), toList())))
-                  .entrySet().stream()
-                  .map(entry -> InternalOps.newSample(
-                      entry.getValue().get(0).getName(),
-                      entry.getKey(),
-                      entry.getValue().get(0).getTimestamp(),
-                      entry.getValue().stream().mapToDouble(Sample::getValue).reduce(aggregator).orElse(0.0D)
-                  ))
-                  .toArray(Sample[]::new)
-        );
+        final LabelSetIndex index = new LabelSetIndex(samples, by);
+        final double[] results = new double[index.size()];
+        for (int i = 0; i < samples.length; i++) {
+            final int id = index.ids[i];
+            results[id] = index.first(id) == i ? samples[i].value : aggregator.applyAsDouble(results[id], samples[i].value);
+        }
+        return SampleFamily.build(this.context, grouped(index, results));
+    }
+
+    /**
+     * Build the samples of the label sets of the index, named and timestamped as their first samples.
+     */
+    private Sample[] grouped(LabelSetIndex index, double[] values) {
+        final int[] order = index.order();
+        final Sample[] grouped = new Sample[order.length];
+        for (int i = 0; i < order.length; i++) {
+            final int id = order[i];
+            final Sample first = samples[index.first(id)];
+            grouped[i] = InternalOps.newSample(first.name, index.labels(id), first.timestamp, values[id]);
+        }
+        return grouped;
     }
 
     /* Function */
@@ -327,11 +359,12 @@ public class SampleFamily {
         if (this == EMPTY) {
             return EMPTY;
         }
+        final long windowSize = Duration.parse(range).toMillis();
         return SampleFamily.build(
             this.context,
             Arrays.stream(samples)
                   .map(sample -> sample.increase(
-                      range,
+                      windowSize,
                       context.metricName,
                       (lowerBoundValue, unused) -> sample.value - lowerBoundValue
                   ))
@@ -344,11 +377,12 @@ public class SampleFamily {
         if (this == EMPTY) {
             return EMPTY;
         }
+        final long windowSize = Duration.parse(range).toMillis();
         return SampleFamily.build(
             this.context,
             Arrays.stream(samples)
                   .map(sample -> sample.increase(
-                      range,
+                      windowSize,
                       context.metricName,
                       (lowerBoundValue, lowerBoundTime) -> {
                           final long timeDiff = (sample.timestamp - lowerBoundTime) / 1000;
@@ -444,28 +478,34 @@ public class SampleFamily {
         if (this == EMPTY) {
             return EMPTY;
         }
-        return SampleFamily.build(
-            this.context,
-            Stream.concat(
-                Arrays.stream(samples).filter(s -> !s.labels.containsKey(le)),
-                Arrays.stream(samples)
-                      .filter(s -> s.labels.containsKey(le))
-                      .sorted(Comparator.comparingDouble(s -> Double.parseDouble(s.labels.get(le))))
-                      .map(s -> {
-                          double r = s.value;
-                          ImmutableMap<String, String> ll = ImmutableMap.<String, String>builder()
-                                                                        .putAll(Maps.filterKeys(s.labels,
-                                                                                                key -> !Objects.equals(
-                                                                                                    key, le)
-                                                                        ))
-                                                                        .put(
-                                                                            "le",
-                                                                            String.valueOf((long) ((Double.parseDouble(s.labels.get(le))) * scale)))
-                                                                        .build();
-                          return InternalOps.newSample(s.name, ll, s.timestamp, r);
-                      })
-            ).toArray(Sample[]::new)
-        );
+        final Sample[] result = new Sample[samples.length];
+        // Parse every bucket once, and sort the bucket indexes by them.
+        final double[] buckets = new double[samples.length];
+        final Integer[] order = new Integer[samples.length];
+        int n = 0;
+        int m = 0;
+        for (int i = 0; i < samples.length; i++) {
+            final String bucket = samples[i].labels.get(le);
+            if (bucket == null) {
+                result[n++] = samples[i];
+            } else {
+                buckets[i] = Double.parseDouble(bucket);
+                order[m++] = i;
+            }
+        }
+        Arrays.sort(order, 0, m, (a, b) -> Double.compare(buckets[a], buckets[b]));
+        for (int j = 0; j < m; j++) {
+            final Sample s = samples[order[j]];
+            final ImmutableMap.Builder<String, String> ll = ImmutableMap.builderWithExpectedSize(s.labels.size());
+            s.labels.forEach((key, value) -> {
+                if (!key.equals(le)) {
+                    ll.put(key, value);
+                }
+            });
+            ll.put("le", String.valueOf((long) (buckets[order[j]] * scale)));
+            result[n++] = InternalOps.newSample(s.name, ll.build(), s.timestamp, s.value);
+        }
+        return SampleFamily.build(this.context, result);
     }
 
     public SampleFamily histogram_percentile(List<Integer> percentiles) {
@@ -623,47 +663,76 @@ public class SampleFamily {
 
     private SampleFamily createMeterSamples(EntityDescription entityDescription) {
         Map<MeterEntity, Sample[]> meterSamples = new HashMap<>();
-        Arrays.stream(samples)
-              .collect(groupingBy(it -> InternalOps.getLabels(entityDescription.getLabelKeys(), it),
-                                  mapping(identity(), toList())
-              ))
-              .forEach((labels, samples) -> {
-                  MeterEntity meterEntity = InternalOps.buildMeterEntity(samples, entityDescription);
-                  meterSamples.put(
-                      meterEntity, InternalOps.left(samples, entityDescription.getLabelKeys()));
-              });
+        final LabelSetIndex index = new LabelSetIndex(samples, entityDescription.getLabelKeys());
+        // Lay the samples out grouped by their label sets, in their original order within every group.
+        final int[] offsets = new int[index.size() + 1];
+        for (final int id : index.ids) {
+            offsets[id + 1]++;
+        }
+        for (int id = 0; id < index.size(); id++) {
+            offsets[id + 1] += offsets[id];
+        }
+        final Sample[] grouped = new Sample[samples.length];
+        final int[] next = Arrays.copyOf(offsets, index.size());
+        for (int i = 0; i < samples.length; i++) {
+            grouped[next[index.ids[i]]++] = samples[i];
+        }
+        for (final int id : index.order()) {
+            final List<Sample> group = Arrays.asList(grouped).subList(offsets[id], offsets[id + 1]);
+            MeterEntity meterEntity = InternalOps.buildMeterEntity(group, entityDescription);
+            meterSamples.put(
+                meterEntity, InternalOps.left(group, entityDescription.getLabelKeys()));
+        }
 
         this.context.setMeterSamples(meterSamples);
         //This samples is original, The grouped samples is in context which mapping with MeterEntity
         return SampleFamily.build(this.context, samples);
     }
 
-    private SampleFamily match(String[] labels, Function2<String, String, Boolean> op) {
+    /**
+     * @param op creates the predicate of the label values from the expected value, once per expected value.
+     */
+    private SampleFamily match(String[] labels, Function<String, Predicate<String>> op) {
         Preconditions.checkArgument(labels.length % 2 == 0);
+        if (this == EMPTY) {
+            return EMPTY;
+        }
         Map<String, String> ll = new HashMap<>(labels.length / 2);
         for (int i = 0; i < labels.length; i += 2) {
             ll.put(labels[i], labels[i + 1]);
         }
-        Sample[] ss = Arrays.stream(samples)
-                            .filter(sample -> ll.entrySet()
-                                                .stream()
-                                                .allMatch(
-                                                    entry -> op.apply(sample.labels.getOrDefault(entry.getKey(), ""),
-                                                                      entry.getValue()
-                                                    )))
-                            .toArray(Sample[]::new);
-        return ss.length > 0 ? SampleFamily.build(this.context, ss) : EMPTY;
+        final String[] keys = new String[ll.size()];
+        final List<Predicate<String>> predicates = new ArrayList<>(ll.size());
+        for (final Map.Entry<String, String> entry : ll.entrySet()) {
+            keys[predicates.size()] = entry.getKey();
+            predicates.add(op.apply(entry.getValue()));
+        }
+        final Sample[] ss = new Sample[samples.length];
+        int n = 0;
+        for (final Sample sample : samples) {
+            boolean matched = true;
+            for (int k = 0; k < keys.length && matched; k++) {
+                matched = predicates.get(k).test(sample.labels.getOrDefault(keys[k], ""));
+            }
+            if (matched) {
+                ss[n++] = sample;
+            }
+        }
+        return n > 0 ? SampleFamily.build(this.context, Arrays.copyOf(ss, n)) : EMPTY;
     }
 
-    private SampleFamily valueMatch(CompType compType,
-                                    double compValue,
-                                    Function3<CompType, Double, Double, Boolean> op) {
-        Sample[] ss = Arrays.stream(samples)
-                            .filter(sample -> op.apply(compType, sample.value, compValue)).toArray(Sample[]::new);
-        return ss.length > 0 ? SampleFamily.build(this.context, ss) : EMPTY;
+    private SampleFamily valueMatch(CompType compType, double compValue) {
+        final Sample[] ss = new Sample[samples.length];
+        int n = 0;
+        for (final Sample sample : samples) {
+            if (InternalOps.doubleComp(compType, sample.value, compValue)) {
+                ss[n++] = sample;
+            }
+        }
+        return n > 0 ? SampleFamily.build(this.context, Arrays.copyOf(ss, n)) : EMPTY;
     }
 
-    SampleFamily newValue(Function<Double, Double> transform) {
+    SampleFamily newValue(DoubleUnaryOperator transform) {
         if (this == EMPTY) {
             return EMPTY;
         }
@@ -674,18 +743,24 @@ public class SampleFamily {
         return SampleFamily.build(this.context, ss);
     }
 
-    private SampleFamily newValue(SampleFamily another, Function2<Double, Double, Double> transform) {
-        Sample[] ss = Arrays.stream(samples)
-                            .flatMap(cs -> io.vavr.collection.Stream.of(another.samples)
-                                                                    .find(as -> cs.labels.equals(as.labels))
-                                                                    .map(as -> cs.toBuilder()
-                                                                                 .value(transform.apply(cs.value,
-                                                                                                        as.value
-                                                                                 )))
-                                                                    .map(Sample.SampleBuilder::build)
-                                                                    .toJavaStream())
-                            .toArray(Sample[]::new);
-        return ss.length > 0 ? SampleFamily.build(this.context, ss) : EMPTY;
+    /**
+     * Join the samples with the samples of another family having the same labels, the first of them if there are
+     * several, through a hash index of the other family.
+     */
+    private SampleFamily newValue(SampleFamily another, DoubleBinaryOperator transform) {
+        final Map<ImmutableMap<String, String>, Sample> index = new HashMap<>(another.samples.length * 2);
+        for (final Sample as : another.samples) {
+            index.putIfAbsent(as.labels, as);
+        }
+        final Sample[] ss = new Sample[samples.length];
+        int n = 0;
+        for (final Sample cs : samples) {
+            final Sample as = index.get(cs.labels);
+            if (as != null) {
+                ss[n++] = cs.toBuilder().value(transform.applyAsDouble(cs.value, as.value)).build();
+            }
+        }
+        return n > 0 ? SampleFamily.build(this.context, Arrays.copyOf(ss, n)) : EMPTY;
     }
 
     public SampleFamily downsampling(final DownsamplingType type) {
@@ -21,66 +21,368 @@ package org.apache.skywalking.oap.meter.analyzer.dsl.counter;
 import com.google.common.collect.ImmutableMap;
 import io.vavr.Tuple;
 import io.vavr.Tuple2;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
-import lombok.AccessLevel;
-import lombok.EqualsAndHashCode;
-import lombok.RequiredArgsConstructor;
-import lombok.ToString;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.GaugeMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
 
 /**
  * CounterWindow stores a series of counter samples in order to calculate the increase
  * or instant rate of increase.
  *
+ * Every series keeps its samples in primitive ring buffers ordered by the timestamp. The series not receiving samples
+ * longer than the idle timeout, or longer than their window if it is longer, are evicted, and the least recently used
+ * series are evicted when the number of series exceeds the max series. The eviction runs in the background, and a
+ * series is evicted under its own monitor, so a sample is never put into an evicted series.
  */
-@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
-@ToString
-@EqualsAndHashCode
+@Slf4j
 public class CounterWindow {
 
-    public static final CounterWindow INSTANCE = new CounterWindow();
+    public static final CounterWindow INSTANCE = new CounterWindow(
+        System::currentTimeMillis,
+        Executors.newSingleThreadExecutor(r -> {
+            final Thread thread = new Thread(r, "meter-counter-window-evictor");
+            thread.setDaemon(true);
+            return thread;
+        })
+    );
 
-    private final Map<ID, Tuple2<Long, Double>> lastElementMap = new ConcurrentHashMap<>();
-    private final Map<ID, Queue<Tuple2<Long, Double>>> windows = new ConcurrentHashMap<>();
+    private static final int DEFAULT_MAX_SERIES = 1_000_000;
+    private static final long DEFAULT_IDLE_TIMEOUT = TimeUnit.HOURS.toMillis(1);
 
-    public Tuple2<Long, Double> increase(String name, ImmutableMap<String, String> labels, Double value, long windowSize, long now) {
-        ID id = new ID(name, labels);
-        Queue<Tuple2<Long, Double>> window = windows.computeIfAbsent(id, unused -> new PriorityQueue<>());
-        window.offer(Tuple.of(now, value));
-        long waterLevel = now - windowSize;
-        Tuple2<Long, Double> peek = window.peek();
-        if (peek._1 > waterLevel) {
-            return peek;
-        }
+    private final Map<ID, Series> windows = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+    private final Executor evictor;
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private volatile long nextSweep;
 
-        Tuple2<Long, Double> result = peek;
-        while (peek._1 < waterLevel) {
-            result = window.poll();
-            peek = window.element();
-        }
+    private volatile int maxSeries = DEFAULT_MAX_SERIES;
+    private volatile long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+    private volatile GaugeMetrics seriesGauge;
+    private volatile CounterMetrics idleEvictedCounter;
+    private volatile CounterMetrics capacityEvictedCounter;
+
+    CounterWindow(LongSupplier clock, Executor evictor) {
+        this.clock = clock;
+        this.evictor = evictor;
+        setup(DEFAULT_MAX_SERIES, DEFAULT_IDLE_TIMEOUT, new MetricsCreatorNoop());
+    }
+
+    /**
+     * @param maxSeries   the max number of series, the least recently used series are evicted beyond it.
+     * @param idleTimeout the time(ms) since the last sample of a series, after which the series is evicted, unless
+     *                    its window is longer.
+     */
+    public void setup(int maxSeries, long idleTimeout, MetricsCreator metricsCreator) {
+        this.maxSeries = maxSeries;
+        this.idleTimeout = idleTimeout;
+        this.nextSweep = clock.getAsLong() + Math.max(idleTimeout / 4, 1);
+        this.seriesGauge = metricsCreator.createGauge(
+            "meter_counter_window_series", "The number of the series in the window of the MAL increase/rate/irate",
+            MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE
+        );
+        this.idleEvictedCounter = createEvictedCounter(metricsCreator, "idle");
+        this.capacityEvictedCounter = createEvictedCounter(metricsCreator, "capacity");
+    }
 
-        // Choose the closed slot to the expected timestamp
-        if (waterLevel - result._1 <= peek._1 - waterLevel) {
-            return result;
+    private static CounterMetrics createEvictedCounter(MetricsCreator metricsCreator, String reason) {
+        return metricsCreator.createCounter(
+            "meter_counter_window_evicted", "The number of the series evicted from the window of the MAL increase/rate/irate, by reason",
+            new MetricsTag.Keys("reason"), new MetricsTag.Values(reason)
+        );
+    }
+
+    public Tuple2<Long, Double> increase(String name, ImmutableMap<String, String> labels, Double value, long windowSize, long now) {
+        for (;;) {
+            final Series series = series(name, labels, windowSize);
+            synchronized (series) {
+                if (!series.evicted) {
+                    series.increase(value, windowSize, now);
+                    return Tuple.of(series.lowerBoundTimestamp, series.lowerBoundValue);
+                }
+            }
         }
+    }
 
-        return peek;
+    /**
+     * Put the sample into the window, and calculate by the sample closest to the start of the window.
+     */
+    public double increase(String name, ImmutableMap<String, String> labels, double value, long windowSize, long now,
+                           LowerBoundFunction function) {
+        for (;;) {
+            final Series series = series(name, labels, windowSize);
+            synchronized (series) {
+                if (!series.evicted) {
+                    series.increase(value, windowSize, now);
+                    return function.apply(series.lowerBoundValue, series.lowerBoundTimestamp);
+                }
+            }
+        }
     }
 
     public Tuple2<Long, Double> pop(String name, ImmutableMap<String, String> labels, Double value, long now) {
-        ID id = new ID(name, labels);
+        for (;;) {
+            final Series series = series(name, labels, 0);
+            synchronized (series) {
+                if (!series.evicted) {
+                    series.pop(value, now);
+                    return Tuple.of(series.lowerBoundTimestamp, series.lowerBoundValue);
+                }
+            }
+        }
+    }
 
-        Tuple2<Long, Double> element = Tuple.of(now, value);
-        Tuple2<Long, Double> result = lastElementMap.put(id, element);
-        if (result == null) {
-            return element;
+    /**
+     * Replace the last sample by the sample, and calculate by the replaced one, or by the sample itself if it is the
+     * first one.
+     */
+    public double pop(String name, ImmutableMap<String, String> labels, double value, long now, LowerBoundFunction function) {
+        for (;;) {
+            final Series series = series(name, labels, 0);
+            synchronized (series) {
+                if (!series.evicted) {
+                    series.pop(value, now);
+                    return function.apply(series.lowerBoundValue, series.lowerBoundTimestamp);
+                }
+            }
         }
-        return result;
     }
 
     public void reset() {
         windows.clear();
+        seriesGauge.setValue(0);
+    }
+
+    int size() {
+        return windows.size();
+    }
+
+    /**
+     * @return the series, which could be evicted before it is locked, the caller retries then.
+     */
+    private Series series(String name, ImmutableMap<String, String> labels, long windowSize) {
+        final long now = clock.getAsLong();
+        final ID id = new ID(name, labels);
+        Series series = windows.get(id);
+        boolean overCapacity = false;
+        if (series == null) {
+            final Series created = new Series();
+            created.lastAccess = now;
+            series = windows.putIfAbsent(id, created);
+            if (series == null) {
+                series = created;
+                final int size = windows.size();
+                seriesGauge.setValue(size);
+                overCapacity = size > maxSeries;
+            }
+        }
+        series.lastAccess = now;
+        if (windowSize > series.windowSize) {
+            series.windowSize = windowSize;
+        }
+        if (overCapacity || now >= nextSweep) {
+            scheduleEviction(now);
+        }
+        return series;
+    }
+
+    /**
+     * Evict the series in the background, in one task at a time. The number of series could exceed the max series
+     * slightly meanwhile.
+     */
+    private void scheduleEviction(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        nextSweep = now + Math.max(idleTimeout / 4, 1);
+        try {
+            evictor.execute(() -> {
+                try {
+                    evict(now);
+                } catch (Throwable t) {
+                    log.error("Failed to evict the series from the window of the MAL increase/rate/irate.", t);
+                } finally {
+                    evicting.set(false);
+                }
+            });
+        } catch (Throwable t) {
+            evicting.set(false);
+            log.error("Failed to schedule the eviction of the window of the MAL increase/rate/irate.", t);
+        }
+    }
+
+    /**
+     * Evict the idle series, and the least recently used series down to 90% of the max series if they are still too
+     * many.
+     */
+    private void evict(long now) {
+        final long timeout = idleTimeout;
+        int idle = 0;
+        for (final Map.Entry<ID, Series> entry : windows.entrySet()) {
+            final Series series = entry.getValue();
+            if (now - series.lastAccess > Math.max(timeout, series.windowSize)
+                && evict(entry.getKey(), series, s -> now - s.lastAccess > Math.max(timeout, s.windowSize))) {
+                idle++;
+            }
+        }
+        idleEvictedCounter.inc(idle);
+
+        final int max = maxSeries;
+        final int target = (int) (max * 0.9);
+        if (windows.size() > max) {
+            final long[] accesses = windows.values().stream().mapToLong(s -> s.lastAccess).toArray();
+            Arrays.sort(accesses);
+            final int excess = accesses.length - target;
+            if (excess > 0) {
+                final long cutoff = accesses[excess - 1];
+                int evicted = 0;
+                for (final Iterator<Map.Entry<ID, Series>> it = windows.entrySet().iterator(); it.hasNext() && evicted < excess; ) {
+                    final Map.Entry<ID, Series> entry = it.next();
+                    if (entry.getValue().lastAccess <= cutoff && evict(entry.getKey(), entry.getValue(), s -> s.lastAccess <= cutoff)) {
+                        evicted++;
+                    }
+                }
+                capacityEvictedCounter.inc(evicted);
+                log.warn("The window of the MAL increase/rate/irate exceeds {} series, evict {} least recently used series.",
+                         max, evicted);
+            }
+        }
+        seriesGauge.setValue(windows.size());
+    }
+
+    /**
+     * Evict the series if it is still evictable under its monitor, the thread which got it but not locked it yet
+     * finds it evicted then, and gets a new one.
+     */
+    private boolean evict(ID id, Series series, Predicate<Series> evictable) {
+        synchronized (series) {
+            if (series.evicted || !evictable.test(series)) {
+                return false;
+            }
+            series.evicted = true;
+            return windows.remove(id, series);
+        }
+    }
+
+    /**
+     * Series keeps the samples of one series in the window, in ring buffers ordered by the timestamp and the value,
+     * and the last sample for {@link #pop}. It is accessed under its own monitor.
+     */
+    private static class Series {
+        private long[] timestamps = new long[4];
+        private double[] values = new double[4];
+        private int head;
+        private int size;
+
+        private boolean popped;
+        private long lastTimestamp;
+        private double lastValue;
+
+        /**
+         * The result of the last {@link #increase} or {@link #pop}.
+         */
+        private long lowerBoundTimestamp;
+        private double lowerBoundValue;
+
+        private volatile long lastAccess;
+        /**
+         * Whether the series is removed from the windows, the samples are put into a new series then.
+         */
+        private boolean evicted;
+        /**
+         * The longest window of the series, it is not evicted as idle within the window.
+         */
+        private volatile long windowSize;
+
+        private void increase(double value, long windowSize, long now) {
+            offer(now, value);
+            final long waterLevel = now - windowSize;
+            long resultTimestamp = timestamps[head];
+            double resultValue = values[head];
+            if (resultTimestamp > waterLevel) {
+                setLowerBound(resultTimestamp, resultValue);
+                return;
+            }
+
+            while (size > 1 && timestamps[head] < waterLevel) {
+                resultTimestamp = timestamps[head];
+                resultValue = values[head];
+                head = (head + 1) & (timestamps.length - 1);
+                size--;
+            }
+
+            // Choose the closed slot to the expected timestamp
+            if (waterLevel - resultTimestamp <= timestamps[head] - waterLevel) {
+                setLowerBound(resultTimestamp, resultValue);
+            } else {
+                setLowerBound(timestamps[head], values[head]);
+            }
+        }
+
+        private void pop(double value, long now) {
+            if (popped) {
+                setLowerBound(lastTimestamp, lastValue);
+            } else {
+                setLowerBound(now, value);
+                popped = true;
+            }
+            lastTimestamp = now;
+            lastValue = value;
+        }
+
+        private void setLowerBound(long timestamp, double value) {
+            lowerBoundTimestamp = timestamp;
+            lowerBoundValue = value;
+        }
+
+        /**
+         * Insert the sample in order. The samples mostly come in order, and are appended to the tail.
+         */
+        private void offer(long timestamp, double value) {
+            if (size == timestamps.length) {
+                grow();
+            }
+            final int mask = timestamps.length - 1;
+            int i = size;
+            for (int prev; i > 0 && compare(timestamps[prev = (head + i - 1) & mask], values[prev], timestamp, value) > 0; i--) {
+                final int slot = (head + i) & mask;
+                timestamps[slot] = timestamps[prev];
+                values[slot] = values[prev];
+            }
+            final int slot = (head + i) & mask;
+            timestamps[slot] = timestamp;
+            values[slot] = value;
+            size++;
+        }
+
+        private void grow() {
+            final long[] newTimestamps = new long[timestamps.length * 2];
+            final double[] newValues = new double[values.length * 2];
+            for (int i = 0; i < size; i++) {
+                final int slot = (head + i) & (timestamps.length - 1);
+                newTimestamps[i] = timestamps[slot];
+                newValues[i] = values[slot];
+            }
+            timestamps = newTimestamps;
+            values = newValues;
+            head = 0;
+        }
+
+        private static int compare(long timestamp1, double value1, long timestamp2, double value2) {
+            final int result = Long.compare(timestamp1, timestamp2);
+            return result != 0 ? result : Double.compare(value1, value2);
+        }
     }
 }
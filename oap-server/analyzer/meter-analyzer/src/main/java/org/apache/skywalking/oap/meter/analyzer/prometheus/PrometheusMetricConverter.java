@@ -26,6 +26,7 @@ import io.vavr.Tuple;
 import io.vavr.Tuple2;
 import java.util.Collections;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -84,6 +85,20 @@ public class PrometheusMetricConverter {
         convert.toMeter(data);
     }
 
+    /**
+     * toMeter transforms the sample families, built by the receiver directly, to meter-system metrics.
+     */
+    public void toMeter(ImmutableMap<String, SampleFamily> sampleFamilies) {
+        convert.toMeter(sampleFamilies);
+    }
+
+    /**
+     * @return the names of the sample families referred by the expressions of the rule.
+     */
+    public Set<String> getSampleNames() {
+        return convert.getSampleNames();
+    }
+
     public ImmutableMap<String, SampleFamily> convertPromMetricToSampleFamily(Stream<Metric> metricStream) {
         return metricStream
             .peek(metric -> log.debug("Prom metric to be convert to SampleFamily: {}", metric))
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.meter.analyzer.dsl;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static com.google.common.collect.ImmutableMap.of;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class ExpressionCompilerTest {
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][] {
+            {
+                "arithmetic",
+                "100 - ((http_request_total * 100) / http_request_failed)",
+                true,
+            },
+            {
+                "scalar-on-left",
+                "10 / http_request_total + 1000 * 60 / 7 - (-http_request_failed)",
+                true,
+            },
+            {
+                "tag-filter-and-aggregation",
+                "http_request_total.tagNotEqual('idc', 't2').tagEqual('region', 'us').sum(['region']) * 0.5",
+                true,
+            },
+            {
+                "value-filter",
+                "http_request_total.valueGreater(1).valueEqual(2)",
+                true,
+            },
+            {
+                "histogram-and-scope",
+                "http_request_latency.sum(['le', 'region']).histogram().histogram_percentile([50, 99])"
+                    + ".service(['region'], Layer.GENERAL).downsampling(SUM)",
+                true,
+            },
+            {
+                "tag-closure",
+                "(http_request_total.tag({tags -> tags.region = 'region::' + tags.region\n})).service(['region'], '::', Layer.GENERAL)",
+                true,
+            },
+            {
+                "filter-closure",
+                "http_request_total.filter({ tags -> tags.idc == 't1' }).instance(['region'], ['idc'], Layer.GENERAL)",
+                true,
+            },
+            {
+                "missing-sample",
+                "http_request_total + not_existing",
+                true,
+            },
+            {
+                "unknown-method",
+                "http_request_total.notExisting()",
+                false,
+            },
+            {
+                "string-operation",
+                "http_request_total.tagEqual('idc', 't' + '1')",
+                false,
+            },
+            {
+                "statements",
+                "a = 1; http_request_total",
+                false,
+            },
+        });
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("data")
+    public void test(String name, String expression, boolean compiled) {
+        Expression e = DSL.parse(name, expression);
+        assertThat(e.isCompiled()).isEqualTo(compiled);
+
+        Expression dynamic = DSL.parse(name, expression, false);
+        assertThat(dynamic.isCompiled()).isFalse();
+        assertThat(e.run(input())).isEqualTo(dynamic.run(input()));
+
+        try (ExpressionParsingContext ctx = e.parse(); ExpressionParsingContext dynamicCtx = dynamic.parse()) {
+            assertThat(ctx).isEqualTo(dynamicCtx);
+        } catch (ExpressionParsingException ignored) {
+            // Not all the expressions declare the scope.
+        }
+    }
+
+    private static ImmutableMap<String, SampleFamily> input() {
+        return of(
+            "http_request_total", SampleFamilyBuilder.newBuilder(
+                Sample.builder().labels(of("idc", "t1", "region", "us")).value(2).name("http_request_total").build(),
+                Sample.builder().labels(of("idc", "t2", "region", "us")).value(3).name("http_request_total").build(),
+                Sample.builder().labels(of("idc", "t3", "region", "cn")).value(5).name("http_request_total").build()
+            ).build(),
+            "http_request_failed", SampleFamilyBuilder.newBuilder(
+                Sample.builder().labels(of("idc", "t1", "region", "us")).value(1).name("http_request_failed").build(),
+                Sample.builder().labels(of("idc", "t2", "region", "us")).value(2).name("http_request_failed").build(),
+                Sample.builder().labels(of("idc", "t3", "region", "cn")).value(4).name("http_request_failed").build()
+            ).build(),
+            "http_request_latency", SampleFamilyBuilder.newBuilder(
+                Sample.builder().labels(of("le", "50", "region", "us")).value(10).name("http_request_latency").build(),
+                Sample.builder().labels(of("le", "100", "region", "us")).value(20).name("http_request_latency").build(),
+                Sample.builder().labels(of("le", "+Inf", "region", "us")).value(30).name("http_request_latency").build()
+            ).build()
+        );
+    }
+}
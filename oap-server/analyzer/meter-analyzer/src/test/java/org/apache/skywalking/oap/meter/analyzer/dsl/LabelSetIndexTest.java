@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.meter.analyzer.dsl;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static java.util.stream.Collectors.groupingBy;
+
+public class LabelSetIndexTest {
+    @Test
+    public void testGroupLikeGroupingBy() {
+        final Random random = new Random(7);
+        final Sample[] samples = new Sample[5000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = Sample.builder()
+                               .name("http_request")
+                               .labels(ImmutableMap.of(
+                                   "pod", "pod-" + random.nextInt(300),
+                                   "namespace", "ns-" + random.nextInt(7),
+                                   "idc", "t" + random.nextInt(3)))
+                               .value(i)
+                               .build();
+        }
+
+        for (final List<String> by : List.of(List.of("namespace", "pod"), List.of("idc"), List.of("missing"), List.<String>of())) {
+            final LabelSetIndex index = new LabelSetIndex(samples, by);
+            final List<ImmutableMap<String, String>> expected = new ArrayList<>(
+                Arrays.stream(samples).collect(groupingBy(s -> labels(by, s))).keySet());
+            final List<ImmutableMap<String, String>> actual = new ArrayList<>();
+            for (final int id : index.order()) {
+                actual.add(index.labels(id));
+            }
+            Assertions.assertEquals(expected, actual);
+            Assertions.assertEquals(expected.size(), index.size());
+
+            for (int i = 0; i < samples.length; i++) {
+                final int id = index.ids[i];
+                Assertions.assertEquals(labels(by, samples[i]), index.labels(id));
+                Assertions.assertTrue(index.first(id) <= i);
+                Assertions.assertEquals(id, index.ids[index.first(id)]);
+            }
+        }
+    }
+
+    private static ImmutableMap<String, String> labels(List<String> by, Sample sample) {
+        return by.stream().collect(toImmutableMap(k -> k, k -> sample.labels.getOrDefault(k, "")));
+    }
+}
@@ -20,11 +20,13 @@ package org.apache.skywalking.oap.meter.analyzer.dsl.counter;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import io.vavr.Tuple2;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.time.Instant.parse;
 
@@ -94,4 +96,40 @@ public class CounterWindowTest {
 
         Assertions.assertArrayEquals(new double[] {0, 1d, 2d, 3d, 4d, 0d, 1d, 2d}, actuals, 0.d);
     }
+
+    @Test
+    public void testEvictIdleSeries() {
+        final AtomicLong now = new AtomicLong();
+        final CounterWindow window = new CounterWindow(now::get, Runnable::run);
+        window.setup(100, 1000, new MetricsCreatorNoop());
+        window.increase("test", ImmutableMap.of("pod", "idle"), 1d, 10, 0);
+        window.increase("test", ImmutableMap.of("pod", "long-window"), 1d, 5000, 0);
+        Assertions.assertEquals(2, window.size());
+
+        now.set(2000);
+        window.increase("test", ImmutableMap.of("pod", "active"), 1d, 10, 2000);
+        Assertions.assertEquals(2, window.size());
+
+        now.set(6000);
+        window.increase("test", ImmutableMap.of("pod", "active"), 2d, 10, 6000);
+        Assertions.assertEquals(1, window.size());
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsedSeries() {
+        final AtomicLong now = new AtomicLong();
+        final CounterWindow window = new CounterWindow(now::get, Runnable::run);
+        window.setup(100, 1000_000, new MetricsCreatorNoop());
+        for (int i = 0; i <= 100; i++) {
+            now.set(i);
+            window.pop("test", ImmutableMap.of("pod", "pod-" + i), (double) i, i);
+        }
+        Assertions.assertEquals(90, window.size());
+
+        now.set(101);
+        // The most recent series are kept, the least recent ones start over.
+        Assertions.assertEquals(100L, window.pop("test", ImmutableMap.of("pod", "pod-100"), 0d, 101)._1);
+        Assertions.assertEquals(101L, window.pop("test", ImmutableMap.of("pod", "pod-0"), 0d, 101)._1);
+        Assertions.assertEquals(91, window.size());
+    }
 }
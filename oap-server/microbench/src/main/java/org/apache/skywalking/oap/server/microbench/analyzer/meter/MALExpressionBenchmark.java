@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.microbench.analyzer.meter;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.apache.skywalking.oap.meter.analyzer.MetricConvert;
+import org.apache.skywalking.oap.meter.analyzer.dsl.DSL;
+import org.apache.skywalking.oap.meter.analyzer.dsl.Expression;
+import org.apache.skywalking.oap.meter.analyzer.dsl.ExpressionParsingContext;
+import org.apache.skywalking.oap.meter.analyzer.dsl.Sample;
+import org.apache.skywalking.oap.meter.analyzer.dsl.SampleFamily;
+import org.apache.skywalking.oap.meter.analyzer.dsl.SampleFamilyBuilder;
+import org.apache.skywalking.oap.meter.analyzer.prometheus.rule.MetricsRule;
+import org.apache.skywalking.oap.meter.analyzer.prometheus.rule.Rule;
+import org.apache.skywalking.oap.meter.analyzer.prometheus.rule.Rules;
+import org.apache.skywalking.oap.server.microbench.base.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Run the expressions of the shipped otel-rules, compiled or as Groovy scripts, against the payload of every rule
+ * file, as the OpenTelemetry receiver does for every push.
+ *
+ * The payload of a rule file has {@link #SERIES} samples of every sample family referred by its expressions, labeled
+ * by all the scope and aggregation labels of the expressions, and the histogram buckets for the histograms.
+ */
+public class MALExpressionBenchmark extends AbstractMicrobenchmark {
+    private static final int SERIES = 16;
+    private static final String[] BUCKETS = {"0.005", "0.01", "0.05", "0.1", "0.5", "1", "5", "+Inf"};
+
+    @State(Scope.Thread)
+    public static class RuleFiles {
+        @Param({"true", "false"})
+        private boolean compiled;
+
+        private final List<List<Expression>> expressions = new ArrayList<>();
+        private final List<ImmutableMap<String, SampleFamily>> payloads = new ArrayList<>();
+        private long timestamp;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            timestamp = System.currentTimeMillis();
+            for (final Rule rule : Rules.loadRules("otel-rules", List.of("*", "*/*"))) {
+                final List<Expression> ruleExpressions = new ArrayList<>();
+                final Set<String> labels = new TreeSet<>();
+                final Set<String> samples = new TreeSet<>();
+                final Set<String> histograms = new TreeSet<>();
+                for (final MetricsRule metricsRule : rule.getMetricsRules()) {
+                    final String exp = MetricConvert.formatExp(rule.getExpPrefix(), rule.getExpSuffix(), metricsRule.getExp());
+                    final Expression expression = DSL.parse(rule.getMetricPrefix() + "_" + metricsRule.getName(), exp, compiled);
+                    try (ExpressionParsingContext ctx = expression.parse()) {
+                        labels.addAll(ctx.getScopeLabels());
+                        labels.addAll(ctx.getAggregationLabels());
+                        samples.addAll(ctx.getSamples());
+                        if (ctx.isHistogram()) {
+                            histograms.addAll(ctx.getSamples());
+                        }
+                    }
+                    ruleExpressions.add(expression);
+                }
+                labels.remove("le");
+                expressions.add(ruleExpressions);
+                payloads.add(payload(samples, histograms, labels));
+            }
+        }
+
+        private ImmutableMap<String, SampleFamily> payload(Set<String> samples, Set<String> histograms, Set<String> labels) {
+            final Map<String, SampleFamily> payload = new HashMap<>();
+            for (final String name : samples) {
+                final boolean histogram = histograms.contains(name);
+                final List<Sample> series = new ArrayList<>();
+                for (int i = 0; i < SERIES; i++) {
+                    final ImmutableMap.Builder<String, String> seriesLabels = ImmutableMap.builder();
+                    for (final String label : labels) {
+                        // A few entities, and a few series of every entity.
+                        seriesLabels.put(label, label + "-" + (i % 4));
+                    }
+                    if (histogram) {
+                        for (final String bucket : BUCKETS) {
+                            series.add(sample(name, ImmutableMap.<String, String>builder()
+                                                                .putAll(seriesLabels.build())
+                                                                .put("le", bucket)
+                                                                .build(), i));
+                        }
+                    } else {
+                        series.add(sample(name, seriesLabels.build(), i));
+                    }
+                }
+                payload.put(name, SampleFamilyBuilder.newBuilder(series.toArray(new Sample[0])).build());
+            }
+            return ImmutableMap.copyOf(payload);
+        }
+
+        private Sample sample(String name, ImmutableMap<String, String> labels, int i) {
+            return Sample.builder().name(name).labels(labels).value(100 + i).timestamp(timestamp).build();
+        }
+    }
+
+    /**
+     * Run all the expressions of every rule file against its payload.
+     */
+    @Benchmark
+    public void runRules(RuleFiles ruleFiles, Blackhole bh) {
+        for (int i = 0; i < ruleFiles.expressions.size(); i++) {
+            final ImmutableMap<String, SampleFamily> payload = ruleFiles.payloads.get(i);
+            for (final Expression expression : ruleFiles.expressions.get(i)) {
+                bh.consume(expression.run(payload));
+            }
+        }
+    }
+}
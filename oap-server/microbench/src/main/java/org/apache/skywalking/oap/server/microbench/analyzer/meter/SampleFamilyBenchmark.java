@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.microbench.analyzer.meter;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.List;
+import org.apache.skywalking.oap.meter.analyzer.dsl.Sample;
+import org.apache.skywalking.oap.meter.analyzer.dsl.SampleFamily;
+import org.apache.skywalking.oap.meter.analyzer.dsl.SampleFamilyBuilder;
+import org.apache.skywalking.oap.server.core.analysis.Layer;
+import org.apache.skywalking.oap.server.microbench.base.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Run the operators of {@link SampleFamily} on a family shaped like a kube-state-metrics scrape, pods of a few
+ * namespaces and nodes, every pod with a few containers.
+ */
+public class SampleFamilyBenchmark extends AbstractMicrobenchmark {
+    private static final String[] BUCKETS = {"0.005", "0.01", "0.05", "0.1", "0.5", "1", "5", "+Inf"};
+
+    @State(Scope.Thread)
+    public static class Families {
+        @Param({"1000", "100000"})
+        private int samples;
+
+        private SampleFamily family;
+        private SampleFamily another;
+        private SampleFamily histogram;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            final long timestamp = System.currentTimeMillis();
+            final Sample[] family = new Sample[samples];
+            final Sample[] another = new Sample[samples];
+            for (int i = 0; i < samples; i++) {
+                final ImmutableMap<String, String> labels = labels(i);
+                family[i] = Sample.builder().name("kube_pod_container_status_restarts_total")
+                                  .labels(labels).value(i % 17).timestamp(timestamp).build();
+                another[i] = Sample.builder().name("kube_pod_container_resource_limits")
+                                   .labels(labels).value(1 + i % 5).timestamp(timestamp).build();
+            }
+            this.family = SampleFamilyBuilder.newBuilder(family).build();
+            this.another = SampleFamilyBuilder.newBuilder(another).build();
+
+            final Sample[] histogram = new Sample[samples];
+            for (int i = 0; i < samples; i++) {
+                histogram[i] = Sample.builder().name("http_server_requests_seconds_bucket")
+                                     .labels(ImmutableMap.<String, String>builder()
+                                                         .putAll(labels(i / BUCKETS.length))
+                                                         .put("le", BUCKETS[i % BUCKETS.length])
+                                                         .build())
+                                     .value(i).timestamp(timestamp).build();
+            }
+            this.histogram = SampleFamilyBuilder.newBuilder(histogram).build();
+        }
+
+        private static ImmutableMap<String, String> labels(int i) {
+            return ImmutableMap.of(
+                "cluster", "cluster",
+                "namespace", "namespace-" + i % 10,
+                "node", "node-" + i % 50,
+                "pod", "pod-" + i / 4,
+                "container", "container-" + i % 4
+            );
+        }
+    }
+
+    @Benchmark
+    public SampleFamily sum(Families families) {
+        return families.family.sum(List.of("cluster", "namespace", "pod"));
+    }
+
+    @Benchmark
+    public SampleFamily avg(Families families) {
+        return families.family.avg(List.of("cluster", "namespace"));
+    }
+
+    @Benchmark
+    public SampleFamily max(Families families) {
+        return families.family.max(List.of("cluster", "node"));
+    }
+
+    @Benchmark
+    public SampleFamily min(Families families) {
+        return families.family.min(List.of("cluster", "node"));
+    }
+
+    @Benchmark
+    public SampleFamily tagEqual(Families families) {
+        return families.family.tagEqual("namespace", "namespace-1", "container", "container-2");
+    }
+
+    @Benchmark
+    public SampleFamily tagMatch(Families families) {
+        return families.family.tagMatch(new String[] {"namespace", "namespace-(1|2|3)", "pod", "pod-.*"});
+    }
+
+    @Benchmark
+    public SampleFamily valueGreater(Families families) {
+        return families.family.valueGreater(8);
+    }
+
+    @Benchmark
+    public SampleFamily plusNumber(Families families) {
+        return families.family.plus(1);
+    }
+
+    @Benchmark
+    public SampleFamily plus(Families families) {
+        return families.family.plus(families.another);
+    }
+
+    @Benchmark
+    public SampleFamily multiply(Families families) {
+        return families.family.multiply(families.another);
+    }
+
+    @Benchmark
+    public SampleFamily div(Families families) {
+        return families.family.div(families.another);
+    }
+
+    @Benchmark
+    public SampleFamily histogram(Families families) {
+        return families.histogram.histogram();
+    }
+
+    @Benchmark
+    public SampleFamily service(Families families) {
+        return families.family.service(List.of("cluster", "namespace"), Layer.K8S_SERVICE);
+    }
+}
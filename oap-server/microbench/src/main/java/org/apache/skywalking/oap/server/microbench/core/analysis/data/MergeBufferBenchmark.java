@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.microbench.core.analysis.data;
+
+import java.util.List;
+import java.util.Random;
+import org.apache.skywalking.oap.server.core.analysis.data.BufferedData;
+import org.apache.skywalking.oap.server.core.analysis.data.MergableBufferedData;
+import org.apache.skywalking.oap.server.core.analysis.data.OpenAddressingBufferedData;
+import org.apache.skywalking.oap.server.core.analysis.metrics.CPMMetrics;
+import org.apache.skywalking.oap.server.core.analysis.metrics.LongAvgMetrics;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.remote.RemoteDataView;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.storage.StorageID;
+import org.apache.skywalking.oap.server.microbench.base.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Merge 1M {@link CPMMetrics} or {@link LongAvgMetrics} rows into the L1/L2 aggregation buffers, then read them out
+ * as a flush cycle does. The buffers are reused across the invocations, like the workers do, and the rows are shuffled
+ * with a fixed seed.
+ */
+public class MergeBufferBenchmark extends AbstractMicrobenchmark {
+    private static final int ROWS = 1_000_000;
+
+    @State(Scope.Thread)
+    public static class Rows {
+        @Param({
+            "CPM",
+            "LONG_AVG"
+        })
+        public String metricsType;
+
+        @Param({
+            "10000",
+            "100000"
+        })
+        public int distinct;
+
+        private Metrics[] rows;
+        private final BufferedData<Metrics> hashMapBuffer = new MergableBufferedData<>();
+        private final BufferedData<Metrics> openAddressingBuffer = new OpenAddressingBufferedData<>();
+
+        @Setup(Level.Trial)
+        public void setup() {
+            rows = new Metrics[ROWS];
+            for (int i = 0; i < ROWS; i++) {
+                final String entityId = "c2VydmljZQ==.1_" + (i % distinct);
+                final long timeBucket = 202401171700L + i % 2;
+                rows[i] = "CPM".equals(metricsType)
+                    ? new MockCPMMetrics(entityId, timeBucket)
+                    : new MockLongAvgMetrics(entityId, timeBucket);
+            }
+            // The metrics of different entities arrive interleaved, rather than in the order of their first arrival.
+            final Random random = new Random(7);
+            for (int i = ROWS - 1; i > 0; i--) {
+                final int j = random.nextInt(i + 1);
+                final Metrics row = rows[i];
+                rows[i] = rows[j];
+                rows[j] = row;
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void hashMap(Rows rows, Blackhole bh) {
+        merge(rows.rows, rows.hashMapBuffer, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void openAddressing(Rows rows, Blackhole bh) {
+        merge(rows.rows, rows.openAddressingBuffer, bh);
+    }
+
+    private static void merge(Metrics[] rows, BufferedData<Metrics> buffer, Blackhole bh) {
+        for (final Metrics row : rows) {
+            buffer.accept(row);
+        }
+        final List<Metrics> result = buffer.read();
+        bh.consume(result);
+    }
+
+    private static class MockCPMMetrics extends CPMMetrics {
+        private final String entityId;
+
+        private MockCPMMetrics(String entityId, long timeBucket) {
+            this.entityId = entityId;
+            setTimeBucket(timeBucket);
+            combine(1);
+        }
+
+        @Override
+        protected StorageID id0() {
+            return new StorageID().append(TIME_BUCKET, getTimeBucket()).append(ENTITY_ID, entityId);
+        }
+
+        @Override
+        public Metrics toHour() {
+            return null;
+        }
+
+        @Override
+        public Metrics toDay() {
+            return null;
+        }
+
+        @Override
+        public void deserialize(RemoteDataView remoteData) {
+        }
+
+        @Override
+        public RemoteData.Builder serialize() {
+            return null;
+        }
+
+        @Override
+        public int remoteHashCode() {
+            return entityId.hashCode();
+        }
+    }
+
+    private static class MockLongAvgMetrics extends LongAvgMetrics {
+        private final String entityId;
+
+        private MockLongAvgMetrics(String entityId, long timeBucket) {
+            this.entityId = entityId;
+            setTimeBucket(timeBucket);
+            combine(100, 1);
+        }
+
+        @Override
+        protected StorageID id0() {
+            return new StorageID().append(TIME_BUCKET, getTimeBucket()).append(ENTITY_ID, entityId);
+        }
+
+        @Override
+        public Metrics toHour() {
+            return null;
+        }
+
+        @Override
+        public Metrics toDay() {
+            return null;
+        }
+
+        @Override
+        public void deserialize(RemoteDataView remoteData) {
+        }
+
+        @Override
+        public RemoteData.Builder serialize() {
+            return null;
+        }
+
+        @Override
+        public int remoteHashCode() {
+            return entityId.hashCode();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.microbench.core.query;
+
+import org.apache.skywalking.oap.server.core.Const;
+import org.apache.skywalking.oap.server.core.query.TraceSpanTreeBuilder;
+import org.apache.skywalking.oap.server.core.query.type.Span;
+import org.apache.skywalking.oap.server.microbench.base.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sort the spans of the synthetic traces, which are made of the segments of 20 spans. Every segment refers to a span
+ * of a previous segment, or is a fragment whose parent is lost.
+ */
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TraceSpanTreeBuilderBenchmark extends AbstractMicrobenchmark {
+    private static final int SPANS_PER_SEGMENT = 20;
+
+    @Param({"1000", "10000", "50000"})
+    private int spanCount;
+
+    private List<Span> spans;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(0);
+        spans = new ArrayList<>(spanCount);
+        for (int segment = 0; segment < spanCount / SPANS_PER_SEGMENT; segment++) {
+            final String segmentId = "segment-" + segment;
+            final String parentSpanId = segment == 0 || random.nextInt(100) == 0 ?
+                "lost-" + segment + Const.SEGMENT_SPAN_SPLIT + 0 :
+                "segment-" + random.nextInt(segment) + Const.SEGMENT_SPAN_SPLIT + random.nextInt(SPANS_PER_SEGMENT);
+            spans.add(span(segmentId, 0, parentSpanId, random.nextInt(100_000)));
+            for (int spanId = 1; spanId < SPANS_PER_SEGMENT; spanId++) {
+                spans.add(span(
+                    segmentId, spanId, segmentId + Const.SEGMENT_SPAN_SPLIT + random.nextInt(spanId),
+                    random.nextInt(100_000)
+                ));
+            }
+        }
+        // The segments are in no particular order in the storage.
+        Collections.shuffle(spans, random);
+    }
+
+    private static Span span(String segmentId, int spanId, String segmentParentSpanId, long startTime) {
+        final Span span = new Span();
+        span.setSegmentId(segmentId);
+        span.setSpanId(spanId);
+        span.setSegmentSpanId(segmentId + Const.SEGMENT_SPAN_SPLIT + spanId);
+        span.setSegmentParentSpanId(segmentParentSpanId);
+        span.setStartTime(startTime);
+        return span;
+    }
+
+    @Benchmark
+    public List<Span> build() {
+        return TraceSpanTreeBuilder.build(spans);
+    }
+}
+
+/*
+# JMH version: 1.36
+# VM version: JDK 17, OpenJDK 64-Bit Server VM
+# Warmup: 3 iterations, 1 s each
+# Measurement: 5 iterations, 1 s each
+
+Benchmark                            (spanCount)  Mode  Cnt   Score   Error  Units
+TraceSpanTreeBuilderBenchmark.build         1000  avgt    5   0.047 ± 0.001  ms/op
+TraceSpanTreeBuilderBenchmark.build        10000  avgt    5   1.550 ± 0.019  ms/op
+TraceSpanTreeBuilderBenchmark.build        50000  avgt    5  12.447 ± 0.384  ms/op
+
+The recursive sorting before, for comparison.
+
+Benchmark                            (spanCount)  Mode  Cnt     Score     Error  Units
+RecursiveSorting.build                      1000  avgt    3     4.654 ±   3.070  ms/op
+RecursiveSorting.build                     10000  avgt    3  1254.597 ± 116.078  ms/op
+ */
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.microbench.core.storage;
+
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.storage.StorageID;
+import org.apache.skywalking.oap.server.microbench.base.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Build, hash and compare the {@link StorageID}s of the endpoint level metrics, as the L1/L2 aggregation buffers and
+ * the persistence do. The equal IDs are different instances, like the IDs of the metrics received from the different
+ * OAP nodes.
+ */
+public class StorageIDBenchmark extends AbstractMicrobenchmark {
+    private static final int IDS = 1024;
+
+    @State(Scope.Thread)
+    public static class IDs {
+        private final String[] entityIds = new String[IDS];
+        private final StorageID[] ids = new StorageID[IDS];
+        private final StorageID[] equalIds = new StorageID[IDS];
+
+        @Setup(Level.Trial)
+        public void setup() {
+            for (int i = 0; i < IDS; i++) {
+                entityIds[i] = "YWdlbnQ6OnNvbmdz.1_L2FwaS92MS9zb25ncy97aWR9LyR7aWR9L2FsYnVtcw==" + i;
+                ids[i] = id(entityIds[i]);
+                equalIds[i] = id(entityIds[i]);
+                ids[i].longHashCode();
+                equalIds[i].longHashCode();
+            }
+        }
+    }
+
+    private static StorageID id(String entityId) {
+        return new StorageID().append(Metrics.TIME_BUCKET, 202401171700L).append(Metrics.ENTITY_ID, entityId);
+    }
+
+    /**
+     * Build the ID and its hash, as the aggregation buffers do for every received metrics.
+     */
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public void buildAndHash(IDs ids, Blackhole bh) {
+        for (final String entityId : ids.entityIds) {
+            bh.consume(id(entityId).longHashCode());
+        }
+    }
+
+    /**
+     * Build the ID and its string form, as the persistence of the SQL databases and ElasticSearch does.
+     */
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public void buildString(IDs ids, Blackhole bh) {
+        for (final String entityId : ids.entityIds) {
+            bh.consume(id(entityId).build());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public void hashCode(IDs ids, Blackhole bh) {
+        for (final StorageID id : ids.ids) {
+            bh.consume(id.hashCode());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public void equalsEqual(IDs ids, Blackhole bh) {
+        for (int i = 0; i < IDS; i++) {
+            bh.consume(ids.ids[i].equals(ids.equalIds[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public void equalsDifferent(IDs ids, Blackhole bh) {
+        for (int i = 0; i < IDS; i++) {
+            bh.consume(ids.ids[i].equals(ids.equalIds[(i + 1) & (IDS - 1)]));
+        }
+    }
+}
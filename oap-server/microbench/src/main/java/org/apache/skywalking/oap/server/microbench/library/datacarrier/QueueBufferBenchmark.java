@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.microbench.library.datacarrier;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.skywalking.oap.server.library.datacarrier.buffer.BufferStrategy;
+import org.apache.skywalking.oap.server.library.datacarrier.buffer.BufferType;
+import org.apache.skywalking.oap.server.library.datacarrier.buffer.Channels;
+import org.apache.skywalking.oap.server.library.datacarrier.partition.SimpleRollingPartitioner;
+import org.apache.skywalking.oap.server.microbench.base.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Compare the {@link BufferType}s of the L1 aggregation queue, 2 channels * 10_000 buffer size with
+ * {@link BufferStrategy#IF_POSSIBLE}, under 8, 32 and 64 producer threads. One consumer thread keeps draining the
+ * channels like the BulkConsumePool does. The `saved` and `dropped` counters show how many data are abandoned.
+ */
+public class QueueBufferBenchmark extends AbstractMicrobenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Carrier {
+        @Param({
+            "ARRAY_BLOCKING_QUEUE",
+            "MPSC_RING"
+        })
+        public BufferType bufferType;
+
+        private Channels<SampleData> channels;
+        private Thread consumer;
+        private volatile boolean running;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            channels = new Channels<>(
+                2, 10_000, new SimpleRollingPartitioner<>(), BufferStrategy.IF_POSSIBLE, bufferType);
+            running = true;
+            consumer = new Thread(() -> {
+                final List<SampleData> consumeList = new ArrayList<>(2000);
+                while (running) {
+                    for (int i = 0; i < channels.getChannelSize(); i++) {
+                        channels.getBuffer(i).obtain(consumeList);
+                    }
+                    consumeList.clear();
+                }
+            });
+            consumer.setDaemon(true);
+            consumer.start();
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws InterruptedException {
+            running = false;
+            consumer.join();
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Result {
+        public long saved;
+        public long dropped;
+    }
+
+    private final SampleData data = new SampleData();
+
+    private void produce(Carrier carrier, Result result) {
+        if (carrier.channels.save(data)) {
+            result.saved++;
+        } else {
+            result.dropped++;
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void produce8(Carrier carrier, Result result) {
+        produce(carrier, result);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void produce32(Carrier carrier, Result result) {
+        produce(carrier, result);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void produce64(Carrier carrier, Result result) {
+        produce(carrier, result);
+    }
+
+    /**
+     * Test Data
+     */
+    public static class SampleData {
+
+        private int intValue;
+
+        private String name;
+
+    }
+}
@@ -19,8 +19,10 @@
 package org.apache.skywalking.oal.rt;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
 import org.apache.skywalking.oal.rt.parser.OALScripts;
 import org.apache.skywalking.oal.rt.parser.ScriptParser;
+import org.apache.skywalking.oal.rt.precompile.PrecompiledOALIndex;
 import org.apache.skywalking.oal.rt.util.OALClassGenerator;
 import org.apache.skywalking.oap.server.core.analysis.DispatcherDetectorListener;
 import org.apache.skywalking.oap.server.core.analysis.StreamAnnotationListener;
@@ -49,6 +51,7 @@ public class OALKernel implements OALEngine {
     private static boolean IS_RT_TEMP_FOLDER_INIT_COMPLETED = false;
 
     private OALClassGenerator oalClassGenerator;
+    private StorageBuilderFactory storageBuilderFactory;
 
     private StreamAnnotationListener streamAnnotationListener;
     private DispatcherDetectorListener dispatcherDetectorListener;
@@ -77,6 +80,7 @@ public class OALKernel implements OALEngine {
 
     @Override
     public void setStorageBuilderFactory(final StorageBuilderFactory factory) {
+        storageBuilderFactory = factory;
         oalClassGenerator.setStorageBuilderFactory(factory);
     }
 
@@ -87,18 +91,24 @@ public class OALKernel implements OALEngine {
             IS_RT_TEMP_FOLDER_INIT_COMPLETED = true;
         }
 
-        Reader read;
+        String script;
         oalClassGenerator.setCurrentClassLoader(currentClassLoader);
 
-        try {
-            read = ResourceUtils.read(oalDefine.getConfigFile());
+        try (Reader read = ResourceUtils.read(oalDefine.getConfigFile())) {
+            script = IOUtils.toString(read);
         } catch (FileNotFoundException e) {
             throw new ModuleStartException("Can't locate " + oalDefine.getConfigFile(), e);
+        } catch (IOException e) {
+            throw new ModuleStartException("Can't read " + oalDefine.getConfigFile(), e);
+        }
+
+        if (loadPrecompiledClasses(currentClassLoader, script)) {
+            return;
         }
 
         OALScripts oalScripts;
         try {
-            ScriptParser scriptParser = ScriptParser.createFromFile(read, oalDefine.getSourcePackage());
+            ScriptParser scriptParser = ScriptParser.createFromScriptText(script, oalDefine.getSourcePackage());
             oalScripts = scriptParser.parse();
         } catch (IOException e) {
             throw new ModuleStartException("OAL script parse analysis failure.", e);
@@ -107,6 +117,37 @@ public class OALKernel implements OALEngine {
         oalClassGenerator.generateClassAtRuntime(oalScripts, metricsClasses, dispatcherClasses);
     }
 
+    /**
+     * Load the classes generated at build time, if the script is the same as the precompiled one.
+     *
+     * @return false if there is no precompiled classes matching the script, the classes should be generated at runtime.
+     */
+    private boolean loadPrecompiledClasses(ClassLoader currentClassLoader,
+                                           String script) throws ModuleStartException {
+        final PrecompiledOALIndex index;
+        try {
+            index = PrecompiledOALIndex.find(oalDefine, currentClassLoader);
+        } catch (IOException e) {
+            throw new ModuleStartException("Can't read the precompiled index of " + oalDefine.getConfigFile(), e);
+        }
+        if (index == null) {
+            return false;
+        }
+        if (!index.matches(oalDefine, storageBuilderFactory.builderTemplate().getTemplatePath(), script)) {
+            log.info("OAL script {} is different from the precompiled one, generate classes at runtime.",
+                     oalDefine.getConfigFile());
+            return false;
+        }
+        try {
+            index.loadClasses(currentClassLoader, metricsClasses, dispatcherClasses);
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new ModuleStartException("Can't load the precompiled classes of " + oalDefine.getConfigFile(), e);
+        }
+        log.info("Load {} metrics and {} dispatcher classes precompiled from OAL script {}.",
+                 metricsClasses.size(), dispatcherClasses.size(), oalDefine.getConfigFile());
+        return true;
+    }
+
     @Override
     public void notifyAllListeners() throws ModuleStartException {
         for (Class metricsClass : metricsClasses) {
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oal.rt.precompile;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.skywalking.oal.rt.parser.OALScripts;
+import org.apache.skywalking.oal.rt.parser.ScriptParser;
+import org.apache.skywalking.oal.rt.util.OALClassGenerator;
+import org.apache.skywalking.oap.server.core.annotation.AnnotationScan;
+import org.apache.skywalking.oap.server.core.oal.rt.OALDefine;
+import org.apache.skywalking.oap.server.core.source.DefaultScopeDefine;
+import org.apache.skywalking.oap.server.core.storage.StorageBuilderFactory;
+
+/**
+ * Generate the classes of the OAL scripts at build time, used by the {@code oal-precompiled} module. At runtime, the
+ * OAL engine loads these classes directly if the script is unchanged, rather than generating them through Javassist.
+ *
+ * <pre>
+ * Arguments:
+ *   [0] the folder of the OAL scripts, e.g. server-starter/src/main/resources
+ *   [1] the output folder of the class files and the indexes
+ *   [2..] the class names of the {@link OALDefine}s, which hold the singleton in the static INSTANCE field
+ * </pre>
+ */
+@Slf4j
+public class OALPrecompiler {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            throw new IllegalArgumentException(
+                "Usage: OALPrecompiler <script folder> <output folder> <OALDefine class>...");
+        }
+        final File scriptFolder = new File(args[0]);
+        final File outputFolder = new File(args[1]);
+
+        final AnnotationScan scopeScan = new AnnotationScan();
+        scopeScan.registerListener(new DefaultScopeDefine.Listener());
+        scopeScan.scan();
+
+        final StorageBuilderFactory storageBuilderFactory = new StorageBuilderFactory.Default();
+        for (int i = 2; i < args.length; i++) {
+            final OALDefine define = (OALDefine) Class.forName(args[i]).getField("INSTANCE").get(null);
+            final String script = new String(
+                Files.readAllBytes(new File(scriptFolder, define.getConfigFile()).toPath()), StandardCharsets.UTF_8);
+            final OALScripts oalScripts = ScriptParser.createFromScriptText(script, define.getSourcePackage()).parse();
+
+            final OALClassGenerator generator = new OALClassGenerator(define);
+            generator.setStorageBuilderFactory(storageBuilderFactory);
+            final PrecompiledOALIndex index = new PrecompiledOALIndex(
+                define, storageBuilderFactory.builderTemplate().getTemplatePath(), script);
+            generator.generateClassAhead(oalScripts, outputFolder, index);
+            index.write(outputFolder);
+
+            log.info(
+                "Precompiled {}: {} metrics, {} dispatchers", define.getConfigFile(),
+                index.getMetricsClasses().size(), index.getDispatcherClasses().size()
+            );
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oal.rt.precompile;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.hash.Hashing;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.apache.skywalking.oap.server.core.analysis.DisableRegister;
+import org.apache.skywalking.oap.server.core.oal.rt.OALDefine;
+
+/**
+ * The index of the classes generated from one OAL script at build time, see {@link OALPrecompiler}. The index is
+ * located by the config file of the {@link OALDefine}, and only valid when the script at runtime is the same as the
+ * one compiled, otherwise, the classes should be generated at runtime as usual.
+ */
+@Getter
+@RequiredArgsConstructor
+public class PrecompiledOALIndex {
+    private static final String INDEX_FOLDER = "META-INF/oal-precompiled/";
+    private static final Joiner JOINER = Joiner.on(',');
+    private static final Splitter SPLITTER = Splitter.on(',').omitEmptyStrings().trimResults();
+
+    private final String configFile;
+    private final String sourcePackage;
+    private final String dispatcherClassPackage;
+    private final String builderTemplatePath;
+    /**
+     * The SHA-256 of the OAL script content.
+     */
+    private final String scriptHash;
+    private final List<String> metricsClasses = new ArrayList<>();
+    private final List<String> metricsBuilderClasses = new ArrayList<>();
+    private final List<String> dispatcherClasses = new ArrayList<>();
+    private final List<String> disableSources = new ArrayList<>();
+
+    public PrecompiledOALIndex(OALDefine define, String builderTemplatePath, String script) {
+        this(
+            define.getConfigFile(), define.getSourcePackage(), define.getDynamicDispatcherClassPackage(),
+            builderTemplatePath, hash(script)
+        );
+    }
+
+    public static String hash(String script) {
+        return Hashing.sha256().hashString(script, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * @return the index of the given define in the classpath, or null if the script is not precompiled.
+     */
+    public static PrecompiledOALIndex find(OALDefine define, ClassLoader classLoader) throws IOException {
+        try (InputStream stream = classLoader.getResourceAsStream(indexPath(define.getConfigFile()))) {
+            if (stream == null) {
+                return null;
+            }
+            final Properties properties = new Properties();
+            try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            final PrecompiledOALIndex index = new PrecompiledOALIndex(
+                properties.getProperty("configFile"),
+                properties.getProperty("sourcePackage"),
+                properties.getProperty("dispatcherClassPackage"),
+                properties.getProperty("builderTemplatePath"),
+                properties.getProperty("scriptHash")
+            );
+            index.metricsClasses.addAll(SPLITTER.splitToList(properties.getProperty("metricsClasses", "")));
+            index.metricsBuilderClasses.addAll(SPLITTER.splitToList(properties.getProperty("metricsBuilderClasses", "")));
+            index.dispatcherClasses.addAll(SPLITTER.splitToList(properties.getProperty("dispatcherClasses", "")));
+            index.disableSources.addAll(SPLITTER.splitToList(properties.getProperty("disableSources", "")));
+            return index;
+        }
+    }
+
+    /**
+     * @return true if the classes are generated from the same script and define, by the same storage builder template.
+     */
+    public boolean matches(OALDefine define, String builderTemplatePath, String script) {
+        return Objects.equals(configFile, define.getConfigFile())
+            && Objects.equals(sourcePackage, define.getSourcePackage())
+            && Objects.equals(dispatcherClassPackage, define.getDynamicDispatcherClassPackage())
+            && Objects.equals(this.builderTemplatePath, builderTemplatePath)
+            && Objects.equals(scriptHash, hash(script));
+    }
+
+    /**
+     * Load and initialize the precompiled classes, and register the disabled sources, as the same as
+     * {@code OALClassGenerator#generateClassAtRuntime} does.
+     */
+    public void loadClasses(ClassLoader classLoader,
+                            List<Class> metricsClasses,
+                            List<Class> dispatcherClasses) throws ClassNotFoundException {
+        for (String metricsClass : this.metricsClasses) {
+            metricsClasses.add(Class.forName(metricsClass, true, classLoader));
+        }
+        for (String metricsBuilderClass : this.metricsBuilderClasses) {
+            Class.forName(metricsBuilderClass, true, classLoader);
+        }
+        for (String dispatcherClass : this.dispatcherClasses) {
+            dispatcherClasses.add(Class.forName(dispatcherClass, true, classLoader));
+        }
+        disableSources.forEach(DisableRegister.INSTANCE::add);
+    }
+
+    /**
+     * Write the index into the given output folder. The properties are written in the fixed order without the
+     * timestamp, to keep the build reproducible.
+     */
+    public void write(File outputFolder) throws IOException {
+        final File file = new File(outputFolder, indexPath(configFile));
+        Files.createDirectories(file.getParentFile().toPath());
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("configFile=" + configFile + "\n");
+            writer.write("sourcePackage=" + sourcePackage + "\n");
+            writer.write("dispatcherClassPackage=" + dispatcherClassPackage + "\n");
+            writer.write("builderTemplatePath=" + builderTemplatePath + "\n");
+            writer.write("scriptHash=" + scriptHash + "\n");
+            writer.write("metricsClasses=" + JOINER.join(metricsClasses) + "\n");
+            writer.write("metricsBuilderClasses=" + JOINER.join(metricsBuilderClasses) + "\n");
+            writer.write("dispatcherClasses=" + JOINER.join(dispatcherClasses) + "\n");
+            writer.write("disableSources=" + JOINER.join(disableSources) + "\n");
+        }
+    }
+
+    private static String indexPath(String configFile) {
+        return INDEX_FOLDER + configFile + ".properties";
+    }
+}
@@ -46,6 +46,7 @@ import org.apache.skywalking.oal.rt.output.DispatcherContext;
 import org.apache.skywalking.oal.rt.parser.AnalysisResult;
 import org.apache.skywalking.oal.rt.parser.OALScripts;
 import org.apache.skywalking.oal.rt.parser.SourceColumn;
+import org.apache.skywalking.oal.rt.precompile.PrecompiledOALIndex;
 import org.apache.skywalking.oap.server.core.WorkPath;
 import org.apache.skywalking.oap.server.core.analysis.DisableRegister;
 import org.apache.skywalking.oap.server.core.analysis.SourceDispatcher;
@@ -126,12 +127,13 @@ public class OALClassGenerator {
         metricsStmts.forEach(this::buildDispatcherContext);
 
         for (AnalysisResult metricsStmt : metricsStmts) {
-            metricsClasses.add(generateMetricsClass(metricsStmt));
-            generateMetricsBuilderClass(metricsStmt);
+            metricsClasses.add(toClass(generateMetricsClass(metricsStmt), MetricClassPackageHolder.class, "metrics"));
+            toClass(generateMetricsBuilderClass(metricsStmt), MetricBuilderClassPackageHolder.class, "metrics/builder");
         }
 
         for (Map.Entry<String, DispatcherContext> entry : allDispatcherContext.getAllContext().entrySet()) {
-            dispatcherClasses.add(generateDispatcherClass(entry.getKey(), entry.getValue()));
+            dispatcherClasses.add(toClass(
+                generateDispatcherClass(entry.getKey(), entry.getValue()), DispatcherClassPackageHolder.class, "dispatcher"));
         }
 
         oalScripts.getDisableCollection().getAllDisableSources().forEach(disable -> {
@@ -140,9 +142,30 @@ public class OALClassGenerator {
     }
 
     /**
-     * Generate metrics class, and inject it to classloader
+     * Generate the classes into the class files of the given folder, rather than the classloader. The class names are
+     * added into the given index, for {@link PrecompiledOALIndex#loadClasses} to load them at runtime.
      */
-    private Class generateMetricsClass(AnalysisResult metricsStmt) throws OALCompileException {
+    public void generateClassAhead(OALScripts oalScripts, File outputFolder, PrecompiledOALIndex index) throws OALCompileException {
+        List<AnalysisResult> metricsStmts = oalScripts.getMetricsStmts();
+        metricsStmts.forEach(this::buildDispatcherContext);
+
+        for (AnalysisResult metricsStmt : metricsStmts) {
+            index.getMetricsClasses().add(writeClassFile(generateMetricsClass(metricsStmt), outputFolder));
+            index.getMetricsBuilderClasses().add(writeClassFile(generateMetricsBuilderClass(metricsStmt), outputFolder));
+        }
+
+        for (Map.Entry<String, DispatcherContext> entry : allDispatcherContext.getAllContext().entrySet()) {
+            index.getDispatcherClasses().add(
+                writeClassFile(generateDispatcherClass(entry.getKey(), entry.getValue()), outputFolder));
+        }
+
+        index.getDisableSources().addAll(oalScripts.getDisableCollection().getAllDisableSources());
+    }
+
+    /**
+     * Generate metrics class
+     */
+    private CtClass generateMetricsClass(AnalysisResult metricsStmt) throws OALCompileException {
         String className = metricsClassName(metricsStmt, false);
         CtClass parentMetricsClass = null;
         try {
@@ -252,28 +275,14 @@ public class OALClassGenerator {
         annotationsAttribute.addAnnotation(streamAnnotation);
         metricsClassClassFile.addAttribute(annotationsAttribute);
 
-        Class targetClass;
-        try {
-            if (SystemUtils.isJavaVersionAtMost(JavaVersion.JAVA_1_8)) {
-                targetClass = metricsClass.toClass(currentClassLoader, null);
-            } else {
-                targetClass = metricsClass.toClass(MetricClassPackageHolder.class);
-            }
-        } catch (CannotCompileException e) {
-            log.error("Can't compile/load " + className + ".", e);
-            throw new OALCompileException(e.getMessage(), e);
-        }
-
         log.debug("Generate metrics class, " + metricsClass.getName());
-        writeGeneratedFile(metricsClass, "metrics");
-
-        return targetClass;
+        return metricsClass;
     }
 
     /**
-     * Generate metrics class builder and inject it to classloader
+     * Generate metrics class builder
      */
-    private void generateMetricsBuilderClass(AnalysisResult metricsStmt) throws OALCompileException {
+    private CtClass generateMetricsBuilderClass(AnalysisResult metricsStmt) throws OALCompileException {
         String className = metricsBuilderClassName(metricsStmt, false);
         CtClass metricsBuilderClass = classPool.makeClass(metricsBuilderClassName(metricsStmt, true));
         try {
@@ -311,24 +320,13 @@ public class OALClassGenerator {
             }
         }
 
-        try {
-            if (SystemUtils.isJavaVersionAtMost(JavaVersion.JAVA_1_8)) {
-                metricsBuilderClass.toClass(currentClassLoader, null);
-            } else {
-                metricsBuilderClass.toClass(MetricBuilderClassPackageHolder.class);
-            }
-        } catch (CannotCompileException e) {
-            log.error("Can't compile/load " + className + ".", e);
-            throw new OALCompileException(e.getMessage(), e);
-        }
-
-        writeGeneratedFile(metricsBuilderClass,  "metrics/builder");
+        return metricsBuilderClass;
     }
 
     /**
-     * Generate SourceDispatcher class and inject it to classloader
+     * Generate SourceDispatcher class
      */
-    private Class generateDispatcherClass(String scopeName,
+    private CtClass generateDispatcherClass(String scopeName,
                                           DispatcherContext dispatcherContext) throws OALCompileException {
 
         String className = dispatcherClassName(scopeName, false);
@@ -392,22 +390,44 @@ public class OALClassGenerator {
             throw new OALCompileException(e.getMessage(), e);
         }
 
+        return dispatcherClass;
+    }
+
+    /**
+     * Inject the generated class to classloader, in the package of the given neighbor class.
+     */
+    private Class toClass(CtClass generatedClass, Class<?> neighbor, String type) throws OALCompileException {
         Class targetClass;
         try {
             if (SystemUtils.isJavaVersionAtMost(JavaVersion.JAVA_1_8)) {
-                targetClass = dispatcherClass.toClass(currentClassLoader, null);
+                targetClass = generatedClass.toClass(currentClassLoader, null);
             } else {
-                targetClass = dispatcherClass.toClass(DispatcherClassPackageHolder.class);
+                targetClass = generatedClass.toClass(neighbor);
             }
         } catch (CannotCompileException e) {
-            log.error("Can't compile/load " + className + ".", e);
+            log.error("Can't compile/load " + generatedClass.getSimpleName() + ".", e);
             throw new OALCompileException(e.getMessage(), e);
         }
 
-        writeGeneratedFile(dispatcherClass, "dispatcher");
+        writeGeneratedFile(generatedClass, type);
         return targetClass;
     }
 
+    /**
+     * Write the generated class as the class file in the package folder under the given output folder.
+     *
+     * @return the full name of the class.
+     */
+    private String writeClassFile(CtClass generatedClass, File outputFolder) throws OALCompileException {
+        try {
+            generatedClass.writeFile(outputFolder.getAbsolutePath());
+        } catch (CannotCompileException | IOException e) {
+            log.error("Can't write class file of " + generatedClass.getName() + ".", e);
+            throw new OALCompileException(e.getMessage(), e);
+        }
+        return generatedClass.getName();
+    }
+
     private String metricsClassName(AnalysisResult metricsStmt, boolean fullName) {
         return (fullName ? oalDefine.getDynamicMetricsClassPackage() : "") + metricsStmt.getMetricsName() + "Metrics";
     }
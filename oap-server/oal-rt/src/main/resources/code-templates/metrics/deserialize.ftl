@@ -1,4 +1,4 @@
-public void deserialize(org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData remoteData) {
+public void deserialize(org.apache.skywalking.oap.server.core.remote.RemoteDataView remoteData) {
 <#list serializeFields.stringFields as field>
     ${field.setter}(remoteData.getDataStrings(${field?index}));
 </#list>
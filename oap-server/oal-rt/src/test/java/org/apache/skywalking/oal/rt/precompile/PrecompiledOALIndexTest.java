@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oal.rt.precompile;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import org.apache.skywalking.oap.server.core.oal.rt.CoreOALDefine;
+import org.apache.skywalking.oap.server.core.oal.rt.DisableOALDefine;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PrecompiledOALIndexTest {
+    private static final String SCRIPT = "endpoint_resp_time = from(Endpoint.latency).longAvg();";
+
+    @TempDir
+    File outputFolder;
+
+    @Test
+    public void testWriteAndFind() throws IOException {
+        PrecompiledOALIndex index = new PrecompiledOALIndex(CoreOALDefine.INSTANCE, "metrics-builder", SCRIPT);
+        index.getMetricsClasses().add("a.EndpointRespTimeMetrics");
+        index.getMetricsBuilderClasses().add("a.EndpointRespTimeMetricsBuilder");
+        index.getDispatcherClasses().add("a.EndpointDispatcher");
+        index.write(outputFolder);
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {outputFolder.toURI().toURL()}, null)) {
+            Assertions.assertNull(PrecompiledOALIndex.find(DisableOALDefine.INSTANCE, classLoader));
+
+            PrecompiledOALIndex found = PrecompiledOALIndex.find(CoreOALDefine.INSTANCE, classLoader);
+            Assertions.assertNotNull(found);
+            Assertions.assertEquals(index.getMetricsClasses(), found.getMetricsClasses());
+            Assertions.assertEquals(index.getMetricsBuilderClasses(), found.getMetricsBuilderClasses());
+            Assertions.assertEquals(index.getDispatcherClasses(), found.getDispatcherClasses());
+            Assertions.assertTrue(found.getDisableSources().isEmpty());
+
+            Assertions.assertTrue(found.matches(CoreOALDefine.INSTANCE, "metrics-builder", SCRIPT));
+            Assertions.assertFalse(found.matches(CoreOALDefine.INSTANCE, "metrics-builder", SCRIPT + "\n"));
+            Assertions.assertFalse(found.matches(CoreOALDefine.INSTANCE, "other-builder", SCRIPT));
+            Assertions.assertFalse(found.matches(DisableOALDefine.INSTANCE, "metrics-builder", SCRIPT));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.annotation.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Write the top-level classes annotated by, or non-abstract classes implementing, a type marked as
+ * {@code org.apache.skywalking.oap.server.core.annotation.Indexed} into {@code META-INF/skywalking/class-index/<type
+ * name>}, one class name per line. The OAP core reads these files through {@code ClassIndex} at boot, rather than
+ * loading every class in the classpath to find them.
+ * <p>
+ * This processor doesn't depend on the OAP core, the indexed types are recognized by the name of the marker.
+ */
+@SupportedAnnotationTypes("*")
+public class ClassIndexProcessor extends AbstractProcessor {
+    static final String INDEXED_ANNOTATION = "org.apache.skywalking.oap.server.core.annotation.Indexed";
+    static final String INDEX_FOLDER = "META-INF/skywalking/class-index/";
+
+    /**
+     * Indexed type name to the names of the found classes, sorted to keep the build reproducible.
+     */
+    private final Map<String, Set<String>> index = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+        for (Element element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement) {
+                collect((TypeElement) element);
+            }
+        }
+        // Never claim the annotations, leave them to the other processors, such as Lombok.
+        return false;
+    }
+
+    private void collect(TypeElement type) {
+        final String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+        for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+            final TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (isIndexed(annotationType)) {
+                add(annotationType, className);
+            }
+        }
+        if (type.getKind() == ElementKind.CLASS && !type.getModifiers().contains(Modifier.ABSTRACT)) {
+            collectSupertypes(type.asType(), className);
+        }
+    }
+
+    private void collectSupertypes(TypeMirror type, String className) {
+        for (TypeMirror supertype : processingEnv.getTypeUtils().directSupertypes(type)) {
+            final TypeElement element = (TypeElement) ((DeclaredType) supertype).asElement();
+            if (isIndexed(element)) {
+                add(element, className);
+            }
+            collectSupertypes(supertype, className);
+        }
+    }
+
+    private boolean isIndexed(TypeElement type) {
+        for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+            final TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(INDEXED_ANNOTATION)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void add(TypeElement indexedType, String className) {
+        index.computeIfAbsent(indexedType.getQualifiedName().toString(), k -> new TreeSet<>()).add(className);
+    }
+
+    private void writeIndex() {
+        for (Map.Entry<String, Set<String>> entry : index.entrySet()) {
+            try {
+                final FileObject file = processingEnv.getFiler()
+                                                     .createResource(
+                                                         StandardLocation.CLASS_OUTPUT, "",
+                                                         INDEX_FOLDER + entry.getKey()
+                                                     );
+                try (Writer writer = file.openWriter()) {
+                    for (String className : entry.getValue()) {
+                        writer.write(className);
+                        writer.write('\n');
+                    }
+                }
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(
+                    Diagnostic.Kind.ERROR, "Failed to write the class index of " + entry.getKey() + ": " + e);
+            }
+        }
+    }
+}
@@ -54,6 +54,51 @@ public class CoreModuleConfig extends ModuleConfig {
      * The threshold of session time. Unit is ms. Default value is 70s.
      */
     private long storageSessionTimeout = 70_000;
+    /**
+     * The number of the stripes of the L2 aggregation cache of every metrics. Every stripe has its own lock and
+     * read/write buffers, so the persistence only waits for the L2 aggregation writing the same stripe when it switches
+     * the buffers, rather than the whole consumed batch. Default value is 4.
+     *
+     * @since 10.1.0
+     */
+    private int l2AggregationCacheStripes = 4;
+    /**
+     * The max number of metrics in one multiGet from the storage, when the metrics don't hit the session cache in the
+     * L2 aggregation.
+     *
+     * @since 10.1.0
+     */
+    private int metricsMultiGetBatchSize = 2000;
+    /**
+     * The number of threads loading the metrics from the storage ahead of the merging of the L2 aggregation, shared by
+     * all metrics. It is also the max number of slices loading ahead in one metrics. 0 means loading synchronously.
+     *
+     * @since 10.1.0
+     */
+    private int metricsMultiGetConcurrency = 2;
+    /**
+     * The memory budget(MB) of the off-heap metrics session cache of the L2 aggregation, shared by all metrics. The
+     * cached metrics are kept serialized in the direct memory, rather than as the on-heap objects. 0 means the session
+     * cache is on-heap.
+     *
+     * @since 10.1.0
+     */
+    private int metricsSessionCacheOffHeapSizeInMB = 0;
+    /**
+     * The memory budget(MB) of the metrics query cache, which caches the metrics values of the closed time buckets. 0
+     * means disabled.
+     *
+     * @since 10.1.0
+     */
+    private int metricsQueryCacheSizeInMB = 64;
+    /**
+     * The delay(second) after the end of a time bucket, since when the metrics values of the bucket are not going to
+     * change, and could be cached in the metrics query cache. It should be longer than the L1/L2 aggregation and the
+     * persistent period.
+     *
+     * @since 10.1.0
+     */
+    private int metricsQueryCacheClosedDelay = 180;
     private final List<String> downsampling;
     /**
      * The period of doing data persistence. Unit is second.
@@ -82,6 +127,27 @@ public class CoreModuleConfig extends ModuleConfig {
      */
 
     private int remoteTimeout = 20;
+    /**
+     * Send the metrics to the other OAP nodes in the columnar batches. The client falls back to the one message per
+     * stream entry way automatically, if the other OAP doesn't support it.
+     *
+     * @since 10.1.0
+     */
+    private boolean remoteBatchEnabled = true;
+    /**
+     * The gRPC compression of the communication between OAP nodes, `gzip` or `none`.
+     *
+     * @since 10.1.0
+     */
+    private String remoteCompression = "none";
+    /**
+     * The selector to choose the OAP node of the L2 aggregation for the metrics, `HashCode` or `ConsistentHash`.
+     * `ConsistentHash` moves only about 1/(N+1) of the metrics to other nodes when the cluster scales from N to N+1
+     * nodes. All OAP nodes in the cluster must use the same selector.
+     *
+     * @since 10.1.0
+     */
+    private String remoteSelector = "HashCode";
     /**
      * The size of network address alias.
      */
@@ -231,6 +297,17 @@ public class CoreModuleConfig extends ModuleConfig {
     @Getter
     private boolean enableHierarchy = true;
 
+    /**
+     * The dispatchers, streams, scopes and meter functions are found through the class index generated at compile time.
+     * Enable this to scan the classpath as well, for the third-party plugins compiled without the
+     * `server-annotation-processor`.
+     *
+     * @since 10.1.0
+     */
+    @Setter
+    @Getter
+    private boolean enableClassIndexFallbackScan = false;
+
     public CoreModuleConfig() {
         this.downsampling = new ArrayList<>();
     }
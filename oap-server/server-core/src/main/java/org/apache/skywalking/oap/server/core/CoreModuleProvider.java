@@ -20,6 +20,7 @@ package org.apache.skywalking.oap.server.core;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import org.apache.skywalking.oap.server.ai.pipeline.AIPipelineModule;
 import org.apache.skywalking.oap.server.ai.pipeline.services.api.HttpUriRecognition;
 import org.apache.skywalking.oap.server.configuration.api.ConfigurationModule;
@@ -33,6 +34,7 @@ import org.apache.skywalking.oap.server.core.analysis.metrics.ApdexMetrics;
 import org.apache.skywalking.oap.server.core.analysis.worker.MetricsStreamProcessor;
 import org.apache.skywalking.oap.server.core.analysis.worker.TopNStreamProcessor;
 import org.apache.skywalking.oap.server.core.annotation.AnnotationScan;
+import org.apache.skywalking.oap.server.core.annotation.ClassIndex;
 import org.apache.skywalking.oap.server.core.cache.CacheUpdateTimer;
 import org.apache.skywalking.oap.server.core.cache.NetworkAddressAliasCache;
 import org.apache.skywalking.oap.server.core.cache.ProfileTaskCache;
@@ -72,6 +74,7 @@ import org.apache.skywalking.oap.server.core.query.HierarchyQueryService;
 import org.apache.skywalking.oap.server.core.query.LogQueryService;
 import org.apache.skywalking.oap.server.core.query.MetadataQueryService;
 import org.apache.skywalking.oap.server.core.query.MetricsMetadataQueryService;
+import org.apache.skywalking.oap.server.core.query.MetricsQueryCache;
 import org.apache.skywalking.oap.server.core.query.MetricsQueryService;
 import org.apache.skywalking.oap.server.core.query.RecordQueryService;
 import org.apache.skywalking.oap.server.core.query.TagAutoCompleteQueryService;
@@ -83,6 +86,7 @@ import org.apache.skywalking.oap.server.core.remote.RemoteServiceHandler;
 import org.apache.skywalking.oap.server.core.remote.client.Address;
 import org.apache.skywalking.oap.server.core.remote.client.RemoteClientManager;
 import org.apache.skywalking.oap.server.core.remote.health.HealthCheckServiceHandler;
+import org.apache.skywalking.oap.server.core.remote.selector.Selector;
 import org.apache.skywalking.oap.server.core.server.GRPCHandlerRegister;
 import org.apache.skywalking.oap.server.core.server.GRPCHandlerRegisterImpl;
 import org.apache.skywalking.oap.server.core.server.HTTPHandlerRegister;
@@ -195,6 +199,7 @@ public class CoreModuleProvider extends ModuleProvider {
             throw new ModuleStartException(e.getMessage(), e);
         }
 
+        ClassIndex.setFallbackScanEnabled(moduleConfig.isEnableClassIndexFallbackScan());
         AnnotationScan scopeScan = new AnnotationScan();
         scopeScan.registerListener(new DefaultScopeDefine.Listener());
         try {
@@ -288,7 +293,14 @@ public class CoreModuleProvider extends ModuleProvider {
         this.registerServiceImplementation(
             TopologyQueryService.class, new TopologyQueryService(getManager(), storageModels));
         this.registerServiceImplementation(MetricsMetadataQueryService.class, new MetricsMetadataQueryService());
-        this.registerServiceImplementation(MetricsQueryService.class, new MetricsQueryService(getManager()));
+        this.registerServiceImplementation(MetricsQueryService.class, new MetricsQueryService(
+            getManager(),
+            moduleConfig.getMetricsQueryCacheSizeInMB() > 0 ? new MetricsQueryCache(
+                moduleConfig.getMetricsQueryCacheSizeInMB() * 1024L * 1024L,
+                TimeUnit.SECONDS.toMillis(moduleConfig.getMetricsQueryCacheClosedDelay()),
+                getManager()
+            ) : null
+        ));
         this.registerServiceImplementation(TraceQueryService.class, new TraceQueryService(getManager()));
         this.registerServiceImplementation(BrowserLogQueryService.class, new BrowserLogQueryService(getManager()));
         this.registerServiceImplementation(LogQueryService.class, new LogQueryService(getManager()));
@@ -335,6 +347,8 @@ public class CoreModuleProvider extends ModuleProvider {
         } else {
             this.remoteClientManager = new RemoteClientManager(getManager(), moduleConfig.getRemoteTimeout());
         }
+        this.remoteClientManager.setRemoteBatchEnabled(moduleConfig.isRemoteBatchEnabled());
+        this.remoteClientManager.setRemoteCompression(moduleConfig.getRemoteCompression());
         this.registerServiceImplementation(RemoteClientManager.class, remoteClientManager);
 
         // Management
@@ -357,7 +371,25 @@ public class CoreModuleProvider extends ModuleProvider {
         final MetricsStreamProcessor metricsStreamProcessor = MetricsStreamProcessor.getInstance();
         metricsStreamProcessor.setL1FlushPeriod(moduleConfig.getL1FlushPeriod());
         metricsStreamProcessor.setStorageSessionTimeout(moduleConfig.getStorageSessionTimeout());
+        metricsStreamProcessor.setL2AggregationCacheStripes(moduleConfig.getL2AggregationCacheStripes());
+        if (moduleConfig.getMetricsMultiGetBatchSize() <= 0) {
+            throw new ModuleStartException(
+                "Metrics multiGet batch size should be positive, current value is "
+                    + moduleConfig.getMetricsMultiGetBatchSize());
+        }
+        metricsStreamProcessor.setMultiGetBatchSize(moduleConfig.getMetricsMultiGetBatchSize());
+        metricsStreamProcessor.setMultiGetConcurrency(moduleConfig.getMetricsMultiGetConcurrency());
+        metricsStreamProcessor.setSessionCacheOffHeapSizeInMB(moduleConfig.getMetricsSessionCacheOffHeapSizeInMB());
         metricsStreamProcessor.setMetricsDataTTL(moduleConfig.getMetricsDataTTL());
+        if (Selector.HashCode.name().equals(moduleConfig.getRemoteSelector())) {
+            metricsStreamProcessor.setRemoteSelector(Selector.HashCode);
+        } else if (Selector.ConsistentHash.name().equals(moduleConfig.getRemoteSelector())) {
+            metricsStreamProcessor.setRemoteSelector(Selector.ConsistentHash);
+        } else {
+            throw new ModuleStartException(
+                "Remote selector should be HashCode or ConsistentHash, current value is "
+                    + moduleConfig.getRemoteSelector());
+        }
         TopNStreamProcessor.getInstance().setTopNWorkerReportCycle(moduleConfig.getTopNReportPeriod());
         apdexThresholdConfig = new ApdexThresholdConfig(this);
         ApdexMetrics.setDICT(apdexThresholdConfig);
@@ -18,8 +18,6 @@
 
 package org.apache.skywalking.oap.server.core.analysis;
 
-import com.google.common.collect.ImmutableSet;
-import com.google.common.reflect.ClassPath;
 import java.io.IOException;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
@@ -29,6 +27,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.apache.skywalking.oap.server.core.UnexpectedException;
+import org.apache.skywalking.oap.server.core.annotation.ClassIndex;
 import org.apache.skywalking.oap.server.core.source.ISource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,17 +63,14 @@ public class DispatcherManager implements DispatcherDetectorListener {
     }
 
     /**
-     * Scan all classes under `org.apache.skywalking` package,
+     * Find all classes under `org.apache.skywalking` package through the {@link ClassIndex},
      * <p>
      * If it implement {@link org.apache.skywalking.oap.server.core.analysis.SourceDispatcher}, then, it will be added
-     * into this DispatcherManager based on the Source definition.
+     * into this DispatcherManager based on the Source definition. The dispatchers generated from the OAL scripts are
+     * excluded by the {@link ClassIndex}, they are added by the OAL engine only.
      */
     public void scan() throws IOException, IllegalAccessException, InstantiationException {
-        ClassPath classpath = ClassPath.from(this.getClass().getClassLoader());
-        ImmutableSet<ClassPath.ClassInfo> classes = classpath.getTopLevelClassesRecursive("org.apache.skywalking");
-        for (ClassPath.ClassInfo classInfo : classes) {
-            Class<?> aClass = classInfo.load();
-
+        for (Class<?> aClass : ClassIndex.find(SourceDispatcher.class, this.getClass().getClassLoader())) {
             addIfAsSourceDispatcher(aClass);
         }
     }
@@ -18,6 +18,7 @@
 
 package org.apache.skywalking.oap.server.core.analysis;
 
+import org.apache.skywalking.oap.server.core.annotation.Indexed;
 import org.apache.skywalking.oap.server.core.source.ISource;
 
 /**
@@ -29,6 +30,7 @@ import org.apache.skywalking.oap.server.core.source.ISource;
  *
  * @param <SOURCE> the data type of this dispatcher processes.
  */
+@Indexed
 public interface SourceDispatcher<SOURCE extends ISource> {
     void dispatch(SOURCE source);
 }
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.storage.StorageID;
+
+/**
+ * OpenAddressingBufferedData is a thread no safe implementation of {@link BufferedData}, works as same as
+ * {@link MergableBufferedData}, {@link Metrics} would be {@link Metrics#combine(Metrics)} if their
+ * {@link Metrics#id()}s are same.
+ *
+ * The metrics are kept densely in the accepting order, and indexed by a linear probing table of primitive longs. Every
+ * slot packs the high 32 bits of {@link StorageID#longHashCode()} and the position of the metrics, so a lookup touches
+ * one slot in the table, and {@link StorageID#equals(Object)} is only required when the 64-bit hash matches. No entry
+ * object is created per accepted metrics, and the table keeps its capacity between the flush cycles, as the L1/L2
+ * aggregation buffers roughly the same amount of metrics every cycle.
+ *
+ * Concurrency {@link #accept(Metrics)}s and {@link #read()} while {@link #accept(Metrics)} are both not recommended.
+ */
+public class OpenAddressingBufferedData<METRICS extends Metrics> implements BufferedData<METRICS> {
+    /**
+     * Start small, there is a buffer pair for every metrics model and downsampling. The table grows on demand and keeps
+     * its capacity after that.
+     */
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final long POSITION_MASK = 0xFFFFFFFFL;
+
+    /**
+     * High 32 bits are the hash fingerprint, low 32 bits are the position + 1 in {@link #keys} and {@link #values}.
+     * 0 means an empty slot.
+     */
+    private long[] table;
+    private long[] hashes;
+    private StorageID[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int threshold;
+
+    public OpenAddressingBufferedData() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * @param expectedSize the expected number of the distinct metrics in one flush cycle.
+     */
+    public OpenAddressingBufferedData(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Accept the data into the cache and merge with the existing value.
+     *
+     * This method is not thread safe, should avoid concurrency calling.
+     *
+     * @param data to be added potentially.
+     */
+    @Override
+    public void accept(final METRICS data) {
+        final StorageID id = data.id();
+        final long hash = id.longHashCode();
+        final long fingerprint = hash & ~POSITION_MASK;
+        int slot = (int) hash & mask;
+        long entry;
+        while ((entry = table[slot]) != 0) {
+            if ((entry & ~POSITION_MASK) == fingerprint) {
+                final int position = (int) (entry & POSITION_MASK) - 1;
+                final StorageID key = keys[position];
+                if (key == id || hashes[position] == hash && key.equals(id)) {
+                    ((Metrics) values[position]).combine(data);
+                    return;
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+        final int position = size++;
+        table[slot] = fingerprint | (position + 1);
+        hashes[position] = hash;
+        keys[position] = id;
+        values[position] = data;
+        if (size > threshold) {
+            resize();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<METRICS> read() {
+        final List<METRICS> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add((METRICS) values[i]);
+        }
+        Arrays.fill(table, 0L);
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        return result;
+    }
+
+    private void resize() {
+        if (table.length >= MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Too many metrics in the buffer, size=" + size);
+        }
+        final long[] oldHashes = hashes;
+        final StorageID[] oldKeys = keys;
+        final Object[] oldValues = values;
+        final int oldSize = size;
+        allocate(table.length << 1);
+        System.arraycopy(oldHashes, 0, hashes, 0, oldSize);
+        System.arraycopy(oldKeys, 0, keys, 0, oldSize);
+        System.arraycopy(oldValues, 0, values, 0, oldSize);
+        for (int position = 0; position < oldSize; position++) {
+            final long hash = hashes[position];
+            int slot = (int) hash & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = (hash & ~POSITION_MASK) | (position + 1);
+        }
+        size = oldSize;
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity];
+        mask = capacity - 1;
+        // Keep the load factor under 0.75, linear probing degrades quickly above that.
+        threshold = (capacity >> 1) + (capacity >> 2);
+        hashes = new long[threshold + 1];
+        keys = new StorageID[threshold + 1];
+        values = new Object[threshold + 1];
+        size = 0;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        final int capacity = (int) Math.min(MAXIMUM_CAPACITY, Math.max(16L, expectedSize * 4L / 3 + 1));
+        return capacity == MAXIMUM_CAPACITY ? capacity : Integer.highestOneBit(capacity - 1) << 1;
+    }
+}
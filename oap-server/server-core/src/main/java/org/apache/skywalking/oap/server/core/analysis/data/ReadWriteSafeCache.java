@@ -18,25 +18,35 @@
 
 package org.apache.skywalking.oap.server.core.analysis.data;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.HistogramMetrics;
 
 /**
  * ReadWriteSafeCache provides a read/write isolated cache.
+ *
+ * The cache could be striped. Every stripe has its own lock and read/write buffers, the data are routed to the stripe
+ * by the given stripe function, so the data should be merged in the buffer must be routed to the same stripe. The
+ * writing of different stripes and the switching of the read/write pointers don't block each other.
  */
 public class ReadWriteSafeCache<T> {
+    private final Stripe<T>[] stripes;
     /**
-     * Pointer of read buffer.
+     * Hash of the data to choose the stripe, only required when there are multiple stripes.
      */
-    private volatile BufferedData<T> readBufferPointer;
+    private final ToIntFunction<T> stripeFunction;
     /**
-     * Pointer of write buffer.
+     * The counter of the lock acquisitions which had to wait, nullable.
      */
-    private volatile BufferedData<T> writeBufferPointer;
+    private final CounterMetrics lockContendedCounter;
     /**
-     * Read/Write lock.
+     * The time waiting for the contended lock, nullable.
      */
-    private final ReentrantLock lock;
+    private final HistogramMetrics lockWaitLatency;
 
     /**
      * Build the Cache through two given buffer instances.
@@ -44,51 +54,186 @@ public class ReadWriteSafeCache<T> {
      * @param buffer1 read/write switchable buffer
      * @param buffer2 read/write switchable buffer. It is the write buffer at the beginning.
      */
+    @SuppressWarnings("unchecked")
     public ReadWriteSafeCache(BufferedData<T> buffer1, BufferedData<T> buffer2) {
-        readBufferPointer = buffer1;
-        writeBufferPointer = buffer2;
-        lock = new ReentrantLock();
+        stripes = new Stripe[] {new Stripe<>(buffer1, buffer2)};
+        stripeFunction = null;
+        lockContendedCounter = null;
+        lockWaitLatency = null;
     }
 
     /**
-     * Write the into the {@link #writeBufferPointer} buffer.
+     * Build the striped Cache.
+     *
+     * @param stripeNum            the number of the stripes, every stripe creates two buffers.
+     * @param bufferSupplier       creates the read/write switchable buffers.
+     * @param stripeFunction       hash of the data to choose the stripe.
+     * @param lockContendedCounter the counter of the lock acquisitions which had to wait.
+     * @param lockWaitLatency      the time waiting for the contended lock.
+     */
+    @SuppressWarnings("unchecked")
+    public ReadWriteSafeCache(int stripeNum,
+                              Supplier<BufferedData<T>> bufferSupplier,
+                              ToIntFunction<T> stripeFunction,
+                              CounterMetrics lockContendedCounter,
+                              HistogramMetrics lockWaitLatency) {
+        if (stripeNum < 1) {
+            throw new IllegalArgumentException("The number of the stripes should be positive, but is " + stripeNum);
+        }
+        stripes = new Stripe[stripeNum];
+        for (int i = 0; i < stripeNum; i++) {
+            stripes[i] = new Stripe<>(bufferSupplier.get(), bufferSupplier.get());
+        }
+        this.stripeFunction = stripeFunction;
+        this.lockContendedCounter = lockContendedCounter;
+        this.lockWaitLatency = lockWaitLatency;
+    }
+
+    /**
+     * Write the into the write buffer of its stripe.
      *
      * @param data to enqueue.
      */
     public void write(T data) {
-        lock.lock();
+        final Stripe<T> stripe = stripes.length == 1 ? stripes[0] : stripes[stripeOf(data)];
+        lock(stripe.lock);
         try {
-            writeBufferPointer.accept(data);
+            stripe.writeBufferPointer.accept(data);
         } finally {
-            lock.unlock();
+            stripe.lock.unlock();
         }
     }
 
     /**
-     * Write the collection of data into the {@link #writeBufferPointer} buffer.
+     * Write the collection of data into the write buffers. Every involved stripe is locked once.
      *
      * @param data to enqueue.
      */
     public void write(List<T> data) {
-        lock.lock();
-        try {
-            data.forEach(writeBufferPointer::accept);
-        } finally {
-            lock.unlock();
+        if (stripes.length == 1) {
+            final Stripe<T> stripe = stripes[0];
+            lock(stripe.lock);
+            try {
+                data.forEach(stripe.writeBufferPointer::accept);
+            } finally {
+                stripe.lock.unlock();
+            }
+            return;
+        }
+
+        // Counting sort the data by stripe, then write the data of every stripe in one lock.
+        final int size = data.size();
+        final int[] stripeOfData = new int[size];
+        final int[] offsets = new int[stripes.length + 1];
+        for (int i = 0; i < size; i++) {
+            stripeOfData[i] = stripeOf(data.get(i));
+            offsets[stripeOfData[i] + 1]++;
+        }
+        for (int s = 0; s < stripes.length; s++) {
+            offsets[s + 1] += offsets[s];
+        }
+        final int[] sorted = new int[size];
+        final int[] positions = new int[stripes.length];
+        System.arraycopy(offsets, 0, positions, 0, stripes.length);
+        for (int i = 0; i < size; i++) {
+            sorted[positions[stripeOfData[i]]++] = i;
+        }
+        for (int s = 0; s < stripes.length; s++) {
+            if (offsets[s] == offsets[s + 1]) {
+                continue;
+            }
+            final Stripe<T> stripe = stripes[s];
+            lock(stripe.lock);
+            try {
+                for (int k = offsets[s]; k < offsets[s + 1]; k++) {
+                    stripe.writeBufferPointer.accept(data.get(sorted[k]));
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
         }
     }
 
+    @SuppressWarnings("unchecked")
     public List<T> read() {
-        lock.lock();
+        if (stripes.length == 1) {
+            return read(stripes[0]);
+        }
+        final List<T>[] stripeData = new List[stripes.length];
+        List<T> lastNonEmpty = null;
+        int nonEmptyStripes = 0;
+        int total = 0;
+        for (int s = 0; s < stripes.length; s++) {
+            stripeData[s] = read(stripes[s]);
+            if (!stripeData[s].isEmpty()) {
+                lastNonEmpty = stripeData[s];
+                nonEmptyStripes++;
+                total += stripeData[s].size();
+            }
+        }
+        if (nonEmptyStripes == 0) {
+            return stripeData[0];
+        }
+        if (nonEmptyStripes == 1) {
+            return lastNonEmpty;
+        }
+        final List<T> result = new ArrayList<>(total);
+        for (final List<T> data : stripeData) {
+            result.addAll(data);
+        }
+        return result;
+    }
+
+    private List<T> read(Stripe<T> stripe) {
+        lock(stripe.lock);
         try {
             // Switch the read and write pointers, when there is no writing.
-            BufferedData<T> tempPointer = writeBufferPointer;
-            writeBufferPointer = readBufferPointer;
-            readBufferPointer = tempPointer;
+            BufferedData<T> tempPointer = stripe.writeBufferPointer;
+            stripe.writeBufferPointer = stripe.readBufferPointer;
+            stripe.readBufferPointer = tempPointer;
         } finally {
-            lock.unlock();
+            stripe.lock.unlock();
         }
         // Call read method outside of write lock for concurrency read-write.
-        return readBufferPointer.read();
+        return stripe.readBufferPointer.read();
+    }
+
+    private int stripeOf(T data) {
+        return Math.floorMod(stripeFunction.applyAsInt(data), stripes.length);
+    }
+
+    private void lock(ReentrantLock lock) {
+        if (lock.tryLock()) {
+            return;
+        }
+        if (lockContendedCounter == null) {
+            lock.lock();
+            return;
+        }
+        final long startNanos = System.nanoTime();
+        lock.lock();
+        lockContendedCounter.inc();
+        lockWaitLatency.observe((System.nanoTime() - startNanos) / 1.0E9D);
+    }
+
+    private static class Stripe<E> {
+        /**
+         * Pointer of read buffer.
+         */
+        private volatile BufferedData<E> readBufferPointer;
+        /**
+         * Pointer of write buffer.
+         */
+        private volatile BufferedData<E> writeBufferPointer;
+        /**
+         * Read/Write lock.
+         */
+        private final ReentrantLock lock;
+
+        private Stripe(BufferedData<E> readBuffer, BufferedData<E> writeBuffer) {
+            readBufferPointer = readBuffer;
+            writeBufferPointer = writeBuffer;
+            lock = new ReentrantLock();
+        }
     }
 }
@@ -26,6 +26,7 @@ import org.apache.skywalking.oap.server.core.analysis.MetricsExtension;
 import org.apache.skywalking.oap.server.core.analysis.Stream;
 import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
 import org.apache.skywalking.oap.server.core.analysis.worker.MetricsStreamProcessor;
+import org.apache.skywalking.oap.server.core.remote.RemoteDataView;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
 import org.apache.skywalking.oap.server.core.source.ScopeDeclaration;
 import org.apache.skywalking.oap.server.core.storage.StorageID;
@@ -96,7 +97,7 @@ public class NetworkAddressAlias extends Metrics {
     }
 
     @Override
-    public void deserialize(final RemoteData remoteData) {
+    public void deserialize(final RemoteDataView remoteData) {
         setAddress(remoteData.getDataStrings(0));
         setRepresentServiceId(remoteData.getDataStrings(1));
         setRepresentServiceInstanceId(remoteData.getDataStrings(2));
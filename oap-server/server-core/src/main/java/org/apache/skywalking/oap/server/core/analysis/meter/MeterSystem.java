@@ -18,12 +18,11 @@
 
 package org.apache.skywalking.oap.server.core.analysis.meter;
 
-import com.google.common.collect.ImmutableSet;
-import com.google.common.reflect.ClassPath;
 import java.io.IOException;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import javassist.CannotCompileException;
@@ -46,6 +45,7 @@ import org.apache.skywalking.oap.server.core.analysis.meter.function.AcceptableV
 import org.apache.skywalking.oap.server.core.analysis.meter.function.MeterFunction;
 import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
 import org.apache.skywalking.oap.server.core.analysis.worker.MetricsStreamProcessor;
+import org.apache.skywalking.oap.server.core.annotation.ClassIndex;
 import org.apache.skywalking.oap.server.core.storage.StorageException;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 import org.apache.skywalking.oap.server.library.module.Service;
@@ -72,27 +72,22 @@ public class MeterSystem implements Service {
         this.manager = manager;
         classPool = ClassPool.getDefault();
 
-        ClassPath classpath = null;
+        List<Class<?>> functionClasses;
         try {
-            classpath = ClassPath.from(MeterSystem.class.getClassLoader());
+            functionClasses = ClassIndex.find(MeterFunction.class, MeterSystem.class.getClassLoader());
         } catch (IOException e) {
             throw new UnexpectedException("Load class path failure.");
         }
-        ImmutableSet<ClassPath.ClassInfo> classes = classpath.getTopLevelClassesRecursive("org.apache.skywalking");
-        for (ClassPath.ClassInfo classInfo : classes) {
-            Class<?> functionClass = classInfo.load();
-
-            if (functionClass.isAnnotationPresent(MeterFunction.class)) {
-                MeterFunction metricsFunction = functionClass.getAnnotation(MeterFunction.class);
-                if (!AcceptableValue.class.isAssignableFrom(functionClass)) {
-                    throw new IllegalArgumentException(
-                        "Function " + functionClass.getCanonicalName() + " doesn't implement AcceptableValue.");
-                }
-                functionRegister.put(
-                    metricsFunction.functionName(),
-                    (Class<? extends AcceptableValue>) functionClass
-                );
+        for (Class<?> functionClass : functionClasses) {
+            MeterFunction metricsFunction = functionClass.getAnnotation(MeterFunction.class);
+            if (!AcceptableValue.class.isAssignableFrom(functionClass)) {
+                throw new IllegalArgumentException(
+                    "Function " + functionClass.getCanonicalName() + " doesn't implement AcceptableValue.");
             }
+            functionRegister.put(
+                metricsFunction.functionName(),
+                (Class<? extends AcceptableValue>) functionClass
+            );
         }
     }
 
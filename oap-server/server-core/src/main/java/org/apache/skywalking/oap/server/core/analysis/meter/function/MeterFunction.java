@@ -22,11 +22,13 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import org.apache.skywalking.oap.server.core.annotation.Indexed;
 
 /**
  * Meter function indicate this class is used in SkyWalking meter system. The meter system accepts data from any number
  * based metrics ecosystem, typically like Prometheus and Micrometer Application Monitoring
  */
+@Indexed
 @Target(ElementType.TYPE)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface MeterFunction {
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.worker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.skywalking.oap.server.library.datacarrier.consumer.BulkConsumePool;
+import org.apache.skywalking.oap.server.library.datacarrier.consumer.ConsumeMonitor;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.GaugeMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.HistogramMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
+
+/**
+ * ConsumePoolTelemetry exposes the statistics of the consumer threads of a {@link BulkConsumePool} through the
+ * telemetry module, to tune the pool size.
+ */
+public class ConsumePoolTelemetry implements ConsumeMonitor {
+    private final MetricsCreator metricsCreator;
+    private final String poolName;
+    private final Map<String, GaugeMetrics> idleRatioGauges = new ConcurrentHashMap<>();
+    private final Map<String, GaugeMetrics> utilizationGauges = new ConcurrentHashMap<>();
+    private final HistogramMetrics wakeupLatency;
+    private final CounterMetrics movedTargetCounter;
+
+    public ConsumePoolTelemetry(MetricsCreator metricsCreator, String poolName) {
+        this.metricsCreator = metricsCreator;
+        this.poolName = poolName;
+        this.wakeupLatency = metricsCreator.createHistogramMetric(
+            "consume_pool_wakeup_latency", "The latency of waking up the parked consumer thread in the pool",
+            new MetricsTag.Keys("pool"), new MetricsTag.Values(poolName),
+            .00001, .0001, .0005, .001, .005, .01, .02, .05, .1
+        );
+        this.movedTargetCounter = metricsCreator.createCounter(
+            "consume_pool_moved_target", "The number of targets moved between the consumer threads by rebalancing",
+            new MetricsTag.Keys("pool"), new MetricsTag.Values(poolName)
+        );
+    }
+
+    @Override
+    public void onIdleRatio(String threadName, double idleRatio) {
+        idleRatioGauges.computeIfAbsent(threadName, name -> metricsCreator.createGauge(
+            "consume_pool_idle_ratio", "The ratio of the time the consumer thread spent on waiting for data",
+            new MetricsTag.Keys("pool", "thread"), new MetricsTag.Values(poolName, name)
+        )).setValue(idleRatio);
+    }
+
+    @Override
+    public void onWakeup(String threadName, long latencyNanos) {
+        wakeupLatency.observe(latencyNanos / 1.0E9D);
+    }
+
+    @Override
+    public void onUtilization(String threadName, double utilization) {
+        utilizationGauges.computeIfAbsent(threadName, name -> metricsCreator.createGauge(
+            "consume_pool_utilization", "The ratio of the time the consumer thread spent on consuming data",
+            new MetricsTag.Keys("pool", "thread"), new MetricsTag.Values(poolName, name)
+        )).setValue(utilization);
+    }
+
+    @Override
+    public void onTargetMoved(String targetName, String from, String to) {
+        movedTargetCounter.inc();
+    }
+}
@@ -21,11 +21,13 @@ package org.apache.skywalking.oap.server.core.analysis.worker;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.oap.server.core.UnexpectedException;
-import org.apache.skywalking.oap.server.core.analysis.data.MergableBufferedData;
+import org.apache.skywalking.oap.server.core.analysis.data.BufferedData;
+import org.apache.skywalking.oap.server.core.analysis.data.OpenAddressingBufferedData;
 import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
 import org.apache.skywalking.oap.server.core.worker.AbstractWorker;
 import org.apache.skywalking.oap.server.library.datacarrier.DataCarrier;
 import org.apache.skywalking.oap.server.library.datacarrier.buffer.BufferStrategy;
+import org.apache.skywalking.oap.server.library.datacarrier.buffer.BufferType;
 import org.apache.skywalking.oap.server.library.datacarrier.consumer.BulkConsumePool;
 import org.apache.skywalking.oap.server.library.datacarrier.consumer.ConsumerPoolFactory;
 import org.apache.skywalking.oap.server.library.datacarrier.consumer.IConsumer;
@@ -46,7 +48,7 @@ public class MetricsAggregateWorker extends AbstractWorker<Metrics> {
     public final long l1FlushPeriod;
     private AbstractWorker<Metrics> nextWorker;
     private final DataCarrier<Metrics> dataCarrier;
-    private final MergableBufferedData<Metrics> mergeDataCache;
+    private final BufferedData<Metrics> mergeDataCache;
     private CounterMetrics abandonCounter;
     private CounterMetrics aggregationCounter;
     private long lastSendTime = 0;
@@ -58,7 +60,7 @@ public class MetricsAggregateWorker extends AbstractWorker<Metrics> {
                            MetricStreamKind kind) {
         super(moduleDefineHolder);
         this.nextWorker = nextWorker;
-        this.mergeDataCache = new MergableBufferedData();
+        this.mergeDataCache = new OpenAddressingBufferedData<>();
         String name = "METRICS_L1_AGGREGATION";
         int queueChannelSize = 2;
         int queueBufferSize = 10_000;
@@ -69,11 +71,19 @@ public class MetricsAggregateWorker extends AbstractWorker<Metrics> {
             queueChannelSize = 1;
             queueBufferSize = 1_000;
         }
+        // The L1 queue is written by all receiver threads, use the lock-free ring buffer to reduce the contention.
         this.dataCarrier = new DataCarrier<>(
-            "MetricsAggregateWorker." + modelName, name, queueChannelSize, queueBufferSize, BufferStrategy.IF_POSSIBLE);
+            "MetricsAggregateWorker." + modelName, name, queueChannelSize, queueBufferSize, BufferStrategy.IF_POSSIBLE,
+            BufferType.MPSC_RING
+        );
 
+        MetricsCreator metricsCreator = moduleDefineHolder.find(TelemetryModule.NAME)
+                                                          .provider()
+                                                          .getService(MetricsCreator.class);
         BulkConsumePool.Creator creator = new BulkConsumePool.Creator(
-            name, BulkConsumePool.Creator.recommendMaxSize() * 2, 20);
+            name, BulkConsumePool.Creator.recommendMaxSize() * 2, 20, new ConsumePoolTelemetry(metricsCreator, name),
+            BulkConsumePool.Creator.DEFAULT_REBALANCE_PERIOD
+        );
         try {
             ConsumerPoolFactory.INSTANCE.createIfAbsent(name, creator);
         } catch (Exception e) {
@@ -81,9 +91,6 @@ public class MetricsAggregateWorker extends AbstractWorker<Metrics> {
         }
         this.dataCarrier.consume(ConsumerPoolFactory.INSTANCE.get(name), new AggregatorConsumer());
 
-        MetricsCreator metricsCreator = moduleDefineHolder.find(TelemetryModule.NAME)
-                                                          .provider()
-                                                          .getService(MetricsCreator.class);
         abandonCounter = metricsCreator.createCounter(
             "metrics_aggregator_abandon", "The abandon number of rows received in aggregation",
             new MetricsTag.Keys("metricName", "level", "dimensionality"),
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.worker;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+
+/**
+ * MetricsMultiGetPipeline splits the metrics of a persistence round into the slices of {@link #batchSize}, loads
+ * every slice from the storage, and merges the slices in order. While a slice is being merged, the following
+ * {@link #concurrency} slices are loaded in the shared executor, so the round doesn't wait for a chain of serial
+ * {@link org.apache.skywalking.oap.server.core.storage.IMetricsDAO#multiGet} round trips.
+ *
+ * The slices have different IDs, loading a slice never touches the metrics of the merging one.
+ */
+@Slf4j
+class MetricsMultiGetPipeline {
+    @Getter
+    private final int batchSize;
+    /**
+     * The max number of the slices loading ahead of the merging one. 0 means loading synchronously.
+     */
+    @Getter
+    private final int concurrency;
+    private final Executor executor;
+
+    MetricsMultiGetPipeline(int batchSize, int concurrency, Executor executor) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive, but got " + batchSize);
+        }
+        if (concurrency > 0 && executor == null) {
+            throw new IllegalArgumentException("executor is required when concurrency is " + concurrency);
+        }
+        this.batchSize = batchSize;
+        this.concurrency = Math.max(concurrency, 0);
+        this.executor = executor;
+    }
+
+    /**
+     * @param metrics the metrics of the persistence round, must not be changed before this method returns.
+     * @param loader  loads the slice from the storage, in the executor or the current thread.
+     * @param merger  merges the loaded slice, always in the current thread in the order of the slices.
+     */
+    void run(List<Metrics> metrics, Consumer<List<Metrics>> loader, Consumer<List<Metrics>> merger) {
+        final int sliceNum = (metrics.size() + batchSize - 1) / batchSize;
+        if (concurrency == 0 || sliceNum <= 1) {
+            for (int i = 0; i < sliceNum; i++) {
+                final List<Metrics> slice = slice(metrics, i);
+                load(slice, loader);
+                merger.accept(slice);
+            }
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        final CompletableFuture<Void>[] loads = new CompletableFuture[sliceNum];
+        // The first slice is loaded in the current thread, as there is nothing to merge yet.
+        int submitted = 1;
+        for (int i = 0; i < sliceNum; i++) {
+            while (submitted < sliceNum && submitted <= i + concurrency) {
+                loads[submitted] = submit(slice(metrics, submitted), loader);
+                submitted++;
+            }
+            final List<Metrics> slice = slice(metrics, i);
+            if (i == 0) {
+                load(slice, loader);
+            } else {
+                try {
+                    loads[i].join();
+                } catch (Throwable t) {
+                    log.error("Failed to load metrics for merging", t);
+                }
+                loads[i] = null;
+            }
+            merger.accept(slice);
+        }
+    }
+
+    private CompletableFuture<Void> submit(List<Metrics> slice, Consumer<List<Metrics>> loader) {
+        try {
+            return CompletableFuture.runAsync(() -> loader.accept(slice), executor);
+        } catch (RejectedExecutionException e) {
+            load(slice, loader);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private void load(List<Metrics> slice, Consumer<List<Metrics>> loader) {
+        try {
+            loader.accept(slice);
+        } catch (Throwable t) {
+            log.error("Failed to load metrics for merging", t);
+        }
+    }
+
+    private List<Metrics> slice(List<Metrics> metrics, int index) {
+        return metrics.subList(index * batchSize, Math.min((index + 1) * batchSize, metrics.size()));
+    }
+}
@@ -28,7 +28,7 @@ import org.apache.skywalking.oap.server.core.CoreModule;
 import org.apache.skywalking.oap.server.core.UnexpectedException;
 import org.apache.skywalking.oap.server.core.analysis.DownSampling;
 import org.apache.skywalking.oap.server.core.analysis.TimeBucket;
-import org.apache.skywalking.oap.server.core.analysis.data.MergableBufferedData;
+import org.apache.skywalking.oap.server.core.analysis.data.OpenAddressingBufferedData;
 import org.apache.skywalking.oap.server.core.analysis.data.ReadWriteSafeCache;
 import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
 import org.apache.skywalking.oap.server.core.exporter.ExportEvent;
@@ -48,6 +48,7 @@ import org.apache.skywalking.oap.server.library.datacarrier.consumer.IConsumer;
 import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
 import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
 import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.HistogramMetrics;
 import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
 import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
 
@@ -94,6 +95,18 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
      * @since 9.4.0
      */
     private final ServerStatusService serverStatusService;
+    /**
+     * Load the metrics from the storage in the slices, and prefetch the following slices while merging.
+     *
+     * @since 10.1.0
+     */
+    private final MetricsMultiGetPipeline multiGetPipeline;
+    /**
+     * The latency of {@link IMetricsDAO#multiGet} of every slice.
+     *
+     * @since 10.1.0
+     */
+    private final HistogramMetrics multiGetLatency;
     /**
      * The time bucket is 0 or in minute dimensionality of the system in the latest stability status.
      *
@@ -104,10 +117,14 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
     MetricsPersistentWorker(ModuleDefineHolder moduleDefineHolder, Model model, IMetricsDAO metricsDAO,
                             AbstractWorker<Metrics> nextAlarmWorker, AbstractWorker<ExportEvent> nextExportWorker,
                             MetricsTransWorker transWorker, boolean supportUpdate,
-                            long storageSessionTimeout, int metricsDataTTL, MetricStreamKind kind) {
-        super(moduleDefineHolder, new ReadWriteSafeCache<>(new MergableBufferedData(), new MergableBufferedData()));
+                            long storageSessionTimeout, int metricsDataTTL, int cacheStripes,
+                            MetricsMultiGetPipeline multiGetPipeline, SessionCacheMemoryPool sessionCacheMemory,
+                            MetricStreamKind kind) {
+        super(moduleDefineHolder, createCache(moduleDefineHolder, model, cacheStripes));
         this.model = model;
-        this.sessionCache = new MetricsSessionCache(storageSessionTimeout);
+        this.sessionCache = sessionCacheMemory == null ?
+            new MetricsSessionCache(storageSessionTimeout) :
+            new OffHeapMetricsSessionCache(storageSessionTimeout, sessionCacheMemory);
         this.metricsDAO = metricsDAO;
         this.nextAlarmWorker = Optional.ofNullable(nextAlarmWorker);
         this.nextExportWorker = Optional.ofNullable(nextExportWorker);
@@ -116,13 +133,20 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
         this.persistentCounter = 0;
         this.persistentMod = 1;
         this.metricsDataTTL = metricsDataTTL;
+        this.multiGetPipeline = multiGetPipeline;
 
         String name = "METRICS_L2_AGGREGATION";
         int size = BulkConsumePool.Creator.recommendMaxSize() / 8;
         if (size == 0) {
             size = 1;
         }
-        BulkConsumePool.Creator creator = new BulkConsumePool.Creator(name, size, 20);
+        MetricsCreator metricsCreator = moduleDefineHolder.find(TelemetryModule.NAME)
+                                                          .provider()
+                                                          .getService(MetricsCreator.class);
+        BulkConsumePool.Creator creator = new BulkConsumePool.Creator(
+            name, size, 20, new ConsumePoolTelemetry(metricsCreator, name),
+            BulkConsumePool.Creator.DEFAULT_REBALANCE_PERIOD
+        );
         try {
             ConsumerPoolFactory.INSTANCE.createIfAbsent(name, creator);
         } catch (Exception e) {
@@ -139,9 +163,6 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
         this.dataCarrier = new DataCarrier<>("MetricsPersistentWorker." + model.getName(), name, 1, bufferSize);
         this.dataCarrier.consume(ConsumerPoolFactory.INSTANCE.get(name), new PersistentConsumer());
 
-        MetricsCreator metricsCreator = moduleDefineHolder.find(TelemetryModule.NAME)
-                                                          .provider()
-                                                          .getService(MetricsCreator.class);
         aggregationCounter = metricsCreator.createCounter(
             "metrics_aggregation", "The number of rows in aggregation",
             new MetricsTag.Keys("metricName", "level", "dimensionality"),
@@ -155,6 +176,12 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
             "metrics_persistent_cache", "The counter of metrics status, new or cached.",
             new MetricsTag.Keys("status"), new MetricsTag.Values("cached")
         );
+        multiGetLatency = metricsCreator.createHistogramMetric(
+            "metrics_persistent_multi_get_latency", "The latency of loading metrics from the storage for merging",
+            new MetricsTag.Keys("metricName", "dimensionality"),
+            new MetricsTag.Values(model.getName(), model.getDownsampling().getName()),
+            .005, .01, .05, .1, .25, .5, 1, 2.5, 5, 10
+        );
         serverStatusService = moduleDefineHolder.find(CoreModule.NAME).provider().getService(ServerStatusService.class);
         if (model.getDownsampling().equals(DownSampling.Minute)) {
             serverStatusService.registerWatcher(this);
@@ -170,10 +197,14 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
                             boolean supportUpdate,
                             long storageSessionTimeout,
                             int metricsDataTTL,
+                            int cacheStripes,
+                            MetricsMultiGetPipeline multiGetPipeline,
+                            SessionCacheMemoryPool sessionCacheMemory,
                             MetricStreamKind kind) {
         this(moduleDefineHolder, model, metricsDAO,
              null, null, null,
-             supportUpdate, storageSessionTimeout, metricsDataTTL, kind
+             supportUpdate, storageSessionTimeout, metricsDataTTL, cacheStripes, multiGetPipeline, sessionCacheMemory,
+             kind
         );
         // For a down-sampling metrics, we prolong the session timeout for 4 times, nearly 5 minutes.
         sessionCache.setTimeoutThreshold(storageSessionTimeout * 4);
@@ -181,6 +212,35 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
         this.persistentMod = 4;
     }
 
+    /**
+     * Create the L2 aggregation cache. The metrics are routed to the stripes by the high bits of
+     * {@link org.apache.skywalking.oap.server.core.storage.StorageID#longHashCode()}, the low bits are used by the
+     * slots of {@link OpenAddressingBufferedData}.
+     */
+    private static ReadWriteSafeCache<Metrics> createCache(ModuleDefineHolder moduleDefineHolder,
+                                                           Model model,
+                                                           int cacheStripes) {
+        MetricsCreator metricsCreator = moduleDefineHolder.find(TelemetryModule.NAME)
+                                                          .provider()
+                                                          .getService(MetricsCreator.class);
+        CounterMetrics lockContendedCounter = metricsCreator.createCounter(
+            "metrics_l2_cache_lock_contended", "The number of the contended lock acquisitions of the L2 aggregation cache",
+            new MetricsTag.Keys("metricName", "dimensionality"),
+            new MetricsTag.Values(model.getName(), model.getDownsampling().getName())
+        );
+        HistogramMetrics lockWaitLatency = metricsCreator.createHistogramMetric(
+            "metrics_l2_cache_lock_wait_latency", "The time waiting for the contended lock of the L2 aggregation cache",
+            new MetricsTag.Keys("metricName", "dimensionality"),
+            new MetricsTag.Values(model.getName(), model.getDownsampling().getName()),
+            .00001, .0001, .0005, .001, .005, .01, .05, .1, .5, 1
+        );
+        return new ReadWriteSafeCache<>(
+            cacheStripes, OpenAddressingBufferedData::new,
+            metrics -> (int) (metrics.id().longHashCode() >>> 32),
+            lockContendedCounter, lockWaitLatency
+        );
+    }
+
     /**
      * Accept all metrics data and push them into the queue for serial processing
      */
@@ -203,26 +263,17 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
             return Collections.emptyList();
         }
 
+        transWorker.ifPresent(metricsTransWorker -> lastCollection.forEach(metricsTransWorker::in));
+
         /*
-         * Hard coded the max size. This only affect the multiIDRead if the data doesn't hit the cache.
+         * The batch size only affects the multiGet if the data doesn't hit the cache.
          */
-        int maxBatchGetSize = 2000;
-        final int batchSize = Math.min(maxBatchGetSize, lastCollection.size());
-        List<Metrics> metricsList = new ArrayList<>();
         List<PrepareRequest> prepareRequests = new ArrayList<>(lastCollection.size());
-        for (Metrics data : lastCollection) {
-            transWorker.ifPresent(metricsTransWorker -> metricsTransWorker.in(data));
-
-            metricsList.add(data);
-
-            if (metricsList.size() == batchSize) {
-                prepareFlushDataToStorage(metricsList, prepareRequests);
-            }
-        }
-
-        if (metricsList.size() > 0) {
-            prepareFlushDataToStorage(metricsList, prepareRequests);
-        }
+        multiGetPipeline.run(
+            lastCollection,
+            this::loadFromStorage,
+            metricsList -> prepareFlushDataToStorage(metricsList, prepareRequests)
+        );
 
         if (prepareRequests.size() > 0) {
             log.debug(
@@ -236,19 +287,18 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
     /**
      * Build given prepareRequests to prepare database flush
      *
-     * @param metricsList     the metrics in the last read from the in-memory aggregated cache.
+     * @param metricsList     the metrics in the last read from the in-memory aggregated cache, which have been loaded
+     *                        by {@link #loadFromStorage(List)}.
      * @param prepareRequests the results for final execution.
      */
     private void prepareFlushDataToStorage(List<Metrics> metricsList,
                                            List<PrepareRequest> prepareRequests) {
         try {
-            loadFromStorage(metricsList);
-
             long timestamp = System.currentTimeMillis();
             for (Metrics metrics : metricsList) {
                 Metrics cachedMetrics = sessionCache.get(metrics);
                 if (cachedMetrics != null) {
-                    cachedMetrics.setLastUpdateTimestamp(timestamp);
+                    sessionCache.touch(cachedMetrics, timestamp);
                     /*
                      * If the metrics is not supportUpdate, defined through MetricsExtension#supportUpdate,
                      * then no merge and further process happens.
@@ -264,6 +314,7 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
                         continue;
                     }
                     cachedMetrics.calculate();
+                    sessionCache.update(cachedMetrics);
                     prepareRequests.add(
                         metricsDAO.prepareBatchUpdate(
                             model,
@@ -291,8 +342,6 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
             }
         } catch (Throwable t) {
             log.error(t.getMessage(), t);
-        } finally {
-            metricsList.clear();
         }
     }
 
@@ -303,7 +352,8 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
     }
 
     /**
-     * Load data from the storage, only load data when the id doesn't exist.
+     * Load data from the storage, only load data when the id doesn't exist. This could run in the executor of
+     * {@link MetricsMultiGetPipeline}, concurrently with the merge of the other metrics.
      */
     private void loadFromStorage(List<Metrics> metrics) {
         final long currentTimeMillis = System.currentTimeMillis();
@@ -340,7 +390,11 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
             if (notInCacheMetrics.isEmpty()) {
                 return;
             }
-            metricsDAO.multiGet(model, notInCacheMetrics).forEach(m -> {
+            final List<Metrics> loaded;
+            try (HistogramMetrics.Timer ignored = multiGetLatency.createTimer()) {
+                loaded = metricsDAO.multiGet(model, notInCacheMetrics);
+            }
+            loaded.forEach(m -> {
                 m.setLastUpdateTimestamp(currentTimeMillis);
                 sessionCache.put(m);
             });
@@ -358,21 +412,21 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
      * Check the metrics whether in the cache, and whether the worker should go further to load from database.
      *
      * @param metrics the metrics in the streaming process.
-     * @return metrics in cache or null if try to read the metrics from the database.
+     * @return metrics in cache or null if try to read the metrics from the database. The metrics with time bucket
+     * relative ID are only looked up in the cache, without reading them out, and the given metrics is returned for
+     * them instead of the cached one, as only the metadata level metrics are checked against the cached value.
      */
     private Metrics requireInitialization(Metrics metrics) {
-        final Metrics cached = sessionCache.get(metrics);
-
-        // All cached metrics, it at least had been written once.
-        if (cached != null) {
-            return cached;
-        }
-
         // If the metrics do not have time bucket relative ID
         // it is treated as high dimensionality metrics.
         // Policy, always try load from the database when miss in the cache.
         if (!model.isTimeRelativeID()) {
-            return null;
+            return sessionCache.get(metrics);
+        }
+
+        // All cached metrics, it at least had been written once.
+        if (sessionCache.contains(metrics)) {
+            return metrics;
         }
 
         // When
@@ -381,15 +435,15 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
         //     1.2 the current dimensionality is in minute
         //     1.3 the OAP cluster is rebalanced due to scaling
         // (2) the metrics are from the time after the timeOfLatestStabilitySts
-        // (3) the metrics don't exist in the cache
+        // (3) the metrics are from the time after the metrics evicted from the cache due to the memory budget
         // the kernel should NOT try to load it from the database.
         //
         // Notice, about condition (2),
         // for the specific minute of booted successfully, the metrics are expected to load from database when
         // it doesn't exist in the cache.
-        if (timeOfLatestStabilitySts > 0 &&
-            metrics.getTimeBucket() > timeOfLatestStabilitySts
-            && cached == null) {
+        if (timeOfLatestStabilitySts > 0
+            && metrics.getTimeBucket() > timeOfLatestStabilitySts
+            && metrics.getTimeBucket() > sessionCache.getLatestEvictedTimeBucket()) {
             // Return metrics as input to avoid reading from database.
             return metrics;
         }
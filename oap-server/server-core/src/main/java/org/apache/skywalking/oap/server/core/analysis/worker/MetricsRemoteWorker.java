@@ -22,28 +22,74 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.oap.server.core.CoreModule;
 import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
 import org.apache.skywalking.oap.server.core.remote.RemoteSenderService;
+import org.apache.skywalking.oap.server.core.remote.client.RemoteClient;
+import org.apache.skywalking.oap.server.core.remote.client.SelfRemoteClient;
 import org.apache.skywalking.oap.server.core.remote.selector.Selector;
 import org.apache.skywalking.oap.server.core.worker.AbstractWorker;
 import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
 
 /**
- * MetricsRemoteWorker forwards the metrics to the target OAP node.
+ * MetricsRemoteWorker forwards the metrics to the target OAP node. When the target is the current OAP node, the
+ * metrics are handed off to the local L2 aggregation worker directly.
  */
 @Slf4j
 public class MetricsRemoteWorker extends AbstractWorker<Metrics> {
     private final RemoteSenderService remoteSender;
     private final String remoteReceiverWorkerName;
+    /**
+     * The selector to choose the L2 aggregation node, {@link Selector#HashCode} or {@link Selector#ConsistentHash}.
+     */
+    private final Selector selector;
+    /**
+     * The L2 aggregation worker of the current OAP node, registered as {@link #remoteReceiverWorkerName}.
+     */
+    private final AbstractWorker<Metrics> localReceiverWorker;
+    private final CounterMetrics localRouteCounter;
+    private final CounterMetrics remoteRouteCounter;
 
-    MetricsRemoteWorker(ModuleDefineHolder moduleDefineHolder, String remoteReceiverWorkerName) {
+    MetricsRemoteWorker(ModuleDefineHolder moduleDefineHolder,
+                        String modelName,
+                        String remoteReceiverWorkerName,
+                        AbstractWorker<Metrics> localReceiverWorker,
+                        Selector selector) {
         super(moduleDefineHolder);
         this.remoteSender = moduleDefineHolder.find(CoreModule.NAME).provider().getService(RemoteSenderService.class);
         this.remoteReceiverWorkerName = remoteReceiverWorkerName;
+        this.localReceiverWorker = localReceiverWorker;
+        this.selector = selector;
+        MetricsCreator metricsCreator = moduleDefineHolder.find(TelemetryModule.NAME)
+                                                          .provider()
+                                                          .getService(MetricsCreator.class);
+        localRouteCounter = metricsCreator.createCounter(
+            "metrics_remote_route", "The number of rows routed to the L2 aggregation",
+            new MetricsTag.Keys("metricName", "route"),
+            new MetricsTag.Values(modelName, "local")
+        );
+        remoteRouteCounter = metricsCreator.createCounter(
+            "metrics_remote_route", "The number of rows routed to the L2 aggregation",
+            new MetricsTag.Keys("metricName", "route"),
+            new MetricsTag.Values(modelName, "remote")
+        );
     }
 
     @Override
     public final void in(Metrics metrics) {
         try {
-            remoteSender.send(remoteReceiverWorkerName, metrics, Selector.HashCode);
+            RemoteClient remoteClient = remoteSender.select(metrics, selector);
+            if (remoteClient == null) {
+                return;
+            }
+            if (remoteClient instanceof SelfRemoteClient) {
+                localRouteCounter.inc();
+                ((SelfRemoteClient) remoteClient).push(localReceiverWorker, metrics);
+            } else {
+                remoteRouteCounter.inc();
+                remoteClient.push(remoteReceiverWorkerName, metrics);
+            }
         } catch (Throwable e) {
             log.error(e.getMessage(), e);
         }
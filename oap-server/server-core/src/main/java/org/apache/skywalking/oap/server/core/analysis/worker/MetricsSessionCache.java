@@ -22,6 +22,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.Setter;
 import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
 import org.apache.skywalking.oap.server.library.client.request.InsertRequest;
@@ -39,11 +40,15 @@ import org.apache.skywalking.oap.server.library.client.request.UpdateRequest;
  * 2. The built {@link UpdateRequest} executed failure, which could be caused
  * (1) Database error. (2) No data updated, such as the counter of update statement is 0 in JDBC.
  *
+ * The metrics are kept on-heap as they are. {@link OffHeapMetricsSessionCache} keeps the serialized metrics in the
+ * direct memory instead, for the L2 nodes of the high cardinality metrics.
+ *
  * @since 9.4.0 Created this from MetricsPersistentWorker.sessionCache.
  */
 public class MetricsSessionCache {
     private final Map<Metrics, Metrics> sessionCache;
     @Setter(AccessLevel.PACKAGE)
+    @Getter(AccessLevel.PACKAGE)
     private long timeoutThreshold;
 
     public MetricsSessionCache(long timeoutThreshold) {
@@ -59,6 +64,45 @@ public class MetricsSessionCache {
         return sessionCache.get(metrics);
     }
 
+    /**
+     * @return true if the metrics with the same ID is in the cache, without reading it out.
+     * @since 10.1.0
+     */
+    boolean contains(Metrics metrics) {
+        return sessionCache.containsKey(metrics);
+    }
+
+    /**
+     * Refresh the last update time of the cached metrics returned by {@link #get(Metrics)}.
+     *
+     * @since 10.1.0
+     */
+    void touch(Metrics cached, long timestamp) {
+        cached.setLastUpdateTimestamp(timestamp);
+    }
+
+    /**
+     * Write the changes of the cached metrics returned by {@link #get(Metrics)} back to the cache. The on-heap cache
+     * holds the instance itself, nothing to do.
+     *
+     * @since 10.1.0
+     */
+    void update(Metrics cached) {
+    }
+
+    /**
+     * @return the latest time bucket of the metrics dropped from the cache before expiring, due to the memory budget.
+     * The metrics in or before this time bucket could exist in the database even if they are not in the cache. 0 if
+     * nothing is dropped.
+     * @since 10.1.0
+     */
+    long getLatestEvictedTimeBucket() {
+        return 0;
+    }
+
+    /**
+     * @return the removed metrics, or null if it doesn't exist or is not kept on-heap.
+     */
     public Metrics remove(Metrics metrics) {
         return sessionCache.remove(metrics);
     }
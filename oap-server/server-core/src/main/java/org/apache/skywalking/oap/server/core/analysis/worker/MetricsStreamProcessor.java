@@ -29,6 +29,7 @@ import org.apache.skywalking.oap.server.core.analysis.StreamDefinition;
 import org.apache.skywalking.oap.server.core.analysis.StreamProcessor;
 import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
 import org.apache.skywalking.oap.server.core.config.DownSamplingConfigService;
+import org.apache.skywalking.oap.server.core.remote.selector.Selector;
 import org.apache.skywalking.oap.server.core.storage.IMetricsDAO;
 import org.apache.skywalking.oap.server.core.storage.StorageBuilderFactory;
 import org.apache.skywalking.oap.server.core.storage.StorageDAO;
@@ -40,12 +41,17 @@ import org.apache.skywalking.oap.server.core.storage.model.ModelCreator;
 import org.apache.skywalking.oap.server.core.storage.type.StorageBuilder;
 import org.apache.skywalking.oap.server.core.worker.IWorkerInstanceSetter;
 import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
+import org.apache.skywalking.oap.server.library.server.pool.CustomThreadFactory;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * MetricsStreamProcessor represents the entrance and creator of the metrics streaming aggregation work flow.
@@ -82,6 +88,44 @@ public class MetricsStreamProcessor implements StreamProcessor<Metrics> {
      */
     @Setter
     private long storageSessionTimeout = 70_000;
+    /**
+     * The number of the stripes of the L2 aggregation cache.
+     *
+     * @since 10.1.0
+     */
+    @Setter
+    private int l2AggregationCacheStripes = 4;
+    /**
+     * The selector to choose the L2 aggregation node of the metrics.
+     *
+     * @since 10.1.0
+     */
+    @Setter
+    private Selector remoteSelector = Selector.HashCode;
+    /**
+     * The max number of metrics in one multiGet from the storage.
+     *
+     * @since 10.1.0
+     */
+    @Setter
+    private int multiGetBatchSize = 2000;
+    /**
+     * The number of threads loading the metrics from the storage ahead of the merging, shared by all metrics. It is
+     * also the max number of slices loading ahead in one metrics. 0 means loading synchronously.
+     *
+     * @since 10.1.0
+     */
+    @Setter
+    private int multiGetConcurrency = 2;
+    private MetricsMultiGetPipeline multiGetPipeline;
+    /**
+     * The memory budget(MB) of the off-heap session cache shared by all metrics. 0 means the session cache is on-heap.
+     *
+     * @since 10.1.0
+     */
+    @Setter
+    private int sessionCacheOffHeapSizeInMB = 0;
+    private SessionCacheMemoryPool sessionCacheMemory;
     /**
      * @since 8.7.0 TTL settings from {@link org.apache.skywalking.oap.server.core.CoreModuleConfig#getMetricsDataTTL()}
      */
@@ -193,13 +237,39 @@ public class MetricsStreamProcessor implements StreamProcessor<Metrics> {
                                                                        .getService(IWorkerInstanceSetter.class);
         workerInstanceSetter.put(remoteReceiverWorkerName, minutePersistentWorker, metricsClass);
 
-        MetricsRemoteWorker remoteWorker = new MetricsRemoteWorker(moduleDefineHolder, remoteReceiverWorkerName);
+        MetricsRemoteWorker remoteWorker = new MetricsRemoteWorker(
+            moduleDefineHolder, stream.getName(), remoteReceiverWorkerName, minutePersistentWorker, remoteSelector);
         MetricsAggregateWorker aggregateWorker = new MetricsAggregateWorker(
             moduleDefineHolder, remoteWorker, stream.getName(), l1FlushPeriod, kind);
 
         entryWorkers.put(metricsClass, aggregateWorker);
     }
 
+    private MetricsMultiGetPipeline multiGetPipeline() {
+        if (multiGetPipeline == null) {
+            ExecutorService executor = null;
+            if (multiGetConcurrency > 0) {
+                executor = Executors.newFixedThreadPool(
+                    multiGetConcurrency, new CustomThreadFactory("MetricsMultiGet"));
+            }
+            multiGetPipeline = new MetricsMultiGetPipeline(multiGetBatchSize, multiGetConcurrency, executor);
+        }
+        return multiGetPipeline;
+    }
+
+    /**
+     * @return the shared memory of the off-heap session cache, or null if the session cache is on-heap.
+     */
+    private SessionCacheMemoryPool sessionCacheMemory(ModuleDefineHolder moduleDefineHolder) {
+        if (sessionCacheMemory == null && sessionCacheOffHeapSizeInMB > 0) {
+            MetricsCreator metricsCreator = moduleDefineHolder.find(TelemetryModule.NAME)
+                                                              .provider()
+                                                              .getService(MetricsCreator.class);
+            sessionCacheMemory = new SessionCacheMemoryPool(sessionCacheOffHeapSizeInMB * 1024L * 1024L, metricsCreator);
+        }
+        return sessionCacheMemory;
+    }
+
     private MetricsPersistentWorker minutePersistentWorker(ModuleDefineHolder moduleDefineHolder,
                                                            IMetricsDAO metricsDAO,
                                                            Model model,
@@ -211,7 +281,8 @@ public class MetricsStreamProcessor implements StreamProcessor<Metrics> {
 
         MetricsPersistentWorker minutePersistentWorker = new MetricsPersistentWorker(
             moduleDefineHolder, model, metricsDAO, alarmNotifyWorker, exportWorker, transWorker,
-            supportUpdate, storageSessionTimeout, metricsDataTTL, kind
+            supportUpdate, storageSessionTimeout, metricsDataTTL, l2AggregationCacheStripes, multiGetPipeline(),
+            sessionCacheMemory(moduleDefineHolder), kind
         );
         persistentWorkers.add(minutePersistentWorker);
 
@@ -225,7 +296,8 @@ public class MetricsStreamProcessor implements StreamProcessor<Metrics> {
                                                        MetricStreamKind kind) {
         MetricsPersistentWorker persistentWorker = new MetricsPersistentWorker(
             moduleDefineHolder, model, metricsDAO,
-            supportUpdate, storageSessionTimeout, metricsDataTTL, kind
+            supportUpdate, storageSessionTimeout, metricsDataTTL, l2AggregationCacheStripes, multiGetPipeline(),
+            sessionCacheMemory(moduleDefineHolder), kind
         );
         persistentWorkers.add(persistentWorker);
 
@@ -0,0 +1,429 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.worker;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.apache.skywalking.oap.server.core.UnexpectedException;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.storage.StorageID;
+
+/**
+ * OffHeapMetricsSessionCache keeps the metrics in the {@link SessionCacheMemoryPool} serialized through
+ * {@link Metrics#serialize()}, the same as the L1 aggregation sends them to the L2 aggregation. The on-heap cost of an
+ * entry is a few primitive slots, no matter how many fields the metrics have.
+ *
+ * The block of an entry is [id length][data length][UTF-8 bytes of {@link StorageID#build()}][serialized metrics].
+ * The entries are indexed by {@link StorageID#longHashCode()} through open addressing, and the stored id is compared
+ * to make sure of the match.
+ *
+ * The expiration is driven by a timer wheel of {@link #WHEEL_SIZE} buckets, the entries are linked in the bucket of
+ * their deadline. {@link #removeExpired()} only processes the buckets of the elapsed ticks, and links the entries
+ * updated since back to the bucket of the new deadline, rather than iterating all entries.
+ *
+ * When the memory budget is used up, the entries in the next buckets of the wheel, which are the closest to expire,
+ * are evicted to make room. If there is still no room, the metrics is not cached. Either way, the time bucket is
+ * recorded through {@link #getLatestEvictedTimeBucket()}, so the worker keeps loading such metrics from the storage.
+ *
+ * @since 10.1.0
+ */
+class OffHeapMetricsSessionCache extends MetricsSessionCache {
+    private static final int WHEEL_SIZE = 64;
+    /**
+     * The deadline of an entry is in at most 16 ticks, so the wheel never wraps around a live entry.
+     */
+    private static final int TICKS_PER_TIMEOUT = 16;
+    private static final int MAX_EVICTION_PER_ALLOCATION = 32;
+    private static final int HEADER_SIZE = 8;
+
+    private final SessionCacheMemoryPool pool;
+    private volatile Constructor<? extends Metrics> constructor;
+
+    /**
+     * The entries, the address is -1 if the entry is removed, but still linked in the wheel.
+     */
+    private long[] hashes;
+    private long[] addresses;
+    private long[] lastUpdates;
+    private long[] timeBuckets;
+    private int[] wheelNext;
+    private int[] freeIds;
+    private int freeIdCount;
+    private int entryCount;
+    /**
+     * The entry id + 1 in the slot, 0 means empty.
+     */
+    private int[] index;
+    private int size;
+
+    private final int[] wheel = new int[WHEEL_SIZE];
+    private long tickMillis;
+    private long lastProcessedTick = -1;
+    private volatile long latestEvictedTimeBucket;
+
+    OffHeapMetricsSessionCache(long timeoutThreshold, SessionCacheMemoryPool pool) {
+        super(timeoutThreshold);
+        this.pool = pool;
+        final int capacity = 16;
+        this.hashes = new long[capacity];
+        this.addresses = new long[capacity];
+        this.lastUpdates = new long[capacity];
+        this.timeBuckets = new long[capacity];
+        this.wheelNext = new int[capacity];
+        this.freeIds = new int[capacity];
+        this.index = new int[capacity * 2];
+        Arrays.fill(wheel, -1);
+    }
+
+    @Override
+    Metrics get(Metrics metrics) {
+        final StorageID id = metrics.id();
+        final byte[] idBytes = id.build().getBytes(StandardCharsets.UTF_8);
+        final byte[] data;
+        final long lastUpdate;
+        synchronized (this) {
+            final int entry = find(id.longHashCode(), idBytes);
+            if (entry < 0) {
+                return null;
+            }
+            final ByteBuffer block = pool.view(addresses[entry]);
+            block.getInt();
+            data = new byte[block.getInt()];
+            block.position(block.position() + idBytes.length);
+            block.get(data);
+            lastUpdate = lastUpdates[entry];
+        }
+        final Metrics cached = newInstance(metrics);
+        try {
+            cached.deserialize(RemoteData.parseFrom(data));
+        } catch (InvalidProtocolBufferException e) {
+            throw new UnexpectedException("Failed to read the cached metrics " + id.build(), e);
+        }
+        cached.setLastUpdateTimestamp(lastUpdate);
+        return cached;
+    }
+
+    @Override
+    boolean contains(Metrics metrics) {
+        final StorageID id = metrics.id();
+        final byte[] idBytes = id.build().getBytes(StandardCharsets.UTF_8);
+        final boolean found;
+        synchronized (this) {
+            found = find(id.longHashCode(), idBytes) >= 0;
+        }
+        (found ? pool.hitCounter : pool.missCounter).inc();
+        return found;
+    }
+
+    @Override
+    void touch(Metrics cached, long timestamp) {
+        cached.setLastUpdateTimestamp(timestamp);
+        final StorageID id = cached.id();
+        final byte[] idBytes = id.build().getBytes(StandardCharsets.UTF_8);
+        synchronized (this) {
+            final int entry = find(id.longHashCode(), idBytes);
+            if (entry >= 0) {
+                lastUpdates[entry] = timestamp;
+            }
+        }
+    }
+
+    @Override
+    void update(Metrics cached) {
+        write(cached, false);
+    }
+
+    @Override
+    long getLatestEvictedTimeBucket() {
+        return latestEvictedTimeBucket;
+    }
+
+    /**
+     * @return null always, the removed metrics is not read out.
+     */
+    @Override
+    public Metrics remove(Metrics metrics) {
+        final StorageID id = metrics.id();
+        final byte[] idBytes = id.build().getBytes(StandardCharsets.UTF_8);
+        synchronized (this) {
+            final int entry = find(id.longHashCode(), idBytes);
+            if (entry >= 0) {
+                removeEntry(entry);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void put(Metrics metrics) {
+        write(metrics, true);
+    }
+
+    @Override
+    synchronized void removeExpired() {
+        if (lastProcessedTick < 0) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        final long nowTick = now / tickMillis;
+        final long fromTick = Math.max(lastProcessedTick + 1, nowTick - WHEEL_SIZE + 1);
+        // The bucket of the current tick is processed again in the next round, as the entries in it could expire later
+        // in this tick.
+        lastProcessedTick = nowTick - 1;
+        final long timeoutThreshold = getTimeoutThreshold();
+        for (long tick = fromTick; tick <= nowTick; tick++) {
+            final int bucket = (int) (tick & (WHEEL_SIZE - 1));
+            int entry = wheel[bucket];
+            wheel[bucket] = -1;
+            while (entry >= 0) {
+                final int next = wheelNext[entry];
+                if (addresses[entry] < 0) {
+                    recycle(entry);
+                } else if (now - lastUpdates[entry] > timeoutThreshold) {
+                    removeEntry(entry);
+                    recycle(entry);
+                    pool.expiredCounter.inc();
+                } else {
+                    link(entry);
+                }
+                entry = next;
+            }
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private void write(Metrics metrics, boolean insertIfAbsent) {
+        final StorageID id = metrics.id();
+        final byte[] idBytes = id.build().getBytes(StandardCharsets.UTF_8);
+        final byte[] data = metrics.serialize().build().toByteArray();
+        final int blockSize = HEADER_SIZE + idBytes.length + data.length;
+        final long hash = id.longHashCode();
+        final long lastUpdate = metrics.getLastUpdateTimestamp() > 0 ?
+            metrics.getLastUpdateTimestamp() : System.currentTimeMillis();
+        synchronized (this) {
+            int entry = find(hash, idBytes);
+            if (entry < 0 && !insertIfAbsent) {
+                return;
+            }
+            long address = entry < 0 ? -1 : addresses[entry];
+            if (address < 0 || pool.blockSize(address) < blockSize) {
+                if (entry >= 0) {
+                    removeEntry(entry);
+                }
+                address = allocate(blockSize);
+                if (address < 0) {
+                    pool.rejectedCounter.inc();
+                    recordEviction(metrics.getTimeBucket());
+                    return;
+                }
+                entry = newEntry(hash, address, lastUpdate);
+            }
+            final ByteBuffer block = pool.view(address);
+            block.putInt(idBytes.length).putInt(data.length).put(idBytes).put(data);
+            lastUpdates[entry] = lastUpdate;
+            timeBuckets[entry] = metrics.getTimeBucket();
+        }
+    }
+
+    private long allocate(int blockSize) {
+        long address = pool.allocate(blockSize);
+        for (int i = 0; address < 0 && i < MAX_EVICTION_PER_ALLOCATION; i++) {
+            final int victim = nextVictim();
+            if (victim < 0) {
+                break;
+            }
+            recordEviction(timeBuckets[victim]);
+            removeEntry(victim);
+            pool.evictedCounter.inc();
+            address = pool.allocate(blockSize);
+        }
+        return address;
+    }
+
+    /**
+     * @return the first live entry in the wheel from the next tick, the removed entries passed by are recycled.
+     */
+    private int nextVictim() {
+        if (lastProcessedTick < 0) {
+            return -1;
+        }
+        for (int i = 1; i <= WHEEL_SIZE; i++) {
+            final int bucket = (int) ((lastProcessedTick + i) & (WHEEL_SIZE - 1));
+            int entry = wheel[bucket];
+            while (entry >= 0 && addresses[entry] < 0) {
+                final int next = wheelNext[entry];
+                recycle(entry);
+                entry = next;
+            }
+            wheel[bucket] = entry;
+            if (entry >= 0) {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    private void recordEviction(long timeBucket) {
+        if (timeBucket > latestEvictedTimeBucket) {
+            latestEvictedTimeBucket = timeBucket;
+        }
+    }
+
+    private int newEntry(long hash, long address, long lastUpdate) {
+        final int entry;
+        if (freeIdCount > 0) {
+            entry = freeIds[--freeIdCount];
+        } else {
+            if (entryCount == hashes.length) {
+                final int capacity = hashes.length * 2;
+                hashes = Arrays.copyOf(hashes, capacity);
+                addresses = Arrays.copyOf(addresses, capacity);
+                lastUpdates = Arrays.copyOf(lastUpdates, capacity);
+                timeBuckets = Arrays.copyOf(timeBuckets, capacity);
+                wheelNext = Arrays.copyOf(wheelNext, capacity);
+                freeIds = Arrays.copyOf(freeIds, capacity);
+            }
+            entry = entryCount++;
+        }
+        hashes[entry] = hash;
+        addresses[entry] = address;
+        lastUpdates[entry] = lastUpdate;
+        if (++size * 2 > index.length) {
+            rehash(index.length * 2);
+        }
+        index[emptySlot(hash)] = entry + 1;
+        if (lastProcessedTick < 0) {
+            final long now = System.currentTimeMillis();
+            tickMillis = Math.max(1, getTimeoutThreshold() / TICKS_PER_TIMEOUT);
+            lastProcessedTick = now / tickMillis - 1;
+        }
+        link(entry);
+        return entry;
+    }
+
+    /**
+     * Free the memory and remove the entry from the index. It stays in the wheel until the bucket is processed.
+     */
+    private void removeEntry(int entry) {
+        pool.free(addresses[entry]);
+        addresses[entry] = -1;
+        size--;
+        int slot = home(hashes[entry]);
+        while (index[slot] != entry + 1) {
+            slot = (slot + 1) & (index.length - 1);
+        }
+        // Shift the following entries of the probe sequence back, instead of leaving a tombstone.
+        final int mask = index.length - 1;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (index[next] == 0) {
+                break;
+            }
+            final int home = home(hashes[index[next] - 1]);
+            if (slot <= next ? slot >= home || home > next : slot >= home && home > next) {
+                index[slot] = index[next];
+                slot = next;
+            }
+        }
+        index[slot] = 0;
+    }
+
+    private void recycle(int entry) {
+        freeIds[freeIdCount++] = entry;
+    }
+
+    private void link(int entry) {
+        long tick = (lastUpdates[entry] + getTimeoutThreshold()) / tickMillis;
+        if (tick <= lastProcessedTick) {
+            tick = lastProcessedTick + 1;
+        }
+        final int bucket = (int) (tick & (WHEEL_SIZE - 1));
+        wheelNext[entry] = wheel[bucket];
+        wheel[bucket] = entry;
+    }
+
+    private int find(long hash, byte[] idBytes) {
+        final int mask = index.length - 1;
+        for (int slot = home(hash); index[slot] != 0; slot = (slot + 1) & mask) {
+            final int entry = index[slot] - 1;
+            if (hashes[entry] == hash && idEquals(addresses[entry], idBytes)) {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    private boolean idEquals(long address, byte[] idBytes) {
+        final ByteBuffer block = pool.view(address);
+        if (block.getInt() != idBytes.length) {
+            return false;
+        }
+        block.getInt();
+        for (final byte b : idBytes) {
+            if (block.get() != b) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int emptySlot(long hash) {
+        final int mask = index.length - 1;
+        int slot = home(hash);
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        final int[] old = index;
+        index = new int[capacity];
+        for (final int value : old) {
+            if (value != 0) {
+                index[emptySlot(hashes[value - 1])] = value;
+            }
+        }
+    }
+
+    private int home(long hash) {
+        return (int) (hash ^ (hash >>> 32)) * 0x9E3779B9 >>> 1 & (index.length - 1);
+    }
+
+    private Metrics newInstance(Metrics metrics) {
+        Constructor<? extends Metrics> constructor = this.constructor;
+        try {
+            if (constructor == null) {
+                constructor = metrics.getClass().getDeclaredConstructor();
+                this.constructor = constructor;
+            }
+            return constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new UnexpectedException("Failed to create metrics " + metrics.getClass().getName(), e);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.worker;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.GaugeMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
+
+/**
+ * SessionCacheMemoryPool is the direct memory shared by all {@link OffHeapMetricsSessionCache}s, bounded by the
+ * configured budget.
+ *
+ * The memory is allocated in pages of 1MB, and a page is split into the blocks of one size class, the power of two
+ * from 256B to 64KB. An address is the index of the page in the high bits and the offset in the low 20 bits. The page
+ * is returned to the pool once all its blocks are freed, to be reused by any size class.
+ *
+ * @since 10.1.0
+ */
+class SessionCacheMemoryPool {
+    static final int PAGE_SHIFT = 20;
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int MIN_BLOCK_SHIFT = 8;
+    private static final int MAX_BLOCK_SHIFT = 16;
+    static final int MAX_BLOCK_SIZE = 1 << MAX_BLOCK_SHIFT;
+
+    private final Page[] pages;
+    private int allocatedPages;
+    /**
+     * The pages having no block in use.
+     */
+    private final List<Page> freePages = new ArrayList<>();
+    /**
+     * The pages having both used and free blocks, per size class.
+     */
+    private final List<Page>[] partialPages;
+    private long usedBytes;
+
+    private final GaugeMetrics usedBytesGauge;
+    final CounterMetrics hitCounter;
+    final CounterMetrics missCounter;
+    final CounterMetrics expiredCounter;
+    final CounterMetrics evictedCounter;
+    final CounterMetrics rejectedCounter;
+
+    @SuppressWarnings("unchecked")
+    SessionCacheMemoryPool(long budgetInBytes, MetricsCreator metricsCreator) {
+        this.pages = new Page[(int) Math.max(1, budgetInBytes >>> PAGE_SHIFT)];
+        this.partialPages = new List[MAX_BLOCK_SHIFT - MIN_BLOCK_SHIFT + 1];
+        for (int i = 0; i < partialPages.length; i++) {
+            partialPages[i] = new ArrayList<>();
+        }
+        this.usedBytesGauge = metricsCreator.createGauge(
+            "metrics_session_cache_off_heap_used_bytes", "The bytes used by the off-heap metrics session cache",
+            MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE
+        );
+        this.hitCounter = createCounter(metricsCreator, "hit");
+        this.missCounter = createCounter(metricsCreator, "miss");
+        this.expiredCounter = createCounter(metricsCreator, "expired");
+        this.evictedCounter = createCounter(metricsCreator, "evicted");
+        this.rejectedCounter = createCounter(metricsCreator, "rejected");
+    }
+
+    private static CounterMetrics createCounter(MetricsCreator metricsCreator, String status) {
+        return metricsCreator.createCounter(
+            "metrics_session_cache_off_heap", "The counter of the off-heap metrics session cache, by status",
+            new MetricsTag.Keys("status"), new MetricsTag.Values(status)
+        );
+    }
+
+    /**
+     * @return the address of a block holding at least the given bytes, or -1 if the budget is used up or the size is
+     * larger than {@link #MAX_BLOCK_SIZE}.
+     */
+    synchronized long allocate(int size) {
+        final int sizeClass = sizeClassOf(size);
+        if (sizeClass < 0) {
+            return -1;
+        }
+        final List<Page> partial = partialPages[sizeClass];
+        final Page page;
+        if (partial.isEmpty()) {
+            page = takeFreePage();
+            if (page == null) {
+                return -1;
+            }
+            page.format(sizeClass + MIN_BLOCK_SHIFT);
+            page.partialPosition = partial.size();
+            partial.add(page);
+        } else {
+            page = partial.get(partial.size() - 1);
+        }
+        final int offset = page.freeOffsets[--page.freeCount];
+        if (page.freeCount == 0) {
+            removePartial(page);
+        }
+        usedBytes += 1 << page.blockShift;
+        usedBytesGauge.setValue(usedBytes);
+        return ((long) page.index << PAGE_SHIFT) | offset;
+    }
+
+    synchronized void free(long address) {
+        final Page page = pages[(int) (address >>> PAGE_SHIFT)];
+        final boolean wasFull = page.freeCount == 0;
+        page.freeOffsets[page.freeCount++] = (int) (address & (PAGE_SIZE - 1));
+        usedBytes -= 1 << page.blockShift;
+        usedBytesGauge.setValue(usedBytes);
+        if (page.freeCount == page.freeOffsets.length) {
+            if (!wasFull) {
+                removePartial(page);
+            }
+            page.blockShift = 0;
+            freePages.add(page);
+        } else if (wasFull) {
+            final List<Page> partial = partialPages[page.blockShift - MIN_BLOCK_SHIFT];
+            page.partialPosition = partial.size();
+            partial.add(page);
+        }
+    }
+
+    /**
+     * @return the capacity of the block of the address.
+     */
+    int blockSize(long address) {
+        return 1 << pages[(int) (address >>> PAGE_SHIFT)].blockShift;
+    }
+
+    /**
+     * @return a view of the page of the address, positioned at the block. The view is independent, so the blocks of
+     * the same page could be accessed concurrently by their owners.
+     */
+    ByteBuffer view(long address) {
+        final ByteBuffer view = pages[(int) (address >>> PAGE_SHIFT)].buffer.duplicate();
+        view.position((int) (address & (PAGE_SIZE - 1)));
+        return view;
+    }
+
+    synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    private Page takeFreePage() {
+        if (!freePages.isEmpty()) {
+            return freePages.remove(freePages.size() - 1);
+        }
+        if (allocatedPages == pages.length) {
+            return null;
+        }
+        final Page page = new Page(allocatedPages, ByteBuffer.allocateDirect(PAGE_SIZE));
+        pages[allocatedPages++] = page;
+        return page;
+    }
+
+    private void removePartial(Page page) {
+        final List<Page> partial = partialPages[page.blockShift - MIN_BLOCK_SHIFT];
+        final Page last = partial.remove(partial.size() - 1);
+        if (last != page) {
+            last.partialPosition = page.partialPosition;
+            partial.set(page.partialPosition, last);
+        }
+        page.partialPosition = -1;
+    }
+
+    private static int sizeClassOf(int size) {
+        if (size > MAX_BLOCK_SIZE) {
+            return -1;
+        }
+        final int shift = 32 - Integer.numberOfLeadingZeros(Math.max(size, 1) - 1);
+        return Math.max(shift, MIN_BLOCK_SHIFT) - MIN_BLOCK_SHIFT;
+    }
+
+    private static class Page {
+        private final int index;
+        private final ByteBuffer buffer;
+        private int blockShift;
+        private int[] freeOffsets;
+        private int freeCount;
+        private int partialPosition = -1;
+
+        private Page(int index, ByteBuffer buffer) {
+            this.index = index;
+            this.buffer = buffer;
+        }
+
+        private void format(int blockShift) {
+            this.blockShift = blockShift;
+            final int blocks = PAGE_SIZE >>> blockShift;
+            freeOffsets = new int[blocks];
+            // Hand out the blocks from the start of the page.
+            for (int i = 0; i < blocks; i++) {
+                freeOffsets[i] = (blocks - 1 - i) << blockShift;
+            }
+            freeCount = blocks;
+        }
+    }
+}
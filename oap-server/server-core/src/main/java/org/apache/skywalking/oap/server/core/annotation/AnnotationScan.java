@@ -18,8 +18,6 @@
 
 package org.apache.skywalking.oap.server.core.annotation;
 
-import com.google.common.collect.ImmutableSet;
-import com.google.common.reflect.ClassPath;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.util.Comparator;
@@ -48,18 +46,13 @@ public class AnnotationScan {
     }
 
     /**
-     * Begin to scan classes.
+     * Begin to scan classes, through the {@link ClassIndex}. The classes generated from the OAL scripts are excluded,
+     * they are notified by the OAL engine only.
      */
     public void scan() throws IOException, StorageException {
-        ClassPath classpath = ClassPath.from(this.getClass().getClassLoader());
-        ImmutableSet<ClassPath.ClassInfo> classes = classpath.getTopLevelClassesRecursive("org.apache.skywalking");
-        for (ClassPath.ClassInfo classInfo : classes) {
-            Class<?> aClass = classInfo.load();
-
-            for (AnnotationListenerCache listener : listeners) {
-                if (aClass.isAnnotationPresent(listener.annotation())) {
-                    listener.addMatch(aClass);
-                }
+        for (AnnotationListenerCache listener : listeners) {
+            for (Class<?> aClass : ClassIndex.find(listener.annotation(), this.getClass().getClassLoader())) {
+                listener.addMatch(aClass);
             }
         }
 
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.annotation;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.reflect.ClassPath;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.skywalking.oap.server.core.UnexpectedException;
+
+/**
+ * The index of the classes annotated by, or implementing, an {@link Indexed} type. The index files are written into
+ * {@code META-INF/skywalking/class-index/} by the annotation processor in the `server-annotation-processor` module at
+ * compile time, so the classes could be found at boot without loading every class in the classpath.
+ * <p>
+ * The classpath is still scanned for the types not {@link Indexed}, or when the fallback scan is enabled for the
+ * third-party plugins compiled without the annotation processor.
+ */
+public class ClassIndex {
+    private static final String INDEX_FOLDER = "META-INF/skywalking/class-index/";
+    private static final String SCAN_PACKAGE = "org.apache.skywalking";
+    /**
+     * Classes generated from the OAL scripts, including the ones precompiled at build time. They are registered by the
+     * OAL engine when the script is loaded, so they are never found through the index or the classpath scan, otherwise
+     * the dispatchers and streams of them would be registered twice.
+     */
+    private static final String OAL_GENERATED_PACKAGE = "org.apache.skywalking.oap.server.core.source.oal.rt";
+
+    private static volatile boolean FALLBACK_SCAN_ENABLED = false;
+
+    /**
+     * Scan the classpath as well, for the classes not in the index.
+     */
+    public static void setFallbackScanEnabled(boolean enabled) {
+        FALLBACK_SCAN_ENABLED = enabled;
+    }
+
+    /**
+     * @return the top-level classes annotated by the given annotation, or implementing the given type. The indexed
+     * classes come first, in the order of the index.
+     */
+    public static List<Class<?>> find(Class<?> type, ClassLoader classLoader) throws IOException {
+        final Set<String> classNames = read(type, classLoader);
+        final List<Class<?>> classes = new ArrayList<>(classNames.size());
+        for (String className : classNames) {
+            try {
+                classes.add(Class.forName(className, false, classLoader));
+            } catch (ClassNotFoundException e) {
+                throw new UnexpectedException(
+                    "Class " + className + " in the index of " + type.getName() + " is not found.", e);
+            }
+        }
+        if (FALLBACK_SCAN_ENABLED || !type.isAnnotationPresent(Indexed.class)) {
+            scan(type, classLoader, classNames, classes);
+        }
+        return classes;
+    }
+
+    private static Set<String> read(Class<?> type, ClassLoader classLoader) throws IOException {
+        final Set<String> classNames = new LinkedHashSet<>();
+        final Enumeration<URL> indexes = classLoader.getResources(INDEX_FOLDER + type.getName());
+        while (indexes.hasMoreElements()) {
+            try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(indexes.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty() && !line.startsWith("#") && !isOALGenerated(line)) {
+                        classNames.add(line);
+                    }
+                }
+            }
+        }
+        return classNames;
+    }
+
+    private static void scan(Class<?> type,
+                             ClassLoader classLoader,
+                             Set<String> indexedClassNames,
+                             List<Class<?>> classes) throws IOException {
+        ImmutableSet<ClassPath.ClassInfo> classInfos = ClassPath.from(classLoader).getTopLevelClassesRecursive(SCAN_PACKAGE);
+        for (ClassPath.ClassInfo classInfo : classInfos) {
+            if (isOALGenerated(classInfo.getName()) || indexedClassNames.contains(classInfo.getName())) {
+                continue;
+            }
+            Class<?> aClass = classInfo.load();
+            if (matches(type, aClass)) {
+                classes.add(aClass);
+            }
+        }
+    }
+
+    static boolean isOALGenerated(String className) {
+        return className.startsWith(OAL_GENERATED_PACKAGE + ".");
+    }
+
+    private static boolean matches(Class<?> type, Class<?> aClass) {
+        if (type.isAnnotation()) {
+            return aClass.isAnnotationPresent(type.asSubclass(Annotation.class));
+        }
+        return type.isAssignableFrom(aClass);
+    }
+}
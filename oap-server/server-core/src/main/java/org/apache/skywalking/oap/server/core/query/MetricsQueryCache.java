@@ -0,0 +1,472 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.query;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.apache.skywalking.oap.server.core.analysis.metrics.DataTable;
+import org.apache.skywalking.oap.server.core.query.enumeration.Step;
+import org.apache.skywalking.oap.server.core.query.input.Duration;
+import org.apache.skywalking.oap.server.core.query.input.MetricsCondition;
+import org.apache.skywalking.oap.server.core.query.type.Bucket;
+import org.apache.skywalking.oap.server.core.query.type.HeatMap;
+import org.apache.skywalking.oap.server.core.query.type.IntValues;
+import org.apache.skywalking.oap.server.core.query.type.KVInt;
+import org.apache.skywalking.oap.server.core.query.type.KeyValue;
+import org.apache.skywalking.oap.server.core.query.type.MetricsValues;
+import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnMetadata;
+import org.apache.skywalking.oap.server.core.storage.query.IMetricsQueryDAO;
+import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
+
+/**
+ * MetricsQueryCache caches the metrics values of the closed time buckets, which are not going to change anymore. A
+ * time bucket is closed when the time of the bucket end plus {@link #closedDelay} passed, as the metrics of the bucket
+ * could be still in the L1/L2 aggregation and the persistence.
+ *
+ * For every query, the cached points at the head of the duration are read from the cache, and the points since the
+ * first not cached or open one are read from the storage in one query. The cache is per time bucket, so the dashboards
+ * with the sliding duration hit the cache as well.
+ */
+public class MetricsQueryCache {
+    /**
+     * Keep the cached values no longer than this, in case of the late data or the TTL of the storage.
+     */
+    private static final long EXPIRE_AFTER_WRITE_MINUTES = 30;
+
+    private final Cache<Key, Entry> cache;
+    private final long closedDelay;
+    private final LongSupplier clock;
+    private final Supplier<MetricsCreator> metricsCreator;
+    private volatile CounterMetrics hitCounter;
+    private volatile CounterMetrics missCounter;
+
+    /**
+     * @param maxBytes    the memory budget of the cache, estimated by the size of the cached entries.
+     * @param closedDelay the delay in milliseconds after the end of a time bucket, since when the bucket is closed.
+     */
+    public MetricsQueryCache(long maxBytes, long closedDelay, ModuleManager moduleManager) {
+        this(maxBytes, closedDelay, System::currentTimeMillis, () -> moduleManager.find(TelemetryModule.NAME)
+                                                                                 .provider()
+                                                                                 .getService(MetricsCreator.class));
+    }
+
+    MetricsQueryCache(long maxBytes, long closedDelay, LongSupplier clock, Supplier<MetricsCreator> metricsCreator) {
+        this.cache = CacheBuilder.newBuilder()
+                                 .maximumWeight(maxBytes)
+                                 .weigher((Key key, Entry entry) -> key.weight() + entry.weight())
+                                 .expireAfterWrite(EXPIRE_AFTER_WRITE_MINUTES, TimeUnit.MINUTES)
+                                 .build();
+        this.closedDelay = closedDelay;
+        this.clock = clock;
+        this.metricsCreator = metricsCreator;
+    }
+
+    /**
+     * Read storage with the given duration, which is a tail of the original duration.
+     */
+    interface Reader<T> {
+        T read(Duration duration) throws IOException;
+    }
+
+    /**
+     * Read storage with the given labels and duration. The empty labels mean all labels.
+     */
+    interface LabeledReader {
+        List<MetricsValues> read(List<KeyValue> labels, Duration duration) throws IOException;
+    }
+
+    MetricsValues readMetricsValues(MetricsCondition condition,
+                                    Duration duration,
+                                    Reader<MetricsValues> reader) throws IOException {
+        final Query query = new Query(Kind.VALUES, condition, "", duration);
+        query.count();
+        if (query.firstMissing == 0) {
+            final MetricsValues metricsValues = reader.read(duration);
+            cacheValues(query, 0, metricsValues);
+            return metricsValues;
+        }
+
+        final MetricsValues metricsValues = new MetricsValues();
+        final IntValues intValues = metricsValues.getValues();
+        for (int i = 0; i < query.firstMissing; i++) {
+            final CachedValue cached = (CachedValue) query.cached[i];
+            intValues.addKVInt(new KVInt(cached.id, cached.value, cached.isEmptyValue));
+        }
+        if (query.firstMissing < query.points.size()) {
+            final MetricsValues tail = reader.read(query.tailDuration());
+            final List<KVInt> tailValues = tail.getValues().getValues();
+            if (tailValues.size() != query.points.size() - query.firstMissing) {
+                // Unexpected result, don't merge it.
+                return reader.read(duration);
+            }
+            cacheValues(query, query.firstMissing, tail);
+            tailValues.forEach(intValues::addKVInt);
+        }
+        return metricsValues;
+    }
+
+    /**
+     * The labeled values are read by the query labels, and cached per time bucket and query labels, as the values of
+     * other labels are not read. The metrics in the old multiple int values format are not cached.
+     */
+    List<MetricsValues> readLabeledMetricsValues(MetricsCondition condition,
+                                                 List<KeyValue> labels,
+                                                 Duration duration,
+                                                 LabeledReader reader) throws IOException {
+        final boolean multiIntValues = ValueColumnMetadata.INSTANCE
+            .readValueColumnDefinition(condition.getName())
+            .map(ValueColumnMetadata.ValueColumn::isMultiIntValues)
+            .orElse(true);
+        if (multiIntValues) {
+            return reader.read(labels, duration);
+        }
+        final Query query = new Query(Kind.LABELED_VALUES, condition, labelsKey(labels), duration);
+        final int size = query.points.size();
+        if (size == 0 || !query.isClosed(0)) {
+            return reader.read(labels, duration);
+        }
+        query.count();
+
+        final List<String> ids = new ArrayList<>(size);
+        final Map<String, DataTable> idMap = new HashMap<>(size);
+        for (int i = 0; i < query.firstMissing; i++) {
+            final CachedLabeledValue cached = (CachedLabeledValue) query.cached[i];
+            ids.add(cached.id);
+            idMap.put(cached.id, cached.dataTable);
+        }
+        if (query.firstMissing < size) {
+            final List<MetricsValues> tail = reader.read(
+                labels, query.firstMissing == 0 ? duration : query.tailDuration());
+            final int tailSize = size - query.firstMissing;
+            // Rebuild the data table of every point from the values of the read labels.
+            final String[] tailIds = new String[tailSize];
+            final DataTable[] tailTables = new DataTable[tailSize];
+            for (final MetricsValues labeledValues : tail) {
+                final List<KVInt> values = labeledValues.getValues().getValues();
+                if (values.size() != tailSize) {
+                    // Unexpected result, don't merge it.
+                    return reader.read(labels, duration);
+                }
+                for (int j = 0; j < tailSize; j++) {
+                    final KVInt kvInt = values.get(j);
+                    tailIds[j] = kvInt.getId();
+                    if (!kvInt.isEmptyValue()) {
+                        if (tailTables[j] == null) {
+                            tailTables[j] = new DataTable();
+                        }
+                        tailTables[j].put(labeledValues.getLabel(), kvInt.getValue());
+                    }
+                }
+            }
+            for (int j = 0; j < tailSize; j++) {
+                final int i = query.firstMissing + j;
+                final String id = tailIds[j] != null ? tailIds[j] : query.points.get(i).id(query.entityId);
+                final DataTable dataTable = tailTables[j] != null ? tailTables[j] : new DataTable();
+                ids.add(id);
+                idMap.put(id, dataTable);
+                if (query.isClosed(i)) {
+                    cache.put(query.key(i), new CachedLabeledValue(id, dataTable));
+                }
+            }
+        }
+        return IMetricsQueryDAO.Util.sortValues(
+            IMetricsQueryDAO.Util.composeLabelValue(condition.getName(), labels, ids, idMap),
+            ids,
+            ValueColumnMetadata.INSTANCE.getDefaultValue(condition.getName())
+        );
+    }
+
+    HeatMap readHeatMap(MetricsCondition condition,
+                        Duration duration,
+                        Reader<HeatMap> reader) throws IOException {
+        final Query query = new Query(Kind.HEAT_MAP, condition, "", duration);
+        query.count();
+        if (query.firstMissing == 0) {
+            final HeatMap heatMap = reader.read(duration);
+            cacheHeatMapColumns(query, 0, heatMap);
+            return heatMap;
+        }
+
+        final HeatMap tail = query.firstMissing < query.points.size() ? reader.read(query.tailDuration()) : null;
+        if (tail != null && tail.getValues().size() != query.points.size() - query.firstMissing) {
+            // Unexpected result, don't merge it.
+            return reader.read(duration);
+        }
+        final HeatMap heatMap = new HeatMap();
+        final List<Bucket> buckets = tail != null && !tail.getBuckets().isEmpty() ?
+            tail.getBuckets() : ((CachedHeatMapColumn) query.cached[0]).buckets;
+        buckets.forEach(heatMap::addBucket);
+        for (int i = 0; i < query.firstMissing; i++) {
+            final CachedHeatMapColumn cached = (CachedHeatMapColumn) query.cached[i];
+            final HeatMap.HeatMapColumn column = new HeatMap.HeatMapColumn();
+            column.setId(cached.id);
+            cached.values.forEach(column::addValue);
+            heatMap.getValues().add(column);
+        }
+        if (tail != null) {
+            final long defaultValue = ValueColumnMetadata.INSTANCE.getDefaultValue(condition.getName());
+            for (final HeatMap.HeatMapColumn column : tail.getValues()) {
+                // The missing columns of the tail have no value, if there is no bucket in the tail.
+                if (column.getValues().isEmpty()) {
+                    buckets.forEach(bucket -> column.addValue(defaultValue));
+                }
+                heatMap.getValues().add(column);
+            }
+            cacheHeatMapColumns(query, query.firstMissing, tail);
+        }
+        return heatMap;
+    }
+
+    private void cacheValues(Query query, int from, MetricsValues metricsValues) {
+        final List<KVInt> values = metricsValues.getValues().getValues();
+        if (values.size() != query.points.size() - from) {
+            return;
+        }
+        for (int j = 0; j < values.size(); j++) {
+            if (query.isClosed(from + j)) {
+                final KVInt kvInt = values.get(j);
+                cache.put(
+                    query.key(from + j), new CachedValue(kvInt.getId(), kvInt.getValue(), kvInt.isEmptyValue()));
+            }
+        }
+    }
+
+    private void cacheHeatMapColumns(Query query, int from, HeatMap heatMap) {
+        final List<HeatMap.HeatMapColumn> columns = heatMap.getValues();
+        if (heatMap.getBuckets().isEmpty() || columns.size() != query.points.size() - from) {
+            return;
+        }
+        final List<Bucket> buckets = new ArrayList<>(heatMap.getBuckets());
+        for (int j = 0; j < columns.size(); j++) {
+            final HeatMap.HeatMapColumn column = columns.get(j);
+            if (query.isClosed(from + j) && column.getValues().size() == buckets.size()) {
+                cache.put(
+                    query.key(from + j),
+                    new CachedHeatMapColumn(column.getId(), new ArrayList<>(column.getValues()), buckets)
+                );
+            }
+        }
+    }
+
+    /**
+     * Count the hit and miss of the time buckets.
+     */
+    private void count(int hit, int miss) {
+        if (hitCounter == null) {
+            final MetricsCreator creator = metricsCreator.get();
+            missCounter = creator.createCounter(
+                "metrics_query_cache_count", "The count of the time buckets hit or miss the metrics query cache",
+                new MetricsTag.Keys("status"), new MetricsTag.Values("miss")
+            );
+            hitCounter = creator.createCounter(
+                "metrics_query_cache_count", "The count of the time buckets hit or miss the metrics query cache",
+                new MetricsTag.Keys("status"), new MetricsTag.Values("hit")
+            );
+        }
+        hitCounter.inc(hit);
+        missCounter.inc(miss);
+    }
+
+    /**
+     * @return the query labels in a stable order, as a part of the cache key.
+     */
+    private static String labelsKey(List<KeyValue> labels) {
+        if (labels == null || labels.isEmpty()) {
+            return "";
+        }
+        return labels.stream()
+                     .map(label -> label.getKey() + "=" + label.getValue())
+                     .sorted()
+                     .collect(Collectors.joining(","));
+    }
+
+    private enum Kind {
+        VALUES, LABELED_VALUES, HEAT_MAP
+    }
+
+    /**
+     * The points of a query, and the cached values of the head points.
+     */
+    private class Query {
+        private final Kind kind;
+        private final String metricName;
+        private final String entityId;
+        private final String labels;
+        private final Duration duration;
+        private final List<PointOfTime> points;
+        /**
+         * The time of the bucket end, since when the bucket is closed.
+         */
+        private final long closedTime;
+        private final Entry[] cached;
+        /**
+         * The index of the first point not in the cache.
+         */
+        private int firstMissing;
+
+        private Query(Kind kind, MetricsCondition condition, String labels, Duration duration) {
+            this.kind = kind;
+            this.metricName = condition.getName();
+            this.entityId = condition.getEntity().buildId();
+            this.labels = labels;
+            this.duration = duration;
+            this.points = new ArrayList<>(duration.assembleDurationPoints());
+            this.closedTime = clock.getAsLong() - closedDelay;
+            this.cached = new Entry[points.size()];
+            this.firstMissing = points.size();
+            for (int i = 0; i < points.size(); i++) {
+                final Entry entry = isClosed(i) ? cache.getIfPresent(key(i)) : null;
+                if (entry == null) {
+                    firstMissing = i;
+                    break;
+                }
+                cached[i] = entry;
+            }
+        }
+
+        /**
+         * Count the hit and miss of the points, only when the query is served through the cache.
+         */
+        private void count() {
+            MetricsQueryCache.this.count(firstMissing, points.size() - firstMissing);
+        }
+
+        private Key key(int index) {
+            return new Key(kind, metricName, entityId, labels, points.get(index).getPoint());
+        }
+
+        private boolean isClosed(int index) {
+            return bucketEnd(duration.getStep(), points.get(index).getPoint()) <= closedTime;
+        }
+
+        private Duration tailDuration() {
+            final Duration tail = new Duration();
+            tail.setStep(duration.getStep());
+            tail.setStart(format(duration.getStep(), points.get(firstMissing).getPoint()));
+            tail.setEnd(duration.getEnd());
+            return tail;
+        }
+    }
+
+    private static long bucketEnd(Step step, long timeBucket) {
+        switch (step) {
+            case DAY:
+                return DurationUtils.INSTANCE.parseToDateTime(step, timeBucket).plusDays(1).getMillis();
+            case HOUR:
+                return DurationUtils.INSTANCE.parseToDateTime(step, timeBucket).plusHours(1).getMillis();
+            case MINUTE:
+                return DurationUtils.INSTANCE.parseToDateTime(step, timeBucket).plusMinutes(1).getMillis();
+            default:
+                return DurationUtils.INSTANCE.parseToDateTime(step, timeBucket).plusSeconds(1).getMillis();
+        }
+    }
+
+    private static String format(Step step, long timeBucket) {
+        switch (step) {
+            case DAY:
+                return DurationUtils.INSTANCE.parseToDateTime(step, timeBucket).toString(DurationUtils.YYYY_MM_DD);
+            case HOUR:
+                return DurationUtils.INSTANCE.parseToDateTime(step, timeBucket).toString(DurationUtils.YYYY_MM_DD_HH);
+            case MINUTE:
+                return DurationUtils.INSTANCE.parseToDateTime(step, timeBucket)
+                                             .toString(DurationUtils.YYYY_MM_DD_HHMM);
+            default:
+                return DurationUtils.INSTANCE.parseToDateTime(step, timeBucket)
+                                             .toString(DurationUtils.YYYY_MM_DD_HHMMSS);
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Key {
+        private final Kind kind;
+        private final String metricName;
+        private final String entityId;
+        private final String labels;
+        private final long timeBucket;
+
+        private int weight() {
+            return 64 + 2 * (metricName.length() + (entityId == null ? 0 : entityId.length()) + labels.length());
+        }
+    }
+
+    private interface Entry {
+        /**
+         * @return the estimated size in bytes.
+         */
+        int weight();
+    }
+
+    @RequiredArgsConstructor
+    private static class CachedValue implements Entry {
+        private final String id;
+        private final long value;
+        private final boolean isEmptyValue;
+
+        @Override
+        public int weight() {
+            return 48 + 2 * (id == null ? 0 : id.length());
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class CachedLabeledValue implements Entry {
+        private final String id;
+        private final DataTable dataTable;
+
+        @Override
+        public int weight() {
+            int weight = 96 + 2 * (id == null ? 0 : id.length());
+            for (final String key : dataTable.keys()) {
+                weight += 64 + 2 * key.length();
+            }
+            return weight;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class CachedHeatMapColumn implements Entry {
+        private final String id;
+        private final List<Long> values;
+        /**
+         * Shared by the columns of the same query.
+         */
+        private final List<Bucket> buckets;
+
+        @Override
+        public int weight() {
+            return 64 + 2 * (id == null ? 0 : id.length()) + 24 * values.size();
+        }
+    }
+}
@@ -39,10 +39,19 @@ import org.apache.skywalking.oap.server.library.module.Service;
 @Slf4j
 public class MetricsQueryService implements Service {
     private final ModuleManager moduleManager;
+    /**
+     * Null if the query cache is disabled.
+     */
+    private final MetricsQueryCache queryCache;
     private IMetricsQueryDAO metricQueryDAO;
 
     public MetricsQueryService(ModuleManager moduleManager) {
+        this(moduleManager, null);
+    }
+
+    public MetricsQueryService(ModuleManager moduleManager, MetricsQueryCache queryCache) {
         this.moduleManager = moduleManager;
+        this.queryCache = queryCache;
     }
 
     private IMetricsQueryDAO getMetricQueryDAO() {
@@ -79,8 +88,13 @@ public class MetricsQueryService implements Service {
         if (!condition.senseScope() || !condition.getEntity().isValid()) {
             return new MetricsValues();
         }
-        return getMetricQueryDAO().readMetricsValues(
-            condition, ValueColumnMetadata.INSTANCE.getValueCName(condition.getName()), duration);
+        final String valueCName = ValueColumnMetadata.INSTANCE.getValueCName(condition.getName());
+        if (queryCache == null) {
+            return getMetricQueryDAO().readMetricsValues(condition, valueCName, duration);
+        }
+        return queryCache.readMetricsValues(
+            condition, duration, d -> getMetricQueryDAO().readMetricsValues(condition, valueCName, d)
+        );
     }
 
     /**
@@ -94,8 +108,13 @@ public class MetricsQueryService implements Service {
         if (!condition.senseScope() || !condition.getEntity().isValid()) {
             return Collections.emptyList();
         }
-        return getMetricQueryDAO().readLabeledMetricsValues(
-            condition, ValueColumnMetadata.INSTANCE.getValueCName(condition.getName()), labels, duration);
+        final String valueCName = ValueColumnMetadata.INSTANCE.getValueCName(condition.getName());
+        if (queryCache == null) {
+            return getMetricQueryDAO().readLabeledMetricsValues(condition, valueCName, labels, duration);
+        }
+        return queryCache.readLabeledMetricsValues(
+            condition, labels, duration, (l, d) -> getMetricQueryDAO().readLabeledMetricsValues(condition, valueCName, l, d)
+        );
     }
 
     public List<MetricsValues> readLabeledMetricsValuesWithoutEntity(String metricsName,
@@ -111,7 +130,12 @@ public class MetricsQueryService implements Service {
         if (!condition.senseScope() || !condition.getEntity().isValid()) {
             return new HeatMap();
         }
-        return getMetricQueryDAO().readHeatMap(
-            condition, ValueColumnMetadata.INSTANCE.getValueCName(condition.getName()), duration);
+        final String valueCName = ValueColumnMetadata.INSTANCE.getValueCName(condition.getName());
+        if (queryCache == null) {
+            return getMetricQueryDAO().readHeatMap(condition, valueCName, duration);
+        }
+        return queryCache.readHeatMap(
+            condition, duration, d -> getMetricQueryDAO().readHeatMap(condition, valueCName, d)
+        );
     }
 }
@@ -19,13 +19,13 @@
 package org.apache.skywalking.oap.server.core.query;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 import com.google.protobuf.InvalidProtocolBufferException;
 import org.apache.commons.lang3.StringUtils;
@@ -60,9 +60,11 @@ import org.apache.skywalking.oap.server.library.module.ModuleManager;
 import org.apache.skywalking.oap.server.library.module.Service;
 import org.apache.skywalking.oap.server.library.util.CollectionUtils;
 
-import static java.util.Objects.nonNull;
-
 public class TraceQueryService implements Service {
+    /**
+     * Decode the segments of a trace in parallel, if there are more segments than this.
+     */
+    private static final int PARALLEL_DECODE_THRESHOLD = 8;
 
     private final ModuleManager moduleManager;
     private ITraceQueryDAO traceQueryDAO;
@@ -122,28 +124,20 @@ public class TraceQueryService implements Service {
         if (segmentRecords.isEmpty()) {
             trace.getSpans().addAll(getTraceQueryDAO().doFlexibleTraceQuery(traceId));
         } else {
-            for (SegmentRecord segment : segmentRecords) {
-                if (nonNull(segment)) {
-                    SegmentObject segmentObject = SegmentObject.parseFrom(segment.getDataBinary());
-                    trace.getSpans()
-                         .addAll(buildSpanList(segmentObject));
-                }
+            // Resolve it before the parallel decoding.
+            getComponentLibraryCatalogService();
+            final Stream<SegmentRecord> segments = segmentRecords.size() >= PARALLEL_DECODE_THRESHOLD ?
+                segmentRecords.parallelStream() : segmentRecords.stream();
+            try {
+                segments.filter(Objects::nonNull)
+                        .map(this::buildSpanList)
+                        .forEachOrdered(trace.getSpans()::addAll);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
             }
         }
 
-        List<Span> sortedSpans = new LinkedList<>();
-        if (CollectionUtils.isNotEmpty(trace.getSpans())) {
-            List<Span> rootSpans = findRoot(trace.getSpans());
-
-            if (CollectionUtils.isNotEmpty(rootSpans)) {
-                rootSpans.forEach(span -> {
-                    List<Span> childrenSpan = new ArrayList<>();
-                    childrenSpan.add(span);
-                    findChildren(trace.getSpans(), span, childrenSpan);
-                    sortedSpans.addAll(childrenSpan);
-                });
-            }
-        }
+        List<Span> sortedSpans = TraceSpanTreeBuilder.build(trace.getSpans());
 
         if (CollectionUtils.isNotEmpty(sortedSpans)) {
             final List<SpanAttachedEventRecord> spanAttachedEvents = getSpanAttachedEventQueryDAO().
@@ -156,8 +150,14 @@ public class TraceQueryService implements Service {
         return trace;
     }
 
-    private List<Span> buildSpanList(SegmentObject segmentObject) {
-        List<Span> spans = new ArrayList<>();
+    private List<Span> buildSpanList(SegmentRecord segment) {
+        final SegmentObject segmentObject;
+        try {
+            segmentObject = SegmentObject.parseFrom(segment.getDataBinary());
+        } catch (InvalidProtocolBufferException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<Span> spans = new ArrayList<>(segmentObject.getSpansCount());
 
         segmentObject.getSpansList().forEach(spanObject -> {
             Span span = new Span();
@@ -234,45 +234,6 @@ public class TraceQueryService implements Service {
         return spans;
     }
 
-    private List<Span> findRoot(List<Span> spans) {
-        List<Span> rootSpans = new ArrayList<>();
-        spans.forEach(span -> {
-            String segmentParentSpanId = span.getSegmentParentSpanId();
-
-            boolean hasParent = false;
-            for (Span subSpan : spans) {
-                if (segmentParentSpanId.equals(subSpan.getSegmentSpanId())) {
-                    hasParent = true;
-                    // if find parent, quick exit
-                    break;
-                }
-            }
-
-            if (!hasParent) {
-                span.setRoot(true);
-                rootSpans.add(span);
-            }
-        });
-        /*
-         * In some cases, there are segment fragments, which could not be linked by Ref,
-         * because of two kinds of reasons.
-         * 1. Multiple leaf segments have no particular order in the storage.
-         * 2. Lost in sampling, agent fail safe, segment lost, even bug.
-         * Sorting the segments makes the trace view more readable.
-         */
-        rootSpans.sort(Comparator.comparing(Span::getStartTime));
-        return rootSpans;
-    }
-
-    private void findChildren(List<Span> spans, Span parentSpan, List<Span> childrenSpan) {
-        spans.forEach(span -> {
-            if (span.getSegmentParentSpanId().equals(parentSpan.getSegmentSpanId())) {
-                childrenSpan.add(span);
-                findChildren(spans, span, childrenSpan);
-            }
-        });
-    }
-
     private void appendAttachedEventsToSpan(List<Span> spans, List<SpanAttachedEventRecord> events) throws InvalidProtocolBufferException {
         if (CollectionUtils.isEmpty(events)) {
             return;
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.query;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.skywalking.oap.server.core.query.type.Span;
+
+/**
+ * TraceSpanTreeBuilder sorts the spans of a trace in the depth-first order of the span tree, linked by {@link
+ * Span#getSegmentParentSpanId()} and {@link Span#getSegmentSpanId()}. The children are indexed by the parent id, so
+ * the sorting is linear in the number of spans, and the tree is walked without recursion for the deep traces.
+ */
+public class TraceSpanTreeBuilder {
+    /**
+     * @param spans of a trace in any order.
+     * @return the root spans sorted by the start time, each followed by its descendants in depth-first order. The
+     * children of a span keep their order in the given spans. The roots are marked by {@link Span#setRoot(boolean)}.
+     */
+    public static List<Span> build(List<Span> spans) {
+        if (spans.isEmpty()) {
+            return new ArrayList<>();
+        }
+        final Map<String, Span> spanIndex = new HashMap<>(spans.size() * 2);
+        final Map<String, List<Span>> childrenIndex = new HashMap<>(spans.size() * 2);
+        for (final Span span : spans) {
+            spanIndex.putIfAbsent(span.getSegmentSpanId(), span);
+            childrenIndex.computeIfAbsent(span.getSegmentParentSpanId(), id -> new ArrayList<>(2)).add(span);
+        }
+
+        final List<Span> rootSpans = new ArrayList<>();
+        for (final Span span : spans) {
+            if (!spanIndex.containsKey(span.getSegmentParentSpanId())) {
+                span.setRoot(true);
+                rootSpans.add(span);
+            }
+        }
+        /*
+         * In some cases, there are segment fragments, which could not be linked by Ref,
+         * because of two kinds of reasons.
+         * 1. Multiple leaf segments have no particular order in the storage.
+         * 2. Lost in sampling, agent fail safe, segment lost, even bug.
+         * Sorting the segments makes the trace view more readable.
+         */
+        rootSpans.sort(Comparator.comparing(Span::getStartTime));
+
+        final List<Span> sortedSpans = new ArrayList<>(spans.size());
+        // Every span is visited once at most, even the spans are linked as a cycle by the broken data.
+        final Set<Span> visited = Collections.newSetFromMap(new IdentityHashMap<>(spans.size()));
+        final Deque<Span> stack = new ArrayDeque<>();
+        for (final Span rootSpan : rootSpans) {
+            stack.push(rootSpan);
+            while (!stack.isEmpty()) {
+                final Span span = stack.pop();
+                if (!visited.add(span)) {
+                    continue;
+                }
+                sortedSpans.add(span);
+                final List<Span> children = childrenIndex.get(span.getSegmentSpanId());
+                if (children != null) {
+                    for (int i = children.size() - 1; i >= 0; i--) {
+                        stack.push(children.get(i));
+                    }
+                }
+            }
+        }
+        return sortedSpans;
+    }
+}
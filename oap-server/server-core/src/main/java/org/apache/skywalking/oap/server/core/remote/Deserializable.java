@@ -18,11 +18,19 @@
 
 package org.apache.skywalking.oap.server.core.remote;
 
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteBatch;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
 
 /**
  * Covert the {@link RemoteData} received from the network to the current data entity.
  */
 public interface Deserializable {
-    void deserialize(RemoteData remoteData);
+    /**
+     * @param remoteData the values of a {@link RemoteData}, or of a message in a {@link RemoteBatch}.
+     */
+    void deserialize(RemoteDataView remoteData);
+
+    default void deserialize(RemoteData remoteData) {
+        deserialize(RemoteDataView.of(remoteData));
+    }
 }
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.remote;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.apache.skywalking.oap.server.core.remote.data.StreamData;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteBatch;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessage;
+
+/**
+ * RemoteBatchCodec packs the serialized {@link StreamData}s into a {@link RemoteBatch}, and reads them back. The next
+ * worker names are sent once per batch as a dictionary, and the values of the {@link RemoteData}s are flattened into
+ * the packed repeated fields, rather than a length-delimited message per metrics.
+ */
+public final class RemoteBatchCodec {
+    private RemoteBatchCodec() {
+    }
+
+    /**
+     * Entry is the next worker name and the values of a {@link StreamData} to send, the {@link RemoteMessage} is only
+     * built when sent one by one.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Entry {
+        private final String nextWorkerName;
+        private final RemoteData.Builder remoteData;
+
+        public RemoteMessage toMessage() {
+            return RemoteMessage.newBuilder().setNextWorkerName(nextWorkerName).setRemoteData(remoteData).build();
+        }
+    }
+
+    /**
+     * @return the batch of the entries in [from, to).
+     */
+    public static RemoteBatch encode(List<Entry> entries, int from, int to) {
+        final RemoteBatch.Builder builder = RemoteBatch.newBuilder();
+        final Map<String, Integer> workerIds = new HashMap<>();
+        for (int i = from; i < to; i++) {
+            final Entry entry = entries.get(i);
+            Integer workerId = workerIds.get(entry.getNextWorkerName());
+            if (workerId == null) {
+                workerId = workerIds.size();
+                workerIds.put(entry.getNextWorkerName(), workerId);
+                builder.addWorkerNames(entry.getNextWorkerName());
+            }
+            builder.addWorkerIds(workerId);
+
+            final RemoteData.Builder data = entry.getRemoteData();
+            builder.addStringCounts(data.getDataStringsCount());
+            builder.addLongCounts(data.getDataLongsCount());
+            builder.addDoubleCounts(data.getDataDoublesCount());
+            builder.addIntegerCounts(data.getDataIntegersCount());
+            builder.addObjectStringCounts(data.getDataObjectStringsCount());
+            builder.addAllDataStrings(data.getDataStringsList());
+            for (int k = 0; k < data.getDataLongsCount(); k++) {
+                builder.addDataLongs(data.getDataLongs(k));
+            }
+            for (int k = 0; k < data.getDataDoublesCount(); k++) {
+                builder.addDataDoubles(data.getDataDoubles(k));
+            }
+            for (int k = 0; k < data.getDataIntegersCount(); k++) {
+                builder.addDataIntegers(data.getDataIntegers(k));
+            }
+            builder.addAllDataObjectStrings(data.getDataObjectStringsList());
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the entries of the batch, to resend them one by one.
+     */
+    public static List<Entry> decode(RemoteBatch batch) {
+        final List<Entry> entries = new ArrayList<>(batch.getWorkerIdsCount());
+        final Reader reader = new Reader(batch);
+        while (reader.next()) {
+            entries.add(new Entry(batch.getWorkerNames(reader.workerId()), reader.remoteData()));
+        }
+        return entries;
+    }
+
+    /**
+     * Reader reads the messages of a {@link RemoteBatch} in order. It is the {@link RemoteDataView} of the current
+     * message, the {@link StreamData} is deserialized from the columns directly.
+     */
+    public static class Reader implements RemoteDataView {
+        private final RemoteBatch batch;
+        private int current = -1;
+        private int stringOffset;
+        private int longOffset;
+        private int doubleOffset;
+        private int integerOffset;
+        private int objectStringOffset;
+
+        public Reader(RemoteBatch batch) {
+            this.batch = batch;
+        }
+
+        /**
+         * Move to the next message.
+         *
+         * @return false if there is no more message.
+         */
+        public boolean next() {
+            if (current >= 0) {
+                stringOffset += batch.getStringCounts(current);
+                longOffset += batch.getLongCounts(current);
+                doubleOffset += batch.getDoubleCounts(current);
+                integerOffset += batch.getIntegerCounts(current);
+                objectStringOffset += batch.getObjectStringCounts(current);
+            }
+            return ++current < batch.getWorkerIdsCount();
+        }
+
+        /**
+         * @return the index of the next worker name of the current message in {@link RemoteBatch#getWorkerNamesList()}.
+         */
+        public int workerId() {
+            return batch.getWorkerIds(current);
+        }
+
+        @Override
+        public String getDataStrings(final int index) {
+            return batch.getDataStrings(stringOffset + index);
+        }
+
+        @Override
+        public long getDataLongs(final int index) {
+            return batch.getDataLongs(longOffset + index);
+        }
+
+        @Override
+        public double getDataDoubles(final int index) {
+            return batch.getDataDoubles(doubleOffset + index);
+        }
+
+        @Override
+        public int getDataIntegers(final int index) {
+            return batch.getDataIntegers(integerOffset + index);
+        }
+
+        @Override
+        public String getDataObjectStrings(final int index) {
+            return batch.getDataObjectStrings(objectStringOffset + index);
+        }
+
+        private RemoteData.Builder remoteData() {
+            final RemoteData.Builder builder = RemoteData.newBuilder();
+            int count = batch.getStringCounts(current);
+            for (int k = 0; k < count; k++) {
+                builder.addDataStrings(batch.getDataStrings(stringOffset + k));
+            }
+            count = batch.getLongCounts(current);
+            for (int k = 0; k < count; k++) {
+                builder.addDataLongs(batch.getDataLongs(longOffset + k));
+            }
+            count = batch.getDoubleCounts(current);
+            for (int k = 0; k < count; k++) {
+                builder.addDataDoubles(batch.getDataDoubles(doubleOffset + k));
+            }
+            count = batch.getIntegerCounts(current);
+            for (int k = 0; k < count; k++) {
+                builder.addDataIntegers(batch.getDataIntegers(integerOffset + k));
+            }
+            count = batch.getObjectStringCounts(current);
+            for (int k = 0; k < count; k++) {
+                builder.addDataObjectStrings(batch.getDataObjectStrings(objectStringOffset + k));
+            }
+            return builder;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.remote;
+
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteBatch;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+
+/**
+ * The values of one {@link RemoteData} by type and index, read from the {@link RemoteData} itself, or from the
+ * flattened columns of a {@link RemoteBatch} without building the {@link RemoteData}.
+ */
+public interface RemoteDataView {
+    String getDataStrings(int index);
+
+    long getDataLongs(int index);
+
+    double getDataDoubles(int index);
+
+    int getDataIntegers(int index);
+
+    String getDataObjectStrings(int index);
+
+    static RemoteDataView of(RemoteData remoteData) {
+        return new RemoteDataView() {
+            @Override
+            public String getDataStrings(final int index) {
+                return remoteData.getDataStrings(index);
+            }
+
+            @Override
+            public long getDataLongs(final int index) {
+                return remoteData.getDataLongs(index);
+            }
+
+            @Override
+            public double getDataDoubles(final int index) {
+                return remoteData.getDataDoubles(index);
+            }
+
+            @Override
+            public int getDataIntegers(final int index) {
+                return remoteData.getDataIntegers(index);
+            }
+
+            @Override
+            public String getDataObjectStrings(final int index) {
+                return remoteData.getDataObjectStrings(index);
+            }
+        };
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.skywalking.oap.server.core.CoreModule;
 import org.apache.skywalking.oap.server.core.remote.client.RemoteClient;
 import org.apache.skywalking.oap.server.core.remote.client.RemoteClientManager;
 import org.apache.skywalking.oap.server.core.remote.data.StreamData;
+import org.apache.skywalking.oap.server.core.remote.selector.ConsistentHashSelector;
 import org.apache.skywalking.oap.server.core.remote.selector.ForeverFirstSelector;
 import org.apache.skywalking.oap.server.core.remote.selector.HashCodeSelector;
 import org.apache.skywalking.oap.server.core.remote.selector.RollingSelector;
@@ -43,12 +44,14 @@ public class RemoteSenderService implements Service {
     private final HashCodeSelector hashCodeSelector;
     private final ForeverFirstSelector foreverFirstSelector;
     private final RollingSelector rollingSelector;
+    private final ConsistentHashSelector consistentHashSelector;
 
     public RemoteSenderService(ModuleManager moduleManager) {
         this.moduleManager = moduleManager;
         this.hashCodeSelector = new HashCodeSelector();
         this.foreverFirstSelector = new ForeverFirstSelector();
         this.rollingSelector = new RollingSelector();
+        this.consistentHashSelector = new ConsistentHashSelector();
     }
 
     /**
@@ -59,6 +62,21 @@ public class RemoteSenderService implements Service {
      * @param selector     strategy implementation to choose suitable OAP node.
      */
     public void send(String nextWorkName, StreamData streamData, Selector selector) {
+        RemoteClient remoteClient = select(streamData, selector);
+        if (remoteClient != null) {
+            remoteClient.push(nextWorkName, streamData);
+        }
+    }
+
+    /**
+     * Choose the target OAP node of the data based on the given selector.
+     *
+     * @param streamData data to be sent
+     * @param selector   strategy implementation to choose suitable OAP node.
+     * @return the client of the target OAP node, or null if the cluster metadata is not initialized yet.
+     * @since 10.1.0
+     */
+    public RemoteClient select(StreamData streamData, Selector selector) {
         RemoteClientManager clientManager = moduleManager.find(CoreModule.NAME)
                                                          .provider()
                                                          .getService(RemoteClientManager.class);
@@ -68,7 +86,7 @@ public class RemoteSenderService implements Service {
         if (clientList.size() == 0) {
             LOGGER.warn(
                 "There is no available remote server for now, ignore the streaming data until the cluster metadata initialized.");
-            return;
+            return null;
         }
         switch (selector) {
             case HashCode:
@@ -80,7 +98,10 @@ public class RemoteSenderService implements Service {
             case ForeverFirst:
                 remoteClient = foreverFirstSelector.select(clientList, streamData);
                 break;
+            case ConsistentHash:
+                remoteClient = consistentHashSelector.select(clientList, streamData);
+                break;
         }
-        remoteClient.push(nextWorkName, streamData);
+        return remoteClient;
     }
 }
@@ -22,12 +22,10 @@ import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import java.util.Objects;
 import org.apache.skywalking.oap.server.core.CoreModule;
-import org.apache.skywalking.oap.server.core.remote.data.StreamData;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.Empty;
-import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteBatch;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessage;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteServiceGrpc;
-import org.apache.skywalking.oap.server.core.worker.AbstractWorker;
 import org.apache.skywalking.oap.server.core.worker.IWorkerInstanceGetter;
 import org.apache.skywalking.oap.server.core.worker.RemoteHandleWorker;
 import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
@@ -98,58 +96,58 @@ public class RemoteServiceHandler extends RemoteServiceGrpc.RemoteServiceImplBas
      */
     @Override
     public StreamObserver<RemoteMessage> call(StreamObserver<Empty> responseObserver) {
-        if (Objects.isNull(workerInstanceGetter)) {
-            synchronized (RemoteServiceHandler.class) {
-                if (Objects.isNull(workerInstanceGetter)) {
-                    workerInstanceGetter = moduleDefineHolder.find(CoreModule.NAME)
-                                                             .provider()
-                                                             .getService(IWorkerInstanceGetter.class);
-                }
-            }
-        }
+        initWorkerInstanceGetter();
 
         return new StreamObserver<RemoteMessage>() {
             @Override
             public void onNext(RemoteMessage message) {
-                remoteInCounter.inc();
-                HistogramMetrics.Timer timer = remoteInHistogram.createTimer();
-                try {
-                    String nextWorkerName = message.getNextWorkerName();
-                    RemoteData remoteData = message.getRemoteData();
-
-                    try {
-                        RemoteHandleWorker handleWorker = workerInstanceGetter.get(nextWorkerName);
-                        if (handleWorker != null) {
-                            AbstractWorker nextWorker = handleWorker.getWorker();
-                            StreamData streamData = handleWorker.getStreamDataClass().newInstance();
-                            streamData.deserialize(remoteData);
-                            nextWorker.in(streamData);
-                        } else {
-                            remoteInTargetNotFoundCounter.inc();
-                            LOGGER.warn(
-                                "Work name [{}] not found. Check OAL script, make sure they are same in the whole cluster.",
-                                nextWorkerName
-                            );
-                        }
-                    } catch (Throwable t) {
-                        remoteInErrorCounter.inc();
-                        LOGGER.error(t.getMessage(), t);
-                    }
-                } finally {
-                    timer.finish();
-                }
+                handle(message.getNextWorkerName(), workerInstanceGetter.get(message.getNextWorkerName()),
+                       RemoteDataView.of(message.getRemoteData())
+                );
             }
 
             @Override
             public void onError(Throwable throwable) {
-                Status status = Status.fromThrowable(throwable);
-                if (Status.CANCELLED.getCode() == status.getCode()) {
-                    if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug(throwable.getMessage(), throwable);
+                RemoteServiceHandler.this.onError(throwable);
+            }
+
+            @Override
+            public void onCompleted() {
+                responseObserver.onNext(Empty.newBuilder().build());
+                responseObserver.onCompleted();
+            }
+        };
+    }
+
+    /**
+     * gRPC handler of {@link RemoteServiceGrpc}. The batch version of {@link #call(StreamObserver)}, the worker of
+     * every next worker name is only looked up once per batch, and the stream data are deserialized from the columns
+     * of the batch directly.
+     *
+     * @since 10.1.0
+     */
+    @Override
+    public StreamObserver<RemoteBatch> batchCall(StreamObserver<Empty> responseObserver) {
+        initWorkerInstanceGetter();
+
+        return new StreamObserver<RemoteBatch>() {
+            @Override
+            public void onNext(RemoteBatch batch) {
+                final RemoteHandleWorker[] handleWorkers = new RemoteHandleWorker[batch.getWorkerNamesCount()];
+                final RemoteBatchCodec.Reader reader = new RemoteBatchCodec.Reader(batch);
+                while (reader.next()) {
+                    final int workerId = reader.workerId();
+                    final String nextWorkerName = batch.getWorkerNames(workerId);
+                    if (handleWorkers[workerId] == null) {
+                        handleWorkers[workerId] = workerInstanceGetter.get(nextWorkerName);
                     }
-                    return;
+                    handle(nextWorkerName, handleWorkers[workerId], reader);
                 }
-                LOGGER.error(throwable.getMessage(), throwable);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                RemoteServiceHandler.this.onError(throwable);
             }
 
             @Override
@@ -159,4 +157,48 @@ public class RemoteServiceHandler extends RemoteServiceGrpc.RemoteServiceImplBas
             }
         };
     }
+
+    private void initWorkerInstanceGetter() {
+        if (Objects.isNull(workerInstanceGetter)) {
+            synchronized (RemoteServiceHandler.class) {
+                if (Objects.isNull(workerInstanceGetter)) {
+                    workerInstanceGetter = moduleDefineHolder.find(CoreModule.NAME)
+                                                             .provider()
+                                                             .getService(IWorkerInstanceGetter.class);
+                }
+            }
+        }
+    }
+
+    private void handle(String nextWorkerName, RemoteHandleWorker handleWorker, RemoteDataView remoteData) {
+        remoteInCounter.inc();
+        HistogramMetrics.Timer timer = remoteInHistogram.createTimer();
+        try {
+            if (handleWorker != null) {
+                handleWorker.getWorker().in(handleWorker.deserialize(remoteData));
+            } else {
+                remoteInTargetNotFoundCounter.inc();
+                LOGGER.warn(
+                    "Work name [{}] not found. Check OAL script, make sure they are same in the whole cluster.",
+                    nextWorkerName
+                );
+            }
+        } catch (Throwable t) {
+            remoteInErrorCounter.inc();
+            LOGGER.error(t.getMessage(), t);
+        } finally {
+            timer.finish();
+        }
+    }
+
+    private void onError(Throwable throwable) {
+        Status status = Status.fromThrowable(throwable);
+        if (Status.CANCELLED.getCode() == status.getCode()) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(throwable.getMessage(), throwable);
+            }
+            return;
+        }
+        LOGGER.error(throwable.getMessage(), throwable);
+    }
 }
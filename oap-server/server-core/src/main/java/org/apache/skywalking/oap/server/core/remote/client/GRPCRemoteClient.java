@@ -18,17 +18,26 @@
 
 package org.apache.skywalking.oap.server.core.remote.client;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.protobuf.GeneratedMessageV3;
 import io.grpc.ManagedChannel;
 import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
 import io.grpc.stub.StreamObserver;
 import io.netty.handler.ssl.SslContext;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.skywalking.oap.server.core.remote.RemoteBatchCodec;
 import org.apache.skywalking.oap.server.core.remote.data.StreamData;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.Empty;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteBatch;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessage;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteServiceGrpc;
 import org.apache.skywalking.oap.server.library.client.grpc.GRPCClient;
@@ -37,26 +46,73 @@ import org.apache.skywalking.oap.server.library.datacarrier.consumer.IConsumer;
 import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
 import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
 import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.GaugeMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.HistogramMetrics;
 import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
 import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
 
 /**
  * This is a wrapper of the gRPC client for sending message to each other OAP server. It contains a block queue to
  * buffering the message and sending the message by batch.
+ *
+ * The messages are sent through a long-lived stream, which is rotated every half of the remote timeout. The stream
+ * follows the gRPC flow control, when the stream is not ready, the frames are kept in the consumer rather than blocking
+ * the consumer thread, and more messages stay in the DataCarrier. The consumer thread only waits for the stream when
+ * the kept frames are over {@link #MAX_PENDING_BYTES}.
+ *
+ * Until the peer confirms the batch call, the messages are sent in one probe stream at a time, the messages consumed
+ * meanwhile are kept in a backlog bounded by {@link #MAX_PENDING_BYTES} too.
  */
 @Slf4j
 public class GRPCRemoteClient implements RemoteClient {
+    /**
+     * The max number of the messages in one {@link RemoteBatch}, to keep the frame far below the max message size.
+     */
+    private static final int MAX_BATCH_SIZE = 500;
+    /**
+     * The max bytes of the frames waiting for the stream to be ready, before blocking the consumer thread.
+     */
+    private static final long MAX_PENDING_BYTES = 4 * 1024 * 1024;
+    @VisibleForTesting
+    long maxPendingBytes = MAX_PENDING_BYTES;
+
     private final int channelSize;
     private final int bufferSize;
     private final Address address;
-    private final AtomicInteger concurrentStreamObserverNumber = new AtomicInteger(0);
     private SslContext sslContext;
     private GRPCClient client;
-    private DataCarrier<RemoteMessage> carrier;
+    private DataCarrier<RemoteBatchCodec.Entry> carrier;
+    private RemoteMessageConsumer consumer;
     private boolean isConnect;
     private CounterMetrics remoteOutCounter;
     private CounterMetrics remoteOutErrorCounter;
+    /**
+     * The bytes of the messages kept in the client, not written into the stream yet.
+     */
+    private GaugeMetrics remoteOutPendingBytes;
+    /**
+     * The time of the consumer thread blocked by a not ready stream.
+     */
+    private HistogramMetrics remoteOutStallLatency;
     private int remoteTimeout;
+    /**
+     * Send the messages through {@link RemoteServiceGrpc.RemoteServiceStub#batchCall(StreamObserver)}.
+     */
+    private final boolean batchEnabled;
+    /**
+     * The gRPC compressor name of the calls, such as `gzip`, null means no compression.
+     */
+    private final String compression;
+    /**
+     * Set when the peer responds UNIMPLEMENTED to the batch call, such as an older OAP during the rolling upgrade. Then
+     * the client goes back to the one message per stream entry {@link RemoteServiceGrpc.RemoteServiceStub#call}.
+     */
+    private volatile boolean batchUnsupported;
+    /**
+     * Set after the first successful batch call. Before that, every consumed list is sent in its own stream, and kept
+     * for resending through the legacy call.
+     */
+    private volatile boolean batchConfirmed;
 
     public GRPCRemoteClient(final ModuleDefineHolder moduleDefineHolder,
                             final Address address,
@@ -64,40 +120,63 @@ public class GRPCRemoteClient implements RemoteClient {
                             final int bufferSize,
                             final int remoteTimeout,
                             final SslContext sslContext) {
+        this(moduleDefineHolder, address, channelSize, bufferSize, remoteTimeout, sslContext, true, null);
+    }
+
+    /**
+     * @param batchEnabled send the messages in the columnar {@link RemoteBatch}es.
+     * @param compression  the gRPC compressor name, such as `gzip`, null or `none` means no compression.
+     */
+    public GRPCRemoteClient(final ModuleDefineHolder moduleDefineHolder,
+                            final Address address,
+                            final int channelSize,
+                            final int bufferSize,
+                            final int remoteTimeout,
+                            final SslContext sslContext,
+                            final boolean batchEnabled,
+                            final String compression) {
 
         this.address = address;
+        this.batchEnabled = batchEnabled;
+        this.compression = compression == null || "none".equalsIgnoreCase(compression) ? null : compression;
         this.channelSize = channelSize;
         this.bufferSize = bufferSize;
         this.remoteTimeout = remoteTimeout;
         this.sslContext = sslContext;
 
-        remoteOutCounter = moduleDefineHolder.find(TelemetryModule.NAME)
-                                             .provider()
-                                             .getService(MetricsCreator.class)
-                                             .createCounter(
-                                                 "remote_out_count",
-                                                 "The number(client side) of inside remote inside aggregate rpc.",
-                                                 new MetricsTag.Keys("dest", "self"), new MetricsTag.Values(
-                                                     address
-                                                         .toString(), "N")
-                                             );
-        remoteOutErrorCounter = moduleDefineHolder.find(TelemetryModule.NAME)
-                                                  .provider()
-                                                  .getService(MetricsCreator.class)
-                                                  .createCounter(
-                                                      "remote_out_error_count",
-                                                      "The error number(client side) of inside remote inside aggregate rpc.",
-                                                      new MetricsTag.Keys("dest", "self"), new MetricsTag.Values(
-                                                          address
-                                                              .toString(), "N")
-                                                  );
+        MetricsCreator metricsCreator = moduleDefineHolder.find(TelemetryModule.NAME)
+                                                          .provider()
+                                                          .getService(MetricsCreator.class);
+        remoteOutCounter = metricsCreator.createCounter(
+            "remote_out_count",
+            "The number(client side) of inside remote inside aggregate rpc.",
+            new MetricsTag.Keys("dest", "self"), new MetricsTag.Values(address.toString(), "N")
+        );
+        remoteOutErrorCounter = metricsCreator.createCounter(
+            "remote_out_error_count",
+            "The error number(client side) of inside remote inside aggregate rpc.",
+            new MetricsTag.Keys("dest", "self"), new MetricsTag.Values(address.toString(), "N")
+        );
+        remoteOutPendingBytes = metricsCreator.createGauge(
+            "remote_out_pending_bytes",
+            "The bytes(client side) of inside remote inside aggregate rpc kept in the client, "
+                + "not written into the stream yet.",
+            new MetricsTag.Keys("dest"), new MetricsTag.Values(address.toString())
+        );
+        remoteOutStallLatency = metricsCreator.createHistogramMetric(
+            "remote_out_stall_latency",
+            "The time(client side) of inside remote inside aggregate rpc blocked by the not ready stream.",
+            new MetricsTag.Keys("dest"), new MetricsTag.Values(address.toString()),
+            .001, .005, .01, .05, .1, .5, 1, 5, 10, 30
+        );
     }
 
     @Override
     public void connect() {
         if (!isConnect) {
             this.getClient().connect();
-            this.getDataCarrier().consume(new RemoteMessageConsumer(), 1);
+            this.consumer = new RemoteMessageConsumer();
+            this.getDataCarrier().consume(consumer, 1);
             this.isConnect = true;
         }
     }
@@ -123,10 +202,11 @@ public class GRPCRemoteClient implements RemoteClient {
     }
 
     RemoteServiceGrpc.RemoteServiceStub getStub() {
-        return RemoteServiceGrpc.newStub(getChannel());
+        final RemoteServiceGrpc.RemoteServiceStub stub = RemoteServiceGrpc.newStub(getChannel());
+        return compression == null ? stub : stub.withCompression(compression);
     }
 
-    DataCarrier<RemoteMessage> getDataCarrier() {
+    DataCarrier<RemoteBatchCodec.Entry> getDataCarrier() {
         if (Objects.isNull(this.carrier)) {
             synchronized (GRPCRemoteClient.class) {
                 if (Objects.isNull(this.carrier)) {
@@ -145,23 +225,66 @@ public class GRPCRemoteClient implements RemoteClient {
      */
     @Override
     public void push(String nextWorkerName, StreamData streamData) {
-        RemoteMessage.Builder builder = RemoteMessage.newBuilder();
-        builder.setNextWorkerName(nextWorkerName);
-        builder.setRemoteData(streamData.serialize());
+        this.getDataCarrier().produce(new RemoteBatchCodec.Entry(nextWorkerName, streamData.serialize()));
+    }
 
-        this.getDataCarrier().produce(builder.build());
+    /**
+     * The frame to send, a {@link RemoteBatch} or a {@link RemoteMessage}.
+     */
+    private static class Frame {
+        private final GeneratedMessageV3 message;
+        private final int count;
+        private final int bytes;
+
+        private Frame(GeneratedMessageV3 message, int count) {
+            this.message = message;
+            this.count = count;
+            this.bytes = message.getSerializedSize();
+        }
     }
 
-    class RemoteMessageConsumer implements IConsumer<RemoteMessage> {
+    /**
+     * All methods are called in the single consumer thread, the only thread writing the stream.
+     */
+    class RemoteMessageConsumer implements IConsumer<RemoteBatchCodec.Entry> {
+        private final ArrayDeque<Frame> pendingFrames = new ArrayDeque<>();
+        private long pendingBytes;
+        /**
+         * The batches consumed while the probe stream is not done, sent after the peer confirms or rejects the batch
+         * call.
+         */
+        private final ArrayDeque<Frame> probeBacklog = new ArrayDeque<>();
+        private long probeBacklogBytes;
+        private OutboundStream probeStream;
+        private OutboundStream stream;
+        private volatile Thread consumerThread;
+
+        @Override
+        public void consume(List<RemoteBatchCodec.Entry> entries) {
+            consumerThread = Thread.currentThread();
+            try {
+                drainProbeBacklog();
+                if (isProbing()) {
+                    probe(entries);
+                    return;
+                }
+                addPending(entries);
+                flush(true);
+            } catch (Throwable t) {
+                remoteOutErrorCounter.inc();
+                log.error(t.getMessage(), t);
+            }
+        }
+
         @Override
-        public void consume(List<RemoteMessage> remoteMessages) {
+        public void nothingToConsume() {
             try {
-                StreamObserver<RemoteMessage> streamObserver = createStreamObserver();
-                for (RemoteMessage remoteMessage : remoteMessages) {
-                    remoteOutCounter.inc();
-                    streamObserver.onNext(remoteMessage);
+                drainProbeBacklog();
+                flush(false);
+                if (pendingFrames.isEmpty() && stream != null && stream.isExpired()) {
+                    stream.complete();
+                    stream = null;
                 }
-                streamObserver.onCompleted();
             } catch (Throwable t) {
                 remoteOutErrorCounter.inc();
                 log.error(t.getMessage(), t);
@@ -169,68 +292,290 @@ public class GRPCRemoteClient implements RemoteClient {
         }
 
         @Override
-        public void onError(List<RemoteMessage> remoteMessages, Throwable t) {
+        public void onError(List<RemoteBatchCodec.Entry> entries, Throwable t) {
             log.error(t.getMessage(), t);
         }
+
+        @Override
+        public void onExit() {
+            flush(false);
+            if (stream != null) {
+                stream.complete();
+                stream = null;
+            }
+        }
+
+        private boolean isProbing() {
+            return batchEnabled && !batchUnsupported && !batchConfirmed;
+        }
+
+        /**
+         * Send the messages in a short-lived batch stream, until the peer confirms the batch call, as the messages have
+         * to be resent through the legacy call if the peer doesn't support it. Only one probe stream is open at a time,
+         * the messages consumed before it is done wait in the backlog.
+         */
+        private void probe(List<RemoteBatchCodec.Entry> entries) {
+            final List<Frame> frames = new ArrayList<>();
+            for (int from = 0; from < entries.size(); from += MAX_BATCH_SIZE) {
+                final int to = Math.min(from + MAX_BATCH_SIZE, entries.size());
+                frames.add(new Frame(RemoteBatchCodec.encode(entries, from, to), to - from));
+            }
+            if (probeStream == null || probeStream.done) {
+                sendInProbeStream(frames);
+                return;
+            }
+            for (Frame frame : frames) {
+                probeBacklog.add(frame);
+                probeBacklogBytes += frame.bytes;
+            }
+            if (probeBacklogBytes > maxPendingBytes && !awaitProbe()) {
+                log.warn("Remote server [{}] doesn't respond the batch call for {} seconds, drop {} bytes of metrics.",
+                         address, remoteTimeout, probeBacklogBytes
+                );
+                probeBacklog.forEach(frame -> remoteOutErrorCounter.inc(frame.count));
+                probeBacklog.clear();
+                probeBacklogBytes = 0;
+            }
+            updatePendingBytes();
+        }
+
+        private void sendInProbeStream(Collection<Frame> frames) {
+            final List<RemoteBatch> batches = new ArrayList<>(frames.size());
+            frames.forEach(frame -> batches.add((RemoteBatch) frame.message));
+            probeStream = new OutboundStream(true, batches);
+            for (Frame frame : frames) {
+                remoteOutCounter.inc(frame.count);
+                probeStream.observer.onNext(frame.message);
+            }
+            probeStream.complete();
+        }
+
+        /**
+         * Send the backlog once the probe stream is done, in a new probe stream if the probe failed without telling
+         * whether the peer supports the batch call.
+         */
+        private void drainProbeBacklog() {
+            if (probeBacklog.isEmpty() || !probeStream.done) {
+                return;
+            }
+            final List<Frame> backlog = new ArrayList<>(probeBacklog);
+            probeBacklog.clear();
+            probeBacklogBytes = 0;
+            if (isProbing()) {
+                sendInProbeStream(backlog);
+            } else if (batchUnsupported) {
+                backlog.forEach(frame -> addPending(RemoteBatchCodec.decode((RemoteBatch) frame.message)));
+            } else {
+                backlog.forEach(this::addPending);
+            }
+            updatePendingBytes();
+        }
+
+        /**
+         * @return false if the probe stream is still not done after the remote timeout.
+         */
+        private boolean awaitProbe() {
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(remoteTimeout);
+            final HistogramMetrics.Timer timer = remoteOutStallLatency.createTimer();
+            try {
+                while (!probeStream.done) {
+                    if (System.nanoTime() > deadline) {
+                        return false;
+                    }
+                    // Waked up when the probe stream is done, park at most 10ms in case of missing the signal.
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+                }
+                return true;
+            } finally {
+                timer.finish();
+            }
+        }
+
+        private void addPending(List<RemoteBatchCodec.Entry> entries) {
+            if (batchEnabled && !batchUnsupported) {
+                for (int from = 0; from < entries.size(); from += MAX_BATCH_SIZE) {
+                    final int to = Math.min(from + MAX_BATCH_SIZE, entries.size());
+                    addPending(new Frame(RemoteBatchCodec.encode(entries, from, to), to - from));
+                }
+            } else {
+                for (RemoteBatchCodec.Entry entry : entries) {
+                    addPending(new Frame(entry.toMessage(), 1));
+                }
+            }
+        }
+
+        private void addPending(Frame frame) {
+            pendingFrames.add(frame);
+            pendingBytes += frame.bytes;
+        }
+
+        private void updatePendingBytes() {
+            remoteOutPendingBytes.setValue(pendingBytes + probeBacklogBytes);
+        }
+
+        /**
+         * Write the pending frames into the stream while it is ready.
+         *
+         * @param blockWhenFull wait for the stream, if the pending frames are over {@link #maxPendingBytes}.
+         */
+        private void flush(boolean blockWhenFull) {
+            long blockDeadline = 0;
+            while (!pendingFrames.isEmpty()) {
+                if (stream == null || stream.failed) {
+                    stream = new OutboundStream(batchEnabled && !batchUnsupported, null);
+                } else if (stream.isExpired()) {
+                    stream.complete();
+                    stream = new OutboundStream(batchEnabled && !batchUnsupported, null);
+                }
+                if (!stream.observer.isReady()) {
+                    if (!blockWhenFull || pendingBytes <= maxPendingBytes) {
+                        break;
+                    }
+                    if (blockDeadline == 0) {
+                        blockDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(remoteTimeout);
+                        updatePendingBytes();
+                    }
+                    if (!awaitReady(stream, blockDeadline)) {
+                        log.warn("Remote server [{}] is not ready for {} seconds, drop {} bytes of metrics.",
+                                 address, remoteTimeout, pendingBytes
+                        );
+                        pendingFrames.forEach(frame -> remoteOutErrorCounter.inc(frame.count));
+                        pendingFrames.clear();
+                        pendingBytes = 0;
+                        stream.cancel();
+                        stream = null;
+                        break;
+                    }
+                    continue;
+                }
+                final Frame frame = pendingFrames.poll();
+                pendingBytes -= frame.bytes;
+                remoteOutCounter.inc(frame.count);
+                stream.observer.onNext(frame.message);
+            }
+            updatePendingBytes();
+        }
+
+        /**
+         * @return false if the stream is still not ready at the deadline. True if the stream is ready, or failed and
+         * should be recreated.
+         */
+        private boolean awaitReady(OutboundStream waitingStream, long deadline) {
+            final HistogramMetrics.Timer timer = remoteOutStallLatency.createTimer();
+            try {
+                while (!waitingStream.observer.isReady()) {
+                    if (System.nanoTime() > deadline) {
+                        return false;
+                    }
+                    // Waked up by the onReady handler, park at most 10ms in case of missing the signal.
+                    // It is also the backoff of recreating a failed stream.
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+                    if (waitingStream.failed) {
+                        return true;
+                    }
+                }
+                return true;
+            } finally {
+                timer.finish();
+            }
+        }
     }
 
     /**
-     * Create a gRPC stream observer to sending stream data, one stream observer could send multiple stream data by a
-     * single consume. The max number of concurrency allowed at the same time is 10.
-     *
-     * @return stream observer
+     * A client stream of {@link RemoteServiceGrpc.RemoteServiceStub#batchCall} or {@link
+     * RemoteServiceGrpc.RemoteServiceStub#call}.
      */
-    private StreamObserver<RemoteMessage> createStreamObserver() {
-        int sleepTotalMillis = 0;
-        int sleepMillis = 10;
+    private class OutboundStream implements ClientResponseObserver<GeneratedMessageV3, Empty> {
+        private final long expireTime;
+        /**
+         * The batches to resend through the legacy call, if the peer doesn't support the batch call.
+         */
+        private final List<RemoteBatch> fallbackBatches;
+        private ClientCallStreamObserver<GeneratedMessageV3> observer;
+        private volatile boolean failed;
+        /**
+         * Set when the response arrives, after the batch call is confirmed or rejected.
+         */
+        private volatile boolean done;
 
-        // Control the concurrency of gRPC streaming stub.
-        // If over 10 created and not finished/error, this blocks the method.
-        while (concurrentStreamObserverNumber.get() > 10) {
-            try {
-                Thread.sleep(sleepMillis);
-            } catch (InterruptedException e) {
-                log.error(e.getMessage(), e);
+        private OutboundStream(boolean batch, List<RemoteBatch> fallbackBatches) {
+            this.fallbackBatches = fallbackBatches;
+            this.expireTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(remoteTimeout) / 2;
+            final RemoteServiceGrpc.RemoteServiceStub stub = getStub().withDeadlineAfter(
+                remoteTimeout, TimeUnit.SECONDS);
+            // The request stream is set through #beforeStart.
+            if (batch) {
+                stub.batchCall(this);
+            } else {
+                stub.call(this);
             }
+        }
 
-            sleepTotalMillis += sleepMillis;
+        @Override
+        public void beforeStart(ClientCallStreamObserver<GeneratedMessageV3> requestStream) {
+            this.observer = requestStream;
+            requestStream.setOnReadyHandler(this::wakeUpConsumer);
+        }
 
-            if (sleepTotalMillis > 60000) {
-                log.warn("Remote client [{}] block times over 60 seconds. Current streaming number {}",
-                         address, concurrentStreamObserverNumber.get()
-                );
-                // Reset sleepTotalMillis to avoid too many warn logs.
-                sleepTotalMillis = 0;
-            }
-        }
-
-        final StreamObserver<RemoteMessage> remoteMessageStreamObserver
-            = getStub().withDeadlineAfter(remoteTimeout, TimeUnit.SECONDS)
-                       .call(new StreamObserver<Empty>() {
-                           @Override
-                           public void onNext(Empty empty) {
-                           }
-
-                           @Override
-                           public void onError(Throwable throwable) {
-                               concurrentStreamObserverNumber.addAndGet(-1);
-                               Status status = Status.fromThrowable(throwable);
-                               if (Status.CANCELLED.getCode() == status.getCode()) {
-                                   if (log.isDebugEnabled()) {
-                                       log.debug(throwable.getMessage(), throwable);
-                                   }
-                                   return;
-                               }
-                               log.error(throwable.getMessage(), throwable);
-                           }
-
-                           @Override
-                           public void onCompleted() {
-                               concurrentStreamObserverNumber.addAndGet(-1);
-                           }
-                       });
-        concurrentStreamObserverNumber.incrementAndGet();
-        return remoteMessageStreamObserver;
+        private void wakeUpConsumer() {
+            final Thread waiting = consumer == null ? null : consumer.consumerThread;
+            if (waiting != null) {
+                LockSupport.unpark(waiting);
+            }
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() > expireTime;
+        }
+
+        private void complete() {
+            if (!failed && observer != null) {
+                observer.onCompleted();
+            }
+        }
+
+        private void cancel() {
+            if (!failed) {
+                observer.cancel("Remote server is not ready", null);
+            }
+        }
+
+        @Override
+        public void onNext(Empty empty) {
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            failed = true;
+            Status status = Status.fromThrowable(throwable);
+            if (Status.UNIMPLEMENTED.getCode() == status.getCode() && fallbackBatches != null) {
+                batchUnsupported = true;
+                done = true;
+                wakeUpConsumer();
+                log.warn("Remote server [{}] doesn't support the batch call, fall back to the stream call.", address);
+                fallbackBatches.forEach(batch -> RemoteBatchCodec.decode(batch).forEach(getDataCarrier()::produce));
+                return;
+            }
+            done = true;
+            wakeUpConsumer();
+            remoteOutErrorCounter.inc();
+            if (Status.CANCELLED.getCode() == status.getCode()) {
+                if (log.isDebugEnabled()) {
+                    log.debug(throwable.getMessage(), throwable);
+                }
+                return;
+            }
+            log.error(throwable.getMessage(), throwable);
+        }
+
+        @Override
+        public void onCompleted() {
+            if (fallbackBatches != null) {
+                batchConfirmed = true;
+            }
+            done = true;
+            wakeUpConsumer();
+        }
     }
 
     @Override
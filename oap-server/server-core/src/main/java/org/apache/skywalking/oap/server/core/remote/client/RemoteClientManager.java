@@ -63,6 +63,20 @@ public class RemoteClientManager implements Service, ClusterWatcher {
     private volatile List<RemoteClient> usingClients;
     private GaugeMetrics gauge;
     private int remoteTimeout;
+    /**
+     * Send the messages in the columnar batches, see {@link GRPCRemoteClient}.
+     *
+     * @since 10.1.0
+     */
+    @Setter
+    private boolean remoteBatchEnabled = true;
+    /**
+     * The gRPC compressor name of the remote calls, `gzip` or `none`.
+     *
+     * @since 10.1.0
+     */
+    @Setter
+    private String remoteCompression;
 
     /**
      * Initial the manager for all remote communication clients.
@@ -240,7 +254,10 @@ public class RemoteClientManager implements Service, ClusterWatcher {
                         newRemoteClients.add(client);
                     } else {
                         RemoteClient client;
-                        client = new GRPCRemoteClient(moduleDefineHolder, address, 1, 3000, remoteTimeout, sslContext);
+                        client = new GRPCRemoteClient(
+                            moduleDefineHolder, address, 1, 3000, remoteTimeout, sslContext,
+                            remoteBatchEnabled, remoteCompression
+                        );
                         client.connect();
                         newRemoteClients.add(client);
                     }
@@ -22,6 +22,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.oap.server.core.CoreModule;
 import org.apache.skywalking.oap.server.core.UnexpectedException;
 import org.apache.skywalking.oap.server.core.remote.data.StreamData;
+import org.apache.skywalking.oap.server.core.worker.AbstractWorker;
 import org.apache.skywalking.oap.server.core.worker.IWorkerInstanceGetter;
 import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
 import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
@@ -84,6 +85,22 @@ public class SelfRemoteClient implements RemoteClient {
         }
     }
 
+    /**
+     * Hand off the data to the given local worker directly. The data object is passed by reference, no serialization
+     * and no lookup of the worker by name is involved.
+     *
+     * @since 10.1.0
+     */
+    public <T extends StreamData> void push(AbstractWorker<T> worker, T streamData) {
+        try {
+            worker.in(streamData);
+            remoteOutCounter.inc();
+        } catch (Throwable t) {
+            remoteOutErrorCounter.inc();
+            log.error(t.getMessage(), t);
+        }
+    }
+
     @Override
     public int compareTo(RemoteClient o) {
         return address.compareTo(o.getAddress());
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.remote.selector;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.remote.client.RemoteClient;
+import org.apache.skywalking.oap.server.core.remote.data.StreamData;
+
+/**
+ * ConsistentHashSelector places every OAP node on a hash ring with a number of virtual nodes, and routes the data to
+ * the first node clockwise from the hash of {@link StreamData#remoteHashCode()}. Compared with {@link
+ * HashCodeSelector}, only about 1/(N+1) of the keys move to another node when the cluster scales from N to N+1 nodes,
+ * so most of the L2 aggregation and the metrics session cache keep warm.
+ *
+ * The ring is built from the addresses of the nodes only, so all OAP nodes sharing the same cluster view select the
+ * same target. The ring is rebuilt when the client list is replaced by {@link
+ * org.apache.skywalking.oap.server.core.remote.client.RemoteClientManager}.
+ */
+public class ConsistentHashSelector implements RemoteClientSelector {
+    static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private final int virtualNodes;
+    private volatile Ring ring;
+
+    public ConsistentHashSelector() {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ConsistentHashSelector(int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtualNodes must be positive, but got " + virtualNodes);
+        }
+        this.virtualNodes = virtualNodes;
+    }
+
+    @Override
+    public RemoteClient select(List<RemoteClient> clients, StreamData streamData) {
+        if (clients.size() == 1) {
+            return clients.get(0);
+        }
+        Ring current = ring;
+        if (current == null || current.clients != clients) {
+            current = new Ring(clients, virtualNodes);
+            ring = current;
+        }
+        return current.select(fmix64(streamData.remoteHashCode()));
+    }
+
+    private static class Ring {
+        private final List<RemoteClient> clients;
+        /**
+         * Sorted positions of all virtual nodes on the ring.
+         */
+        private final long[] points;
+        /**
+         * The index of the client owning the virtual node in the same position of {@link #points}.
+         */
+        private final int[] owners;
+
+        private Ring(List<RemoteClient> clients, int virtualNodes) {
+            this.clients = clients;
+            final int size = clients.size() * virtualNodes;
+            final long[][] entries = new long[size][];
+            int n = 0;
+            for (int i = 0; i < clients.size(); i++) {
+                final String address = clients.get(i).getAddress().toString();
+                for (int v = 0; v < virtualNodes; v++) {
+                    entries[n++] = new long[] {hash(address + "#" + v), i};
+                }
+            }
+            // Ties are broken by the client index, which is ordered by the address in the client list.
+            Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+            this.points = new long[size];
+            this.owners = new int[size];
+            for (int i = 0; i < size; i++) {
+                points[i] = entries[i][0];
+                owners[i] = (int) entries[i][1];
+            }
+        }
+
+        private RemoteClient select(long hash) {
+            int index = Arrays.binarySearch(points, hash);
+            if (index < 0) {
+                index = -index - 1;
+                if (index == points.length) {
+                    index = 0;
+                }
+            }
+            return clients.get(owners[index]);
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a of the UTF-8 bytes, finalized by {@link #fmix64(long)} for a better distribution of the similar
+     * inputs.
+     */
+    static long hash(String text) {
+        long h = 0xcbf29ce484222325L;
+        for (final byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return fmix64(h);
+    }
+
+    /**
+     * The finalization mix of MurmurHash3.
+     */
+    static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
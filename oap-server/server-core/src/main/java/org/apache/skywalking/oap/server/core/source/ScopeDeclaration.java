@@ -22,6 +22,7 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import org.apache.skywalking.oap.server.core.annotation.Indexed;
 import org.apache.skywalking.oap.server.core.profiling.trace.ProfileTaskRecord;
 import org.apache.skywalking.oap.server.core.query.enumeration.Scope;
 
@@ -38,6 +39,7 @@ import org.apache.skywalking.oap.server.core.query.enumeration.Scope;
  *
  * NOTICE, in OAL script, `disable` is for stream, rather than source, it doesn't require this annotation.
  */
+@Indexed
 @Target({ElementType.TYPE})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface ScopeDeclaration {
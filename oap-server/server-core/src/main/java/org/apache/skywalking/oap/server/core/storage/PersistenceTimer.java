@@ -137,7 +137,8 @@ public enum PersistenceTimer {
                 }, prepareExecutorService);
             }).toArray(CompletableFuture[]::new));
 
-        future.whenComplete((unused, throwable) -> {
+        // Return the stage of `endOfFlush`, the next round should not begin before the storage finishes this round.
+        return future.whenComplete((unused, throwable) -> {
             batchDAO.endOfFlush();
             allTimer.close();
             if (log.isDebugEnabled()) {
@@ -151,6 +152,5 @@ public enum PersistenceTimer {
                 log.error(throwable.getMessage(), throwable);
             }
         });
-        return future;
     }
 }
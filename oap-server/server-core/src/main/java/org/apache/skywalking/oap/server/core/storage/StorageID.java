@@ -18,11 +18,11 @@
 
 package org.apache.skywalking.oap.server.core.storage;
 
-import com.google.common.base.Joiner;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -42,13 +42,25 @@ import org.apache.skywalking.oap.server.library.util.StringUtil;
  * @since 9.4.0 StorageID replaced the `string id()` method in the StorageData. An object-oriented ID provides a more
  * friendly interface for various database implementation.
  */
-@EqualsAndHashCode(of = {
-    "fragments"
-})
 public class StorageID {
-    private final List<Fragment> fragments;
     /**
-     * Once the storage ID was {@link #build()} or {@link #read()},
+     * The limit of {@link #mutants} bits.
+     */
+    private static final int MAX_FRAGMENTS = Long.SIZE;
+
+    /**
+     * The fragments are kept in the flat arrays, and only materialized as {@link Fragment}s by {@link #read()}.
+     * A name is the column name of a regular fragment, or the nullable source column names(String[]) of a mutant one.
+     */
+    private Object[] names;
+    private Object[] values;
+    private int size;
+    /**
+     * The bit of the fragment index is set if the fragment is a mutant.
+     */
+    private long mutants;
+    /**
+     * Once the storage ID was {@link #build()} or {@link #read()}, or hashed,
      * this object would switch to the sealed status, no more append is allowed.
      */
     private boolean sealed = false;
@@ -56,79 +68,183 @@ public class StorageID {
      * The string ID would only be built once.
      */
     private String builtID;
+    /**
+     * The 64-bit hash would only be calculated once, 0 means not calculated yet.
+     */
+    private long longHash;
 
     public StorageID() {
-        fragments = new ArrayList<>(2);
+        names = new Object[2];
+        values = new Object[2];
     }
 
     public StorageID append(String name, String value) {
         if (StringUtil.isBlank(name)) {
             throw new IllegalArgumentException("The name of storage ID should not be null or empty.");
         }
-        if (sealed) {
-            throw new IllegalStateException("The storage ID is sealed. Can't append a new fragment, name=" + name);
-        }
-        fragments.add(new Fragment(new String[] {name}, String.class, false, value));
-        return this;
+        return add(name, false, value);
     }
 
     public StorageID append(String name, long value) {
         if (StringUtil.isBlank(name)) {
             throw new IllegalArgumentException("The name of storage ID should not be null or empty.");
         }
-        if (sealed) {
-            throw new IllegalStateException("The storage ID is sealed. Can't append a new fragment, name=" + name);
-        }
-        fragments.add(new Fragment(new String[] {name}, Long.class, false, value));
-        return this;
+        return add(name, false, value);
     }
 
     public StorageID append(String name, int value) {
         if (StringUtil.isBlank(name)) {
             throw new IllegalArgumentException("The name of storage ID should not be null or empty.");
         }
-        if (sealed) {
-            throw new IllegalStateException("The storage ID is sealed. Can't append a new fragment, name=" + name);
-        }
-        fragments.add(new Fragment(new String[] {name}, Integer.class, false, value));
-        return this;
+        return add(name, false, value);
     }
 
     public StorageID appendMutant(String[] source, long value) {
-        if (sealed) {
-            throw new IllegalStateException("The storage ID is sealed. Can't append a new fragment, source=" + Arrays.toString(source));
-        }
-        fragments.add(new Fragment(source, Long.class, true, value));
-        return this;
+        return add(source, true, value);
     }
 
     public StorageID appendMutant(final String[] source, final String value) {
+        return add(source, true, value);
+    }
+
+    private StorageID add(Object name, boolean mutant, Object value) {
         if (sealed) {
-            throw new IllegalStateException("The storage ID is sealed. Can't append a new fragment, source=" + Arrays.toString(source));
+            throw new IllegalStateException("The storage ID is sealed. Can't append a new fragment, " + (
+                mutant ? "source=" + Arrays.toString((String[]) name) : "name=" + name));
         }
-        fragments.add(new Fragment(source, String.class, true, value));
+        if (size == MAX_FRAGMENTS) {
+            throw new IllegalStateException("The storage ID can't have more than " + MAX_FRAGMENTS + " fragments.");
+        }
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        names[size] = name;
+        values[size] = value;
+        if (mutant) {
+            mutants |= 1L << size;
+        }
+        size++;
         return this;
     }
 
     /**
-     * @return the string ID concatenating the values of {@link #fragments} by the underline(_).
+     * @return the string ID concatenating the values of the fragments by the underline(_).
      */
     public String build() {
         sealed = true;
         if (builtID == null) {
-            builtID = Joiner.on(Const.ID_CONNECTOR).join(fragments);
+            if (size == 1) {
+                builtID = String.valueOf(values[0]);
+            } else {
+                int length = size - 1;
+                for (int i = 0; i < size; i++) {
+                    length += values[i] instanceof String ? ((String) values[i]).length() : 20;
+                }
+                final StringBuilder id = new StringBuilder(length);
+                for (int i = 0; i < size; i++) {
+                    if (i > 0) {
+                        id.append(Const.ID_CONNECTOR);
+                    }
+                    final Object value = values[i];
+                    if (value instanceof Long) {
+                        id.append(((Long) value).longValue());
+                    } else {
+                        id.append(value);
+                    }
+                }
+                builtID = id.toString();
+            }
         }
         return builtID;
     }
 
+    /**
+     * 64-bit hash of the {@link Fragment#value}s, calculated without building the string ID. Equal IDs always have
+     * the same long hash, it is used by the open-addressing buffers as a wide key to make collisions rare, while
+     * {@link #equals(Object)} is still required to confirm the match.
+     *
+     * @return the long hash, sealing this ID as {@link #build()} does.
+     */
+    public long longHashCode() {
+        sealed = true;
+        if (longHash == 0) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < size; i++) {
+                final Object value = values[i];
+                if (value instanceof String) {
+                    final String str = (String) value;
+                    for (int j = 0; j < str.length(); j++) {
+                        h = (h ^ str.charAt(j)) * 0x100000001b3L;
+                    }
+                } else if (value instanceof Number) {
+                    h = (h ^ ((Number) value).longValue()) * 0x100000001b3L;
+                } else if (value != null) {
+                    h = (h ^ value.hashCode()) * 0x100000001b3L;
+                }
+                // Separate the fragments, so `a_bc` and `ab_c` are hashed differently.
+                h = (h ^ '_') * 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            longHash = h == 0 ? 1 : h;
+        }
+        return longHash;
+    }
+
     /**
      * @return a read-only list to avoid unexpected change for metric ID.
      */
     public List<Fragment> read() {
         sealed = true;
+        final List<Fragment> fragments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final Object value = values[i];
+            fragments.add(new Fragment(
+                nameOf(names[i]), value == null ? String.class : value.getClass(), (mutants & 1L << i) != 0, value));
+        }
         return Collections.unmodifiableList(fragments);
     }
 
+    /**
+     * Equal IDs have the same values and names of the fragments in order. The cached {@link #longHashCode()}s are
+     * compared first, so the different IDs are usually told apart without comparing the values.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StorageID)) {
+            return false;
+        }
+        final StorageID that = (StorageID) o;
+        if (size != that.size || longHashCode() != that.longHashCode()) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (!Objects.equals(values[i], that.values[i])) {
+                return false;
+            }
+            // The names are the same constants in most cases.
+            if (names[i] != that.names[i] && !Arrays.equals(nameOf(names[i]), nameOf(that.names[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        final long h = longHashCode();
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static String[] nameOf(Object name) {
+        return name instanceof String ? new String[] {(String) name} : (String[]) name;
+    }
+
     @RequiredArgsConstructor
     @Getter
     @EqualsAndHashCode(of = {
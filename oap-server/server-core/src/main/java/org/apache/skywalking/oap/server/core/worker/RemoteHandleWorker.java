@@ -18,13 +18,37 @@
 
 package org.apache.skywalking.oap.server.core.worker;
 
-import lombok.AllArgsConstructor;
+import java.lang.reflect.Constructor;
 import lombok.Getter;
+import org.apache.skywalking.oap.server.core.UnexpectedException;
+import org.apache.skywalking.oap.server.core.remote.RemoteDataView;
 import org.apache.skywalking.oap.server.core.remote.data.StreamData;
 
-@AllArgsConstructor
-@Getter
 public class RemoteHandleWorker {
-    private AbstractWorker worker;
-    private Class<? extends StreamData> streamDataClass;
+    @Getter
+    private final AbstractWorker worker;
+    @Getter
+    private final Class<? extends StreamData> streamDataClass;
+    private final Constructor<? extends StreamData> streamDataConstructor;
+
+    public RemoteHandleWorker(AbstractWorker worker, Class<? extends StreamData> streamDataClass) {
+        this.worker = worker;
+        this.streamDataClass = streamDataClass;
+        try {
+            this.streamDataConstructor = streamDataClass.getDeclaredConstructor();
+            this.streamDataConstructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new UnexpectedException("No default constructor of " + streamDataClass.getName(), e);
+        }
+    }
+
+    /**
+     * @param remoteData the values of a received message, a single one or one in a batch.
+     * @return the new stream data deserialized from the values.
+     */
+    public StreamData deserialize(RemoteDataView remoteData) throws ReflectiveOperationException {
+        final StreamData streamData = streamDataConstructor.newInstance();
+        streamData.deserialize(remoteData);
+        return streamData;
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import java.util.List;
+import org.apache.skywalking.oap.server.core.analysis.metrics.CPMMetrics;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.remote.RemoteDataView;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.storage.StorageID;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class OpenAddressingBufferedDataTest {
+    @Test
+    public void testMerge() {
+        OpenAddressingBufferedData<MockCPMMetrics> buffer = new OpenAddressingBufferedData<>();
+        buffer.accept(new MockCPMMetrics("service-a", 202401171700L, 1));
+        buffer.accept(new MockCPMMetrics("service-b", 202401171700L, 2));
+        buffer.accept(new MockCPMMetrics("service-a", 202401171700L, 3));
+        buffer.accept(new MockCPMMetrics("service-a", 202401171701L, 4));
+
+        List<MockCPMMetrics> result = buffer.read();
+        Assertions.assertEquals(3, result.size());
+        // Keep the accepting order of the first arrival.
+        Assertions.assertEquals("service-a", result.get(0).entityId);
+        Assertions.assertEquals(4, result.get(0).getTotal());
+        Assertions.assertEquals("service-b", result.get(1).entityId);
+        Assertions.assertEquals(2, result.get(1).getTotal());
+        Assertions.assertEquals(202401171701L, result.get(2).getTimeBucket());
+        Assertions.assertEquals(4, result.get(2).getTotal());
+    }
+
+    @Test
+    public void testResizeAndReuse() {
+        OpenAddressingBufferedData<MockCPMMetrics> buffer = new OpenAddressingBufferedData<>(16);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 10_000; i++) {
+                buffer.accept(new MockCPMMetrics("service-" + i, 202401171700L, 1));
+                buffer.accept(new MockCPMMetrics("service-" + i, 202401171700L, 1));
+            }
+            List<MockCPMMetrics> result = buffer.read();
+            Assertions.assertEquals(10_000, result.size());
+            for (int i = 0; i < result.size(); i++) {
+                Assertions.assertEquals("service-" + i, result.get(i).entityId);
+                Assertions.assertEquals(2, result.get(i).getTotal());
+            }
+            Assertions.assertTrue(buffer.read().isEmpty());
+        }
+    }
+
+    private static class MockCPMMetrics extends CPMMetrics {
+        private final String entityId;
+
+        private MockCPMMetrics(String entityId, long timeBucket, long count) {
+            this.entityId = entityId;
+            setTimeBucket(timeBucket);
+            combine(count);
+        }
+
+        @Override
+        protected StorageID id0() {
+            return new StorageID().append(TIME_BUCKET, getTimeBucket()).append(ENTITY_ID, entityId);
+        }
+
+        @Override
+        public Metrics toHour() {
+            return null;
+        }
+
+        @Override
+        public Metrics toDay() {
+            return null;
+        }
+
+        @Override
+        public void deserialize(RemoteDataView remoteData) {
+        }
+
+        @Override
+        public RemoteData.Builder serialize() {
+            return null;
+        }
+
+        @Override
+        public int remoteHashCode() {
+            return entityId.hashCode();
+        }
+    }
+}
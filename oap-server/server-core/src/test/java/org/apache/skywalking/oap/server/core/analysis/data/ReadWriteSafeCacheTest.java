@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ReadWriteSafeCacheTest {
+    private final MetricsCreator metricsCreator = new MetricsCreatorNoop();
+
+    @Test
+    public void testStripedMerge() {
+        ReadWriteSafeCache<Counting> cache = stripedCache(4);
+        List<Counting> batch = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            batch.add(new Counting("key-" + i % 100));
+        }
+        cache.write(batch);
+        cache.write(new Counting("key-0"));
+
+        List<Counting> result = cache.read();
+        Assertions.assertEquals(100, result.size());
+        for (Counting counting : result) {
+            Assertions.assertEquals("key-0".equals(counting.key) ? 11 : 10, counting.count);
+        }
+        Assertions.assertTrue(cache.read().isEmpty());
+    }
+
+    @Test
+    public void testConcurrentWriteAndRead() throws InterruptedException {
+        ReadWriteSafeCache<Counting> cache = stripedCache(4);
+        int writers = 4;
+        int batches = 2000;
+        CountDownLatch finished = new CountDownLatch(writers);
+        for (int w = 0; w < writers; w++) {
+            new Thread(() -> {
+                for (int b = 0; b < batches; b++) {
+                    List<Counting> batch = new ArrayList<>();
+                    for (int i = 0; i < 10; i++) {
+                        batch.add(new Counting("key-" + (b + i) % 50));
+                    }
+                    cache.write(batch);
+                }
+                finished.countDown();
+            }).start();
+        }
+
+        boolean done = false;
+        long total = 0;
+        while (!done) {
+            done = finished.getCount() == 0;
+            for (Counting counting : cache.read()) {
+                total += counting.count;
+            }
+        }
+        for (Counting counting : cache.read()) {
+            total += counting.count;
+        }
+        Assertions.assertEquals(writers * batches * 10, total);
+    }
+
+    private ReadWriteSafeCache<Counting> stripedCache(int stripes) {
+        return new ReadWriteSafeCache<>(
+            stripes, CountingBufferedData::new, counting -> counting.key.hashCode(),
+            metricsCreator.createCounter("contended", "", null, null),
+            metricsCreator.createHistogramMetric("wait", "", null, null)
+        );
+    }
+
+    private static class Counting {
+        private final String key;
+        private long count = 1;
+
+        private Counting(String key) {
+            this.key = key;
+        }
+    }
+
+    private static class CountingBufferedData implements BufferedData<Counting> {
+        private final Map<String, Counting> buffer = new HashMap<>();
+
+        @Override
+        public void accept(Counting data) {
+            Counting existed = buffer.putIfAbsent(data.key, data);
+            if (existed != null) {
+                existed.count += data.count;
+            }
+        }
+
+        @Override
+        public List<Counting> read() {
+            try {
+                return new ArrayList<>(buffer.values());
+            } finally {
+                buffer.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.worker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class MetricsMultiGetPipelineTest {
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setup() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    public void teardown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSynchronousLoad() {
+        final MetricsMultiGetPipeline pipeline = new MetricsMultiGetPipeline(2, 0, null);
+        final List<Metrics> metrics = metrics(5);
+        final List<String> steps = new ArrayList<>();
+        pipeline.run(metrics, slice -> steps.add("load-" + slice.size()), slice -> steps.add("merge-" + slice.size()));
+        assertEquals(List.of("load-2", "merge-2", "load-2", "merge-2", "load-1", "merge-1"), steps);
+    }
+
+    @Test
+    public void testPrefetchWhileMerging() throws InterruptedException {
+        final MetricsMultiGetPipeline pipeline = new MetricsMultiGetPipeline(3, 2, executor);
+        final List<Metrics> metrics = metrics(10);
+        final List<Metrics> loaded = Collections.synchronizedList(new ArrayList<>());
+        final List<Metrics> merged = new ArrayList<>();
+        final CountDownLatch secondSliceLoading = new CountDownLatch(1);
+        final AtomicInteger loadingNum = new AtomicInteger();
+        final AtomicInteger maxLoadingNum = new AtomicInteger();
+        final boolean[] prefetched = new boolean[1];
+
+        pipeline.run(metrics, slice -> {
+            maxLoadingNum.accumulateAndGet(loadingNum.incrementAndGet(), Math::max);
+            if (slice.get(0) == metrics.get(3)) {
+                secondSliceLoading.countDown();
+            }
+            loaded.addAll(slice);
+            loadingNum.decrementAndGet();
+        }, slice -> {
+            if (merged.isEmpty()) {
+                try {
+                    // The second slice is loading while the first one is merging.
+                    prefetched[0] = secondSliceLoading.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            assertTrue(loaded.containsAll(slice));
+            merged.addAll(slice);
+        });
+
+        assertTrue(prefetched[0]);
+        assertEquals(metrics, merged);
+        assertEquals(10, loaded.size());
+        assertTrue(maxLoadingNum.get() <= 3);
+    }
+
+    @Test
+    public void testLoadFailure() {
+        final MetricsMultiGetPipeline pipeline = new MetricsMultiGetPipeline(2, 1, executor);
+        final List<Metrics> metrics = metrics(6);
+        final List<Metrics> merged = new ArrayList<>();
+        pipeline.run(metrics, slice -> {
+            if (slice.get(0) != metrics.get(4)) {
+                throw new IllegalStateException("mock failure");
+            }
+        }, merged::addAll);
+        assertEquals(metrics, merged);
+    }
+
+    @Test
+    public void testIllegalArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new MetricsMultiGetPipeline(0, 0, null));
+        assertThrows(IllegalArgumentException.class, () -> new MetricsMultiGetPipeline(10, 2, null));
+    }
+
+    private static List<Metrics> metrics(int size) {
+        final List<Metrics> metrics = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            metrics.add(mock(Metrics.class));
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.worker;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.skywalking.oap.server.core.CoreModule;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.remote.RemoteSenderService;
+import org.apache.skywalking.oap.server.core.remote.client.Address;
+import org.apache.skywalking.oap.server.core.remote.client.RemoteClient;
+import org.apache.skywalking.oap.server.core.remote.client.SelfRemoteClient;
+import org.apache.skywalking.oap.server.core.remote.selector.Selector;
+import org.apache.skywalking.oap.server.core.worker.AbstractWorker;
+import org.apache.skywalking.oap.server.core.worker.IWorkerInstanceGetter;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
+import org.apache.skywalking.oap.server.testing.module.ModuleDefineTesting;
+import org.apache.skywalking.oap.server.testing.module.ModuleManagerTesting;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MetricsRemoteWorkerTest {
+    private ModuleManagerTesting moduleManager;
+    private RemoteSenderService remoteSender;
+    private IWorkerInstanceGetter workerInstanceGetter;
+    private final Map<String, CounterMetrics> routeCounters = new HashMap<>();
+    private final List<Metrics> localReceived = new ArrayList<>();
+    private MetricsRemoteWorker remoteWorker;
+
+    @BeforeEach
+    public void setup() {
+        moduleManager = new ModuleManagerTesting();
+        ModuleDefineTesting coreModuleDefine = new ModuleDefineTesting();
+        moduleManager.put(CoreModule.NAME, coreModuleDefine);
+        remoteSender = mock(RemoteSenderService.class);
+        workerInstanceGetter = mock(IWorkerInstanceGetter.class);
+        coreModuleDefine.provider().registerServiceImplementation(RemoteSenderService.class, remoteSender);
+        coreModuleDefine.provider().registerServiceImplementation(IWorkerInstanceGetter.class, workerInstanceGetter);
+
+        MetricsCreator metricsCreator = mock(MetricsCreator.class);
+        when(metricsCreator.createCounter(any(), any(), any(), any())).thenAnswer(invocation -> {
+            MetricsTag.Keys keys = invocation.getArgument(2);
+            MetricsTag.Values values = invocation.getArgument(3);
+            CounterMetrics counter = mock(CounterMetrics.class);
+            if (keys.getKeys().length == 2 && "route".equals(keys.getKeys()[1])) {
+                routeCounters.put(values.getValues()[1], counter);
+            }
+            return counter;
+        });
+        ModuleDefineTesting telemetryModuleDefine = new ModuleDefineTesting();
+        moduleManager.put(TelemetryModule.NAME, telemetryModuleDefine);
+        telemetryModuleDefine.provider().registerServiceImplementation(MetricsCreator.class, metricsCreator);
+
+        AbstractWorker<Metrics> localWorker = new AbstractWorker<Metrics>(moduleManager) {
+            @Override
+            public void in(final Metrics metrics) {
+                localReceived.add(metrics);
+            }
+        };
+        remoteWorker = new MetricsRemoteWorker(
+            moduleManager, "service_cpm", "service_cpm_rec", localWorker, Selector.HashCode);
+    }
+
+    @Test
+    public void testLocalHandOff() {
+        SelfRemoteClient selfClient = new SelfRemoteClient(moduleManager, new Address("127.0.0.1", 11800, true));
+        Metrics metrics = mock(Metrics.class);
+        when(remoteSender.select(metrics, Selector.HashCode)).thenReturn(selfClient);
+
+        remoteWorker.in(metrics);
+
+        assertEquals(1, localReceived.size());
+        assertSame(metrics, localReceived.get(0));
+        verify(workerInstanceGetter, never()).get(any());
+        verify(routeCounters.get("local")).inc();
+        verify(routeCounters.get("remote"), never()).inc();
+    }
+
+    @Test
+    public void testRemotePush() {
+        RemoteClient remoteClient = mock(RemoteClient.class);
+        Metrics metrics = mock(Metrics.class);
+        when(remoteSender.select(metrics, Selector.HashCode)).thenReturn(remoteClient);
+
+        remoteWorker.in(metrics);
+
+        assertTrue(localReceived.isEmpty());
+        verify(remoteClient).push("service_cpm_rec", metrics);
+        verify(routeCounters.get("remote")).inc();
+        verify(routeCounters.get("local"), never()).inc();
+    }
+}
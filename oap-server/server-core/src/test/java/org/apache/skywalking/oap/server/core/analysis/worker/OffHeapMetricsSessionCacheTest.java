@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.worker;
+
+import org.apache.skywalking.oap.server.core.analysis.metrics.CPMMetrics;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.remote.RemoteDataView;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.storage.StorageID;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class OffHeapMetricsSessionCacheTest {
+    @Test
+    public void testPutGetUpdateRemove() {
+        final OffHeapMetricsSessionCache cache = new OffHeapMetricsSessionCache(
+            70_000, new SessionCacheMemoryPool(1024 * 1024, new MetricsCreatorNoop()));
+        for (int i = 0; i < 1000; i++) {
+            cache.put(new MockCPMMetrics("service-" + i, 202401171700L, i));
+        }
+        Assertions.assertEquals(1000, cache.size());
+
+        final MockCPMMetrics cached = (MockCPMMetrics) cache.get(new MockCPMMetrics("service-7", 202401171700L, 0));
+        Assertions.assertNotNull(cached);
+        Assertions.assertEquals("service-7", cached.getEntityId());
+        Assertions.assertEquals(7, cached.getTotal());
+        Assertions.assertNull(cache.get(new MockCPMMetrics("service-7", 202401171701L, 0)));
+
+        cached.combine(5);
+        cache.update(cached);
+        Assertions.assertEquals(12, ((CPMMetrics) cache.get(cached)).getTotal());
+
+        for (int i = 0; i < 1000; i += 2) {
+            cache.remove(new MockCPMMetrics("service-" + i, 202401171700L, 0));
+        }
+        Assertions.assertEquals(500, cache.size());
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertEquals(i % 2 == 1, cache.contains(new MockCPMMetrics("service-" + i, 202401171700L, 0)));
+        }
+    }
+
+    @Test
+    public void testRemoveExpired() {
+        final OffHeapMetricsSessionCache cache = new OffHeapMetricsSessionCache(
+            70_000, new SessionCacheMemoryPool(1024 * 1024, new MetricsCreatorNoop()));
+        final MockCPMMetrics stale = new MockCPMMetrics("stale", 202401171700L, 1);
+        stale.setLastUpdateTimestamp(System.currentTimeMillis() - 100_000);
+        cache.put(stale);
+        cache.put(new MockCPMMetrics("fresh", 202401171700L, 1));
+        Assertions.assertEquals(2, cache.size());
+
+        cache.removeExpired();
+        Assertions.assertEquals(1, cache.size());
+        Assertions.assertFalse(cache.contains(stale));
+        Assertions.assertTrue(cache.contains(new MockCPMMetrics("fresh", 202401171700L, 0)));
+    }
+
+    @Test
+    public void testEvictWhenBudgetUsedUp() {
+        final SessionCacheMemoryPool pool = new SessionCacheMemoryPool(1024 * 1024, new MetricsCreatorNoop());
+        final OffHeapMetricsSessionCache cache = new OffHeapMetricsSessionCache(70_000, pool);
+        // One page of 1MB holds 4096 blocks of 256B.
+        for (int i = 0; i < 5000; i++) {
+            cache.put(new MockCPMMetrics("service-" + i, 202401171700L, 1));
+        }
+        Assertions.assertEquals(4096, cache.size());
+        Assertions.assertEquals(SessionCacheMemoryPool.PAGE_SIZE, pool.getUsedBytes());
+        Assertions.assertEquals(202401171700L, cache.getLatestEvictedTimeBucket());
+        Assertions.assertTrue(cache.contains(new MockCPMMetrics("service-4999", 202401171700L, 0)));
+    }
+
+    public static class MockCPMMetrics extends CPMMetrics {
+        private String entityId;
+
+        public MockCPMMetrics() {
+        }
+
+        private MockCPMMetrics(String entityId, long timeBucket, long count) {
+            this.entityId = entityId;
+            setTimeBucket(timeBucket);
+            combine(count);
+        }
+
+        String getEntityId() {
+            return entityId;
+        }
+
+        @Override
+        protected StorageID id0() {
+            return new StorageID().append(TIME_BUCKET, getTimeBucket()).append(ENTITY_ID, entityId);
+        }
+
+        @Override
+        public Metrics toHour() {
+            return null;
+        }
+
+        @Override
+        public Metrics toDay() {
+            return null;
+        }
+
+        @Override
+        public void deserialize(RemoteDataView remoteData) {
+            entityId = remoteData.getDataStrings(0);
+            setTimeBucket(remoteData.getDataLongs(0));
+            setTotal(remoteData.getDataLongs(1));
+        }
+
+        @Override
+        public RemoteData.Builder serialize() {
+            return RemoteData.newBuilder()
+                             .addDataStrings(entityId)
+                             .addDataLongs(getTimeBucket())
+                             .addDataLongs(getTotal());
+        }
+
+        @Override
+        public int remoteHashCode() {
+            return entityId.hashCode();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.annotation;
+
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
+import org.apache.skywalking.oap.server.core.analysis.Disable;
+import org.apache.skywalking.oap.server.core.analysis.MultipleDisable;
+import org.apache.skywalking.oap.server.core.analysis.SourceDispatcher;
+import org.apache.skywalking.oap.server.core.analysis.manual.service.ServiceTraffic;
+import org.apache.skywalking.oap.server.core.analysis.meter.function.MeterFunction;
+import org.apache.skywalking.oap.server.core.analysis.meter.function.avg.AvgFunction;
+import org.apache.skywalking.oap.server.core.hierarchy.service.ServiceHierarchyTrafficRelationDispatcher;
+import org.apache.skywalking.oap.server.core.source.ScopeDeclaration;
+import org.apache.skywalking.oap.server.core.source.Service;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+public class ClassIndexTest implements ClassIndexTest.Probe {
+    /**
+     * Listed in the index of the test resources, with a class in the OAL generated package.
+     */
+    interface Probe {
+    }
+
+    private static Stream<Class<?>> indexedTypes() {
+        return Stream.of(
+            org.apache.skywalking.oap.server.core.analysis.Stream.class, ScopeDeclaration.class, MeterFunction.class,
+            Disable.class, MultipleDisable.class, SourceDispatcher.class
+        );
+    }
+
+    @AfterEach
+    public void reset() {
+        ClassIndex.setFallbackScanEnabled(false);
+    }
+
+    @Test
+    public void testFind() throws IOException {
+        final ClassLoader classLoader = getClass().getClassLoader();
+        Assertions.assertTrue(
+            ClassIndex.find(org.apache.skywalking.oap.server.core.analysis.Stream.class, classLoader)
+                      .contains(ServiceTraffic.class));
+        Assertions.assertTrue(ClassIndex.find(ScopeDeclaration.class, classLoader).contains(Service.class));
+        Assertions.assertTrue(ClassIndex.find(MeterFunction.class, classLoader).contains(AvgFunction.class));
+        Assertions.assertTrue(
+            ClassIndex.find(SourceDispatcher.class, classLoader).contains(ServiceHierarchyTrafficRelationDispatcher.class));
+    }
+
+    /**
+     * The OAL generated class in the index is skipped rather than loaded, it doesn't exist either.
+     */
+    @Test
+    public void testOALGeneratedExcluded() throws IOException {
+        Assertions.assertEquals(
+            List.of(ClassIndexTest.class), ClassIndex.find(Probe.class, getClass().getClassLoader()));
+    }
+
+    /**
+     * The classpath scan should find nothing more than the index.
+     */
+    @ParameterizedTest
+    @MethodSource("indexedTypes")
+    public void testIndexMatchesClasspathScan(Class<?> type) throws IOException {
+        final ClassLoader classLoader = getClass().getClassLoader();
+        final List<Class<?>> indexed = ClassIndex.find(type, classLoader);
+
+        ClassIndex.setFallbackScanEnabled(true);
+        final List<Class<?>> scanned = ClassIndex.find(type, classLoader);
+        if (type.isAnnotation()) {
+            Assertions.assertEquals(indexed, scanned);
+        } else {
+            // The scan includes the abstract implementations and sub-interfaces.
+            scanned.removeIf(aClass -> aClass.isInterface() || Modifier.isAbstract(aClass.getModifiers()));
+            Assertions.assertEquals(new HashSet<>(indexed), new HashSet<>(scanned));
+        }
+    }
+}
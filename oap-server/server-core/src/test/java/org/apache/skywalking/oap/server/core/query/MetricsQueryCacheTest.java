@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.query;
+
+import com.google.gson.Gson;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.skywalking.oap.server.core.analysis.metrics.DataTable;
+import org.apache.skywalking.oap.server.core.query.enumeration.Scope;
+import org.apache.skywalking.oap.server.core.query.enumeration.Step;
+import org.apache.skywalking.oap.server.core.query.input.Duration;
+import org.apache.skywalking.oap.server.core.query.input.Entity;
+import org.apache.skywalking.oap.server.core.query.input.MetricsCondition;
+import org.apache.skywalking.oap.server.core.query.type.HeatMap;
+import org.apache.skywalking.oap.server.core.query.type.KVInt;
+import org.apache.skywalking.oap.server.core.query.type.KeyValue;
+import org.apache.skywalking.oap.server.core.query.type.MetricsValues;
+import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnMetadata;
+import org.apache.skywalking.oap.server.core.storage.query.IMetricsQueryDAO;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.apache.skywalking.oap.server.core.source.DefaultScopeDefine.SERVICE;
+import static org.apache.skywalking.oap.server.core.storage.annotation.Column.ValueDataType.COMMON_VALUE;
+import static org.apache.skywalking.oap.server.core.storage.annotation.Column.ValueDataType.HISTOGRAM;
+import static org.apache.skywalking.oap.server.core.storage.annotation.Column.ValueDataType.LABELED_VALUE;
+
+public class MetricsQueryCacheTest {
+    private static final String VALUE_METRICS = "cache_test_values";
+    private static final String LABELED_METRICS = "cache_test_labeled";
+    private static final String HEATMAP_METRICS = "cache_test_heatmap";
+    private static final int DEFAULT_VALUE = 0;
+    private static final Gson GSON = new Gson();
+
+    private final List<String> reads = new ArrayList<>();
+    private final List<List<KeyValue>> readLabels = new ArrayList<>();
+    private long now;
+    private MetricsQueryCache cache;
+
+    @BeforeEach
+    public void setup() {
+        ValueColumnMetadata.INSTANCE.putIfAbsent(VALUE_METRICS, "value", COMMON_VALUE, DEFAULT_VALUE, SERVICE);
+        ValueColumnMetadata.INSTANCE.putIfAbsent(LABELED_METRICS, "value", LABELED_VALUE, DEFAULT_VALUE, SERVICE);
+        ValueColumnMetadata.INSTANCE.putIfAbsent(HEATMAP_METRICS, "value", HISTOGRAM, DEFAULT_VALUE, SERVICE);
+        cache = new MetricsQueryCache(1024 * 1024, 0, () -> now, MetricsCreatorNoop::new);
+    }
+
+    @Test
+    public void testReadMetricsValues() throws Exception {
+        final MetricsCondition condition = condition(VALUE_METRICS);
+        // 0000 - 0007 are closed.
+        now = millis(202409010008L);
+        final Duration duration = duration("2024-09-01 0000", "2024-09-01 0009");
+
+        assertJsonEquals(readValues(duration), cache.readMetricsValues(condition, duration, this::recordValues));
+        Assertions.assertEquals(List.of("2024-09-01 0000"), reads);
+
+        reads.clear();
+        assertJsonEquals(readValues(duration), cache.readMetricsValues(condition, duration, this::recordValues));
+        Assertions.assertEquals(List.of("2024-09-01 0008"), reads);
+
+        // The sliding duration reads the points since the first not cached one.
+        reads.clear();
+        now = millis(202409010020L);
+        final Duration sliding = duration("2024-09-01 0005", "2024-09-01 0015");
+        assertJsonEquals(readValues(sliding), cache.readMetricsValues(condition, sliding, this::recordValues));
+        Assertions.assertEquals(List.of("2024-09-01 0008"), reads);
+
+        reads.clear();
+        assertJsonEquals(readValues(sliding), cache.readMetricsValues(condition, sliding, this::recordValues));
+        Assertions.assertTrue(reads.isEmpty());
+    }
+
+    @Test
+    public void testOpenBucketsNotCached() throws Exception {
+        final MetricsCondition condition = condition(VALUE_METRICS);
+        now = millis(202409010000L);
+        final Duration duration = duration("2024-09-01 0000", "2024-09-01 0009");
+
+        cache.readMetricsValues(condition, duration, this::recordValues);
+        cache.readMetricsValues(condition, duration, this::recordValues);
+        Assertions.assertEquals(List.of("2024-09-01 0000", "2024-09-01 0000"), reads);
+    }
+
+    @Test
+    public void testReadLabeledMetricsValues() throws Exception {
+        final MetricsCondition condition = condition(LABELED_METRICS);
+        now = millis(202409010008L);
+        final Duration duration = duration("2024-09-01 0000", "2024-09-01 0009");
+        final List<KeyValue> labels = List.of(new KeyValue("status", "200"));
+
+        assertJsonEquals(
+            readLabeled(labels, duration),
+            cache.readLabeledMetricsValues(condition, labels, duration, this::recordLabeled)
+        );
+        Assertions.assertEquals(List.of("2024-09-01 0000"), reads);
+
+        // Cached per the labels of the query, as only the values of the query labels are read.
+        reads.clear();
+        readLabels.clear();
+        assertJsonEquals(
+            readLabeled(labels, duration),
+            cache.readLabeledMetricsValues(condition, labels, duration, this::recordLabeled)
+        );
+        final List<KeyValue> otherLabels = List.of(new KeyValue("status", "500"));
+        assertJsonEquals(
+            readLabeled(otherLabels, duration),
+            cache.readLabeledMetricsValues(condition, otherLabels, duration, this::recordLabeled)
+        );
+        assertJsonEquals(
+            readLabeled(Collections.emptyList(), duration),
+            cache.readLabeledMetricsValues(condition, Collections.emptyList(), duration, this::recordLabeled)
+        );
+        Assertions.assertEquals(List.of("2024-09-01 0008", "2024-09-01 0000", "2024-09-01 0000"), reads);
+        Assertions.assertEquals(List.of(labels, otherLabels, Collections.emptyList()), readLabels);
+    }
+
+    @Test
+    public void testReadHeatMap() throws Exception {
+        final MetricsCondition condition = condition(HEATMAP_METRICS);
+        now = millis(202409010008L);
+        final Duration duration = duration("2024-09-01 0000", "2024-09-01 0009");
+
+        assertJsonEquals(readHeatMap(duration), cache.readHeatMap(condition, duration, this::recordHeatMap));
+        Assertions.assertEquals(List.of("2024-09-01 0000"), reads);
+
+        reads.clear();
+        assertJsonEquals(readHeatMap(duration), cache.readHeatMap(condition, duration, this::recordHeatMap));
+        Assertions.assertEquals(List.of("2024-09-01 0008"), reads);
+    }
+
+    private MetricsValues recordValues(Duration duration) {
+        reads.add(duration.getStart());
+        return readValues(duration);
+    }
+
+    private List<MetricsValues> recordLabeled(List<KeyValue> labels, Duration duration) {
+        reads.add(duration.getStart());
+        readLabels.add(labels);
+        return readLabeled(labels, duration);
+    }
+
+    private HeatMap recordHeatMap(Duration duration) {
+        reads.add(duration.getStart());
+        return readHeatMap(duration);
+    }
+
+    private MetricsValues readValues(Duration duration) {
+        final MetricsValues metricsValues = new MetricsValues();
+        for (final PointOfTime point : duration.assembleDurationPoints()) {
+            metricsValues.getValues().addKVInt(new KVInt(point.id("svc"), point.getPoint() % 100, false));
+        }
+        return metricsValues;
+    }
+
+    private List<MetricsValues> readLabeled(List<KeyValue> labels, Duration duration) {
+        final List<String> ids = new ArrayList<>();
+        final Map<String, DataTable> idMap = new HashMap<>();
+        for (final PointOfTime point : duration.assembleDurationPoints()) {
+            final String id = point.id("svc");
+            final DataTable dataTable = new DataTable();
+            dataTable.put("{status=200}", point.getPoint() % 100);
+            // The odd points have no value of status=500.
+            if (point.getPoint() % 2 == 0) {
+                dataTable.put("{status=500}", 1000 + point.getPoint() % 100);
+            }
+            ids.add(id);
+            idMap.put(id, dataTable);
+        }
+        return IMetricsQueryDAO.Util.sortValues(
+            IMetricsQueryDAO.Util.composeLabelValue(LABELED_METRICS, labels, ids, idMap), ids, DEFAULT_VALUE);
+    }
+
+    private HeatMap readHeatMap(Duration duration) {
+        final HeatMap heatMap = new HeatMap();
+        final List<String> ids = new ArrayList<>();
+        for (final PointOfTime point : duration.assembleDurationPoints()) {
+            ids.add(point.id("svc"));
+            heatMap.buildColumn(point.id("svc"), "0," + point.getPoint() % 100 + "|100," + point.getPoint() % 7, 0);
+        }
+        heatMap.fixMissingColumns(ids, 0);
+        return heatMap;
+    }
+
+    private static MetricsCondition condition(String name) {
+        final Entity entity = new Entity();
+        entity.setScope(Scope.Service);
+        entity.setServiceName("svc");
+        entity.setNormal(true);
+        final MetricsCondition condition = new MetricsCondition();
+        condition.setName(name);
+        condition.setEntity(entity);
+        return condition;
+    }
+
+    private static Duration duration(String start, String end) {
+        final Duration duration = new Duration();
+        duration.setStep(Step.MINUTE);
+        duration.setStart(start);
+        duration.setEnd(end);
+        return duration;
+    }
+
+    private static long millis(long minuteTimeBucket) {
+        return DurationUtils.INSTANCE.parseToDateTime(Step.MINUTE, minuteTimeBucket).getMillis();
+    }
+
+    private static void assertJsonEquals(Object expected, Object actual) {
+        Assertions.assertEquals(GSON.toJson(expected), GSON.toJson(actual));
+    }
+}
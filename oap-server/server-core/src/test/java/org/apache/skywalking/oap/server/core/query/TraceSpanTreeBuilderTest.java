@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.apache.skywalking.oap.server.core.Const;
+import org.apache.skywalking.oap.server.core.query.type.Span;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TraceSpanTreeBuilderTest {
+
+    @Test
+    public void testBuild() {
+        final List<Span> spans = new ArrayList<>();
+        // segment-2 is the child of the span 1 of segment-1, and the spans are out of order.
+        spans.add(span("segment-2", 0, "segment-1", 1, 20));
+        spans.add(span("segment-1", 1, "segment-1", 0, 10));
+        spans.add(span("segment-1", 0, "segment-1", -1, 0));
+        spans.add(span("segment-1", 2, "segment-1", 0, 30));
+        spans.add(span("segment-2", 1, "segment-2", 0, 21));
+        // A fragment, whose parent is lost.
+        spans.add(span("segment-3", 0, "segment-x", 0, 5));
+
+        final List<Span> sorted = TraceSpanTreeBuilder.build(spans);
+        Assertions.assertEquals(
+            List.of("segment-1S0", "segment-1S1", "segment-2S0", "segment-2S1", "segment-1S2", "segment-3S0"),
+            sorted.stream().map(Span::getSegmentSpanId).collect(Collectors.toList())
+        );
+        Assertions.assertEquals(
+            List.of(true, false, false, false, false, true),
+            sorted.stream().map(Span::isRoot).collect(Collectors.toList())
+        );
+    }
+
+    @Test
+    public void testCycle() {
+        final List<Span> spans = new ArrayList<>();
+        spans.add(span("segment-1", 0, "segment-1", -1, 0));
+        spans.add(span("segment-2", 0, "segment-3", 0, 1));
+        spans.add(span("segment-3", 0, "segment-2", 0, 2));
+
+        Assertions.assertEquals(1, TraceSpanTreeBuilder.build(spans).size());
+    }
+
+    @Test
+    public void testSameAsRecursiveSorting() {
+        final Random random = new Random(7);
+        final List<Span> spans = new ArrayList<>();
+        for (int segment = 0; segment < 50; segment++) {
+            final String segmentId = "segment-" + segment;
+            // The first span of a segment refers to a span of a previous segment, or nothing.
+            final String parentSegmentId = segment == 0 || random.nextInt(10) == 0 ?
+                "lost-" + segment : "segment-" + random.nextInt(segment);
+            spans.add(span(segmentId, 0, parentSegmentId, 0, random.nextInt(1000)));
+            for (int spanId = 1; spanId < 20; spanId++) {
+                spans.add(span(segmentId, spanId, segmentId, random.nextInt(spanId), random.nextInt(1000)));
+            }
+        }
+        Collections.shuffle(spans, random);
+
+        final List<Span> expected = recursiveSort(spans);
+        Assertions.assertEquals(expected, TraceSpanTreeBuilder.build(spans));
+    }
+
+    /**
+     * The original recursive sorting, which is quadratic.
+     */
+    private static List<Span> recursiveSort(List<Span> spans) {
+        final List<Span> rootSpans = spans.stream()
+                                          .filter(span -> spans.stream().noneMatch(
+                                              parent -> parent.getSegmentSpanId()
+                                                              .equals(span.getSegmentParentSpanId())))
+                                          .sorted(Comparator.comparing(Span::getStartTime))
+                                          .collect(Collectors.toList());
+        final List<Span> sortedSpans = new ArrayList<>();
+        rootSpans.forEach(rootSpan -> {
+            sortedSpans.add(rootSpan);
+            findChildren(spans, rootSpan, sortedSpans);
+        });
+        return sortedSpans;
+    }
+
+    private static void findChildren(List<Span> spans, Span parentSpan, List<Span> childrenSpan) {
+        spans.forEach(span -> {
+            if (span.getSegmentParentSpanId().equals(parentSpan.getSegmentSpanId())) {
+                childrenSpan.add(span);
+                findChildren(spans, span, childrenSpan);
+            }
+        });
+    }
+
+    private static Span span(String segmentId, int spanId, String parentSegmentId, int parentSpanId, long startTime) {
+        final Span span = new Span();
+        span.setSegmentId(segmentId);
+        span.setSpanId(spanId);
+        span.setSegmentSpanId(segmentId + Const.SEGMENT_SPAN_SPLIT + spanId);
+        span.setSegmentParentSpanId(parentSegmentId + Const.SEGMENT_SPAN_SPLIT + parentSpanId);
+        span.setStartTime(startTime);
+        return span;
+    }
+}
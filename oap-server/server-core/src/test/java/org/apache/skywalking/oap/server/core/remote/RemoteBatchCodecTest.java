@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.remote;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteBatch;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RemoteBatchCodecTest {
+    @Test
+    public void testEncodeAndRead() {
+        List<RemoteBatchCodec.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            RemoteData.Builder data = RemoteData.newBuilder();
+            for (int k = 0; k < i % 3; k++) {
+                data.addDataStrings("entity-" + i + "-" + k);
+            }
+            data.addDataLongs(202401171700L).addDataLongs(i);
+            if (i % 2 == 0) {
+                data.addDataDoubles(i / 2.0);
+            }
+            data.addDataIntegers(i);
+            if (i == 9) {
+                data.addDataObjectStrings("{\"k\":\"v\"}");
+            }
+            entries.add(new RemoteBatchCodec.Entry("worker-" + i % 2, data));
+        }
+
+        RemoteBatch batch = RemoteBatchCodec.encode(entries, 1, 10);
+        Assertions.assertEquals(2, batch.getWorkerNamesCount());
+        Assertions.assertEquals("worker-1", batch.getWorkerNames(0));
+
+        RemoteBatchCodec.Reader reader = new RemoteBatchCodec.Reader(batch);
+        for (int i = 1; i < 10; i++) {
+            Assertions.assertTrue(reader.next());
+            Assertions.assertEquals(entries.get(i).getNextWorkerName(), batch.getWorkerNames(reader.workerId()));
+            RemoteData.Builder data = entries.get(i).getRemoteData();
+            for (int k = 0; k < data.getDataStringsCount(); k++) {
+                Assertions.assertEquals(data.getDataStrings(k), reader.getDataStrings(k));
+            }
+            Assertions.assertEquals(202401171700L, reader.getDataLongs(0));
+            Assertions.assertEquals(i, reader.getDataLongs(1));
+            if (i % 2 == 0) {
+                Assertions.assertEquals(i / 2.0, reader.getDataDoubles(0));
+            }
+            Assertions.assertEquals(i, reader.getDataIntegers(0));
+            if (i == 9) {
+                Assertions.assertEquals("{\"k\":\"v\"}", reader.getDataObjectStrings(0));
+            }
+        }
+        Assertions.assertFalse(reader.next());
+    }
+
+    @Test
+    public void testDecode() {
+        List<RemoteBatchCodec.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            RemoteData.Builder data = RemoteData.newBuilder()
+                                                .addDataStrings("entity-" + i)
+                                                .addDataLongs(i)
+                                                .addDataObjectStrings("object-" + i);
+            entries.add(new RemoteBatchCodec.Entry("worker-" + i % 2, data));
+        }
+
+        List<RemoteBatchCodec.Entry> decoded = RemoteBatchCodec.decode(RemoteBatchCodec.encode(entries, 0, 5));
+        Assertions.assertEquals(5, decoded.size());
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals(entries.get(i).toMessage(), decoded.get(i).toMessage());
+        }
+    }
+}
@@ -187,7 +187,7 @@ public class RemoteServiceHandlerTestCase {
         }
 
         @Override
-        public void deserialize(RemoteData remoteData) {
+        public void deserialize(RemoteDataView remoteData) {
             str1 = remoteData.getDataStrings(0);
             str2 = remoteData.getDataStrings(1);
             long1 = remoteData.getDataLongs(0);
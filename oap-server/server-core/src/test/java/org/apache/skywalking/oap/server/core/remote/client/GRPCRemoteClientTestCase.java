@@ -22,11 +22,18 @@ import io.grpc.ManagedChannel;
 import io.grpc.Server;
 import io.grpc.inprocess.InProcessChannelBuilder;
 import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
 import io.grpc.util.MutableHandlerRegistry;
 import org.apache.skywalking.oap.server.core.CoreModule;
 import org.apache.skywalking.oap.server.core.remote.RemoteServiceHandler;
 import org.apache.skywalking.oap.server.core.remote.data.StreamData;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.Empty;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteBatch;
+import org.apache.skywalking.oap.server.core.remote.RemoteDataView;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessage;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteServiceGrpc;
 import org.apache.skywalking.oap.server.core.worker.AbstractWorker;
 import org.apache.skywalking.oap.server.core.worker.IWorkerInstanceGetter;
 import org.apache.skywalking.oap.server.core.worker.IWorkerInstanceSetter;
@@ -34,6 +41,7 @@ import org.apache.skywalking.oap.server.core.worker.WorkerInstancesService;
 import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
 import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
 import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.GaugeMetrics;
 import org.apache.skywalking.oap.server.telemetry.api.HistogramMetrics;
 import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
 import org.apache.skywalking.oap.server.testing.module.ModuleDefineTesting;
@@ -44,8 +52,15 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.BooleanSupplier;
 
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doReturn;
@@ -56,6 +71,9 @@ import static org.mockito.Mockito.when;
 public class GRPCRemoteClientTestCase {
     private final String nextWorkerName = "mock-worker";
     private ModuleManagerTesting moduleManager;
+    private final AtomicInteger handled = new AtomicInteger();
+    private final Map<String, DoubleAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, TestGauge> gauges = new ConcurrentHashMap<>();
 
     private Server server;
     private ManagedChannel channel;
@@ -83,7 +101,7 @@ public class GRPCRemoteClientTestCase {
         moduleDefine.provider().registerServiceImplementation(IWorkerInstanceGetter.class, workerInstancesService);
         moduleDefine.provider().registerServiceImplementation(IWorkerInstanceSetter.class, workerInstancesService);
 
-        TestWorker worker = new TestWorker(moduleManager);
+        TestWorker worker = new TestWorker(moduleManager, handled);
         workerInstancesService.put(nextWorkerName, worker, TestStreamData.class);
     }
 
@@ -108,48 +126,311 @@ public class GRPCRemoteClientTestCase {
 
     @Test
     public void testPush() throws InterruptedException {
-        MetricsCreator metricsCreator = mock(MetricsCreator.class);
-        when(metricsCreator.createCounter(any(), any(), any(), any())).thenReturn(new CounterMetrics() {
-            @Override
-            public void inc() {
+        registerTelemetry();
+        serviceRegistry.addService(new RemoteServiceHandler(moduleManager));
 
-            }
+        Address address = new Address("not-important", 11, false);
+        GRPCRemoteClient remoteClient = spy(new GRPCRemoteClient(moduleManager, address, 1, 10, 10, null));
+        remoteClient.connect();
 
-            @Override
-            public void inc(double value) {
+        doReturn(channel).when(remoteClient).getChannel();
+
+        for (int i = 0; i < 12; i++) {
+            remoteClient.push(nextWorkerName, new TestStreamData());
+        }
+
+        TimeUnit.SECONDS.sleep(2);
+    }
 
+    @Test
+    public void testFallbackToStreamCall() throws InterruptedException {
+        registerTelemetry();
+        // An OAP before 10.1.0, which only implements the stream call.
+        final RemoteServiceHandler handler = new RemoteServiceHandler(moduleManager);
+        final AtomicInteger received = new AtomicInteger();
+        serviceRegistry.addService(new RemoteServiceGrpc.RemoteServiceImplBase() {
+            @Override
+            public StreamObserver<RemoteMessage> call(StreamObserver<Empty> responseObserver) {
+                final StreamObserver<RemoteMessage> delegate = handler.call(responseObserver);
+                return new StreamObserver<RemoteMessage>() {
+                    @Override
+                    public void onNext(RemoteMessage message) {
+                        received.incrementAndGet();
+                        delegate.onNext(message);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        delegate.onError(t);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        delegate.onCompleted();
+                    }
+                };
             }
         });
 
-        when(metricsCreator.createHistogramMetric(any(), any(), any(), any())).thenReturn(new HistogramMetrics() {
+        Address address = new Address("not-important", 11, false);
+        GRPCRemoteClient remoteClient = spy(new GRPCRemoteClient(moduleManager, address, 1, 10, 10, null));
+        remoteClient.connect();
+
+        doReturn(channel).when(remoteClient).getChannel();
+
+        for (int i = 0; i < 5; i++) {
+            remoteClient.push(nextWorkerName, new TestStreamData());
+        }
+
+        for (int i = 0; i < 100 && received.get() < 5; i++) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        Assertions.assertEquals(5, received.get());
+    }
+
+    @Test
+    public void testBackpressure() throws InterruptedException {
+        registerTelemetry();
+        final RemoteServiceHandler handler = new RemoteServiceHandler(moduleManager);
+        final AtomicReference<ServerCallStreamObserver<Empty>> serverCall = new AtomicReference<>();
+        serviceRegistry.addService(new RemoteServiceGrpc.RemoteServiceImplBase() {
             @Override
-            public Timer createTimer() {
-                return super.createTimer();
+            public StreamObserver<RemoteMessage> call(StreamObserver<Empty> responseObserver) {
+                // The server doesn't request any message, the client stream is not ready until it does.
+                final ServerCallStreamObserver<Empty> observer = (ServerCallStreamObserver<Empty>) responseObserver;
+                observer.disableAutoRequest();
+                serverCall.set(observer);
+                return handler.call(responseObserver);
             }
+        });
+
+        Address address = new Address("not-important", 11, false);
+        GRPCRemoteClient remoteClient = spy(
+            new GRPCRemoteClient(moduleManager, address, 1, 10, 10, null, false, null));
+        remoteClient.maxPendingBytes = 1;
+        doReturn(channel).when(remoteClient).getChannel();
+        remoteClient.connect();
+
+        for (int i = 0; i < 10; i++) {
+            remoteClient.push(nextWorkerName, new TestStreamData());
+        }
+
+        Assertions.assertTrue(await(() -> serverCall.get() != null));
+        TimeUnit.MILLISECONDS.sleep(200);
+        Assertions.assertEquals(0, handled.get());
+        Assertions.assertTrue(gauges.get("remote_out_pending_bytes").getValue() > 0);
+
+        // The onReady handler wakes up the consumer thread waiting for the stream.
+        serverCall.get().request(10);
+        Assertions.assertTrue(await(() -> handled.get() == 10));
+        Assertions.assertTrue(await(() -> gauges.get("remote_out_pending_bytes").getValue() == 0));
+        Assertions.assertEquals(0, counters.get("remote_out_error_count").sum());
+        remoteClient.close();
+    }
 
+    @Test
+    public void testDropOnOverflow() throws InterruptedException {
+        registerTelemetry();
+        final RemoteServiceHandler handler = new RemoteServiceHandler(moduleManager);
+        serviceRegistry.addService(new RemoteServiceGrpc.RemoteServiceImplBase() {
             @Override
-            public void observe(double value) {
+            public StreamObserver<RemoteMessage> call(StreamObserver<Empty> responseObserver) {
+                ((ServerCallStreamObserver<Empty>) responseObserver).disableAutoRequest();
+                return handler.call(responseObserver);
+            }
+        });
 
+        Address address = new Address("not-important", 11, false);
+        GRPCRemoteClient remoteClient = spy(
+            new GRPCRemoteClient(moduleManager, address, 1, 10, 1, null, false, null));
+        remoteClient.maxPendingBytes = 1;
+        doReturn(channel).when(remoteClient).getChannel();
+        remoteClient.connect();
+
+        for (int i = 0; i < 5; i++) {
+            remoteClient.push(nextWorkerName, new TestStreamData());
+        }
+
+        // The frames are dropped after the stream is not ready for the remote timeout.
+        Assertions.assertTrue(await(() -> counters.get("remote_out_error_count").sum() >= 5));
+        Assertions.assertTrue(await(() -> gauges.get("remote_out_pending_bytes").getValue() == 0));
+        Assertions.assertEquals(0, handled.get());
+        remoteClient.close();
+    }
+
+    @Test
+    public void testStreamRotation() throws InterruptedException {
+        registerTelemetry();
+        final RemoteServiceHandler handler = new RemoteServiceHandler(moduleManager);
+        final AtomicInteger opened = new AtomicInteger();
+        final AtomicInteger completed = new AtomicInteger();
+        serviceRegistry.addService(new RemoteServiceGrpc.RemoteServiceImplBase() {
+            @Override
+            public StreamObserver<RemoteBatch> batchCall(StreamObserver<Empty> responseObserver) {
+                opened.incrementAndGet();
+                final StreamObserver<RemoteBatch> delegate = handler.batchCall(responseObserver);
+                return new StreamObserver<RemoteBatch>() {
+                    @Override
+                    public void onNext(RemoteBatch batch) {
+                        delegate.onNext(batch);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        delegate.onError(t);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        completed.incrementAndGet();
+                        delegate.onCompleted();
+                    }
+                };
             }
         });
 
-        ModuleDefineTesting telemetryModuleDefine = new ModuleDefineTesting();
-        moduleManager.put(TelemetryModule.NAME, telemetryModuleDefine);
-        telemetryModuleDefine.provider().registerServiceImplementation(MetricsCreator.class, metricsCreator);
+        // The stream is rotated every half of the remote timeout, 500ms.
+        Address address = new Address("not-important", 11, false);
+        GRPCRemoteClient remoteClient = spy(new GRPCRemoteClient(moduleManager, address, 1, 10, 1, null));
+        doReturn(channel).when(remoteClient).getChannel();
+        remoteClient.connect();
 
-        serviceRegistry.addService(new RemoteServiceHandler(moduleManager));
+        // The probe stream.
+        for (int i = 0; i < 5; i++) {
+            remoteClient.push(nextWorkerName, new TestStreamData());
+        }
+        Assertions.assertTrue(await(() -> handled.get() == 5 && completed.get() == 1));
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        // The long-lived stream.
+        for (int i = 0; i < 5; i++) {
+            remoteClient.push(nextWorkerName, new TestStreamData());
+        }
+        Assertions.assertTrue(await(() -> handled.get() == 10));
+        Assertions.assertEquals(2, opened.get());
+
+        // Completed when expired, the following messages go through a new stream.
+        Assertions.assertTrue(await(() -> completed.get() == 2));
+        for (int i = 0; i < 5; i++) {
+            remoteClient.push(nextWorkerName, new TestStreamData());
+        }
+        Assertions.assertTrue(await(() -> handled.get() == 15));
+        Assertions.assertEquals(3, opened.get());
+        Assertions.assertEquals(0, counters.get("remote_out_error_count").sum());
+        remoteClient.close();
+    }
+
+    @Test
+    public void testOneProbeStreamAtATime() throws InterruptedException {
+        registerTelemetry();
+        final RemoteServiceHandler handler = new RemoteServiceHandler(moduleManager);
+        final AtomicInteger opened = new AtomicInteger();
+        final CountDownLatch confirm = new CountDownLatch(1);
+        serviceRegistry.addService(new RemoteServiceGrpc.RemoteServiceImplBase() {
+            @Override
+            public StreamObserver<RemoteBatch> batchCall(StreamObserver<Empty> responseObserver) {
+                final boolean probe = opened.incrementAndGet() == 1;
+                final StreamObserver<RemoteBatch> delegate = handler.batchCall(responseObserver);
+                return new StreamObserver<RemoteBatch>() {
+                    @Override
+                    public void onNext(RemoteBatch batch) {
+                        delegate.onNext(batch);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        delegate.onError(t);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        if (!probe) {
+                            delegate.onCompleted();
+                            return;
+                        }
+                        // Respond the probe stream later.
+                        new Thread(() -> {
+                            try {
+                                confirm.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            delegate.onCompleted();
+                        }).start();
+                    }
+                };
+            }
+        });
 
         Address address = new Address("not-important", 11, false);
         GRPCRemoteClient remoteClient = spy(new GRPCRemoteClient(moduleManager, address, 1, 10, 10, null));
+        doReturn(channel).when(remoteClient).getChannel();
         remoteClient.connect();
 
-        doReturn(channel).when(remoteClient).getChannel();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 5; i++) {
+                remoteClient.push(nextWorkerName, new TestStreamData());
+            }
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        Assertions.assertEquals(1, opened.get());
+        Assertions.assertTrue(gauges.get("remote_out_pending_bytes").getValue() > 0);
+
+        // The backlog goes through the long-lived stream, once the batch call is confirmed.
+        confirm.countDown();
+        Assertions.assertTrue(await(() -> handled.get() == 15));
+        Assertions.assertEquals(2, opened.get());
+        Assertions.assertEquals(0, counters.get("remote_out_error_count").sum());
+        remoteClient.close();
+    }
 
-        for (int i = 0; i < 12; i++) {
-            remoteClient.push(nextWorkerName, new TestStreamData());
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            TimeUnit.MILLISECONDS.sleep(50);
         }
+        return condition.getAsBoolean();
+    }
 
-        TimeUnit.SECONDS.sleep(2);
+    private void registerTelemetry() {
+        MetricsCreator metricsCreator = mock(MetricsCreator.class);
+        when(metricsCreator.createCounter(any(), any(), any(), any())).thenAnswer(invocation -> {
+            final DoubleAdder counter = counters.computeIfAbsent(invocation.getArgument(0), name -> new DoubleAdder());
+            return new CounterMetrics() {
+                @Override
+                public void inc() {
+                    counter.add(1);
+                }
+
+                @Override
+                public void inc(double value) {
+                    counter.add(value);
+                }
+            };
+        });
+
+        when(metricsCreator.createGauge(any(), any(), any(), any())).thenAnswer(
+            invocation -> gauges.computeIfAbsent(invocation.getArgument(0), name -> new TestGauge()));
+
+        HistogramMetrics histogramMetrics = new HistogramMetrics() {
+            @Override
+            public Timer createTimer() {
+                return super.createTimer();
+            }
+
+            @Override
+            public void observe(double value) {
+
+            }
+        };
+        when(metricsCreator.createHistogramMetric(any(), any(), any(), any())).thenReturn(histogramMetrics);
+        when(metricsCreator.createHistogramMetric(any(), any(), any(), any(), any())).thenReturn(histogramMetrics);
+
+        ModuleDefineTesting telemetryModuleDefine = new ModuleDefineTesting();
+        moduleManager.put(TelemetryModule.NAME, telemetryModuleDefine);
+        telemetryModuleDefine.provider().registerServiceImplementation(MetricsCreator.class, metricsCreator);
     }
 
     public static class TestStreamData extends StreamData {
@@ -162,7 +443,7 @@ public class GRPCRemoteClientTestCase {
         }
 
         @Override
-        public void deserialize(RemoteData remoteData) {
+        public void deserialize(RemoteDataView remoteData) {
             this.value = remoteData.getDataLongs(0);
         }
 
@@ -175,15 +456,52 @@ public class GRPCRemoteClientTestCase {
     }
 
     static class TestWorker extends AbstractWorker {
+        private final AtomicInteger handled;
 
-        public TestWorker(ModuleDefineHolder moduleDefineHolder) {
+        public TestWorker(ModuleDefineHolder moduleDefineHolder, AtomicInteger handled) {
             super(moduleDefineHolder);
+            this.handled = handled;
         }
 
         @Override
         public void in(Object o) {
             TestStreamData streamData = (TestStreamData) o;
             Assertions.assertEquals(987, streamData.value);
+            handled.incrementAndGet();
+        }
+    }
+
+    static class TestGauge implements GaugeMetrics {
+        private volatile double value;
+
+        @Override
+        public void inc() {
+            inc(1);
+        }
+
+        @Override
+        public synchronized void inc(double value) {
+            this.value += value;
+        }
+
+        @Override
+        public void dec() {
+            inc(-1);
+        }
+
+        @Override
+        public void dec(double value) {
+            inc(-value);
+        }
+
+        @Override
+        public void setValue(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double getValue() {
+            return value;
         }
     }
 }
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.remote.selector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.skywalking.oap.server.core.remote.client.Address;
+import org.apache.skywalking.oap.server.core.remote.client.RemoteClient;
+import org.apache.skywalking.oap.server.core.remote.data.StreamData;
+import org.apache.skywalking.oap.server.core.remote.RemoteDataView;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+public class ConsistentHashSelectorTest {
+    private static final int KEYS = 100_000;
+
+    @Test
+    public void testSameTargetForSameClusterView() {
+        final ConsistentHashSelector selector1 = new ConsistentHashSelector();
+        final ConsistentHashSelector selector2 = new ConsistentHashSelector();
+        final List<RemoteClient> clients1 = clients(5);
+        final List<RemoteClient> clients2 = clients(5);
+        for (int i = 0; i < 1000; i++) {
+            final StreamData data = data(i);
+            assertEquals(
+                selector1.select(clients1, data).getAddress(),
+                selector2.select(clients2, data).getAddress()
+            );
+        }
+    }
+
+    @Test
+    public void testRebuildWhenClientsChange() {
+        final ConsistentHashSelector selector = new ConsistentHashSelector();
+        final List<RemoteClient> clients = clients(1);
+        assertSame(clients.get(0), selector.select(clients, data(1)));
+
+        final List<RemoteClient> newClients = clients(3);
+        final Map<Address, Integer> hits = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            final RemoteClient client = selector.select(newClients, data(i));
+            assertTrue(newClients.contains(client));
+            hits.merge(client.getAddress(), 1, Integer::sum);
+        }
+        assertEquals(3, hits.size());
+    }
+
+    @Test
+    public void testBalance() {
+        final ConsistentHashSelector selector = new ConsistentHashSelector();
+        final int nodes = 5;
+        final List<RemoteClient> clients = clients(nodes);
+        final Map<Address, Integer> hits = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            hits.merge(selector.select(clients, data(i)).getAddress(), 1, Integer::sum);
+        }
+        final double mean = (double) KEYS / nodes;
+        hits.forEach((address, count) -> {
+            log.info("ConsistentHash, node {} owns {} keys, {} of the mean", address, count, count / mean);
+            assertTrue(Math.abs(count - mean) / mean < 0.3, address + " owns " + count + " keys");
+        });
+    }
+
+    /**
+     * Scale the cluster from N to N+1 nodes, and report the fraction of the keys moving to another node.
+     */
+    @Test
+    public void testMovedFractionWhenScalingOut() {
+        for (int nodes = 1; nodes < 10; nodes++) {
+            final double consistentHash = movedFraction(ConsistentHashSelector::new, nodes);
+            final double hashCode = movedFraction(HashCodeSelector::new, nodes);
+            final double ideal = 1.0 / (nodes + 1);
+            log.info(
+                "Scale from {} to {} nodes, moved fraction: ideal {}, ConsistentHash {}, HashCode {}",
+                nodes, nodes + 1, ideal, consistentHash, hashCode
+            );
+            assertTrue(consistentHash < ideal * 1.5, "ConsistentHash moved " + consistentHash);
+            assertTrue(consistentHash < hashCode);
+        }
+    }
+
+    private static double movedFraction(Supplier<RemoteClientSelector> selectorSupplier, int nodes) {
+        // One selector per cluster view, as every OAP node only sees the latest client list.
+        final RemoteClientSelector selectorBefore = selectorSupplier.get();
+        final RemoteClientSelector selectorAfter = selectorSupplier.get();
+        final List<RemoteClient> before = clients(nodes);
+        final List<RemoteClient> after = clients(nodes + 1);
+        final Address added = after.get(nodes).getAddress();
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            final StreamData data = data(i);
+            final Address from = selectorBefore.select(before, data).getAddress();
+            final Address to = selectorAfter.select(after, data).getAddress();
+            if (!from.equals(to)) {
+                moved++;
+                if (selectorAfter instanceof ConsistentHashSelector) {
+                    // Consistent hashing only moves the keys to the new node.
+                    assertEquals(added, to);
+                }
+            }
+        }
+        return (double) moved / KEYS;
+    }
+
+    private static List<RemoteClient> clients(int size) {
+        final List<RemoteClient> clients = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            clients.add(new MockRemoteClient(new Address("10.0.0." + (i + 1), 11800, false)));
+        }
+        return clients;
+    }
+
+    private static StreamData data(int i) {
+        final int hashCode = ("202410181010_" + "c2VydmljZQ==.1_" + i).hashCode();
+        return new StreamData() {
+            @Override
+            public int remoteHashCode() {
+                return hashCode;
+            }
+
+            @Override
+            public void deserialize(final RemoteDataView remoteData) {
+            }
+
+            @Override
+            public RemoteData.Builder serialize() {
+                return null;
+            }
+        };
+    }
+
+    @RequiredArgsConstructor
+    private static class MockRemoteClient implements RemoteClient {
+        private final Address address;
+
+        @Override
+        public Address getAddress() {
+            return address;
+        }
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void push(final String nextWorkerName, final StreamData streamData) {
+        }
+
+        @Override
+        public int compareTo(final RemoteClient o) {
+            return address.compareTo(o.getAddress());
+        }
+    }
+}
@@ -18,6 +18,7 @@
 
 package org.apache.skywalking.oap.server.core.storage;
 
+import java.util.List;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -43,4 +44,62 @@ public class StorageIDTest {
 
         Assertions.assertEquals(true, id.equals(id2));
     }
+
+    @Test
+    public void testLongHashCode() {
+        StorageID id = new StorageID();
+        id.append("time_bucket", 202212141438L)
+          .append("entity_id", "encoded-service-name");
+
+        StorageID id2 = new StorageID();
+        id2.append("time_bucket", 202212141438L)
+           .append("entity_id", "encoded-service-name");
+
+        StorageID id3 = new StorageID();
+        id3.append("time_bucket", 202212141439L)
+           .append("entity_id", "encoded-service-name");
+
+        Assertions.assertEquals(id.longHashCode(), id2.longHashCode());
+        Assertions.assertNotEquals(id.longHashCode(), id3.longHashCode());
+        Assertions.assertThrows(IllegalStateException.class, () -> id.append("name", "value"));
+    }
+
+    @Test
+    public void testNotEqual() {
+        StorageID id = new StorageID().append("time_bucket", 202212141438L).append("entity_id", "a");
+        Assertions.assertNotEquals(id, new StorageID().append("time_bucket", 202212141438L).append("entity_id", "b"));
+        Assertions.assertNotEquals(id, new StorageID().append("time_bucket", 202212141438L));
+        Assertions.assertNotEquals(id, new StorageID().append("time_bucket", 202212141438L).append("other", "a"));
+        Assertions.assertNotEquals(
+            new StorageID().append("value", 1L), new StorageID().append("value", 1));
+
+        StorageID mutant = new StorageID().appendMutant(new String[] {"time_bucket"}, 202212141438L)
+                                          .append("entity_id", "a");
+        Assertions.assertEquals(id, mutant);
+        Assertions.assertEquals(id.hashCode(), mutant.hashCode());
+    }
+
+    @Test
+    public void testRead() {
+        StorageID id = new StorageID().appendMutant(new String[] {"time_bucket"}, 202212141438L)
+                                      .append("entity_id", "encoded-service-name")
+                                      .appendMutant(null, "mutant")
+                                      .append("layer", 2);
+
+        List<StorageID.Fragment> fragments = id.read();
+        Assertions.assertEquals(4, fragments.size());
+        Assertions.assertArrayEquals(new String[] {"time_bucket"}, fragments.get(0).getName().get());
+        Assertions.assertEquals(Long.class, fragments.get(0).getType());
+        Assertions.assertTrue(fragments.get(0).isMutate());
+        Assertions.assertArrayEquals(new String[] {"entity_id"}, fragments.get(1).getName().get());
+        Assertions.assertEquals(String.class, fragments.get(1).getType());
+        Assertions.assertFalse(fragments.get(1).isMutate());
+        Assertions.assertFalse(fragments.get(2).getName().isPresent());
+        Assertions.assertTrue(fragments.get(2).isMutate());
+        Assertions.assertEquals(Integer.class, fragments.get(3).getType());
+        Assertions.assertEquals(2, fragments.get(3).getValue());
+
+        Assertions.assertEquals("202212141438_encoded-service-name_mutant_2", id.build());
+        Assertions.assertThrows(IllegalStateException.class, () -> id.append("name", "value"));
+    }
 }
@@ -18,6 +18,7 @@
 
 package org.apache.skywalking.oap.server.library.client.elasticsearch;
 
+import com.fasterxml.jackson.databind.JsonSerializable;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
@@ -41,6 +42,7 @@ import org.apache.skywalking.oap.server.library.util.StringUtil;
 import org.apache.skywalking.library.elasticsearch.ElasticSearch;
 import org.apache.skywalking.library.elasticsearch.ElasticSearchBuilder;
 import org.apache.skywalking.library.elasticsearch.ElasticSearchVersion;
+import org.apache.skywalking.library.elasticsearch.bulk.BulkListener;
 import org.apache.skywalking.library.elasticsearch.bulk.BulkProcessor;
 import org.apache.skywalking.library.elasticsearch.requests.search.Search;
 import org.apache.skywalking.library.elasticsearch.requests.search.SearchParams;
@@ -369,6 +371,22 @@ public class ElasticSearchClient implements Client, HealthCheckable {
         return new UpdateRequestWrapper(indexName, TYPE, id, source);
     }
 
+    /**
+     * Prepare the insert request of the bulk, whose document is written by the streaming generator.
+     */
+    public IndexRequestWrapper prepareInsert(String indexName, String id, JsonSerializable source) {
+        indexName = indexNameConverter.apply(indexName);
+        return new IndexRequestWrapper(indexName, TYPE, id, source);
+    }
+
+    /**
+     * Prepare the update request of the bulk, whose document is written by the streaming generator.
+     */
+    public UpdateRequestWrapper prepareUpdate(String indexName, String id, JsonSerializable source) {
+        indexName = indexNameConverter.apply(indexName);
+        return new UpdateRequestWrapper(indexName, TYPE, id, source);
+    }
+
     public BulkProcessor createBulkProcessor(int bulkActions,
                                              int flushInterval,
                                              int concurrentRequests,
@@ -381,6 +399,24 @@ public class ElasticSearchClient implements Client, HealthCheckable {
                             .build(es);
     }
 
+    public BulkProcessor createBulkProcessor(int bulkActions,
+                                             int flushInterval,
+                                             int concurrentRequests,
+                                             int batchOfBytes,
+                                             int maxRetries,
+                                             int retryQueueSize,
+                                             BulkListener listener) {
+        return BulkProcessor.builder()
+                            .bulkActions(bulkActions)
+                            .batchOfBytes(batchOfBytes)
+                            .flushInterval(Duration.ofSeconds(flushInterval))
+                            .concurrentRequests(concurrentRequests)
+                            .maxRetries(maxRetries)
+                            .retryQueueSize(retryQueueSize)
+                            .listener(listener)
+                            .build(es);
+    }
+
     public String formatIndexName(String indexName) {
         return indexNameConverter.apply(indexName);
     }
@@ -17,6 +17,7 @@
 
 package org.apache.skywalking.oap.server.library.client.elasticsearch;
 
+import com.fasterxml.jackson.databind.JsonSerializable;
 import java.util.Map;
 import java.util.Optional;
 
@@ -45,6 +46,19 @@ public class IndexRequestWrapper implements InsertRequest {
                               .build();
     }
 
+    /**
+     * @param source the document written by the streaming generator when the bulk is flushed.
+     */
+    public IndexRequestWrapper(String index, String type, String id,
+                               JsonSerializable source) {
+        request = IndexRequest.builder()
+                              .index(index)
+                              .type(type)
+                              .id(id)
+                              .source(source)
+                              .build();
+    }
+
     /**
      * Expose an empty constructor to lazy initialization.
      */
@@ -17,6 +17,7 @@
 
 package org.apache.skywalking.oap.server.library.client.elasticsearch;
 
+import com.fasterxml.jackson.databind.JsonSerializable;
 import java.util.Map;
 import lombok.Getter;
 import org.apache.skywalking.oap.server.library.client.request.UpdateRequest;
@@ -35,6 +36,19 @@ public class UpdateRequestWrapper implements UpdateRequest {
                                                                                     .build();
     }
 
+    /**
+     * @param source the document written by the streaming generator when the bulk is flushed.
+     */
+    public UpdateRequestWrapper(String index, String type, String id,
+                                JsonSerializable source) {
+        request = org.apache.skywalking.library.elasticsearch.requests.UpdateRequest.builder()
+                                                                                    .index(index)
+                                                                                    .type(type)
+                                                                                    .id(id)
+                                                                                    .source(source)
+                                                                                    .build();
+    }
+
     /**
      * Expose an empty constructor to lazy initialization.
      */
@@ -20,6 +20,7 @@ package org.apache.skywalking.oap.server.library.datacarrier;
 
 import java.util.Properties;
 import org.apache.skywalking.oap.server.library.datacarrier.buffer.BufferStrategy;
+import org.apache.skywalking.oap.server.library.datacarrier.buffer.BufferType;
 import org.apache.skywalking.oap.server.library.datacarrier.buffer.Channels;
 import org.apache.skywalking.oap.server.library.datacarrier.consumer.ConsumeDriver;
 import org.apache.skywalking.oap.server.library.datacarrier.consumer.ConsumerPool;
@@ -49,10 +50,22 @@ public class DataCarrier<T> {
     }
 
     public DataCarrier(String name, String envPrefix, int channelSize, int bufferSize, BufferStrategy strategy) {
+        this(name, envPrefix, channelSize, bufferSize, strategy, BufferType.ARRAY_BLOCKING_QUEUE);
+    }
+
+    /**
+     * @param bufferType the implementation of the queue in every channel, see {@link BufferType}.
+     */
+    public DataCarrier(String name,
+                       String envPrefix,
+                       int channelSize,
+                       int bufferSize,
+                       BufferStrategy strategy,
+                       BufferType bufferType) {
         this.name = name;
         bufferSize = EnvUtil.getInt(envPrefix + "_BUFFER_SIZE", bufferSize);
         channelSize = EnvUtil.getInt(envPrefix + "_CHANNEL_SIZE", channelSize);
-        channels = new Channels<>(channelSize, bufferSize, new SimpleRollingPartitioner<T>(), strategy);
+        channels = new Channels<>(channelSize, bufferSize, new SimpleRollingPartitioner<T>(), strategy, bufferType);
     }
 
     public DataCarrier(int channelSize, int bufferSize, BufferStrategy strategy) {
@@ -27,18 +27,33 @@ import org.apache.skywalking.oap.server.library.datacarrier.partition.IDataParti
 public class Channels<T> {
     private final QueueBuffer<T>[] bufferChannels;
     private IDataPartitioner<T> dataPartitioner;
+    private volatile ProduceListener produceListener;
     private final BufferStrategy strategy;
     private final long size;
 
     public Channels(int channelSize, int bufferSize, IDataPartitioner<T> partitioner, BufferStrategy strategy) {
+        this(channelSize, bufferSize, partitioner, strategy, BufferType.ARRAY_BLOCKING_QUEUE);
+    }
+
+    public Channels(int channelSize,
+                    int bufferSize,
+                    IDataPartitioner<T> partitioner,
+                    BufferStrategy strategy,
+                    BufferType bufferType) {
         this.dataPartitioner = partitioner;
         this.strategy = strategy;
         bufferChannels = new QueueBuffer[channelSize];
+        long size = 0;
         for (int i = 0; i < channelSize; i++) {
-            bufferChannels[i] = new ArrayBlockingQueueBuffer<>(bufferSize, strategy);
+            if (BufferType.MPSC_RING.equals(bufferType)) {
+                bufferChannels[i] = new MpscRingBuffer<>(bufferSize, strategy);
+            } else {
+                bufferChannels[i] = new ArrayBlockingQueueBuffer<>(bufferSize, strategy);
+            }
+            // The actual capacity, the ring buffer rounds it up to the next power of 2.
+            size += bufferChannels[i].getBufferSize();
         }
-        // noinspection PointlessArithmeticExpression
-        size = 1L * channelSize * bufferSize; // it's not pointless, it prevents numeric overflow before assigning an integer to a long
+        this.size = size;
     }
 
     public boolean save(T data) {
@@ -52,6 +67,10 @@ public class Channels<T> {
         }
         for (; retryCountDown > 0; retryCountDown--) {
             if (bufferChannels[index].save(data)) {
+                final ProduceListener listener = produceListener;
+                if (listener != null) {
+                    listener.onProduced();
+                }
                 return true;
             }
         }
@@ -62,6 +81,13 @@ public class Channels<T> {
         this.dataPartitioner = dataPartitioner;
     }
 
+    /**
+     * Set the listener notified after every successful {@link #save(Object)}, such as waking up the consumer thread.
+     */
+    public void setProduceListener(ProduceListener produceListener) {
+        this.produceListener = produceListener;
+    }
+
     /**
      * override the strategy at runtime. Notice, this will override several channels one by one. So, when running
      * setStrategy, each channel may use different BufferStrategy
@@ -83,6 +109,18 @@ public class Channels<T> {
         return size;
     }
 
+    /**
+     * @return true if all channels are empty. Only called by the consumer thread.
+     */
+    public boolean isEmpty() {
+        for (QueueBuffer<T> buffer : bufferChannels) {
+            if (!buffer.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public QueueBuffer<T> getBuffer(int index) {
         return this.bufferChannels[index];
     }
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.library.datacarrier.buffer;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded multi-producer/single-consumer ring buffer. Producers claim a slot through a CAS on the shared tail cursor
+ * and publish it by advancing the slot sequence, so {@link #save(Object)} never takes a lock. {@link #obtain(List)}
+ * must only be called by one consumer thread at a time, which is guaranteed by the consumer pool/driver as every
+ * channel is assigned to exactly one consumer thread.
+ * <p>
+ * The capacity is rounded up to the next power of 2.
+ */
+public class MpscRingBuffer<T> implements QueueBuffer<T> {
+    /**
+     * The tail cursor is stored in the middle of the array to avoid false sharing with the neighbour fields, same as
+     * {@link org.apache.skywalking.oap.server.library.datacarrier.common.AtomicRangeInteger}.
+     */
+    private static final int TAIL_OFFSET = 7;
+    private static final int SPIN_TRIES = 100;
+    private static final long PARK_NANOS = 100_000;
+
+    private volatile BufferStrategy strategy;
+    private final int bufferSize;
+    private final int mask;
+    private final Object[] elements;
+    /**
+     * The sequence of every slot. Sequence == position means the slot is writable for the producer claiming the
+     * position, sequence == position + 1 means the slot has been published and is readable.
+     */
+    private final AtomicLongArray sequences;
+    private final AtomicLongArray tail;
+    /**
+     * Only read and written by the consumer thread.
+     */
+    private long head;
+
+    MpscRingBuffer(int bufferSize, BufferStrategy strategy) {
+        this.strategy = strategy;
+        this.bufferSize = ceilingPowerOfTwo(bufferSize);
+        this.mask = this.bufferSize - 1;
+        this.elements = new Object[this.bufferSize];
+        this.sequences = new AtomicLongArray(this.bufferSize);
+        for (int i = 0; i < this.bufferSize; i++) {
+            sequences.set(i, i);
+        }
+        this.tail = new AtomicLongArray(TAIL_OFFSET * 2 + 1);
+        this.head = 0;
+    }
+
+    @Override
+    public boolean save(T data) {
+        int spins = 0;
+        long position = tail.get(TAIL_OFFSET);
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(TAIL_OFFSET, position, position + 1)) {
+                    elements[index] = data;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                // The ring is full, the slot has not been consumed since the last round.
+                if (BufferStrategy.IF_POSSIBLE.equals(strategy)) {
+                    return false;
+                }
+                if (spins++ < SPIN_TRIES) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                    if (Thread.interrupted()) {
+                        // Ignore the error, keep the same behavior as ArrayBlockingQueueBuffer
+                        return false;
+                    }
+                }
+            }
+            position = tail.get(TAIL_OFFSET);
+        }
+    }
+
+    @Override
+    public void setStrategy(BufferStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void obtain(List<T> consumeList) {
+        long position = head;
+        while (true) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                // Empty, or the producer claiming this slot hasn't published yet.
+                break;
+            }
+            consumeList.add((T) elements[index]);
+            elements[index] = null;
+            sequences.lazySet(index, position + bufferSize);
+            position++;
+        }
+        head = position;
+    }
+
+    /**
+     * The claimed but not published slots are regarded as data, as the producers claiming them are going to signal the
+     * consumer after publishing.
+     */
+    @Override
+    public boolean isEmpty() {
+        return tail.get(TAIL_OFFSET) == head;
+    }
+
+    @Override
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        if (value <= 1) {
+            return 1;
+        }
+        int highest = Integer.highestOneBit(value - 1) << 1;
+        if (highest <= 0) {
+            throw new IllegalArgumentException("Buffer size " + value + " is too large for the ring buffer");
+        }
+        return highest;
+    }
+}
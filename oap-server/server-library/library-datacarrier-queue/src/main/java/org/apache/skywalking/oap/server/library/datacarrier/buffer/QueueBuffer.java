@@ -42,5 +42,10 @@ public interface QueueBuffer<T> {
      */
     void obtain(List<T> consumeList);
 
+    /**
+     * @return true if there is no data to obtain. Only called by the consumer thread, same as {@link #obtain(List)}.
+     */
+    boolean isEmpty();
+
     int getBufferSize();
 }
@@ -21,6 +21,9 @@ package org.apache.skywalking.oap.server.library.datacarrier.consumer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.apache.skywalking.oap.server.library.datacarrier.EnvUtil;
 import org.apache.skywalking.oap.server.library.datacarrier.buffer.Channels;
 
@@ -29,16 +32,45 @@ import org.apache.skywalking.oap.server.library.datacarrier.buffer.Channels;
  * MultipleChannelsConsumer}s.
  * <p>
  * In typical case, the number of {@link MultipleChannelsConsumer} should be less than the number of channels.
+ * <p>
+ * The targets are assigned to the thread with the lowest payload when added. If the rebalance period is positive, the
+ * pool measures the consume time of every target in each period, and moves one target from the busiest thread to the
+ * idlest one when their loads differ by more than {@link #IMBALANCE_THRESHOLD}.
  */
 public class BulkConsumePool implements ConsumerPool {
+    /**
+     * The minimal difference between the busiest and idlest threads to trigger a move, as a ratio of the busiest load.
+     */
+    static final double IMBALANCE_THRESHOLD = 0.2;
+
+    private final String name;
     private List<MultipleChannelsConsumer> allConsumers;
     private volatile boolean isStarted = false;
+    private final long rebalancePeriod;
+    private ScheduledExecutorService rebalanceExecutor;
 
     public BulkConsumePool(String name, int size, long consumeCycle) {
+        this(name, size, consumeCycle, null);
+    }
+
+    /**
+     * @param monitor receives the statistics of all consumer threads in this pool, nullable.
+     */
+    public BulkConsumePool(String name, int size, long consumeCycle, ConsumeMonitor monitor) {
+        this(name, size, consumeCycle, monitor, 0);
+    }
+
+    /**
+     * @param monitor         receives the statistics of all consumer threads in this pool, nullable.
+     * @param rebalancePeriod in milliseconds, non-positive value disables the rebalancing.
+     */
+    public BulkConsumePool(String name, int size, long consumeCycle, ConsumeMonitor monitor, long rebalancePeriod) {
+        this.name = name;
+        this.rebalancePeriod = EnvUtil.getLong(name + "_REBALANCE_PERIOD", rebalancePeriod);
         size = EnvUtil.getInt(name + "_THREAD", size);
         allConsumers = new ArrayList<>(size);
         for (int i = 0; i < size; i++) {
-            MultipleChannelsConsumer multipleChannelsConsumer = new MultipleChannelsConsumer("DataCarrier." + name + ".BulkConsumePool." + i + ".Thread", consumeCycle);
+            MultipleChannelsConsumer multipleChannelsConsumer = new MultipleChannelsConsumer("DataCarrier." + name + ".BulkConsumePool." + i + ".Thread", consumeCycle, monitor);
             multipleChannelsConsumer.setDaemon(true);
             allConsumers.add(multipleChannelsConsumer);
         }
@@ -47,7 +79,7 @@ public class BulkConsumePool implements ConsumerPool {
     @Override
     synchronized public void add(String name, Channels channels, IConsumer consumer) {
         MultipleChannelsConsumer multipleChannelsConsumer = getLowestPayload();
-        multipleChannelsConsumer.addNewTarget(channels, consumer);
+        multipleChannelsConsumer.addNewTarget(name, channels, consumer);
     }
 
     /**
@@ -66,6 +98,66 @@ public class BulkConsumePool implements ConsumerPool {
         return winner;
     }
 
+    /**
+     * Move one target from the busiest consumer thread to the idlest one, based on the consume time since the last
+     * rebalance. The target whose load is closest to half of the difference is chosen, so the loads of both threads
+     * become closer after the move.
+     */
+    synchronized void rebalance() {
+        MultipleChannelsConsumer busiest = null;
+        MultipleChannelsConsumer idlest = null;
+        long maxLoad = Long.MIN_VALUE;
+        long minLoad = Long.MAX_VALUE;
+        List<long[]> loadsOfConsumers = new ArrayList<>(allConsumers.size());
+        for (MultipleChannelsConsumer consumer : allConsumers) {
+            final List<MultipleChannelsConsumer.Group> targets = consumer.getConsumeTargets();
+            final long[] loads = new long[targets.size()];
+            long load = 0;
+            for (int i = 0; i < targets.size(); i++) {
+                final MultipleChannelsConsumer.Group target = targets.get(i);
+                final long consumeNanos = target.consumeNanos;
+                loads[i] = consumeNanos - target.lastConsumeNanos;
+                target.lastConsumeNanos = consumeNanos;
+                load += loads[i];
+            }
+            loadsOfConsumers.add(loads);
+            if (load > maxLoad) {
+                maxLoad = load;
+                busiest = consumer;
+            }
+            if (load < minLoad) {
+                minLoad = load;
+                idlest = consumer;
+            }
+        }
+        if (busiest == null || busiest == idlest) {
+            return;
+        }
+        final long gap = maxLoad - minLoad;
+        if (gap <= maxLoad * IMBALANCE_THRESHOLD) {
+            return;
+        }
+
+        final List<MultipleChannelsConsumer.Group> targets = busiest.getConsumeTargets();
+        final long[] loads = loadsOfConsumers.get(allConsumers.indexOf(busiest));
+        MultipleChannelsConsumer.Group candidate = null;
+        long candidateDistance = Long.MAX_VALUE;
+        for (int i = 0; i < loads.length; i++) {
+            // Moving a target as heavy as the gap only swaps the busiest and the idlest.
+            if (loads[i] <= 0 || loads[i] >= gap) {
+                continue;
+            }
+            final long distance = Math.abs(gap / 2 - loads[i]);
+            if (distance < candidateDistance) {
+                candidateDistance = distance;
+                candidate = targets.get(i);
+            }
+        }
+        if (candidate != null) {
+            busiest.requestMove(candidate, idlest);
+        }
+    }
+
     /**
      *
      */
@@ -76,6 +168,9 @@ public class BulkConsumePool implements ConsumerPool {
 
     @Override
     public void close(Channels channels) {
+        if (rebalanceExecutor != null) {
+            rebalanceExecutor.shutdown();
+        }
         for (MultipleChannelsConsumer consumer : allConsumers) {
             consumer.shutdown();
         }
@@ -89,6 +184,15 @@ public class BulkConsumePool implements ConsumerPool {
         for (MultipleChannelsConsumer consumer : allConsumers) {
             consumer.start();
         }
+        if (rebalancePeriod > 0 && allConsumers.size() > 1) {
+            rebalanceExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "DataCarrier." + name + ".BulkConsumePool.Rebalance.Thread");
+                thread.setDaemon(true);
+                return thread;
+            });
+            rebalanceExecutor.scheduleWithFixedDelay(
+                this::rebalance, rebalancePeriod, rebalancePeriod, TimeUnit.MILLISECONDS);
+        }
         isStarted = true;
     }
 
@@ -96,19 +200,36 @@ public class BulkConsumePool implements ConsumerPool {
      * The creator for {@link BulkConsumePool}.
      */
     public static class Creator implements Callable<ConsumerPool> {
+        /**
+         * The recommended rebalance period in milliseconds, long enough to measure the load of the targets stably.
+         */
+        public static final long DEFAULT_REBALANCE_PERIOD = 30_000;
+
         private String name;
         private int size;
         private long consumeCycle;
+        private ConsumeMonitor monitor;
+        private long rebalancePeriod;
 
         public Creator(String name, int poolSize, long consumeCycle) {
+            this(name, poolSize, consumeCycle, null);
+        }
+
+        public Creator(String name, int poolSize, long consumeCycle, ConsumeMonitor monitor) {
+            this(name, poolSize, consumeCycle, monitor, 0);
+        }
+
+        public Creator(String name, int poolSize, long consumeCycle, ConsumeMonitor monitor, long rebalancePeriod) {
             this.name = name;
             this.size = poolSize;
             this.consumeCycle = consumeCycle;
+            this.monitor = monitor;
+            this.rebalancePeriod = rebalancePeriod;
         }
 
         @Override
         public ConsumerPool call() {
-            return new BulkConsumePool(name, size, consumeCycle);
+            return new BulkConsumePool(name, size, consumeCycle, monitor, rebalancePeriod);
         }
 
         public static int recommendMaxSize() {
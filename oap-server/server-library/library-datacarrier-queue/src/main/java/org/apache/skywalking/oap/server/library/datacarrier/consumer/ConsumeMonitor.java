@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.library.datacarrier.consumer;
+
+/**
+ * ConsumeMonitor receives the statistics of the {@link MultipleChannelsConsumer}s in a {@link BulkConsumePool}. It is
+ * called in the consumer threads, so the implementation must be thread safe and cheap.
+ */
+public interface ConsumeMonitor {
+    /**
+     * Report the ratio of the time the consumer thread spent on waiting for data in the last report period.
+     *
+     * @param threadName of the consumer thread.
+     * @param idleRatio  in [0, 1].
+     */
+    void onIdleRatio(String threadName, double idleRatio);
+
+    /**
+     * Report the latency of waking up a parked consumer thread, from the producer signal to the thread running again.
+     *
+     * @param threadName   of the consumer thread.
+     * @param latencyNanos of the wakeup.
+     */
+    void onWakeup(String threadName, long latencyNanos);
+
+    /**
+     * Report the ratio of the time the consumer thread spent on consuming data in the last report period.
+     *
+     * @param threadName  of the consumer thread.
+     * @param utilization in [0, 1].
+     */
+    default void onUtilization(String threadName, double utilization) {
+    }
+
+    /**
+     * Notify a target has been moved from one consumer thread to another by the rebalancing.
+     *
+     * @param targetName of the moved target.
+     * @param from       name of the source consumer thread.
+     * @param to         name of the destination consumer thread.
+     */
+    default void onTargetMoved(String targetName, String from, String to) {
+    }
+}
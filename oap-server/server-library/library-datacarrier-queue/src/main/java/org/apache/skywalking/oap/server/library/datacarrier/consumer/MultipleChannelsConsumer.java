@@ -20,24 +20,60 @@ package org.apache.skywalking.oap.server.library.datacarrier.consumer;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import org.apache.skywalking.oap.server.library.datacarrier.buffer.Channels;
 import org.apache.skywalking.oap.server.library.datacarrier.buffer.QueueBuffer;
 
 /**
  * MultipleChannelsConsumer represent a single consumer thread, but support multiple channels with their {@link
  * IConsumer}s
+ * <p>
+ * When a full pass finds no data, the thread waits adaptively: it spins for {@link #SPIN_ROUNDS} passes, then yields
+ * for {@link #YIELD_ROUNDS} passes, then parks for at most one consume cycle, so {@link IConsumer#nothingToConsume()}
+ * is still called once per cycle while the thread stays idle. The producers wake up the parked thread through
+ * {@link Channels#setProduceListener}, so new data doesn't wait for the park timeout.
+ * <p>
+ * The time spent on consuming every target is measured, {@link BulkConsumePool} uses it to move targets from the busy
+ * threads to the idle ones, see {@link #requestMove(Group, MultipleChannelsConsumer)}.
  */
 public class MultipleChannelsConsumer extends Thread {
+    private static final int SPIN_ROUNDS = 10;
+    private static final int YIELD_ROUNDS = 10;
+    private static final long REPORT_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(10);
+
     private volatile boolean running;
     private volatile ArrayList<Group> consumeTargets;
     @SuppressWarnings("NonAtomicVolatileUpdate")
     private volatile long size;
-    private final long consumeCycle;
+    private final long consumeCycleNanos;
+    private final ConsumeMonitor monitor;
+    /**
+     * True when the thread is parked or going to park, the producers only signal when it is true.
+     */
+    private volatile boolean parked;
+    /**
+     * The time of the first producer signal since the thread parked, 0 means no signal.
+     */
+    private final AtomicLong signalTime = new AtomicLong(0);
+    /**
+     * The move requested by the pool, executed by this thread between two passes.
+     */
+    private volatile Move pendingMove;
 
     public MultipleChannelsConsumer(String threadName, long consumeCycle) {
+        this(threadName, consumeCycle, null);
+    }
+
+    /**
+     * @param monitor receives the idle ratio and wakeup latency of this thread, nullable.
+     */
+    public MultipleChannelsConsumer(String threadName, long consumeCycle, ConsumeMonitor monitor) {
         super(threadName);
         this.consumeTargets = new ArrayList<>();
-        this.consumeCycle = consumeCycle;
+        this.consumeCycleNanos = TimeUnit.MILLISECONDS.toNanos(consumeCycle);
+        this.monitor = monitor;
     }
 
     @Override
@@ -45,18 +81,45 @@ public class MultipleChannelsConsumer extends Thread {
         running = true;
 
         final List consumeList = new ArrayList(2000);
+        int idleRounds = 0;
+        long idleNanos = 0;
+        long busyNanos = 0;
+        long reportStartTime = System.nanoTime();
         while (running) {
+            applyPendingMove();
+
             boolean hasData = false;
             for (Group target : consumeTargets) {
+                final long consumeStartTime = System.nanoTime();
                 boolean consumed = consume(target, consumeList);
+                if (consumed) {
+                    final long consumeNanos = System.nanoTime() - consumeStartTime;
+                    target.consumeNanos += consumeNanos;
+                    busyNanos += consumeNanos;
+                }
                 hasData = hasData || consumed;
             }
 
-            if (!hasData) {
-                try {
-                    Thread.sleep(consumeCycle);
-                } catch (InterruptedException e) {
+            if (hasData) {
+                idleRounds = 0;
+            } else {
+                final long waitStartTime = System.nanoTime();
+                waitForData(idleRounds);
+                if (idleRounds < SPIN_ROUNDS + YIELD_ROUNDS) {
+                    idleRounds++;
                 }
+                idleNanos += System.nanoTime() - waitStartTime;
+            }
+
+            final long now = System.nanoTime();
+            if (now - reportStartTime >= REPORT_PERIOD_NANOS) {
+                if (monitor != null) {
+                    monitor.onIdleRatio(getName(), (double) idleNanos / (now - reportStartTime));
+                    monitor.onUtilization(getName(), (double) busyNanos / (now - reportStartTime));
+                }
+                idleNanos = 0;
+                busyNanos = 0;
+                reportStartTime = now;
             }
         }
 
@@ -69,6 +132,52 @@ public class MultipleChannelsConsumer extends Thread {
         }
     }
 
+    /**
+     * Spin, then yield, then park until timeout or woken up by the producers.
+     *
+     * @param idleRounds the number of continuous passes without data before this one.
+     */
+    private void waitForData(int idleRounds) {
+        if (idleRounds < SPIN_ROUNDS) {
+            Thread.onSpinWait();
+            return;
+        }
+        if (idleRounds < SPIN_ROUNDS + YIELD_ROUNDS) {
+            Thread.yield();
+            return;
+        }
+        parked = true;
+        // Re-check the channels after publishing the flag. The data saved before the producer reads the flag is found
+        // here, and the producer reading the flag after this check signals the thread, so no signal is missed.
+        if (isEmpty()) {
+            LockSupport.parkNanos(this, consumeCycleNanos);
+        }
+        parked = false;
+
+        final long signalled = signalTime.getAndSet(0);
+        if (signalled != 0 && monitor != null) {
+            monitor.onWakeup(getName(), System.nanoTime() - signalled);
+        }
+    }
+
+    private boolean isEmpty() {
+        for (Group target : consumeTargets) {
+            if (!target.channels.isEmpty()) {
+                return false;
+            }
+        }
+        return pendingMove == null;
+    }
+
+    /**
+     * Called by the producers, wake up the thread if it is parked.
+     */
+    void wakeup() {
+        if (parked && signalTime.compareAndSet(0, System.nanoTime())) {
+            LockSupport.unpark(this);
+        }
+    }
+
     private boolean consume(Group target, List consumeList) {
         for (int i = 0; i < target.channels.getChannelSize(); i++) {
             QueueBuffer buffer = target.channels.getBuffer(i);
@@ -93,15 +202,68 @@ public class MultipleChannelsConsumer extends Thread {
      * Add a new target channels.
      */
     public void addNewTarget(Channels channels, IConsumer consumer) {
-        Group group = new Group(channels, consumer);
+        addNewTarget(null, channels, consumer);
+    }
+
+    /**
+     * Add a new target channels.
+     *
+     * @param name of the target, used in the statistics only.
+     */
+    public void addNewTarget(String name, Channels channels, IConsumer consumer) {
+        addTarget(new Group(name, channels, consumer));
+    }
+
+    private synchronized void addTarget(Group group) {
         // Recreate the new list to avoid change list while the list is used in consuming.
-        ArrayList<Group> newList = new ArrayList<>();
-        for (Group target : consumeTargets) {
-            newList.add(target);
-        }
+        ArrayList<Group> newList = new ArrayList<>(consumeTargets);
         newList.add(group);
         consumeTargets = newList;
-        size += channels.size();
+        size += group.channels.size();
+        group.channels.setProduceListener(this::wakeup);
+    }
+
+    private synchronized void removeTarget(Group group) {
+        ArrayList<Group> newList = new ArrayList<>(consumeTargets);
+        if (newList.remove(group)) {
+            consumeTargets = newList;
+            size -= group.channels.size();
+        }
+    }
+
+    /**
+     * Request to move the target to another consumer thread. The move is executed by this thread between two passes,
+     * so the target is never consumed by two threads at the same time.
+     *
+     * @return false if there is a move in progress already.
+     */
+    boolean requestMove(Group target, MultipleChannelsConsumer destination) {
+        if (pendingMove != null) {
+            return false;
+        }
+        pendingMove = new Move(target, destination);
+        LockSupport.unpark(this);
+        return true;
+    }
+
+    void applyPendingMove() {
+        final Move move = pendingMove;
+        if (move == null) {
+            return;
+        }
+        pendingMove = null;
+        if (!consumeTargets.contains(move.target)) {
+            return;
+        }
+        removeTarget(move.target);
+        move.destination.addTarget(move.target);
+        if (monitor != null) {
+            monitor.onTargetMoved(move.target.name, getName(), move.destination.getName());
+        }
+    }
+
+    List<Group> getConsumeTargets() {
+        return consumeTargets;
     }
 
     public long size() {
@@ -110,15 +272,41 @@ public class MultipleChannelsConsumer extends Thread {
 
     void shutdown() {
         running = false;
+        LockSupport.unpark(this);
     }
 
-    private static class Group {
-        private Channels channels;
-        private IConsumer consumer;
+    static class Group {
+        private final String name;
+        private final Channels channels;
+        private final IConsumer consumer;
+        /**
+         * The total time of consuming this target, only written by the owner thread.
+         */
+        @SuppressWarnings("NonAtomicVolatileUpdate")
+        volatile long consumeNanos;
+        /**
+         * The {@link #consumeNanos} at the last rebalance, only accessed by the pool.
+         */
+        long lastConsumeNanos;
 
-        public Group(Channels channels, IConsumer consumer) {
+        Group(String name, Channels channels, IConsumer consumer) {
+            this.name = name;
             this.channels = channels;
             this.consumer = consumer;
         }
+
+        String getName() {
+            return name;
+        }
+    }
+
+    private static class Move {
+        private final Group target;
+        private final MultipleChannelsConsumer destination;
+
+        private Move(Group target, MultipleChannelsConsumer destination) {
+            this.target = target;
+            this.destination = destination;
+        }
     }
 }
@@ -19,7 +19,9 @@
 package org.apache.skywalking.oap.server.library.datacarrier;
 
 import org.apache.skywalking.oap.server.library.datacarrier.buffer.BufferStrategy;
+import org.apache.skywalking.oap.server.library.datacarrier.buffer.BufferType;
 import org.apache.skywalking.oap.server.library.datacarrier.buffer.Channels;
+import org.apache.skywalking.oap.server.library.datacarrier.buffer.MpscRingBuffer;
 import org.apache.skywalking.oap.server.library.datacarrier.buffer.QueueBuffer;
 import org.apache.skywalking.oap.server.library.datacarrier.consumer.IConsumer;
 import org.apache.skywalking.oap.server.library.datacarrier.partition.ProducerThreadPartitioner;
@@ -44,6 +46,7 @@ public class DataCarrierTest {
 
         QueueBuffer<SampleData> buffer = channels.getBuffer(0);
         assertEquals(100, buffer.getBufferSize());
+        assertEquals(500, channels.size());
 
         assertEquals(Whitebox.getInternalState(buffer, "strategy"), BufferStrategy.IF_POSSIBLE);
         assertEquals(Whitebox.getInternalState(buffer, "strategy"), BufferStrategy.IF_POSSIBLE);
@@ -97,6 +100,28 @@ public class DataCarrierTest {
         assertEquals(200, result.size());
     }
 
+    @Test
+    public void testRingBufferProduce() {
+        DataCarrier<SampleData> carrier = new DataCarrier<>(
+            "DEFAULT", "DEFAULT", 2, 100, BufferStrategy.IF_POSSIBLE, BufferType.MPSC_RING);
+
+        Channels<SampleData> channels = Whitebox.getInternalState(carrier, "channels");
+        QueueBuffer<SampleData> buffer1 = channels.getBuffer(0);
+        assertEquals(MpscRingBuffer.class, buffer1.getClass());
+        assertEquals(128, buffer1.getBufferSize());
+        assertEquals(256, channels.size());
+
+        for (int i = 0; i < 256; i++) {
+            assertTrue(carrier.produce(new SampleData().setName("d" + i)));
+        }
+        Assertions.assertFalse(carrier.produce(new SampleData().setName("full")));
+
+        List<SampleData> result = new ArrayList<>();
+        buffer1.obtain(result);
+        channels.getBuffer(1).obtain(result);
+        assertEquals(256, result.size());
+    }
+
     @Test
     public void testBlockingProduce() {
         final DataCarrier<SampleData> carrier = new DataCarrier<>(2, 100);
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.library.datacarrier.buffer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import org.apache.skywalking.oap.server.library.datacarrier.SampleData;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MpscRingBufferTest {
+    @Test
+    public void testCapacity() {
+        assertEquals(128, new MpscRingBuffer<SampleData>(100, BufferStrategy.IF_POSSIBLE).getBufferSize());
+        assertEquals(128, new MpscRingBuffer<SampleData>(128, BufferStrategy.IF_POSSIBLE).getBufferSize());
+        assertEquals(1, new MpscRingBuffer<SampleData>(1, BufferStrategy.IF_POSSIBLE).getBufferSize());
+    }
+
+    @Test
+    public void testIfPossibleSave() {
+        MpscRingBuffer<SampleData> buffer = new MpscRingBuffer<>(64, BufferStrategy.IF_POSSIBLE);
+        for (int i = 0; i < 64; i++) {
+            assertTrue(buffer.save(new SampleData().setIntValue(i)));
+        }
+        assertFalse(buffer.save(new SampleData().setIntValue(64)));
+
+        List<SampleData> result = new ArrayList<>();
+        buffer.obtain(result);
+        assertEquals(64, result.size());
+        for (int i = 0; i < 64; i++) {
+            assertEquals(i, result.get(i).getIntValue());
+        }
+
+        // The slots are reusable after the drain.
+        result.clear();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(buffer.save(new SampleData().setIntValue(i)));
+        }
+        buffer.obtain(result);
+        assertEquals(10, result.size());
+        buffer.obtain(result);
+        assertEquals(10, result.size());
+    }
+
+    @Test
+    public void testIsEmpty() {
+        MpscRingBuffer<SampleData> buffer = new MpscRingBuffer<>(4, BufferStrategy.IF_POSSIBLE);
+        assertTrue(buffer.isEmpty());
+        assertTrue(buffer.save(new SampleData().setIntValue(0)));
+        assertFalse(buffer.isEmpty());
+
+        List<SampleData> result = new ArrayList<>();
+        buffer.obtain(result);
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void testMultipleProducers() throws InterruptedException {
+        final int producers = 8;
+        final int perProducer = 10_000;
+        final MpscRingBuffer<SampleData> buffer = new MpscRingBuffer<>(256, BufferStrategy.BLOCKING);
+        final CountDownLatch finished = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    buffer.save(new SampleData().setIntValue(producer * perProducer + i));
+                }
+                finished.countDown();
+            }).start();
+        }
+
+        Set<Integer> received = new HashSet<>();
+        List<SampleData> consumeList = new ArrayList<>();
+        while (received.size() < producers * perProducer) {
+            buffer.obtain(consumeList);
+            for (SampleData data : consumeList) {
+                assertTrue(received.add(data.getIntValue()));
+            }
+            consumeList.clear();
+        }
+        finished.await();
+        buffer.obtain(consumeList);
+        assertTrue(consumeList.isEmpty());
+    }
+}
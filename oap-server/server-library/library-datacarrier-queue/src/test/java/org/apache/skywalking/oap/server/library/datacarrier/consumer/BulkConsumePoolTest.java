@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.library.datacarrier.consumer;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.skywalking.oap.server.library.datacarrier.DataCarrier;
+import org.apache.skywalking.oap.server.library.datacarrier.SampleData;
+import org.apache.skywalking.oap.server.library.datacarrier.buffer.BufferStrategy;
+import org.apache.skywalking.oap.server.library.datacarrier.buffer.Channels;
+import org.apache.skywalking.oap.server.library.datacarrier.partition.SimpleRollingPartitioner;
+import org.junit.jupiter.api.Test;
+import org.powermock.reflect.Whitebox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BulkConsumePoolTest {
+    @Test
+    public void testWakeupParkedConsumer() throws InterruptedException {
+        final AtomicInteger wakeups = new AtomicInteger();
+        // The consume cycle is long enough, the data could only be consumed in time by the producer signal.
+        BulkConsumePool pool = new BulkConsumePool("wakeup-test-pool", 1, 60_000, new ConsumeMonitor() {
+            @Override
+            public void onIdleRatio(final String threadName, final double idleRatio) {
+            }
+
+            @Override
+            public void onWakeup(final String threadName, final long latencyNanos) {
+                assertTrue(latencyNanos >= 0);
+                wakeups.incrementAndGet();
+            }
+        });
+        final LinkedBlockingQueue<SampleData> consumed = new LinkedBlockingQueue<>();
+        // Every idle pass calls nothingToConsume, the thread parks in the pass after spinning and yielding.
+        final CountDownLatch idle = new CountDownLatch(20 + 1);
+        DataCarrier<SampleData> carrier = new DataCarrier<>(1, 100);
+        carrier.consume(pool, new IConsumer<SampleData>() {
+            @Override
+            public void consume(final List<SampleData> data) {
+                consumed.addAll(data);
+            }
+
+            @Override
+            public void nothingToConsume() {
+                idle.countDown();
+            }
+
+            @Override
+            public void onError(final List<SampleData> data, final Throwable t) {
+            }
+        });
+
+        // Wait for the consumer thread going through spin and yield, then parking.
+        assertTrue(idle.await(5, TimeUnit.SECONDS));
+        final List<MultipleChannelsConsumer> consumers = Whitebox.getInternalState(pool, "allConsumers");
+        while (consumers.get(0).getState() != Thread.State.TIMED_WAITING) {
+            Thread.yield();
+        }
+        assertTrue(carrier.produce(new SampleData().setName("a")));
+
+        SampleData data = consumed.poll(5, TimeUnit.SECONDS);
+        assertNotNull(data);
+        assertEquals("a", data.getName());
+        assertEquals(1, wakeups.get());
+
+        carrier.shutdownConsumers();
+    }
+
+    @Test
+    public void testRebalance() {
+        BulkConsumePool pool = new BulkConsumePool("rebalance-test-pool", 2, 20, null, 0);
+        for (String name : new String[] {"hot-1", "light", "hot-2", "warm"}) {
+            pool.add(name, new Channels<SampleData>(1, 10, new SimpleRollingPartitioner<>(), BufferStrategy.IF_POSSIBLE),
+                     new SampleConsumer()
+            );
+        }
+        List<MultipleChannelsConsumer> consumers = Whitebox.getInternalState(pool, "allConsumers");
+        MultipleChannelsConsumer first = consumers.get(0);
+        MultipleChannelsConsumer second = consumers.get(1);
+        // Assigned by the lowest payload, hot-1 and hot-2 share the first thread.
+        assertEquals(2, first.getConsumeTargets().size());
+        assertEquals("hot-1", first.getConsumeTargets().get(0).getName());
+        assertEquals("hot-2", first.getConsumeTargets().get(1).getName());
+
+        first.getConsumeTargets().get(0).consumeNanos = 1_000;
+        first.getConsumeTargets().get(1).consumeNanos = 900;
+        second.getConsumeTargets().get(0).consumeNanos = 10;
+        second.getConsumeTargets().get(1).consumeNanos = 300;
+
+        // gap = 1900 - 310 = 1590, hot-2 is the closest to gap / 2.
+        pool.rebalance();
+        first.applyPendingMove();
+        assertEquals(1, first.getConsumeTargets().size());
+        assertEquals("hot-1", first.getConsumeTargets().get(0).getName());
+        assertEquals(3, second.getConsumeTargets().size());
+        assertEquals("hot-2", second.getConsumeTargets().get(2).getName());
+        assertEquals(10, first.size());
+        assertEquals(30, second.size());
+
+        // The loads are even in the next period, nothing should be moved.
+        first.getConsumeTargets().get(0).consumeNanos += 1_000;
+        second.getConsumeTargets().get(0).consumeNanos += 10;
+        second.getConsumeTargets().get(1).consumeNanos += 300;
+        second.getConsumeTargets().get(2).consumeNanos += 900;
+        pool.rebalance();
+        first.applyPendingMove();
+        second.applyPendingMove();
+        assertEquals(1, first.getConsumeTargets().size());
+        assertEquals(3, second.getConsumeTargets().size());
+    }
+}
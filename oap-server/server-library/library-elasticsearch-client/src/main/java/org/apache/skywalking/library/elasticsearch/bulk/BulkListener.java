@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.library.elasticsearch.bulk;
+
+/**
+ * Observes the per-item outcome of the bulk requests, e.g. for the self-observability counters.
+ * The callbacks run in the HTTP client threads, they should be cheap and never block.
+ */
+public interface BulkListener {
+    BulkListener NOOP = new BulkListener() {
+        @Override
+        public void onItemRejected(final String index, final int status) {
+        }
+
+        @Override
+        public void onItemRetried(final String index) {
+        }
+    };
+
+    /**
+     * An item is rejected by ElasticSearch, whether it would be retried or not.
+     *
+     * @param index  the index of the rejected item.
+     * @param status the HTTP status of the item, e.g. 429 or 409.
+     */
+    void onItemRejected(String index, int status);
+
+    /**
+     * A rejected item is queued to send again.
+     *
+     * @param index the index of the retried item.
+     */
+    void onItemRetried(String index);
+}
@@ -17,35 +17,43 @@
 
 package org.apache.skywalking.library.elasticsearch.bulk;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.linecorp.armeria.common.HttpStatus;
-import com.linecorp.armeria.common.util.Exceptions;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.ByteBufUtil;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.library.elasticsearch.ElasticSearch;
+import org.apache.skywalking.library.elasticsearch.ElasticSearchVersion;
 import org.apache.skywalking.library.elasticsearch.requests.IndexRequest;
 import org.apache.skywalking.library.elasticsearch.requests.UpdateRequest;
 import org.apache.skywalking.library.elasticsearch.requests.factory.Codec;
 import org.apache.skywalking.library.elasticsearch.requests.factory.RequestFactory;
-import org.apache.skywalking.oap.server.library.util.CollectionUtils;
 import org.apache.skywalking.oap.server.library.util.RunnableWithExceptionProtection;
 
 import static java.util.Objects.requireNonNull;
 
 @Slf4j
 public final class BulkProcessor {
+    private static final long MAX_RETRY_BACKOFF_IN_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
     private final ArrayBlockingQueue<Holder> requests;
 
     private final AtomicReference<ElasticSearch> es;
@@ -54,6 +62,16 @@ public final class BulkProcessor {
     private final long flushInternalInMillis;
     private volatile long lastFlushTS = 0;
     private final int batchOfBytes;
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    private final int maxRetries;
+    private final long retryBackoffInMillis;
+    private final int retryQueueSize;
+    /**
+     * The number of items waiting in the scheduler to be sent again, bounded by {@link #retryQueueSize}.
+     */
+    private final AtomicInteger pendingRetries = new AtomicInteger();
+    private final BulkListener listener;
 
     public static BulkProcessorBuilder builder() {
         return new BulkProcessorBuilder();
@@ -63,16 +81,25 @@ public final class BulkProcessor {
                   final int bulkActions,
                   final Duration flushInterval,
                   final int concurrentRequests,
-                  final int batchOfBytes) {
+                  final int batchOfBytes,
+                  final int maxRetries,
+                  final Duration retryBackoff,
+                  final int retryQueueSize,
+                  final BulkListener listener) {
         requireNonNull(flushInterval, "flushInterval");
+        requireNonNull(retryBackoff, "retryBackoff");
 
         this.es = requireNonNull(es, "es");
         this.bulkActions = bulkActions;
         this.batchOfBytes = batchOfBytes;
         this.semaphore = new Semaphore(concurrentRequests > 0 ? concurrentRequests : 1);
         this.requests = new ArrayBlockingQueue<>(bulkActions + 1);
+        this.maxRetries = maxRetries;
+        this.retryBackoffInMillis = Math.max(retryBackoff.toMillis(), 1);
+        this.retryQueueSize = retryQueueSize;
+        this.listener = requireNonNull(listener, "listener");
 
-        final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+        this.scheduler = new ScheduledThreadPoolExecutor(1, r -> {
             final Thread thread = new Thread(r);
             thread.setName("ElasticSearch BulkProcessor");
             return thread;
@@ -148,66 +175,249 @@ public final class BulkProcessor {
         if (batch.isEmpty()) {
             return Collections.emptyList();
         }
+        final ElasticSearchVersion version;
         try {
-            int bufferOfBytes = 0;
-            Codec codec = es.get().version().get().codec();
-            final List<byte[]> bs = new ArrayList<>();
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
-            List<ByteBuf> byteBufList = new ArrayList<>();
-            for (final Holder holder : batch) {
-                byte[] bytes = codec.encode(holder.request);
-                bs.add(bytes);
-                bs.add("\n".getBytes());
-                bufferOfBytes += bytes.length + 1;
-                if (bufferOfBytes >= batchOfBytes) {
-                    final ByteBuf content = Unpooled.wrappedBuffer(bs.toArray(new byte[0][]));
-                    byteBufList.add(content);
-                    bs.clear();
-                    bufferOfBytes = 0;
-                }
+            version = es.get().version().get();
+        } catch (Exception e) {
+            log.error("Failed to execute requests in bulk", e);
+            batch.forEach(it -> it.future.completeExceptionally(e));
+            return Collections.emptyList();
+        }
+
+        // Write the requests into the pooled buffers directly, split by the batchOfBytes.
+        final Codec codec = version.codec();
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        ByteBuf content = null;
+        ByteBufOutputStream outputStream = null;
+        List<Holder> holders = new ArrayList<>();
+        for (final Holder holder : batch) {
+            if (content == null) {
+                content = ByteBufAllocator.DEFAULT.buffer();
+                outputStream = new ByteBufOutputStream(content);
             }
-            if (CollectionUtils.isNotEmpty(bs)) {
-                final ByteBuf content = Unpooled.wrappedBuffer(bs.toArray(new byte[0][]));
-                byteBufList.add(content);
+            final int writerIndex = content.writerIndex();
+            try {
+                if (holder.encoded != null) {
+                    // The retried request is sent as it was encoded, the source of it could have changed since then.
+                    content.writeBytes(holder.encoded);
+                } else {
+                    codec.encode(holder.request, outputStream);
+                    content.writeByte('\n');
+                }
+            } catch (Exception e) {
+                // Drop the partially written request.
+                content.writerIndex(writerIndex);
+                log.error("Failed to encode the request in bulk", e);
+                holder.future.completeExceptionally(e);
+                continue;
             }
-            for (final ByteBuf content : byteBufList) {
-                CompletableFuture<Void> future = es.get().version().thenCompose(v -> {
-                    try {
-                        final RequestFactory rf = v.requestFactory();
-                        return es.get().client().execute(rf.bulk().bulk(content)).aggregate().thenAccept(response -> {
-                            final HttpStatus status = response.status();
-                            if (status != HttpStatus.OK) {
-                                throw new RuntimeException(response.contentUtf8());
-                            }
-                        });
-                    } catch (Exception e) {
-                        return Exceptions.throwUnsafely(e);
-                    }
-                });
-                future.whenComplete((ignored, exception) -> {
-                    if (exception != null) {
-                        batch.stream().map(it -> it.future)
-                             .forEach(it -> it.completeExceptionally((Throwable) exception));
-                        log.error("Failed to execute requests in bulk", exception);
-                    } else {
-                        log.debug("Succeeded to execute {} requests in bulk", batch.size());
-                        batch.stream().map(it -> it.future).forEach(it -> it.complete(null));
-                    }
-                });
-                futures.add(future);
+            holder.offset = writerIndex;
+            holder.length = content.writerIndex() - writerIndex;
+            holders.add(holder);
+            if (content.readableBytes() >= batchOfBytes) {
+                futures.add(execute(version, content, holders));
+                content = null;
+                holders = new ArrayList<>();
             }
-            return futures;
+        }
+        if (!holders.isEmpty()) {
+            futures.add(execute(version, content, holders));
+        } else if (content != null) {
+            content.release();
+        }
+        return futures;
+    }
 
+    private CompletableFuture<Void> execute(final ElasticSearchVersion version,
+                                            final ByteBuf content,
+                                            final List<Holder> holders) {
+        CompletableFuture<Void> future;
+        // Hold the content until the response is handled, the rejected requests are copied from it to be retried.
+        content.retain();
+        try {
+            final RequestFactory rf = version.requestFactory();
+            future = es.get().client().execute(rf.bulk().bulk(content)).aggregate().thenAccept(response -> {
+                final HttpStatus status = response.status();
+                if (status == HttpStatus.TOO_MANY_REQUESTS) {
+                    // The whole bulk is pushed back, e.g. by the circuit breaker of the node.
+                    log.warn("{} requests in bulk are rejected with {}", holders.size(), status);
+                    holders.forEach(it -> listener.onItemRejected(it.index(), status.code()));
+                    retry(content, holders);
+                    return;
+                }
+                if (status != HttpStatus.OK) {
+                    throw new RuntimeException(response.contentUtf8());
+                }
+                final BulkResponse bulkResponse;
+                try (InputStream stream = response.content().toInputStream()) {
+                    bulkResponse = BulkResponse.parse(stream);
+                } catch (IOException e) {
+                    throw new RuntimeException(
+                        "Failed to parse the bulk response of " + holders.size() + " requests", e);
+                }
+                onBulkResponse(content, holders, bulkResponse);
+            });
         } catch (Exception e) {
-            log.error("Failed to execute requests in bulk", e);
-            return Collections.emptyList();
+            // The content is not sent.
+            if (content.refCnt() > 1) {
+                content.release();
+            }
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((ignored, exception) -> {
+            content.release();
+            if (exception != null) {
+                holders.stream().map(it -> it.future)
+                       .forEach(it -> it.completeExceptionally(exception));
+                log.error("Failed to execute requests in bulk", exception);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Complete the requests according to the items of the bulk response, which are in the same order of the requests.
+     * Only the items rejected due to the write pressure are sent again, the others fail individually.
+     */
+    private void onBulkResponse(final ByteBuf content, final List<Holder> holders, final BulkResponse bulkResponse) {
+        if (!bulkResponse.isErrors()) {
+            log.debug("Succeeded to execute {} requests in bulk", holders.size());
+            holders.forEach(it -> it.future.complete(null));
+            return;
+        }
+        final List<BulkResponse.Item> items = bulkResponse.getItems();
+        if (items.size() != holders.size()) {
+            final RuntimeException exception = new RuntimeException(
+                "Bulk response has " + items.size() + " items for " + holders.size() + " requests");
+            log.error("Failed to execute requests in bulk", exception);
+            holders.forEach(it -> it.future.completeExceptionally(exception));
+            return;
+        }
+        final List<Holder> retries = new ArrayList<>();
+        int failures = 0;
+        String firstError = null;
+        for (int i = 0; i < items.size(); i++) {
+            final BulkResponse.Item item = items.get(i);
+            final Holder holder = holders.get(i);
+            if (item.isSucceeded()) {
+                holder.future.complete(null);
+                continue;
+            }
+            listener.onItemRejected(holder.index(), item.getStatus());
+            if (item.isRetryable()) {
+                retries.add(holder);
+                continue;
+            }
+            failures++;
+            if (firstError == null) {
+                firstError = item.getError();
+            }
+            holder.future.completeExceptionally(new RuntimeException(
+                "Failed to execute request of index " + item.getIndex() + ", status " + item.getStatus()
+                    + ", error " + item.getError()));
+        }
+        if (failures > 0) {
+            log.error("{} of {} requests in bulk failed, the first error: {}", failures, holders.size(), firstError);
+        }
+        if (!retries.isEmpty()) {
+            log.warn("{} of {} requests in bulk are rejected, retry them", retries.size(), holders.size());
+            retry(content, retries);
+        }
+    }
+
+    /**
+     * Send the rejected requests again after the exponential backoff. The requests exceeding the max retries, or
+     * overflowing the retry queue, fail immediately rather than holding the memory under the long-term pressure.
+     * The requests are retried as the bytes they were sent in the content, rather than being encoded again.
+     */
+    private void retry(final ByteBuf content, final List<Holder> holders) {
+        final List<Holder> batch = new ArrayList<>(holders.size());
+        int attempts = 0;
+        for (final Holder holder : holders) {
+            if (holder.attempts >= maxRetries) {
+                holder.future.completeExceptionally(new RuntimeException(
+                    "Request of index " + holder.index() + " is still rejected after " + maxRetries + " retries"));
+                continue;
+            }
+            if (pendingRetries.incrementAndGet() > retryQueueSize) {
+                pendingRetries.decrementAndGet();
+                holder.future.completeExceptionally(new RuntimeException(
+                    "Request of index " + holder.index() + " is rejected and the retry queue is full"));
+                continue;
+            }
+            if (holder.encoded == null) {
+                holder.encoded = ByteBufUtil.getBytes(content, holder.offset, holder.length);
+            }
+            holder.attempts++;
+            attempts = Math.max(attempts, holder.attempts);
+            listener.onItemRetried(holder.index());
+            batch.add(holder);
+        }
+        if (batch.isEmpty()) {
+            return;
         }
+        scheduleRetry(batch, Math.min(
+            retryBackoffInMillis << Math.min(attempts - 1, 16), MAX_RETRY_BACKOFF_IN_MILLIS));
+    }
+
+    private void scheduleRetry(final List<Holder> batch, final long delay) {
+        try {
+            scheduler.schedule(
+                new RunnableWithExceptionProtection(
+                    () -> doRetry(batch),
+                    t -> log.error("retry bulk requests to ES failure:", t)
+                ), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            pendingRetries.addAndGet(-batch.size());
+            batch.forEach(it -> it.future.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Runs in the scheduler thread, which must not be blocked by the bulks in flight. The retry is scheduled again
+     * after the backoff, if all concurrent requests are in flight.
+     */
+    private void doRetry(final List<Holder> batch) {
+        if (!semaphore.tryAcquire()) {
+            scheduleRetry(batch, retryBackoffInMillis);
+            return;
+        }
+        pendingRetries.addAndGet(-batch.size());
+        log.debug("Retrying bulk with {} requests", batch.size());
+        final List<CompletableFuture<Void>> futures = doFlush(batch);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()]))
+                         .whenComplete((v, t) -> semaphore.release());
+    }
+
+    @VisibleForTesting
+    int pendingRetries() {
+        return pendingRetries.get();
     }
 
     @RequiredArgsConstructor
     static class Holder {
         private final CompletableFuture<Void> future;
         private final Object request;
+        /**
+         * The times this request has been sent again.
+         */
+        private int attempts;
+        /**
+         * The range of this request in the content it was sent in last time.
+         */
+        private int offset;
+        private int length;
+        /**
+         * The bytes this request was encoded to, kept once it is rejected, to be retried as it was sent.
+         */
+        private byte[] encoded;
+
+        String index() {
+            if (request instanceof IndexRequest) {
+                return ((IndexRequest) request).getIndex();
+            }
+            return ((UpdateRequest) request).getIndex();
+        }
     }
 
 }
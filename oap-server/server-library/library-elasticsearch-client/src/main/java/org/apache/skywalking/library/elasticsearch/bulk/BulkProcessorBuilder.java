@@ -33,6 +33,10 @@ public final class BulkProcessorBuilder {
     private Duration flushInterval;
     private int concurrentRequests = 2;
     private int batchOfBytes;
+    private int maxRetries = 3;
+    private Duration retryBackoff = Duration.ofMillis(500);
+    private int retryQueueSize = 10000;
+    private BulkListener listener = BulkListener.NOOP;
 
     public BulkProcessorBuilder bulkActions(int bulkActions) {
         checkArgument(bulkActions > 0, "bulkActions must be positive");
@@ -57,8 +61,33 @@ public final class BulkProcessorBuilder {
         return this;
     }
 
+    public BulkProcessorBuilder maxRetries(int maxRetries) {
+        checkArgument(maxRetries >= 0, "maxRetries must be >= 0");
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    public BulkProcessorBuilder retryBackoff(Duration retryBackoff) {
+        requireNonNull(retryBackoff, "retryBackoff");
+        checkArgument(!retryBackoff.isNegative() && !retryBackoff.isZero(), "retryBackoff must be positive");
+        this.retryBackoff = retryBackoff;
+        return this;
+    }
+
+    public BulkProcessorBuilder retryQueueSize(int retryQueueSize) {
+        checkArgument(retryQueueSize >= 0, "retryQueueSize must be >= 0");
+        this.retryQueueSize = retryQueueSize;
+        return this;
+    }
+
+    public BulkProcessorBuilder listener(BulkListener listener) {
+        this.listener = requireNonNull(listener, "listener");
+        return this;
+    }
+
     public BulkProcessor build(AtomicReference<ElasticSearch> es) {
         return new BulkProcessor(
-            es, bulkActions, flushInterval, concurrentRequests, batchOfBytes);
+            es, bulkActions, flushInterval, concurrentRequests, batchOfBytes,
+            maxRetries, retryBackoff, retryQueueSize, listener);
     }
 }
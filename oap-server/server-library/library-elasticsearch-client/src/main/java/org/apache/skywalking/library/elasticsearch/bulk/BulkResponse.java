@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.library.elasticsearch.bulk;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The result of a {@code _bulk} request, parsed in a streaming way. The items are only read when the response reports
+ * {@code "errors": true}, so the common all-succeeded response costs a few tokens.
+ */
+@Getter
+@RequiredArgsConstructor
+final class BulkResponse {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final BulkResponse NO_ERRORS = new BulkResponse(false, Collections.emptyList());
+
+    private final boolean errors;
+    /**
+     * The items in the same order of the actions in the request, empty if {@link #errors} is false.
+     */
+    private final List<Item> items;
+
+    static BulkResponse parse(final InputStream content) throws IOException {
+        try (JsonParser parser = MAPPER.getFactory().createParser(content)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected bulk response, object expected");
+            }
+            boolean errors = true;
+            List<Item> items = Collections.emptyList();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "errors":
+                        errors = parser.getBooleanValue();
+                        if (!errors) {
+                            return NO_ERRORS;
+                        }
+                        break;
+                    case "items":
+                        items = parseItems(parser);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            return new BulkResponse(errors, items);
+        }
+    }
+
+    private static List<Item> parseItems(final JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new IOException("Unexpected bulk response, items array expected");
+        }
+        final List<Item> items = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            // {"index": {...}} or {"update": {...}}, the action name is not needed.
+            Item item = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                parser.nextToken();
+                if (item == null && parser.currentToken() == JsonToken.START_OBJECT) {
+                    item = parseItem(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (item == null) {
+                throw new IOException("Unexpected bulk response, empty item");
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static Item parseItem(final JsonParser parser) throws IOException {
+        String index = null;
+        int status = 0;
+        String error = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "_index":
+                    index = parser.getText();
+                    break;
+                case "status":
+                    status = parser.getIntValue();
+                    break;
+                case "error":
+                    error = parser.currentToken() == JsonToken.START_OBJECT
+                        ? parser.readValueAsTree().toString() : parser.getText();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return new Item(index, status, error);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    static final class Item {
+        private final String index;
+        private final int status;
+        private final String error;
+
+        boolean isSucceeded() {
+            return status >= 200 && status < 300;
+        }
+
+        /**
+         * The item is rejected due to the write pressure, e.g. the write thread pool queue of the shard is full, and
+         * is worth sending again.
+         */
+        boolean isRetryable() {
+            return status == 429;
+        }
+    }
+}
@@ -17,6 +17,7 @@
 
 package org.apache.skywalking.library.elasticsearch.requests;
 
+import com.fasterxml.jackson.databind.JsonSerializable;
 import java.util.Map;
 import java.util.Optional;
 
@@ -37,4 +38,9 @@ public final class IndexRequest {
     @Builder.Default
     private final Optional<String> routing = Optional.empty();
     private final Map<String, ?> doc;
+    /**
+     * The document written by the streaming generator directly, instead of the {@link #doc}. It is only supported in
+     * the bulk requests, and written when the bulk is flushed.
+     */
+    private final JsonSerializable source;
 }
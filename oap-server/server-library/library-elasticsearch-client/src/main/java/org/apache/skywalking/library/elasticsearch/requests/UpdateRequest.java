@@ -17,6 +17,7 @@
 
 package org.apache.skywalking.library.elasticsearch.requests;
 
+import com.fasterxml.jackson.databind.JsonSerializable;
 import java.util.Map;
 import lombok.Builder;
 import lombok.Getter;
@@ -30,4 +31,9 @@ public final class UpdateRequest {
     private final String type;
     private final String id;
     private final Map<String, Object> doc;
+    /**
+     * The document written by the streaming generator directly, instead of the {@link #doc}. It is only supported in
+     * the bulk requests, and written when the bulk is flushed.
+     */
+    private final JsonSerializable source;
 }
@@ -18,11 +18,13 @@
 package org.apache.skywalking.library.elasticsearch.requests.factory.v6.codec;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import java.io.InputStream;
+import java.io.OutputStream;
 import org.apache.skywalking.library.elasticsearch.requests.IndexRequest;
 import org.apache.skywalking.library.elasticsearch.requests.UpdateRequest;
 import org.apache.skywalking.library.elasticsearch.requests.factory.Codec;
@@ -72,6 +74,15 @@ public final class V6Codec implements Codec {
         return MAPPER.writeValueAsBytes(request);
     }
 
+    @Override
+    public void encode(final Object request, final OutputStream outputStream) throws Exception {
+        try (JsonGenerator generator = MAPPER.getFactory()
+                                             .createGenerator(outputStream)
+                                             .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            MAPPER.writeValue(generator, request);
+        }
+    }
+
     @Override
     public <T> T decode(final InputStream inputStream,
                         final TypeReference<T> type) throws Exception {
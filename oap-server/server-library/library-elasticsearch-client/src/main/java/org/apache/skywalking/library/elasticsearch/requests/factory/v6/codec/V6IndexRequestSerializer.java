@@ -46,6 +46,10 @@ final class V6IndexRequestSerializer extends JsonSerializer<IndexRequest> {
         }
         gen.writeEndObject();
 
-        gen.writeObject(value.getDoc());
+        if (value.getSource() != null) {
+            gen.writeObject(value.getSource());
+        } else {
+            gen.writeObject(value.getDoc());
+        }
     }
 }
@@ -46,7 +46,11 @@ final class V7UpdateRequestSerializer extends JsonSerializer<UpdateRequest> {
         gen.writeStartObject();
         {
             gen.writeFieldName("doc");
-            gen.writeObject(value.getDoc());
+            if (value.getSource() != null) {
+                gen.writeObject(value.getSource());
+            } else {
+                gen.writeObject(value.getDoc());
+            }
         }
         gen.writeEndObject();
     }
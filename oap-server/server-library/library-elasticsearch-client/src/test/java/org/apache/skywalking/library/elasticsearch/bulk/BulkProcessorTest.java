@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.library.elasticsearch.bulk;
+
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.junit5.server.ServerExtension;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+import org.apache.skywalking.library.elasticsearch.ElasticSearch;
+import org.apache.skywalking.library.elasticsearch.requests.IndexRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BulkProcessorTest {
+    private static final String INDEX = "sw_metrics-all-20240901";
+
+    /**
+     * The bodies of the bulks received by the stub ElasticSearch server, in order.
+     */
+    private static final List<String> BULKS = new CopyOnWriteArrayList<>();
+    /**
+     * Responds to the n-th (1-based) bulk received by the stub ElasticSearch server.
+     */
+    private static volatile IntFunction<AggregatedHttpResponse> BULK_HANDLER;
+
+    @RegisterExtension
+    public static final ServerExtension SERVER = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder sb) {
+            sb.service("/", (ctx, req) -> HttpResponse.of(
+                HttpStatus.OK, MediaType.JSON_UTF_8, "{\"version\":{\"number\":\"8.9.0\"}}"));
+            sb.service("/_cluster/health", (ctx, req) -> HttpResponse.of(HttpStatus.OK));
+            sb.service("/_bulk", (ctx, req) -> HttpResponse.from(
+                req.aggregate().thenApply(r -> {
+                    BULKS.add(r.contentUtf8());
+                    return BULK_HANDLER.apply(BULKS.size()).toHttpResponse();
+                }))
+            );
+        }
+    };
+
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final AtomicInteger retried = new AtomicInteger();
+    private final BulkListener listener = new BulkListener() {
+        @Override
+        public void onItemRejected(final String index, final int status) {
+            rejected.incrementAndGet();
+        }
+
+        @Override
+        public void onItemRetried(final String index) {
+            retried.incrementAndGet();
+        }
+    };
+
+    private ElasticSearch es;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        BULKS.clear();
+        es = ElasticSearch.builder().endpoints("127.0.0.1:" + SERVER.httpPort()).build();
+        es.connect().get(10, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        es.close();
+    }
+
+    @Test
+    public void rejectedItemsShouldBeRetriedWithTheSameBytes() throws Exception {
+        BULK_HANDLER = n -> n == 1 ? items(201, 429) : items(201);
+        final BulkProcessor processor = processor(3, 10);
+
+        final Map<String, Object> doc = new HashMap<>();
+        doc.put("value", 1);
+        final CompletableFuture<Void> succeeded = processor.add(request("1", new HashMap<>(doc)));
+        final CompletableFuture<Void> retriedOne = processor.add(request("2", doc));
+        processor.flush();
+        // The rejected request is sent as it was encoded, whatever its source turns into later.
+        doc.put("value", 2);
+
+        succeeded.get(10, TimeUnit.SECONDS);
+        retriedOne.get(10, TimeUnit.SECONDS);
+        assertThat(BULKS).hasSize(2);
+        final String[] lines = BULKS.get(0).split("\n");
+        assertThat(lines).hasSize(4);
+        assertThat(BULKS.get(1)).isEqualTo(lines[2] + "\n" + lines[3] + "\n");
+        assertThat(rejected).hasValue(1);
+        assertThat(retried).hasValue(1);
+        await().atMost(Duration.ofSeconds(10)).until(() -> processor.pendingRetries() == 0);
+    }
+
+    @Test
+    public void rejectedBulkShouldBeRetried() throws Exception {
+        BULK_HANDLER = n -> n == 1
+            ? AggregatedHttpResponse.of(HttpStatus.TOO_MANY_REQUESTS)
+            : items(201, 201);
+        final BulkProcessor processor = processor(3, 10);
+
+        final CompletableFuture<Void> first = processor.add(request("1", Map.of("value", 1)));
+        final CompletableFuture<Void> second = processor.add(request("2", Map.of("value", 2)));
+        processor.flush();
+
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+        assertThat(BULKS).hasSize(2);
+        assertThat(BULKS.get(1)).isEqualTo(BULKS.get(0));
+        assertThat(rejected).hasValue(2);
+        assertThat(retried).hasValue(2);
+    }
+
+    @Test
+    public void rejectedItemsShouldFailAfterMaxRetries() {
+        BULK_HANDLER = n -> items(429);
+        final BulkProcessor processor = processor(2, 10);
+
+        final CompletableFuture<Void> future = processor.add(request("1", Map.of("value", 1)));
+        processor.flush();
+
+        final ExecutionException e = assertThrows(
+            ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertThat(e.getCause()).hasMessageContaining("after 2 retries");
+        assertThat(BULKS).hasSize(3);
+        assertThat(rejected).hasValue(3);
+        assertThat(retried).hasValue(2);
+        assertThat(processor.pendingRetries()).isZero();
+    }
+
+    @Test
+    public void overflowedRetriesShouldFailFast() throws Exception {
+        BULK_HANDLER = n -> n == 1 ? items(429, 429, 429) : items(201);
+        final BulkProcessor processor = processor(3, 1);
+
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(processor.add(request(String.valueOf(i), Map.of("value", i))));
+        }
+        processor.flush();
+
+        // Only the first rejected request fits in the retry queue, the others fail without waiting for the backoff.
+        assertThat(futures.get(1)).isCompletedExceptionally();
+        assertThat(futures.get(2)).isCompletedExceptionally();
+        futures.get(0).get(10, TimeUnit.SECONDS);
+        assertThat(BULKS).hasSize(2);
+        assertThat(retried).hasValue(1);
+        await().atMost(Duration.ofSeconds(10)).until(() -> processor.pendingRetries() == 0);
+    }
+
+    @Test
+    public void nonRetryableItemsShouldFailWithoutRetry() throws Exception {
+        BULK_HANDLER = n -> items(201, 409);
+        final BulkProcessor processor = processor(3, 10);
+
+        final CompletableFuture<Void> succeeded = processor.add(request("1", Map.of("value", 1)));
+        final CompletableFuture<Void> conflicted = processor.add(request("2", Map.of("value", 2)));
+        processor.flush();
+
+        succeeded.get(10, TimeUnit.SECONDS);
+        final ExecutionException e = assertThrows(
+            ExecutionException.class, () -> conflicted.get(10, TimeUnit.SECONDS));
+        assertThat(e.getCause()).hasMessageContaining("status 409");
+        assertThat(BULKS).hasSize(1);
+        assertThat(rejected).hasValue(1);
+        assertThat(retried).hasValue(0);
+        assertThat(processor.pendingRetries()).isZero();
+    }
+
+    private BulkProcessor processor(final int maxRetries, final int retryQueueSize) {
+        return BulkProcessor.builder()
+                            .bulkActions(100)
+                            .batchOfBytes(1024 * 1024)
+                            .flushInterval(Duration.ofSeconds(60))
+                            .concurrentRequests(2)
+                            .maxRetries(maxRetries)
+                            .retryBackoff(Duration.ofMillis(10))
+                            .retryQueueSize(retryQueueSize)
+                            .listener(listener)
+                            .build(new AtomicReference<>(es));
+    }
+
+    private static IndexRequest request(final String id, final Map<String, ?> doc) {
+        return IndexRequest.builder().index(INDEX).type("_doc").id(id).doc(doc).build();
+    }
+
+    /**
+     * A bulk response with one item of each status.
+     */
+    private static AggregatedHttpResponse items(final int... statuses) {
+        final StringBuilder content = new StringBuilder("{\"took\":1,\"errors\":");
+        boolean errors = false;
+        for (final int status : statuses) {
+            errors |= status >= 300;
+        }
+        content.append(errors).append(",\"items\":[");
+        for (int i = 0; i < statuses.length; i++) {
+            if (i > 0) {
+                content.append(',');
+            }
+            content.append("{\"index\":{\"_index\":\"").append(INDEX).append("\",\"_id\":\"").append(i)
+                   .append("\",\"status\":").append(statuses[i]);
+            if (statuses[i] >= 300) {
+                content.append(",\"error\":{\"type\":\"rejected\",\"reason\":\"rejected\"}");
+            }
+            content.append("}}");
+        }
+        content.append("]}");
+        return AggregatedHttpResponse.of(HttpStatus.OK, MediaType.JSON_UTF_8, content.toString());
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.library.elasticsearch.bulk;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BulkResponseTest {
+    @Test
+    public void itemsShouldBeSkippedWithoutErrors() throws IOException {
+        final BulkResponse response = parse(
+            "{\"took\":30,\"errors\":false,\"items\":[{\"index\":{\"_index\":\"sw_metrics-all-20240901\","
+                + "\"_id\":\"1\",\"status\":201}}]}");
+        assertThat(response.isErrors()).isFalse();
+        assertThat(response.getItems()).isEmpty();
+    }
+
+    @Test
+    public void itemsShouldBeParsedInOrderWithErrors() throws IOException {
+        final BulkResponse response = parse(
+            "{\"took\":30,\"errors\":true,\"items\":["
+                + "{\"index\":{\"_index\":\"sw_metrics-all-20240901\",\"_id\":\"1\",\"_version\":1,"
+                + "\"_shards\":{\"total\":2,\"successful\":1,\"failed\":0},\"status\":201}},"
+                + "{\"update\":{\"_index\":\"sw_metrics-all-20240901\",\"_id\":\"2\",\"status\":429,"
+                + "\"error\":{\"type\":\"es_rejected_execution_exception\",\"reason\":\"rejected\"}}},"
+                + "{\"update\":{\"_index\":\"sw_records-all-20240901\",\"_id\":\"3\",\"status\":409,"
+                + "\"error\":{\"type\":\"version_conflict_engine_exception\"}}}"
+                + "]}");
+        assertThat(response.isErrors()).isTrue();
+        assertThat(response.getItems()).hasSize(3);
+
+        final BulkResponse.Item succeeded = response.getItems().get(0);
+        assertThat(succeeded.isSucceeded()).isTrue();
+        assertThat(succeeded.getIndex()).isEqualTo("sw_metrics-all-20240901");
+        assertThat(succeeded.getError()).isNull();
+
+        final BulkResponse.Item rejected = response.getItems().get(1);
+        assertThat(rejected.isSucceeded()).isFalse();
+        assertThat(rejected.isRetryable()).isTrue();
+        assertThat(rejected.getError()).contains("es_rejected_execution_exception");
+
+        final BulkResponse.Item conflicted = response.getItems().get(2);
+        assertThat(conflicted.isSucceeded()).isFalse();
+        assertThat(conflicted.isRetryable()).isFalse();
+        assertThat(conflicted.getIndex()).isEqualTo("sw_records-all-20240901");
+        assertThat(conflicted.getStatus()).isEqualTo(409);
+    }
+
+    @Test
+    public void malformedResponseShouldBeRejected() {
+        assertThrows(IOException.class, () -> parse("[]"));
+    }
+
+    private static BulkResponse parse(final String content) throws IOException {
+        return BulkResponse.parse(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -32,4 +32,18 @@ public class GraphQLQueryConfig extends ModuleConfig {
     private int maxQueryComplexity = 1000;
     private boolean enableUpdateUITemplate = false;
     private boolean enableOnDemandPodLog = false;
+    /**
+     * The max number of the compiled MQE expressions in the cache, 0 means no cache.
+     *
+     * @since 10.1.0
+     */
+    private long mqePlanCacheSize = 1000;
+    /**
+     * The number of threads reading the metrics of an MQE expression in parallel, shared by all queries. The metrics are
+     * read in the query thread when the threads are busy and their queue is full. 0 means reading the metrics one by
+     * one in the query thread.
+     *
+     * @since 10.1.0
+     */
+    private int mqeQueryThreads = 4;
 }
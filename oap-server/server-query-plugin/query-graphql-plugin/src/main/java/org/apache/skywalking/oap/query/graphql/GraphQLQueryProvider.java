@@ -93,6 +93,8 @@ public class GraphQLQueryProvider extends ModuleProvider {
     @Override
     public void prepare() throws ServiceNotProvidedException {
         final MetadataQueryV2 metadataQueryV2 = new MetadataQueryV2(getManager());
+        final MetricsExpressionQuery metricsExpressionQuery = new MetricsExpressionQuery(getManager(), config);
+        Runtime.getRuntime().addShutdownHook(new Thread(metricsExpressionQuery::shutdown, "MQEQuery-shutdown"));
         schemaBuilder.file("query-protocol/common.graphqls")
                      .resolvers(new Query(), new Mutation(), new HealthQuery(getManager()))
                      .file("query-protocol/metadata.graphqls")
@@ -106,7 +108,7 @@ public class GraphQLQueryProvider extends ModuleProvider {
                       * manipulate metrics data in the query stage.
                       */
                      .file("query-protocol/metrics-v3.graphqls")
-                     .resolvers(new MetricsExpressionQuery(getManager()))
+                     .resolvers(metricsExpressionQuery)
                      ////////
                      //Deprecated Queries
                      ////////
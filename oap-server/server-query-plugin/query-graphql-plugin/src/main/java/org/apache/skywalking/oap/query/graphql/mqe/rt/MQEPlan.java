@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.query.graphql.mqe.rt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.Getter;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.apache.skywalking.mqe.rt.exception.ParseErrorListener;
+import org.apache.skywalking.mqe.rt.grammar.MQELexer;
+import org.apache.skywalking.mqe.rt.grammar.MQEParser;
+
+/**
+ * MQEPlan is the compiled expression, including the parse tree and the metric leaves of it, or the parse error. The
+ * parse tree is read-only in the {@link MQEVisitor}, so the plan could be shared by the concurrent queries of the same
+ * expression.
+ */
+@Getter
+public class MQEPlan {
+    private final ParseTree tree;
+    /**
+     * The metrics to read from the storage, independent of each other.
+     */
+    private final List<MQEParser.MetricContext> metrics;
+    private final String error;
+
+    private MQEPlan(final ParseTree tree, final List<MQEParser.MetricContext> metrics, final String error) {
+        this.tree = tree;
+        this.metrics = metrics;
+        this.error = error;
+    }
+
+    public static MQEPlan compile(String expression) {
+        MQELexer lexer = new MQELexer(CharStreams.fromString(expression));
+        lexer.addErrorListener(new ParseErrorListener());
+        MQEParser parser = new MQEParser(new CommonTokenStream(lexer));
+        parser.addErrorListener(new ParseErrorListener());
+        ParseTree tree;
+        try {
+            tree = parser.expression();
+        } catch (ParseCancellationException e) {
+            return new MQEPlan(null, Collections.emptyList(), e.getMessage());
+        }
+        List<MQEParser.MetricContext> metrics = new ArrayList<>();
+        collectMetrics(tree, metrics);
+        return new MQEPlan(tree, Collections.unmodifiableList(metrics), null);
+    }
+
+    private static void collectMetrics(ParseTree tree, List<MQEParser.MetricContext> metrics) {
+        if (tree instanceof MQEParser.MetricContext) {
+            metrics.add((MQEParser.MetricContext) tree);
+            return;
+        }
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            collectMetrics(tree.getChild(i), metrics);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.query.graphql.mqe.rt;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.concurrent.ExecutionException;
+import org.apache.skywalking.oap.server.core.UnexpectedException;
+
+/**
+ * The bounded cache of the {@link MQEPlan}s, keyed by the expression. The dashboards send the same expressions in
+ * every refresh, so they are compiled only once.
+ */
+public class MQEPlanCache {
+    private final Cache<String, MQEPlan> plans;
+
+    /**
+     * @param maxSize the max number of the cached plans, 0 means no cache.
+     */
+    public MQEPlanCache(long maxSize) {
+        this.plans = maxSize > 0 ? CacheBuilder.newBuilder().maximumSize(maxSize).build() : null;
+    }
+
+    /**
+     * @return the cached plan, or the new compiled plan of the expression.
+     */
+    public MQEPlan get(String expression) {
+        if (plans == null) {
+            return MQEPlan.compile(expression);
+        }
+        try {
+            return plans.get(expression, () -> MQEPlan.compile(expression));
+        } catch (ExecutionException e) {
+            throw new UnexpectedException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the plan of the expression in the cache, or null if absent.
+     */
+    public MQEPlan getIfPresent(String expression) {
+        return plans == null ? null : plans.getIfPresent(expression);
+    }
+}
@@ -21,9 +21,14 @@ package org.apache.skywalking.oap.query.graphql.mqe.rt;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.mqe.rt.exception.IllegalExpressionException;
 import org.apache.skywalking.mqe.rt.grammar.MQEParser;
@@ -63,6 +68,10 @@ public class MQEVisitor extends MQEVisitorBase {
     private MetricsQueryService metricsQueryService;
     private AggregationQueryService aggregationQueryService;
     private RecordQueryService recordQueryService;
+    /**
+     * The results of the metrics read ahead by {@link #prefetch(List, Executor)}.
+     */
+    private Map<MQEParser.MetricContext, ExpressionResult> prefetchedMetrics;
 
     public MQEVisitor(final ModuleManager moduleManager,
                       final Entity entity,
@@ -100,8 +109,53 @@ public class MQEVisitor extends MQEVisitorBase {
         return recordQueryService;
     }
 
+    /**
+     * Read the metrics from the storage in parallel before visiting the expression. The first metric is read in the
+     * current thread, the others are read in the executor.
+     *
+     * @param metrics the metric leaves of the expression to visit, see {@link MQEPlan#getMetrics()}.
+     */
+    public void prefetch(List<MQEParser.MetricContext> metrics, Executor executor) {
+        if (metrics.size() < 2) {
+            return;
+        }
+        List<CompletableFuture<ExpressionResult>> futures = new ArrayList<>(metrics.size() - 1);
+        for (int i = 1; i < metrics.size(); i++) {
+            MQEParser.MetricContext metric = metrics.get(i);
+            try {
+                futures.add(CompletableFuture.supplyAsync(() -> readMetric(metric), executor));
+            } catch (RejectedExecutionException e) {
+                futures.add(CompletableFuture.completedFuture(readMetric(metric)));
+            }
+        }
+        Map<MQEParser.MetricContext, ExpressionResult> prefetched = new IdentityHashMap<>(metrics.size());
+        prefetched.put(metrics.get(0), readMetric(metrics.get(0)));
+        for (int i = 1; i < metrics.size(); i++) {
+            try {
+                prefetched.put(metrics.get(i), futures.get(i - 1).join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        this.prefetchedMetrics = prefetched;
+    }
+
     @Override
     public ExpressionResult visitMetric(MQEParser.MetricContext ctx) {
+        if (prefetchedMetrics != null) {
+            // The result could be changed by the operations, so it is used only once.
+            ExpressionResult prefetched = prefetchedMetrics.remove(ctx);
+            if (prefetched != null) {
+                return prefetched;
+            }
+        }
+        return readMetric(ctx);
+    }
+
+    private ExpressionResult readMetric(MQEParser.MetricContext ctx) {
         ExpressionResult result = new ExpressionResult();
         String metricName = ctx.metricName().getText();
         Optional<ValueColumnMetadata.ValueColumn> valueColumn = ValueColumnMetadata.INSTANCE.readValueColumnDefinition(
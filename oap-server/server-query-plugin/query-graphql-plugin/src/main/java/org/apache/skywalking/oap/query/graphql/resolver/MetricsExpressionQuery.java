@@ -18,48 +18,92 @@
 
 package org.apache.skywalking.oap.query.graphql.resolver;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import graphql.kickstart.tools.GraphQLQueryResolver;
-import org.antlr.v4.runtime.misc.ParseCancellationException;
 import java.text.DecimalFormat;
-import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
-import org.antlr.v4.runtime.tree.ParseTree;
-import org.apache.skywalking.oap.query.graphql.mqe.rt.MQEVisitor;
-import org.apache.skywalking.mqe.rt.exception.ParseErrorListener;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.apache.skywalking.mqe.rt.type.ExpressionResult;
 import org.apache.skywalking.mqe.rt.type.ExpressionResultType;
-import org.apache.skywalking.oap.server.core.query.input.Entity;
+import org.apache.skywalking.oap.query.graphql.GraphQLQueryConfig;
+import org.apache.skywalking.oap.query.graphql.mqe.rt.MQEPlan;
+import org.apache.skywalking.oap.query.graphql.mqe.rt.MQEPlanCache;
+import org.apache.skywalking.oap.query.graphql.mqe.rt.MQEVisitor;
 import org.apache.skywalking.oap.server.core.query.input.Duration;
+import org.apache.skywalking.oap.server.core.query.input.Entity;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
-import org.apache.skywalking.mqe.rt.grammar.MQELexer;
-import org.apache.skywalking.mqe.rt.grammar.MQEParser;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.HistogramMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
 
 public class MetricsExpressionQuery implements GraphQLQueryResolver {
+    /**
+     * The max number of the metrics reads waiting for a thread, per thread. The metrics are read in the query thread
+     * when the queue is full, rather than queueing behind the other queries.
+     */
+    private static final int QUEUE_SIZE_PER_THREAD = 16;
+
     private final ModuleManager moduleManager;
     private final DecimalFormat valueFormat = new DecimalFormat();
+    private final MQEPlanCache planCache;
+    /**
+     * Read the metrics of the expression in parallel, null if reading them one by one. The queue is bounded, so
+     * {@link MQEVisitor#prefetch} falls back to reading in the query thread when the executor rejects the read.
+     */
+    private final ExecutorService metricsReadExecutor;
+    private volatile Telemetry telemetry;
 
-    public MetricsExpressionQuery(ModuleManager moduleManager) {
+    public MetricsExpressionQuery(ModuleManager moduleManager, GraphQLQueryConfig config) {
         this.moduleManager = moduleManager;
         this.valueFormat.setGroupingUsed(false);
+        this.planCache = new MQEPlanCache(config.getMqePlanCacheSize());
+        final int threads = config.getMqeQueryThreads();
+        this.metricsReadExecutor = threads > 0 ?
+            new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUE_SIZE_PER_THREAD),
+                new ThreadFactoryBuilder().setNameFormat("MQEQuery-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy()
+            ) : null;
+    }
+
+    /**
+     * Shut down the threads reading the metrics, the queued reads are still executed.
+     */
+    public void shutdown() {
+        if (metricsReadExecutor != null) {
+            metricsReadExecutor.shutdown();
+        }
     }
 
     public ExpressionResult execExpression(String expression, Entity entity, Duration duration) {
-        MQELexer lexer = new MQELexer(
-            CharStreams.fromString(expression));
-        lexer.addErrorListener(new ParseErrorListener());
-        MQEParser parser = new MQEParser(new CommonTokenStream(lexer));
-        parser.addErrorListener(new ParseErrorListener());
-        ParseTree tree;
-        try {
-            tree = parser.expression();
-        } catch (ParseCancellationException e) {
+        final Telemetry telemetry = getTelemetry();
+        final long startNanos = System.nanoTime();
+        MQEPlan plan = planCache.getIfPresent(expression);
+        if (plan == null) {
+            telemetry.planCacheMissCounter.inc();
+            plan = planCache.get(expression);
+        } else {
+            telemetry.planCacheHitCounter.inc();
+        }
+        if (plan.getError() != null) {
             ExpressionResult errorResult = new ExpressionResult();
             errorResult.setType(ExpressionResultType.UNKNOWN);
-            errorResult.setError(e.getMessage());
+            errorResult.setError(plan.getError());
+            telemetry.observe(errorResult, startNanos);
             return errorResult;
         }
         MQEVisitor visitor = new MQEVisitor(moduleManager, entity, duration);
-        ExpressionResult parseResult = visitor.visit(tree);
+        if (metricsReadExecutor != null) {
+            visitor.prefetch(plan.getMetrics(), metricsReadExecutor);
+        }
+        ExpressionResult parseResult = visitor.visit(plan.getTree());
 
         parseResult.getResults().forEach(mqeValues -> {
             mqeValues.getValues().forEach(mqeValue -> {
@@ -69,6 +113,53 @@ public class MetricsExpressionQuery implements GraphQLQueryResolver {
             });
         });
 
+        telemetry.observe(parseResult, startNanos);
         return parseResult;
     }
+
+    private Telemetry getTelemetry() {
+        if (telemetry == null) {
+            synchronized (this) {
+                if (telemetry == null) {
+                    telemetry = new Telemetry(moduleManager.find(TelemetryModule.NAME)
+                                                           .provider()
+                                                           .getService(MetricsCreator.class));
+                }
+            }
+        }
+        return telemetry;
+    }
+
+    /**
+     * The metrics of the expression queries. The latency is tagged by the result type rather than the expression, as
+     * the expressions are unbounded.
+     */
+    private static class Telemetry {
+        private final CounterMetrics planCacheHitCounter;
+        private final CounterMetrics planCacheMissCounter;
+        private final Map<ExpressionResultType, HistogramMetrics> latencies = new EnumMap<>(ExpressionResultType.class);
+
+        private Telemetry(MetricsCreator metricsCreator) {
+            planCacheHitCounter = metricsCreator.createCounter(
+                "mqe_plan_cache_count", "The number of the MQE expressions compiled or got from the cache",
+                new MetricsTag.Keys("status"), new MetricsTag.Values("hit")
+            );
+            planCacheMissCounter = metricsCreator.createCounter(
+                "mqe_plan_cache_count", "The number of the MQE expressions compiled or got from the cache",
+                new MetricsTag.Keys("status"), new MetricsTag.Values("miss")
+            );
+            for (ExpressionResultType type : ExpressionResultType.values()) {
+                latencies.put(type, metricsCreator.createHistogramMetric(
+                    "mqe_query_latency", "The latency of the MQE expression queries",
+                    new MetricsTag.Keys("type"), new MetricsTag.Values(type.name()),
+                    .005, .01, .05, .1, .25, .5, 1, 2.5, 5, 10
+                ));
+            }
+        }
+
+        private void observe(ExpressionResult result, long startNanos) {
+            ExpressionResultType type = result.getType() == null ? ExpressionResultType.UNKNOWN : result.getType();
+            latencies.get(type).observe((System.nanoTime() - startNanos) / 1.0E9D);
+        }
+    }
 }
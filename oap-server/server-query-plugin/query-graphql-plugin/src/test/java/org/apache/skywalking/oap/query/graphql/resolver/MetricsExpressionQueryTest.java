@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.query.graphql.resolver;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.skywalking.mqe.rt.type.ExpressionResult;
+import org.apache.skywalking.mqe.rt.type.ExpressionResultType;
+import org.apache.skywalking.mqe.rt.type.MQEValue;
+import org.apache.skywalking.oap.query.graphql.GraphQLQueryConfig;
+import org.apache.skywalking.oap.query.graphql.mqe.rt.MQEPlan;
+import org.apache.skywalking.oap.query.graphql.mqe.rt.MQEPlanCache;
+import org.apache.skywalking.oap.server.core.CoreModule;
+import org.apache.skywalking.oap.server.core.query.MetricsQueryService;
+import org.apache.skywalking.oap.server.core.query.enumeration.Step;
+import org.apache.skywalking.oap.server.core.query.input.Duration;
+import org.apache.skywalking.oap.server.core.query.input.Entity;
+import org.apache.skywalking.oap.server.core.query.input.MetricsCondition;
+import org.apache.skywalking.oap.server.core.query.type.KVInt;
+import org.apache.skywalking.oap.server.core.query.type.MetricsValues;
+import org.apache.skywalking.oap.server.core.storage.annotation.Column;
+import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnMetadata;
+import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.apache.skywalking.oap.server.library.module.ModuleProviderHolder;
+import org.apache.skywalking.oap.server.library.module.ModuleServiceHolder;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MetricsExpressionQueryTest {
+    private ModuleManager moduleManager;
+    private MetricsQueryService metricsQueryService;
+    private Duration duration;
+
+    @BeforeEach
+    public void setup() {
+        ValueColumnMetadata.INSTANCE.putIfAbsent("mqe_test_a", "value", Column.ValueDataType.COMMON_VALUE, 0, 1);
+        ValueColumnMetadata.INSTANCE.putIfAbsent("mqe_test_b", "value", Column.ValueDataType.COMMON_VALUE, 0, 1);
+
+        moduleManager = mock(ModuleManager.class);
+        metricsQueryService = mock(MetricsQueryService.class);
+        final ModuleProviderHolder coreProviderHolder = mock(ModuleProviderHolder.class);
+        final ModuleServiceHolder coreServiceHolder = mock(ModuleServiceHolder.class);
+        when(moduleManager.find(CoreModule.NAME)).thenReturn(coreProviderHolder);
+        when(coreProviderHolder.provider()).thenReturn(coreServiceHolder);
+        when(coreServiceHolder.getService(MetricsQueryService.class)).thenReturn(metricsQueryService);
+        final ModuleProviderHolder telemetryProviderHolder = mock(ModuleProviderHolder.class);
+        final ModuleServiceHolder telemetryServiceHolder = mock(ModuleServiceHolder.class);
+        when(moduleManager.find(TelemetryModule.NAME)).thenReturn(telemetryProviderHolder);
+        when(telemetryProviderHolder.provider()).thenReturn(telemetryServiceHolder);
+        when(telemetryServiceHolder.getService(MetricsCreator.class)).thenReturn(new MetricsCreatorNoop());
+
+        duration = new Duration();
+        duration.setStep(Step.MINUTE);
+        duration.setStart("2024-10-18 1010");
+        duration.setEnd("2024-10-18 1012");
+    }
+
+    @Test
+    public void testPlanCache() {
+        final MQEPlanCache cache = new MQEPlanCache(10);
+        assertNull(cache.getIfPresent("mqe_test_a / mqe_test_b * 100"));
+        final MQEPlan plan = cache.get("mqe_test_a / mqe_test_b * 100");
+        assertSame(plan, cache.get("mqe_test_a / mqe_test_b * 100"));
+        assertNull(plan.getError());
+        assertEquals(2, plan.getMetrics().size());
+        assertEquals("mqe_test_a", plan.getMetrics().get(0).metricName().getText());
+        assertEquals("mqe_test_b", plan.getMetrics().get(1).metricName().getText());
+
+        final MQEPlan errorPlan = cache.get("mqe_test_a +");
+        assertNotNull(errorPlan.getError());
+        assertNull(errorPlan.getTree());
+    }
+
+    @Test
+    public void testReadMetricsInParallel() throws Exception {
+        // Every read waits for the other one, the expression completes only if the metrics are read in parallel.
+        final CountDownLatch reading = new CountDownLatch(2);
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+        when(metricsQueryService.readMetricsValues(any(), any())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            reading.countDown();
+            assertTrue(reading.await(10, TimeUnit.SECONDS));
+            final MetricsCondition condition = invocation.getArgument(0);
+            return metricsValues(condition.getName().equals("mqe_test_a") ? 50 : 200);
+        });
+
+        final GraphQLQueryConfig config = new GraphQLQueryConfig();
+        config.setMqeQueryThreads(2);
+        final MetricsExpressionQuery query = new MetricsExpressionQuery(moduleManager, config);
+        for (int i = 0; i < 2; i++) {
+            final ExpressionResult result = query.execExpression(
+                "mqe_test_a / mqe_test_b * 100", new Entity(), duration);
+            assertNull(result.getError());
+            assertEquals(ExpressionResultType.TIME_SERIES_VALUES, result.getType());
+            final List<MQEValue> values = result.getResults().get(0).getValues();
+            assertEquals(3, values.size());
+            values.forEach(value -> assertEquals("25", value.getValue()));
+        }
+        // The first metric is read in the query thread, the other one in the executor.
+        assertTrue(threads.contains(Thread.currentThread().getName()));
+        assertTrue(threads.size() > 1);
+        query.shutdown();
+    }
+
+    @Test
+    public void testReadInQueryThreadWhenRejected() {
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+        when(metricsQueryService.readMetricsValues(any(), any())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            final MetricsCondition condition = invocation.getArgument(0);
+            return metricsValues(condition.getName().equals("mqe_test_a") ? 3 : 2);
+        });
+
+        final GraphQLQueryConfig config = new GraphQLQueryConfig();
+        config.setMqeQueryThreads(1);
+        final MetricsExpressionQuery query = new MetricsExpressionQuery(moduleManager, config);
+        // The executor rejects every read after shutdown, as it does when the queue is full.
+        query.shutdown();
+        final ExpressionResult result = query.execExpression("mqe_test_a - mqe_test_b", new Entity(), duration);
+        assertNull(result.getError());
+        result.getResults().get(0).getValues().forEach(value -> assertEquals("1", value.getValue()));
+        assertEquals(Set.of(Thread.currentThread().getName()), threads);
+    }
+
+    @Test
+    public void testReadMetricsOneByOne() throws Exception {
+        when(metricsQueryService.readMetricsValues(any(), any())).thenAnswer(invocation -> {
+            final MetricsCondition condition = invocation.getArgument(0);
+            return metricsValues(condition.getName().equals("mqe_test_a") ? 3 : 2);
+        });
+
+        final GraphQLQueryConfig config = new GraphQLQueryConfig();
+        config.setMqeQueryThreads(0);
+        config.setMqePlanCacheSize(0);
+        final MetricsExpressionQuery query = new MetricsExpressionQuery(moduleManager, config);
+        final ExpressionResult result = query.execExpression("mqe_test_a - mqe_test_b", new Entity(), duration);
+        assertNull(result.getError());
+        result.getResults().get(0).getValues().forEach(value -> assertEquals("1", value.getValue()));
+
+        final ExpressionResult errorResult = query.execExpression("mqe_test_a -", new Entity(), duration);
+        assertEquals(ExpressionResultType.UNKNOWN, errorResult.getType());
+        assertNotNull(errorResult.getError());
+    }
+
+    private MetricsValues metricsValues(long value) {
+        final MetricsValues metricsValues = new MetricsValues();
+        duration.assembleDurationPoints().forEach(
+            point -> metricsValues.getValues().addKVInt(new KVInt(String.valueOf(point.getPoint()), value, false)));
+        return metricsValues;
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.receiver.otel.otlp;
+
+import com.google.common.collect.ImmutableMap;
+import io.opentelemetry.proto.common.v1.KeyValue;
+import io.opentelemetry.proto.metrics.v1.ExponentialHistogramDataPoint;
+import io.opentelemetry.proto.metrics.v1.HistogramDataPoint;
+import io.opentelemetry.proto.metrics.v1.Metric;
+import io.opentelemetry.proto.metrics.v1.NumberDataPoint;
+import io.opentelemetry.proto.metrics.v1.Sum;
+import io.opentelemetry.proto.metrics.v1.SummaryDataPoint;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.skywalking.oap.meter.analyzer.dsl.Sample;
+import org.apache.skywalking.oap.meter.analyzer.dsl.SampleFamily;
+import org.apache.skywalking.oap.meter.analyzer.dsl.SampleFamilyBuilder;
+
+import static io.opentelemetry.proto.metrics.v1.AggregationTemporality.AGGREGATION_TEMPORALITY_UNSPECIFIED;
+
+/**
+ * OpenTelemetrySampleFamilyBuilder converts the OTLP metrics of one resource into {@link SampleFamily}s directly,
+ * named and labeled as the Prometheus metrics converted from them were. The resource labels are shared by the points
+ * without attributes, and the metrics no rule refers to are skipped before reading their points.
+ */
+@Slf4j
+class OpenTelemetrySampleFamilyBuilder {
+    private final ImmutableMap<String, String> nodeLabels;
+    private final Set<String> sampleNames;
+    private final Map<String, List<Sample>> samples = new HashMap<>();
+
+    /**
+     * The explicit bounds of the last histogram point, and their le labels, reused by the points with the same bounds.
+     */
+    private double[] bounds = new double[0];
+    private String[] les = {String.valueOf(Double.POSITIVE_INFINITY)};
+
+    /**
+     * @param nodeLabels  the labels of the resource, overridden by the attributes of the points.
+     * @param sampleNames the names of the sample families referred by the rules.
+     */
+    OpenTelemetrySampleFamilyBuilder(ImmutableMap<String, String> nodeLabels, Set<String> sampleNames) {
+        this.nodeLabels = nodeLabels;
+        this.sampleNames = sampleNames;
+    }
+
+    void add(Metric metric) {
+        final String name = escapedName(metric.getName());
+        if (metric.hasGauge()) {
+            if (sampleNames.contains(name)) {
+                metric.getGauge().getDataPointsList().forEach(point -> addNumber(name, point));
+            }
+            return;
+        }
+        if (metric.hasSum()) {
+            final Sum sum = metric.getSum();
+            // The delta, monotonic and non-monotonic sums are all converted to samples of the same form.
+            if (sum.getAggregationTemporality() != AGGREGATION_TEMPORALITY_UNSPECIFIED && sampleNames.contains(name)) {
+                sum.getDataPointsList().forEach(point -> addNumber(name, point));
+            }
+            return;
+        }
+        if (metric.hasHistogram()) {
+            final Parts parts = new Parts(name);
+            if (parts.any()) {
+                metric.getHistogram().getDataPointsList().forEach(point -> addHistogram(parts, point));
+            }
+            return;
+        }
+        if (metric.hasExponentialHistogram()) {
+            final Parts parts = new Parts(name);
+            if (parts.any()) {
+                metric.getExponentialHistogram().getDataPointsList().forEach(point -> addExponentialHistogram(parts, point));
+            }
+            return;
+        }
+        if (metric.hasSummary()) {
+            final Parts parts = new Parts(name);
+            if (parts.any()) {
+                metric.getSummary().getDataPointsList().forEach(point -> addSummary(parts, point));
+            }
+            return;
+        }
+        throw new UnsupportedOperationException("Unsupported type");
+    }
+
+    ImmutableMap<String, SampleFamily> build() {
+        final ImmutableMap.Builder<String, SampleFamily> families = ImmutableMap.builderWithExpectedSize(samples.size());
+        samples.forEach((name, list) -> {
+            final SampleFamily family = SampleFamilyBuilder.newBuilder(list.toArray(new Sample[0])).build();
+            if (family.samples.length > 0) {
+                families.put(name, family);
+            }
+        });
+        return families.build();
+    }
+
+    private void addNumber(String name, NumberDataPoint point) {
+        add(
+            name, labels(point.getAttributesList()),
+            point.hasAsDouble() ? point.getAsDouble() : point.getAsInt(),
+            point.getTimeUnixNano() / 1000000
+        );
+    }
+
+    private void addHistogram(Parts parts, HistogramDataPoint point) {
+        final ImmutableMap<String, String> labels = labels(point.getAttributesList());
+        final long timestamp = point.getTimeUnixNano() / 1000000;
+        parts.addCountAndSum(labels, point.getCount(), point.getSum(), timestamp);
+        if (!parts.buckets) {
+            return;
+        }
+        final String[] les = les(point);
+        for (int i = 0; i < les.length; i++) {
+            add(parts.name, withLabel(labels, "le", les[i]), point.getBucketCounts(i), timestamp);
+        }
+    }
+
+    /**
+     * ExponentialHistogram data points are an alternate representation to the Histogram data point in OpenTelemetry
+     * metric format(https://opentelemetry.io/docs/reference/specification/metrics/data-model/#exponentialhistogram).
+     * It uses scale, offset and bucket index to calculate the bound. Firstly, calculate the base using scale by
+     * formula: base = 2**(2**(-scale)). Then the upperBound of specific bucket can be calculated by formula:
+     * base**(offset+index+1). Above calculation way is about positive buckets. For the negative case, we just
+     * map them by their absolute value into the negative range using the same scale as the positive range. So the
+     * upperBound should be calculated as -base**(offset+index).
+     *
+     * Ignored the zero_count field temporarily,
+     * because the zero_threshold even could overlap the existing bucket scopes.
+     *
+     * The bucket samples of the out-of-range points, or the points without any bucket, are dropped, the count and
+     * sum samples are kept.
+     */
+    private void addExponentialHistogram(Parts parts, ExponentialHistogramDataPoint point) {
+        final ImmutableMap<String, String> labels = labels(point.getAttributesList());
+        final long timestamp = point.getTimeUnixNano() / 1000000;
+        parts.addCountAndSum(labels, point.getCount(), point.getSum(), timestamp);
+        if (!parts.buckets) {
+            return;
+        }
+
+        final ExponentialHistogramDataPoint.Buckets negative = point.getNegative();
+        final ExponentialHistogramDataPoint.Buckets positive = point.getPositive();
+        final int negativeCount = negative.getBucketCountsCount();
+        final int positiveCount = positive.getBucketCountsCount();
+        if (negativeCount + positiveCount == 0) {
+            return;
+        }
+        final double[] upperBounds = new double[negativeCount + positiveCount];
+        final double base = Math.pow(2.0, Math.pow(2.0, -point.getScale()));
+        if (base == Double.POSITIVE_INFINITY) {
+            log.warn("Receive and reject out-of-range ExponentialHistogram data");
+            return;
+        }
+        for (int i = 0; i < negativeCount; i++) {
+            upperBounds[i] = -Math.pow(base, negative.getOffset() + i);
+            if (upperBounds[i] == Double.NEGATIVE_INFINITY) {
+                log.warn("Receive and reject out-of-range ExponentialHistogram data");
+                return;
+            }
+        }
+        for (int i = 0; i < positiveCount - 1; i++) {
+            upperBounds[negativeCount + i] = Math.pow(base, positive.getOffset() + i + 1);
+            if (upperBounds[negativeCount + i] == Double.POSITIVE_INFINITY) {
+                log.warn("Receive and reject out-of-range ExponentialHistogram data");
+                return;
+            }
+        }
+        if (positiveCount > 0) {
+            upperBounds[upperBounds.length - 1] = Double.POSITIVE_INFINITY;
+        }
+
+        for (int i = 0; i < negativeCount; i++) {
+            add(parts.name, withLabel(labels, "le", String.valueOf(upperBounds[i])), negative.getBucketCounts(i), timestamp);
+        }
+        for (int i = 0; i < positiveCount; i++) {
+            add(
+                parts.name, withLabel(labels, "le", String.valueOf(upperBounds[negativeCount + i])),
+                positive.getBucketCounts(i), timestamp
+            );
+        }
+    }
+
+    private void addSummary(Parts parts, SummaryDataPoint point) {
+        final ImmutableMap<String, String> labels = labels(point.getAttributesList());
+        final long timestamp = point.getTimeUnixNano() / 1000000;
+        parts.addCountAndSum(labels, point.getCount(), point.getSum(), timestamp);
+        if (!parts.buckets) {
+            return;
+        }
+        for (final SummaryDataPoint.ValueAtQuantile quantile : point.getQuantileValuesList()) {
+            add(parts.name, withLabel(labels, "quantile", String.valueOf(quantile.getQuantile())), quantile.getValue(), timestamp);
+        }
+    }
+
+    private void add(String name, ImmutableMap<String, String> labels, double value, long timestamp) {
+        samples.computeIfAbsent(name, unused -> new ArrayList<>())
+               .add(Sample.builder().name(name).labels(labels).value(value).timestamp(timestamp).build());
+    }
+
+    /**
+     * @return the le labels of the explicit bounds of the point, plus the one of the positive infinity.
+     */
+    private String[] les(HistogramDataPoint point) {
+        final int count = point.getExplicitBoundsCount();
+        boolean same = count == bounds.length;
+        for (int i = 0; i < count && same; i++) {
+            same = point.getExplicitBounds(i) == bounds[i];
+        }
+        if (!same) {
+            bounds = new double[count];
+            les = new String[count + 1];
+            for (int i = 0; i < count; i++) {
+                bounds[i] = point.getExplicitBounds(i);
+                les[i] = String.valueOf(bounds[i]);
+            }
+            les[count] = String.valueOf(Double.POSITIVE_INFINITY);
+        }
+        return les;
+    }
+
+    /**
+     * Data point labels have higher precedence and override the one in node labels.
+     */
+    private ImmutableMap<String, String> labels(List<KeyValue> attributes) {
+        if (attributes.isEmpty()) {
+            return nodeLabels;
+        }
+        final ImmutableMap.Builder<String, String> labels =
+            ImmutableMap.builderWithExpectedSize(nodeLabels.size() + attributes.size());
+        labels.putAll(nodeLabels);
+        for (final KeyValue attribute : attributes) {
+            labels.put(attribute.getKey(), OpenTelemetryMetricRequestProcessor.anyValueToString(attribute.getValue()));
+        }
+        return labels.buildKeepingLast();
+    }
+
+    private static ImmutableMap<String, String> withLabel(ImmutableMap<String, String> labels, String key, String value) {
+        return ImmutableMap.<String, String>builderWithExpectedSize(labels.size() + 1)
+                           .putAll(labels)
+                           .put(key, value)
+                           .build();
+    }
+
+    /**
+     * @return the name with "." and "/" replaced by "_".
+     */
+    static String escapedName(String name) {
+        if (name.indexOf('.') < 0 && name.indexOf('/') < 0) {
+            return name;
+        }
+        return name.replace('.', '_').replace('/', '_');
+    }
+
+    /**
+     * Parts are the sample families a histogram or summary is converted to, and which of them the rules refer to.
+     */
+    private class Parts {
+        private final String name;
+        private final String countName;
+        private final String sumName;
+        private final boolean buckets;
+        private final boolean count;
+        private final boolean sum;
+
+        private Parts(String name) {
+            this.name = name;
+            this.countName = name + "_count";
+            this.sumName = name + "_sum";
+            this.buckets = sampleNames.contains(name);
+            this.count = sampleNames.contains(countName);
+            this.sum = sampleNames.contains(sumName);
+        }
+
+        private boolean any() {
+            return buckets || count || sum;
+        }
+
+        private void addCountAndSum(ImmutableMap<String, String> labels, double countValue, double sumValue, long timestamp) {
+            if (count) {
+                add(countName, labels, countValue, timestamp);
+            }
+            if (sum) {
+                add(sumName, labels, sumValue, timestamp);
+            }
+        }
+    }
+}
@@ -17,49 +17,38 @@
 
 package org.apache.skywalking.oap.server.receiver.otel.otlp;
 
+import com.google.common.collect.ImmutableMap;
+import io.opentelemetry.proto.common.v1.AnyValue;
+import io.opentelemetry.proto.common.v1.KeyValue;
 import io.opentelemetry.proto.metrics.v1.ExponentialHistogram;
 import io.opentelemetry.proto.metrics.v1.ExponentialHistogramDataPoint;
+import io.opentelemetry.proto.metrics.v1.Histogram;
+import io.opentelemetry.proto.metrics.v1.HistogramDataPoint;
 import io.opentelemetry.proto.metrics.v1.Metric;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.HashMap;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import org.apache.skywalking.oap.server.library.module.ModuleManager;
-import org.apache.skywalking.oap.server.library.util.prometheus.metrics.Histogram;
-import org.apache.skywalking.oap.server.receiver.otel.OtelMetricReceiverConfig;
+import java.util.Set;
+import org.apache.skywalking.oap.meter.analyzer.dsl.Sample;
+import org.apache.skywalking.oap.meter.analyzer.dsl.SampleFamily;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static java.util.stream.Collectors.toMap;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class OpenTelemetryMetricRequestProcessorTest {
 
-    private OtelMetricReceiverConfig config;
-
-    private ModuleManager manager;
-
-    private OpenTelemetryMetricRequestProcessor metricRequestProcessor;
-
-    private Map<String, String> nodeLabels;
+    private ImmutableMap<String, String> nodeLabels;
 
     @BeforeEach
     public void setUp() {
-        manager = new ModuleManager("Test");
-        config = new OtelMetricReceiverConfig();
-        metricRequestProcessor = new OpenTelemetryMetricRequestProcessor(manager, config);
-        nodeLabels = new HashMap<>();
+        nodeLabels = ImmutableMap.of();
     }
 
     @Test
-    public void testAdaptExponentialHistogram() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-        Class<OpenTelemetryMetricRequestProcessor> clazz = OpenTelemetryMetricRequestProcessor.class;
-        Method adaptMetricsMethod = clazz.getDeclaredMethod("adaptMetrics", Map.class, Metric.class);
-        adaptMetricsMethod.setAccessible(true);
-
+    public void testAdaptExponentialHistogram() {
         // number is 4; 7, 7.5; 8.5, 8.7, 9.4
         var positiveBuckets = ExponentialHistogramDataPoint.Buckets.newBuilder()
                                                                    .setOffset(10)
@@ -101,34 +90,130 @@ public class OpenTelemetryMetricRequestProcessorTest {
                               .setExponentialHistogram(exponentialHistogram)
                               .build();
 
-        Stream<Histogram> stream = (Stream<Histogram>) adaptMetricsMethod.invoke(
-            metricRequestProcessor, nodeLabels, metric);
-        List<Histogram> list = stream.collect(Collectors.toList());
-        Histogram histogramMetric = list.get(0);
-        assertEquals("test_metric", histogramMetric.getName());
-        assertEquals(1, histogramMetric.getTimestamp());
-        assertEquals(12, histogramMetric.getSampleCount());
-        assertEquals(-63.4, histogramMetric.getSampleSum());
+        final OpenTelemetrySampleFamilyBuilder builder = new OpenTelemetrySampleFamilyBuilder(
+            nodeLabels, Set.of("test_metric", "test_metric_count", "test_metric_sum"));
+        builder.add(metric);
+        final ImmutableMap<String, SampleFamily> families = builder.build();
+
+        final Sample count = families.get("test_metric_count").samples[0];
+        assertEquals(1, count.getTimestamp());
+        assertEquals(12, count.getValue());
+        assertEquals(-63.4, families.get("test_metric_sum").samples[0].getValue());
 
         // validate the key and value of bucket
+        final Map<String, Double> buckets = buckets(families.get("test_metric"));
+        assertEquals(6, buckets.size());
+        double base = Math.pow(2, Math.pow(2, -2));
+
+        assertEquals(1, buckets.get(String.valueOf(Math.pow(base, 11))));
+        assertEquals(2, buckets.get(String.valueOf(Math.pow(base, 12))));
+        assertEquals(3, buckets.get(String.valueOf(Double.POSITIVE_INFINITY)));
+        assertEquals(3, buckets.get(String.valueOf(-Math.pow(base, 15))));
+        assertEquals(1, buckets.get(String.valueOf(-Math.pow(base, 16))));
+        assertEquals(2, buckets.get(String.valueOf(-Math.pow(base, 17))));
+    }
+
+    @Test
+    public void testAdaptExponentialHistogramWithNegativeBucketsOnly() {
+        // number is -14, -14.5, -15; -18
+        var negativeBuckets = ExponentialHistogramDataPoint.Buckets.newBuilder()
+                                                                   .setOffset(15)
+                                                                   .addBucketCounts(3) // (-16, -13.45]
+                                                                   .addBucketCounts(1) // (-19.02, -16]
+                                                                   .build();
+        var dataPoint = ExponentialHistogramDataPoint.newBuilder()
+                                                     .setCount(4)
+                                                     .setSum(-61.5)
+                                                     .setScale(2)
+                                                     .setNegative(negativeBuckets)
+                                                     .setTimeUnixNano(1000000)
+                                                     .build();
+        final ImmutableMap<String, SampleFamily> families = exponentialHistogramFamilies(dataPoint);
+
+        assertEquals(4, families.get("test_metric_count").samples[0].getValue());
+        final Map<String, Double> buckets = buckets(families.get("test_metric"));
         double base = Math.pow(2, Math.pow(2, -2));
+        assertEquals(Map.of(
+            String.valueOf(-Math.pow(base, 15)), 3.0,
+            String.valueOf(-Math.pow(base, 16)), 1.0
+        ), buckets);
+    }
 
-        assertTrue(histogramMetric.getBuckets().containsKey(Math.pow(base, 11)));
-        assertEquals(1, histogramMetric.getBuckets().get(Math.pow(base, 11)));
+    @Test
+    public void testAdaptExponentialHistogramWithoutBuckets() {
+        var dataPoint = ExponentialHistogramDataPoint.newBuilder()
+                                                     .setCount(2)
+                                                     .setSum(0)
+                                                     .setScale(2)
+                                                     .setZeroCount(2)
+                                                     .setTimeUnixNano(1000000)
+                                                     .build();
+        final ImmutableMap<String, SampleFamily> families = exponentialHistogramFamilies(dataPoint);
 
-        assertTrue(histogramMetric.getBuckets().containsKey(Math.pow(base, 12)));
-        assertEquals(2, histogramMetric.getBuckets().get(Math.pow(base, 12)));
+        assertEquals(2, families.get("test_metric_count").samples[0].getValue());
+        assertEquals(0, families.get("test_metric_sum").samples[0].getValue());
+        assertFalse(families.containsKey("test_metric"));
+    }
 
-        assertTrue(histogramMetric.getBuckets().containsKey(Double.POSITIVE_INFINITY));
-        assertEquals(3, histogramMetric.getBuckets().get(Double.POSITIVE_INFINITY));
+    @Test
+    public void testAdaptHistogram() {
+        final HistogramDataPoint.Builder point = HistogramDataPoint.newBuilder()
+                                                                   .setCount(6)
+                                                                   .setSum(12.5)
+                                                                   .addExplicitBounds(1)
+                                                                   .addExplicitBounds(5)
+                                                                   .addBucketCounts(1)
+                                                                   .addBucketCounts(2)
+                                                                   .addBucketCounts(3)
+                                                                   .setTimeUnixNano(2000000);
+        final Metric metric = Metric.newBuilder()
+                                    .setName("http.server.duration")
+                                    .setHistogram(Histogram.newBuilder()
+                                                           .addDataPoints(point)
+                                                           .addDataPoints(point.addAttributes(attribute("host_name", "point"))))
+                                    .build();
+        final Metric unreferred = Metric.newBuilder()
+                                        .setName("http.client.duration")
+                                        .setHistogram(Histogram.newBuilder().addDataPoints(point))
+                                        .build();
+
+        final OpenTelemetrySampleFamilyBuilder builder = new OpenTelemetrySampleFamilyBuilder(
+            ImmutableMap.of("host_name", "node"), Set.of("http_server_duration", "http_server_duration_count"));
+        builder.add(metric);
+        builder.add(unreferred);
+        final ImmutableMap<String, SampleFamily> families = builder.build();
+
+        assertEquals(Set.of("http_server_duration", "http_server_duration_count"), families.keySet());
+        final Sample[] counts = families.get("http_server_duration_count").samples;
+        assertEquals(2, counts.length);
+        assertEquals("node", counts[0].getLabels().get("host_name"));
+        assertEquals("point", counts[1].getLabels().get("host_name"));
+        assertEquals(2, counts[1].getTimestamp());
+        assertEquals(6, counts[1].getValue());
+
+        final Sample[] buckets = families.get("http_server_duration").samples;
+        assertEquals(6, buckets.length);
+        assertEquals(Map.of("1.0", 1.0, "5.0", 2.0, "Infinity", 3.0), buckets(families.get("http_server_duration")));
+        assertTrue(Arrays.stream(buckets).allMatch(sample -> sample.getName().equals("http_server_duration")));
+        assertFalse(families.containsKey("http_server_duration_sum"));
+    }
 
-        assertTrue(histogramMetric.getBuckets().containsKey(-Math.pow(base, 15)));
-        assertEquals(3, histogramMetric.getBuckets().get(-Math.pow(base, 15)));
+    private ImmutableMap<String, SampleFamily> exponentialHistogramFamilies(ExponentialHistogramDataPoint dataPoint) {
+        final Metric metric = Metric.newBuilder()
+                                    .setName("test_metric")
+                                    .setExponentialHistogram(ExponentialHistogram.newBuilder().addDataPoints(dataPoint))
+                                    .build();
+        final OpenTelemetrySampleFamilyBuilder builder = new OpenTelemetrySampleFamilyBuilder(
+            nodeLabels, Set.of("test_metric", "test_metric_count", "test_metric_sum"));
+        builder.add(metric);
+        return builder.build();
+    }
 
-        assertTrue(histogramMetric.getBuckets().containsKey(-Math.pow(base, 16)));
-        assertEquals(1, histogramMetric.getBuckets().get(-Math.pow(base, 16)));
+    private static KeyValue attribute(String key, String value) {
+        return KeyValue.newBuilder().setKey(key).setValue(AnyValue.newBuilder().setStringValue(value)).build();
+    }
 
-        assertTrue(histogramMetric.getBuckets().containsKey(-Math.pow(base, 17)));
-        assertEquals(2, histogramMetric.getBuckets().get(-Math.pow(base, 17)));
+    private static Map<String, Double> buckets(SampleFamily family) {
+        return Arrays.stream(family.samples).collect(toMap(sample -> sample.getLabels().get("le"), Sample::getValue, (a, b) -> a));
     }
 }
@@ -96,6 +96,20 @@ public class StorageModuleElasticsearchConfig extends ModuleConfig {
      */
     private int flushInterval = 5;
     private int concurrentRequests = 2;
+    /**
+     * The max times to send a bulk item again when it is rejected due to the write pressure(HTTP 429).
+     * 0 means never retry, the rejected items fail directly.
+     *
+     * @since 10.1.0
+     */
+    private int bulkItemMaxRetries = 3;
+    /**
+     * The max number of the rejected bulk items waiting to be sent again. The items overflowing the queue fail
+     * directly.
+     *
+     * @since 10.1.0
+     */
+    private int bulkItemRetryQueueSize = 10000;
     /**
      * @since 7.0.0 This could be managed inside {@link #secretsManagementFile}
      */
@@ -21,6 +21,7 @@ package org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.skywalking.library.elasticsearch.bulk.BulkListener;
 import org.apache.skywalking.library.elasticsearch.bulk.BulkProcessor;
 import org.apache.skywalking.oap.server.core.storage.IBatchDAO;
 import org.apache.skywalking.oap.server.library.client.elasticsearch.ElasticSearchClient;
@@ -37,17 +38,26 @@ public class BatchProcessEsDAO extends EsDAO implements IBatchDAO {
     private final int flushInterval;
     private final int concurrentRequests;
     private final int batchOfBytes;
+    private final int bulkItemMaxRetries;
+    private final int bulkItemRetryQueueSize;
+    private final BulkListener bulkListener;
 
     public BatchProcessEsDAO(ElasticSearchClient client,
                              int bulkActions,
                              int flushInterval,
                              int concurrentRequests,
-                             int batchOfBytes) {
+                             int batchOfBytes,
+                             int bulkItemMaxRetries,
+                             int bulkItemRetryQueueSize,
+                             BulkListener bulkListener) {
         super(client);
         this.bulkActions = bulkActions;
         this.flushInterval = flushInterval;
         this.concurrentRequests = concurrentRequests;
         this.batchOfBytes = batchOfBytes;
+        this.bulkItemMaxRetries = bulkItemMaxRetries;
+        this.bulkItemRetryQueueSize = bulkItemRetryQueueSize;
+        this.bulkListener = bulkListener;
     }
 
     @Override
@@ -56,7 +66,9 @@ public class BatchProcessEsDAO extends EsDAO implements IBatchDAO {
             synchronized (this) {
                 if (bulkProcessor == null) {
                     this.bulkProcessor = getClient().createBulkProcessor(
-                        bulkActions, flushInterval, concurrentRequests, batchOfBytes);
+                        bulkActions, flushInterval, concurrentRequests, batchOfBytes,
+                        bulkItemMaxRetries, bulkItemRetryQueueSize, bulkListener
+                    );
                 }
             }
         }
@@ -70,7 +82,9 @@ public class BatchProcessEsDAO extends EsDAO implements IBatchDAO {
             synchronized (this) {
                 if (bulkProcessor == null) {
                     this.bulkProcessor = getClient().createBulkProcessor(
-                        bulkActions, flushInterval, concurrentRequests, batchOfBytes);
+                        bulkActions, flushInterval, concurrentRequests, batchOfBytes,
+                        bulkItemMaxRetries, bulkItemRetryQueueSize, bulkListener
+                    );
                 }
             }
         }
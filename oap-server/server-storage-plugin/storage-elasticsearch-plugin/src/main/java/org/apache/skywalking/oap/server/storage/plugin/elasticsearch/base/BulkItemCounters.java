@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.skywalking.library.elasticsearch.bulk.BulkListener;
+import org.apache.skywalking.oap.server.core.Const;
+import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
+
+/**
+ * Count the rejected and retried bulk items per index. The time suffix of the index is removed from the label to keep
+ * the series bounded, e.g. {@code sw_metrics-all-20240901} is counted as {@code sw_metrics-all}.
+ */
+public class BulkItemCounters implements BulkListener {
+    private final ModuleManager moduleManager;
+    private final Map<String, CounterMetrics> rejectedCounters = new ConcurrentHashMap<>();
+    private final Map<String, CounterMetrics> retriedCounters = new ConcurrentHashMap<>();
+    private volatile MetricsCreator metricsCreator;
+
+    public BulkItemCounters(final ModuleManager moduleManager) {
+        this.moduleManager = moduleManager;
+    }
+
+    @Override
+    public void onItemRejected(final String index, final int status) {
+        final String logicIndex = logicIndexName(index);
+        rejectedCounters.computeIfAbsent(
+            logicIndex + Const.ID_CONNECTOR + status,
+            key -> getMetricsCreator().createCounter(
+                "elasticsearch_bulk_rejected_count", "The count of the bulk items rejected by ElasticSearch",
+                new MetricsTag.Keys("index", "status"), new MetricsTag.Values(logicIndex, String.valueOf(status))
+            )
+        ).inc();
+    }
+
+    @Override
+    public void onItemRetried(final String index) {
+        final String logicIndex = logicIndexName(index);
+        retriedCounters.computeIfAbsent(
+            logicIndex,
+            key -> getMetricsCreator().createCounter(
+                "elasticsearch_bulk_retried_count", "The count of the bulk items sent to ElasticSearch again",
+                new MetricsTag.Keys("index"), new MetricsTag.Values(logicIndex)
+            )
+        ).inc();
+    }
+
+    private MetricsCreator getMetricsCreator() {
+        if (metricsCreator == null) {
+            metricsCreator = moduleManager.find(TelemetryModule.NAME).provider().getService(MetricsCreator.class);
+        }
+        return metricsCreator;
+    }
+
+    static String logicIndexName(final String index) {
+        final int i = index.lastIndexOf(Const.LINE);
+        if (i <= 0 || i == index.length() - 1) {
+            return index;
+        }
+        for (int j = i + 1; j < index.length(); j++) {
+            if (!Character.isDigit(index.charAt(j))) {
+                return index;
+            }
+        }
+        return index.substring(0, i);
+    }
+}
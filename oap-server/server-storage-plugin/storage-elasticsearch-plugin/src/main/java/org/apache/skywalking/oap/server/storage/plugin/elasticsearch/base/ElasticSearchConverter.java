@@ -18,6 +18,12 @@
 
 package org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
@@ -94,6 +100,138 @@ public class ElasticSearchConverter {
         }
     }
 
+    /**
+     * Record the fields as the JSON tokens, the same as {@link ToStorage} but without the intermediate map. The tokens
+     * are a snapshot of the values, and written to the bulk request by {@link TokenBuffer#serialize}.
+     */
+    public static class ToTokenBuffer implements Convert2Storage<TokenBuffer> {
+        private final String modelName;
+        private final TokenBuffer tokens = new TokenBuffer(null, false);
+
+        public ToTokenBuffer(final String modelName) {
+            this.modelName = modelName;
+        }
+
+        @Override
+        public void accept(final String fieldName, final Object fieldValue) {
+            // The null values are not included in the documents of the map either.
+            if (fieldValue == null) {
+                return;
+            }
+            try {
+                tokens.writeFieldName(getPhysicalColumnName(modelName, fieldName));
+                writeValue(fieldValue);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void accept(final String fieldName, final byte[] fieldValue) {
+            try {
+                tokens.writeFieldName(getPhysicalColumnName(modelName, fieldName));
+                if (CollectionUtils.isEmpty(fieldValue)) {
+                    tokens.writeString(Const.EMPTY_STRING);
+                } else {
+                    // The bytes are copied by the token buffer.
+                    tokens.writeBinary(fieldValue);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void accept(final String fieldName, final List<String> fieldValue) {
+            this.accept(fieldName, (Object) fieldValue);
+        }
+
+        /**
+         * Read the value of the field back from the recorded tokens.
+         */
+        @Override
+        public Object get(final String fieldName) {
+            final String columnName = getPhysicalColumnName(modelName, fieldName);
+            try (JsonParser parser = tokens.asParser()) {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT) {
+                    token = parser.nextToken();
+                }
+                for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+                    final String name = parser.currentName();
+                    final JsonToken valueToken = parser.nextToken();
+                    if (columnName.equals(name)) {
+                        return readValue(parser, valueToken);
+                    }
+                    parser.skipChildren();
+                }
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public TokenBuffer obtain() {
+            return tokens;
+        }
+
+        /**
+         * Write the common value types by their own tokens, so the tokens don't refer to the mutable values.
+         */
+        private void writeValue(final Object value) throws IOException {
+            if (value instanceof String) {
+                tokens.writeString((String) value);
+            } else if (value instanceof Long) {
+                tokens.writeNumber((Long) value);
+            } else if (value instanceof Integer) {
+                tokens.writeNumber((Integer) value);
+            } else if (value instanceof Double) {
+                tokens.writeNumber((Double) value);
+            } else if (value instanceof Float) {
+                tokens.writeNumber((Float) value);
+            } else if (value instanceof Boolean) {
+                tokens.writeBoolean((Boolean) value);
+            } else if (value instanceof List) {
+                tokens.writeStartArray();
+                for (final Object element : (List<?>) value) {
+                    if (element == null) {
+                        tokens.writeNull();
+                    } else {
+                        writeValue(element);
+                    }
+                }
+                tokens.writeEndArray();
+            } else {
+                tokens.writeObject(value);
+            }
+        }
+
+        private static Object readValue(final JsonParser parser, final JsonToken token) throws IOException {
+            switch (token) {
+                case VALUE_STRING:
+                    return parser.getText();
+                case VALUE_NUMBER_INT:
+                case VALUE_NUMBER_FLOAT:
+                    return parser.getNumberValue();
+                case VALUE_TRUE:
+                case VALUE_FALSE:
+                    return parser.getBooleanValue();
+                case VALUE_EMBEDDED_OBJECT:
+                    return parser.getEmbeddedObject();
+                case START_ARRAY:
+                    final List<Object> values = new ArrayList<>();
+                    for (JsonToken element = parser.nextToken(); element != JsonToken.END_ARRAY;
+                         element = parser.nextToken()) {
+                        values.add(readValue(parser, element));
+                    }
+                    return values;
+                default:
+                    return null;
+            }
+        }
+    }
+
     private static String getPhysicalColumnName(String modelName, String fieldName) {
         return IndexController.LogicIndicesRegister.getPhysicalColumnName(modelName, fieldName);
     }
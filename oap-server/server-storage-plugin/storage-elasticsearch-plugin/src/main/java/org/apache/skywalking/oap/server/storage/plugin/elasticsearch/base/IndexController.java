@@ -18,6 +18,7 @@
 
 package org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.base.Strings;
 import lombok.Getter;
 import lombok.Setter;
@@ -29,6 +30,7 @@ import org.apache.skywalking.oap.server.core.storage.model.ModelColumn;
 import org.apache.skywalking.oap.server.library.util.CollectionUtils;
 import org.apache.skywalking.oap.server.library.util.StringUtil;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -108,15 +110,35 @@ public enum IndexController {
      * The value of the column is the original table name in other storages.
      */
     public Map<String, Object> appendTableColumn(Model model, Map<String, Object> columns) {
-        if ((!isLogicSharding() && model.isMetric()) || (isLogicSharding() && isFunctionMetric(model))) {
+        if (requireMetricTableColumn(model)) {
             columns.put(LogicIndicesRegister.METRIC_TABLE_NAME, model.getName());
         }
-        if (!logicSharding && model.isRecord() && !model.isSuperDataset()) {
+        if (requireRecordTableColumn(model)) {
             columns.put(LogicIndicesRegister.RECORD_TABLE_NAME, model.getName());
         }
         return columns;
     }
 
+    /**
+     * Same as {@link #appendTableColumn(Model, Map)}, but write the column by the streaming generator.
+     */
+    public void appendTableColumn(Model model, JsonGenerator generator) throws IOException {
+        if (requireMetricTableColumn(model)) {
+            generator.writeStringField(LogicIndicesRegister.METRIC_TABLE_NAME, model.getName());
+        }
+        if (requireRecordTableColumn(model)) {
+            generator.writeStringField(LogicIndicesRegister.RECORD_TABLE_NAME, model.getName());
+        }
+    }
+
+    private boolean requireMetricTableColumn(Model model) {
+        return (!isLogicSharding() && model.isMetric()) || (isLogicSharding() && isFunctionMetric(model));
+    }
+
+    private boolean requireRecordTableColumn(Model model) {
+        return !logicSharding && model.isRecord() && !model.isSuperDataset();
+    }
+
     /**
      * All the management data would be merged in the same index, no logicSharding.
      */
@@ -99,23 +99,22 @@ public class MetricsEsDAO extends EsDAO implements IMetricsDAO {
 
     @Override
     public InsertRequest prepareBatchInsert(Model model, Metrics metrics, SessionCacheCallback callback) {
-        final ElasticSearchConverter.ToStorage toStorage = new ElasticSearchConverter.ToStorage(model.getName());
-        storageBuilder.entity2Storage(metrics, toStorage);
-        Map<String, Object> builder = IndexController.INSTANCE.appendTableColumn(model, toStorage.obtain());
         String modelName = TimeSeriesUtils.writeIndexName(model, metrics.getTimeBucket());
         String id = IndexController.INSTANCE.generateDocId(model, metrics.id().build());
-        return new MetricIndexRequestWrapper(getClient().prepareInsert(modelName, id, builder), callback);
+        return new MetricIndexRequestWrapper(
+            getClient().prepareInsert(modelName, id, new StreamingDocument<>(model, metrics, storageBuilder)),
+            callback
+        );
     }
 
     @Override
     public UpdateRequest prepareBatchUpdate(Model model, Metrics metrics, SessionCacheCallback callback) {
-        final ElasticSearchConverter.ToStorage toStorage = new ElasticSearchConverter.ToStorage(model.getName());
-        storageBuilder.entity2Storage(metrics, toStorage);
-        Map<String, Object> builder =
-            IndexController.INSTANCE.appendTableColumn(model, toStorage.obtain());
         String modelName = TimeSeriesUtils.writeIndexName(model, metrics.getTimeBucket());
         String id = IndexController.INSTANCE.generateDocId(model, metrics.id().build());
-        return new MetricIndexUpdateWrapper(getClient().prepareUpdate(modelName, id, builder), callback);
+        return new MetricIndexUpdateWrapper(
+            getClient().prepareUpdate(modelName, id, new StreamingDocument<>(model, metrics, storageBuilder)),
+            callback
+        );
     }
 
     @Override
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import org.apache.skywalking.oap.server.core.storage.StorageData;
+import org.apache.skywalking.oap.server.core.storage.model.Model;
+import org.apache.skywalking.oap.server.core.storage.type.StorageBuilder;
+
+/**
+ * StreamingDocument records the entity as the JSON tokens through the {@link StorageBuilder} when it is created, and
+ * writes the tokens into the bulk request, without the intermediate map and byte array of every document.
+ *
+ * The bulk request is encoded when it is flushed by the bulk processor, which is not awaited by the persistence round,
+ * so the entity is recorded when the request is prepared rather than referred, as it could be changed by the next
+ * round.
+ */
+public class StreamingDocument<T extends StorageData> implements JsonSerializable {
+    private final TokenBuffer tokens;
+
+    public StreamingDocument(final Model model, final T entity, final StorageBuilder<T> storageBuilder) {
+        final ElasticSearchConverter.ToTokenBuffer converter =
+            new ElasticSearchConverter.ToTokenBuffer(model.getName());
+        tokens = converter.obtain();
+        try {
+            tokens.writeStartObject();
+            storageBuilder.entity2Storage(entity, converter);
+            IndexController.INSTANCE.appendTableColumn(model, tokens);
+            tokens.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void serialize(final JsonGenerator generator, final SerializerProvider provider) throws IOException {
+        tokens.serialize(generator);
+    }
+
+    @Override
+    public void serializeWithType(final JsonGenerator generator,
+                                  final SerializerProvider provider,
+                                  final TypeSerializer typeSerializer) throws IOException {
+        serialize(generator, provider);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.apache.skywalking.library.elasticsearch.requests.IndexRequest;
+import org.apache.skywalking.library.elasticsearch.requests.UpdateRequest;
+import org.apache.skywalking.library.elasticsearch.requests.factory.Codec;
+import org.apache.skywalking.library.elasticsearch.requests.factory.v7plus.codec.V7Codec;
+import org.apache.skywalking.oap.server.core.analysis.DownSampling;
+import org.apache.skywalking.oap.server.core.analysis.Layer;
+import org.apache.skywalking.oap.server.core.analysis.manual.service.ServiceTraffic;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.storage.model.BanyanDBModelExtension;
+import org.apache.skywalking.oap.server.core.storage.model.ElasticSearchModelExtension;
+import org.apache.skywalking.oap.server.core.storage.model.Model;
+import org.apache.skywalking.oap.server.core.storage.model.SQLDatabaseModelExtension;
+import org.apache.skywalking.oap.server.core.storage.type.Convert2Entity;
+import org.apache.skywalking.oap.server.core.storage.type.Convert2Storage;
+import org.apache.skywalking.oap.server.core.storage.type.StorageBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class StreamingDocumentTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Codec CODEC = V7Codec.INSTANCE;
+
+    private final Model model = new Model(
+        "streaming_document_test", Lists.newArrayList(), 0, DownSampling.Minute, false, Metrics.class, true,
+        new SQLDatabaseModelExtension(), new BanyanDBModelExtension(), new ElasticSearchModelExtension()
+    );
+
+    @Test
+    public void testSameAsMapDocument() throws Exception {
+        final ServiceTraffic traffic = new ServiceTraffic();
+        traffic.setName("group::service");
+        traffic.setLayer(Layer.GENERAL);
+        traffic.setTimeBucket(202409010000L);
+        assertSameDocument(traffic, new ServiceTraffic.Builder());
+    }
+
+    @Test
+    public void testValueTypes() throws Exception {
+        final ServiceTraffic traffic = new ServiceTraffic();
+        assertSameDocument(traffic, new StorageBuilder<ServiceTraffic>() {
+            @Override
+            public ServiceTraffic storage2Entity(final Convert2Entity converter) {
+                return null;
+            }
+
+            @Override
+            public void entity2Storage(final ServiceTraffic entity, final Convert2Storage converter) {
+                converter.accept("long", 1L);
+                converter.accept("double", 1.5D);
+                converter.accept("null", (Object) null);
+                converter.accept("bytes", "bytes".getBytes(StandardCharsets.UTF_8));
+                converter.accept("empty_bytes", new byte[0]);
+                converter.accept("list", List.of("a", "b"));
+            }
+        });
+    }
+
+    @Test
+    public void testRecordedWhenCreated() throws Exception {
+        final ServiceTraffic traffic = new ServiceTraffic();
+        traffic.setName("group::service");
+        traffic.setLayer(Layer.GENERAL);
+        traffic.setTimeBucket(202409010000L);
+        final ServiceTraffic.Builder storageBuilder = new ServiceTraffic.Builder();
+        final ElasticSearchConverter.ToStorage toStorage = new ElasticSearchConverter.ToStorage(model.getName());
+        storageBuilder.entity2Storage(traffic, toStorage);
+        final Map<String, Object> doc = IndexController.INSTANCE.appendTableColumn(model, toStorage.obtain());
+        final StreamingDocument<ServiceTraffic> source = new StreamingDocument<>(model, traffic, storageBuilder);
+
+        // The entity changed after the request is prepared doesn't change the request.
+        traffic.setName("group::other");
+        traffic.setTimeBucket(202409010001L);
+        assertSameBulk(
+            encode(IndexRequest.builder().index("index").id("id").doc(doc).build()),
+            encode(IndexRequest.builder().index("index").id("id").source(source).build())
+        );
+    }
+
+    @Test
+    public void testReadBack() {
+        final ElasticSearchConverter.ToTokenBuffer converter =
+            new ElasticSearchConverter.ToTokenBuffer(model.getName());
+        converter.accept("long", 1L);
+        converter.accept("string", "value");
+        converter.accept("list", List.of("a", "b"));
+        Assertions.assertEquals(1L, ((Number) converter.get("long")).longValue());
+        Assertions.assertEquals("value", converter.get("string"));
+        Assertions.assertEquals(List.of("a", "b"), converter.get("list"));
+        Assertions.assertNull(converter.get("missing"));
+    }
+
+    private void assertSameDocument(ServiceTraffic traffic, StorageBuilder<ServiceTraffic> storageBuilder)
+        throws Exception {
+        final ElasticSearchConverter.ToStorage toStorage = new ElasticSearchConverter.ToStorage(model.getName());
+        storageBuilder.entity2Storage(traffic, toStorage);
+        final Map<String, Object> doc = IndexController.INSTANCE.appendTableColumn(model, toStorage.obtain());
+        final StreamingDocument<ServiceTraffic> source = new StreamingDocument<>(model, traffic, storageBuilder);
+
+        assertSameBulk(
+            encode(IndexRequest.builder().index("index").id("id").doc(doc).build()),
+            encode(IndexRequest.builder().index("index").id("id").source(source).build())
+        );
+        assertSameBulk(
+            encode(UpdateRequest.builder().index("index").id("id").doc(doc).build()),
+            encode(UpdateRequest.builder().index("index").id("id").source(source).build())
+        );
+    }
+
+    private static String encode(Object request) throws Exception {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        CODEC.encode(request, outputStream);
+        Assertions.assertEquals(new String(CODEC.encode(request), StandardCharsets.UTF_8), outputStream.toString());
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void assertSameBulk(String expected, String actual) throws Exception {
+        final String[] expectedLines = expected.split("\n");
+        final String[] actualLines = actual.split("\n");
+        Assertions.assertEquals(2, actualLines.length);
+        Assertions.assertEquals(expectedLines.length, actualLines.length);
+        for (int i = 0; i < expectedLines.length; i++) {
+            // The fields of the map are in no particular order.
+            final JsonNode expectedNode = MAPPER.readTree(expectedLines[i]);
+            Assertions.assertEquals(expectedNode, MAPPER.readTree(actualLines[i]));
+        }
+    }
+}
@@ -18,6 +18,7 @@
 
 package org.apache.skywalking.oap.server.storage.plugin.jdbc;
 
+import java.sql.Connection;
 import java.sql.Statement;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -38,10 +39,24 @@ import java.util.List;
 @Slf4j
 @RequiredArgsConstructor
 public class BatchSQLExecutor implements InsertRequest, UpdateRequest {
+    /**
+     * The max bind parameters of one statement, limited by the PostgreSQL protocol, MySQL allows 65535.
+     */
+    private static final int MAX_PARAMETERS_OF_STATEMENT = Short.MAX_VALUE;
+    private static final String VALUES = " VALUES ";
+
     private final JDBCClient jdbcClient;
     private final List<PrepareRequest> prepareRequests;
 
     public void invoke(int maxBatchSqlSize) throws Exception {
+        invoke(maxBatchSqlSize, false);
+    }
+
+    /**
+     * @param multiRowInsert true to rewrite the inserts into the multi-row {@code INSERT ... VALUES (...),(...)}
+     *                       statements, rather than the JDBC batch of the single row statements.
+     */
+    public void invoke(int maxBatchSqlSize, boolean multiRowInsert) throws Exception {
         if (log.isDebugEnabled()) {
             log.debug("execute sql batch. sql by key size: {}", prepareRequests.size());
         }
@@ -49,11 +64,26 @@ public class BatchSQLExecutor implements InsertRequest, UpdateRequest {
             return;
         }
         final var sql = prepareRequests.get(0).toString();
+        if (multiRowInsert && isMultiRowInsertable(sql)) {
+            invokeMultiRowInsert(sql, maxBatchSqlSize);
+            return;
+        }
+        try (final var connection = jdbcClient.getConnection()) {
+            invokeBatch(connection, sql, prepareRequests, maxBatchSqlSize);
+        }
+    }
+
+    /**
+     * Execute the requests as the JDBC batch of the single row statements.
+     */
+    private void invokeBatch(Connection connection,
+                             String sql,
+                             List<PrepareRequest> requests,
+                             int maxBatchSqlSize) throws SQLException {
         final var bulkRequest = new ArrayList<PrepareRequest>(maxBatchSqlSize);
-        try (final var connection = jdbcClient.getConnection();
-             final var preparedStatement = connection.prepareStatement(sql)) {
+        try (final var preparedStatement = connection.prepareStatement(sql)) {
             var pendingCount = 0;
-            for (final var prepareRequest : prepareRequests) {
+            for (final var prepareRequest : requests) {
                 final var sqlExecutor = (SQLExecutor) prepareRequest;
                 if (log.isDebugEnabled()) {
                     log.debug("Executing sql: {}", sql);
@@ -77,6 +107,115 @@ public class BatchSQLExecutor implements InsertRequest, UpdateRequest {
         }
     }
 
+    /**
+     * The insert statement ending with the only one row of the placeholders, e.g.
+     * {@code INSERT INTO t(a,b) VALUES (?,?)}, could be rewritten into the multi-row statement.
+     */
+    private boolean isMultiRowInsertable(String sql) {
+        if (!sql.startsWith("INSERT INTO ")) {
+            return false;
+        }
+        final var valuesIndex = sql.lastIndexOf(VALUES);
+        if (valuesIndex < 0) {
+            return false;
+        }
+        final var row = sql.substring(valuesIndex + VALUES.length());
+        if (!row.startsWith("(") || !row.endsWith(")") || row.indexOf(')') != row.length() - 1) {
+            return false;
+        }
+        final var placeholders = row.chars().filter(it -> it == '?').count();
+        return placeholders > 0 && placeholders == ((SQLExecutor) prepareRequests.get(0)).getParam().size();
+    }
+
+    /**
+     * The rows of a failed multi-row statement, e.g. one of them conflicts with an existing row, are executed again as
+     * the JDBC batch of the single row statements, so the other rows are still inserted.
+     */
+    private void invokeMultiRowInsert(String sql, int maxBatchSqlSize) throws SQLException {
+        final var valuesIndex = sql.lastIndexOf(VALUES) + VALUES.length();
+        final var head = sql.substring(0, valuesIndex);
+        final var row = sql.substring(valuesIndex);
+        final var parametersOfRow = ((SQLExecutor) prepareRequests.get(0)).getParam().size();
+        final var rowsOfStatement = Math.max(1, Math.min(maxBatchSqlSize, MAX_PARAMETERS_OF_STATEMENT / parametersOfRow));
+
+        try (final var connection = jdbcClient.getConnection()) {
+            PreparedStatement fullStatement = null;
+            try {
+                for (int from = 0; from < prepareRequests.size(); from += rowsOfStatement) {
+                    final var rows = prepareRequests.subList(from, Math.min(prepareRequests.size(), from + rowsOfStatement));
+                    if (rows.size() == rowsOfStatement) {
+                        // The full statements share the same SQL, prepare it once.
+                        if (fullStatement == null) {
+                            fullStatement = connection.prepareStatement(multiRowSQL(head, row, rowsOfStatement));
+                        }
+                        try {
+                            executeMultiRowInsert(fullStatement, rows);
+                        } catch (SQLException e) {
+                            fallbackToBatch(connection, sql, rows, maxBatchSqlSize, e);
+                        }
+                    } else {
+                        try (final var statement = connection.prepareStatement(multiRowSQL(head, row, rows.size()))) {
+                            executeMultiRowInsert(statement, rows);
+                        } catch (SQLException e) {
+                            fallbackToBatch(connection, sql, rows, maxBatchSqlSize, e);
+                        }
+                    }
+                }
+            } finally {
+                if (fullStatement != null) {
+                    fullStatement.close();
+                }
+            }
+        }
+    }
+
+    private void fallbackToBatch(Connection connection,
+                                 String sql,
+                                 List<PrepareRequest> rows,
+                                 int maxBatchSqlSize,
+                                 SQLException cause) throws SQLException {
+        log.warn("Failed to execute the multi-row insert of {} rows, execute them as the batch of single rows: {}",
+                 rows.size(), cause.getMessage()
+        );
+        try {
+            invokeBatch(connection, sql, rows, maxBatchSqlSize);
+        } catch (SQLException e) {
+            e.addSuppressed(cause);
+            throw e;
+        }
+    }
+
+    private static String multiRowSQL(String head, String row, int rows) {
+        final var sql = new StringBuilder(head.length() + (row.length() + 1) * rows);
+        sql.append(head);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(row);
+        }
+        return sql.toString();
+    }
+
+    private void executeMultiRowInsert(PreparedStatement preparedStatement,
+                                       List<PrepareRequest> rows) throws SQLException {
+        final var start = System.currentTimeMillis();
+        var index = 1;
+        for (final var row : rows) {
+            for (final var param : ((SQLExecutor) row).getParam()) {
+                preparedStatement.setObject(index++, param);
+            }
+        }
+        preparedStatement.executeUpdate();
+        // The multi-row statement is atomic, all the rows are inserted if no exception.
+        for (final var row : rows) {
+            ((InsertRequest) row).onInsertCompleted();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("execute multi-row insert, rows: {}, cost:{}ms", rows.size(), System.currentTimeMillis() - start);
+        }
+    }
+
     private void executeBatch(PreparedStatement preparedStatement,
                               int pendingCount,
                               String sql,
@@ -35,5 +35,11 @@ public class JDBCStorageConfig extends ModuleConfig {
      * async batch execute pool size
      */
     protected int asyncBatchPersistentPoolSize  = 4;
+    /**
+     * The max number of the batch SQL groups of different tables executed in parallel, each group holds one connection.
+     *
+     * @since 10.1.0
+     */
+    protected int batchSqlExecutorPoolSize = 4;
     protected Properties properties;
 }
@@ -97,6 +97,7 @@ public abstract class JDBCStorageProvider extends ModuleProvider {
     protected JDBCClient jdbcClient;
     protected JDBCTableInstaller modelInstaller;
     protected TableHelper tableHelper;
+    protected JDBCBatchDAO batchDAO;
 
     /**
      * Different storage implementations have different ways to create the tables/indices,
@@ -104,6 +105,14 @@ public abstract class JDBCStorageProvider extends ModuleProvider {
      */
     protected abstract ModelInstaller createModelInstaller();
 
+    /**
+     * @return true if the storage supports the multi-row {@code INSERT ... VALUES (...),(...)} statements, which are
+     * used to execute the batch inserts.
+     */
+    protected boolean isMultiRowInsertSupported() {
+        return false;
+    }
+
     @Override
     public Class<? extends ModuleDefine> module() {
         return StorageModule.class;
@@ -134,12 +143,14 @@ public abstract class JDBCStorageProvider extends ModuleProvider {
             StorageBuilderFactory.class,
             new StorageBuilderFactory.Default());
 
-        this.registerServiceImplementation(
-            IBatchDAO.class,
-            new JDBCBatchDAO(
-                jdbcClient,
-                config.getMaxSizeOfBatchSql(),
-                config.getAsyncBatchPersistentPoolSize()));
+        batchDAO = new JDBCBatchDAO(
+            jdbcClient,
+            config.getMaxSizeOfBatchSql(),
+            config.getAsyncBatchPersistentPoolSize(),
+            config.getBatchSqlExecutorPoolSize(),
+            isMultiRowInsertSupported());
+        this.registerServiceImplementation(IBatchDAO.class, batchDAO);
+        Runtime.getRuntime().addShutdownHook(new Thread(batchDAO::shutdown, "JDBCBatchDAO-shutdown"));
         this.registerServiceImplementation(
             StorageDAO.class,
             new JDBCStorageDAO(jdbcClient));
@@ -25,24 +25,63 @@ import org.apache.skywalking.oap.server.library.client.request.InsertRequest;
 import org.apache.skywalking.oap.server.library.client.request.PrepareRequest;
 import org.apache.skywalking.oap.server.library.datacarrier.DataCarrier;
 import org.apache.skywalking.oap.server.library.datacarrier.consumer.IConsumer;
+import org.apache.skywalking.oap.server.library.server.pool.CustomThreadFactory;
 import org.apache.skywalking.oap.server.library.util.CollectionUtils;
 import org.apache.skywalking.oap.server.storage.plugin.jdbc.BatchSQLExecutor;
 import org.apache.skywalking.oap.server.storage.plugin.jdbc.SQLExecutor;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class JDBCBatchDAO implements IBatchDAO {
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
     private final JDBCClient jdbcClient;
     private final DataCarrier<PrepareRequest> dataCarrier;
     private final int maxBatchSqlSize;
+    private final boolean multiRowInsert;
+    /**
+     * Execute the statement groups of different SQLs in parallel, each group holds one connection. The caller runs the
+     * group by itself when the queue is full, as the back pressure. The groups are rejected after {@link #shutdown()}.
+     */
+    private final ThreadPoolExecutor batchExecutor;
+    /**
+     * The groups submitted but not committed yet, waited by {@link #endOfFlush()}.
+     */
+    private final Set<CompletableFuture<Void>> executingBatches = ConcurrentHashMap.newKeySet();
 
-    public JDBCBatchDAO(JDBCClient jdbcClient, int maxBatchSqlSize, int asyncBatchPersistentPoolSize) {
+    /**
+     * @param batchSqlExecutorPoolSize the max number of the statement groups executed in parallel.
+     * @param multiRowInsert           true to execute the inserts as the multi-row {@code INSERT ... VALUES (...),(...)}
+     *                                 statements, which MySQL and PostgreSQL support.
+     */
+    public JDBCBatchDAO(JDBCClient jdbcClient, int maxBatchSqlSize, int asyncBatchPersistentPoolSize,
+                        int batchSqlExecutorPoolSize, boolean multiRowInsert) {
         this.jdbcClient = jdbcClient;
+        this.multiRowInsert = multiRowInsert;
+        final int poolSize = Math.max(batchSqlExecutorPoolSize, 1);
+        this.batchExecutor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                                                    new ArrayBlockingQueue<>(poolSize * 100),
+                                                    new CustomThreadFactory("JDBCBatchSQLExecutor"),
+                                                    (task, executor) -> {
+                                                        if (executor.isShutdown()) {
+                                                            throw new RejectedExecutionException(
+                                                                "JDBCBatchSQLExecutor has been shut down");
+                                                        }
+                                                        task.run();
+                                                    }
+        );
+        this.batchExecutor.allowCoreThreadTimeOut(true);
         String name = "H2_ASYNCHRONOUS_BATCH_PERSISTENT";
         if (log.isDebugEnabled()) {
             log.debug("H2_ASYNCHRONOUS_BATCH_PERSISTENT poolSize: {}, maxBatchSqlSize:{}", asyncBatchPersistentPoolSize, maxBatchSqlSize);
@@ -72,19 +111,66 @@ public class JDBCBatchDAO implements IBatchDAO {
         }
 
         final var batchRequestsOfSql = sqls.stream().collect(Collectors.groupingBy(Function.identity()));
-        batchRequestsOfSql.forEach((sql, requests) -> {
-            try {
-                final var batchSQLExecutor = new BatchSQLExecutor(jdbcClient, requests);
-                batchSQLExecutor.invoke(maxBatchSqlSize);
-            } catch (Exception e) {
-                // Just to avoid one execution failure makes the rest of batch failure.
-                log.error(e.getMessage(), e);
+        final var futures = new ArrayList<CompletableFuture<Void>>(batchRequestsOfSql.size());
+        batchRequestsOfSql.forEach((sql, requests) -> futures.add(executeAsync(requests)));
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).whenComplete((v, t) -> {
+            if (log.isDebugEnabled()) {
+                log.debug("execute sql statements done, data size: {}, maxBatchSqlSize: {}", prepareRequests.size(), maxBatchSqlSize);
             }
         });
-        if (log.isDebugEnabled()) {
-            log.debug("execute sql statements done, data size: {}, maxBatchSqlSize: {}", prepareRequests.size(), maxBatchSqlSize);
+    }
+
+    /**
+     * Execute the requests of the same SQL in the worker pool, the future completes after the statements are committed.
+     * One group failure doesn't make the rest of groups failure.
+     */
+    private CompletableFuture<Void> executeAsync(List<PrepareRequest> requests) {
+        final var future = new CompletableFuture<Void>();
+        executingBatches.add(future);
+        future.whenComplete((v, t) -> executingBatches.remove(future));
+        try {
+            batchExecutor.execute(() -> {
+                try {
+                    new BatchSQLExecutor(jdbcClient, requests).invoke(maxBatchSqlSize, multiRowInsert);
+                    future.complete(null);
+                } catch (Throwable e) {
+                    log.error(e.getMessage(), e);
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    public void endOfFlush() {
+        // Wait for the groups of this round to be committed, the next round may update the inserted rows.
+        final var executing = executingBatches.toArray(new CompletableFuture[0]);
+        try {
+            CompletableFuture.allOf(executing).join();
+        } catch (Exception e) {
+            // The failure has been logged by the group.
+            log.debug(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stop the worker threads after the submitted groups are executed, called when the storage provider is shut down.
+     */
+    public void shutdown() {
+        batchExecutor.shutdown();
+        try {
+            if (!batchExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("JDBCBatchSQLExecutor is not terminated in {}s, interrupt it", SHUTDOWN_TIMEOUT_SECONDS);
+                batchExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            batchExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
         }
-        return CompletableFuture.completedFuture(null);
     }
 
     @Override
@@ -39,4 +39,9 @@ public class MySQLStorageProvider extends JDBCStorageProvider {
     protected ModelInstaller createModelInstaller() {
         return new MySQLTableInstaller(jdbcClient, getManager());
     }
+
+    @Override
+    protected boolean isMultiRowInsertSupported() {
+        return true;
+    }
 }
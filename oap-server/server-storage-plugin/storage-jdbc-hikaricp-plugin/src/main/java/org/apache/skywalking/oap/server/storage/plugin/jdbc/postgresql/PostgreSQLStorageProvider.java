@@ -41,6 +41,11 @@ public class PostgreSQLStorageProvider extends JDBCStorageProvider {
         return new PostgreSQLTableInstaller(jdbcClient, getManager());
     }
 
+    @Override
+    protected boolean isMultiRowInsertSupported() {
+        return true;
+    }
+
     @Override
     public void prepare() throws ServiceNotProvidedException, ModuleStartException {
         super.prepare();
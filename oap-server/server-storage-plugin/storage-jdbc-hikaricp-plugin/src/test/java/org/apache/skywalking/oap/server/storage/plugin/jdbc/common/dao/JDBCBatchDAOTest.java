@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.jdbc.common.dao;
+
+import org.apache.skywalking.oap.server.library.client.jdbc.hikaricp.JDBCClient;
+import org.apache.skywalking.oap.server.library.client.request.PrepareRequest;
+import org.apache.skywalking.oap.server.storage.plugin.jdbc.SQLExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JDBCBatchDAOTest {
+    private JDBCClient jdbcClient;
+    private JDBCBatchDAO batchDAO;
+    private final AtomicInteger insertCompleted = new AtomicInteger();
+
+    @BeforeEach
+    void setup() throws SQLException {
+        final var properties = new Properties();
+        properties.setProperty("jdbcUrl", "jdbc:h2:mem:JDBCBatchDAOTest;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=FALSE");
+        properties.setProperty("dataSource.user", "sa");
+        jdbcClient = new JDBCClient(properties);
+        jdbcClient.connect();
+        jdbcClient.execute("CREATE TABLE metrics_a (id VARCHAR(64) PRIMARY KEY, table_name VARCHAR(64), v BIGINT)");
+        jdbcClient.execute("CREATE TABLE metrics_b (id VARCHAR(64) PRIMARY KEY, table_name VARCHAR(64), v BIGINT)");
+        jdbcClient.execute("CREATE TABLE metrics_b_tag (id VARCHAR(64), tag VARCHAR(64))");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        if (batchDAO != null) {
+            batchDAO.shutdown();
+        }
+        jdbcClient.execute("DROP ALL OBJECTS");
+        jdbcClient.shutdown();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void flushShouldCompleteAfterAllGroupsCommitted(boolean multiRowInsert) throws SQLException {
+        batchDAO = new JDBCBatchDAO(jdbcClient, 2, 1, 2, multiRowInsert);
+        final var requests = new ArrayList<PrepareRequest>();
+        for (int i = 0; i < 5; i++) {
+            requests.add(insert("INSERT INTO metrics_a(id,table_name,v) VALUES (?,?,?)", List.of("a" + i, "metrics_a", i)));
+        }
+        for (int i = 0; i < 3; i++) {
+            final var executor = insert("INSERT INTO metrics_b(id,table_name,v) VALUES (?,?,?)", List.of("b" + i, "metrics_b", i));
+            executor.appendAdditionalSQLs(List.of(
+                insert("INSERT INTO metrics_b_tag VALUES (?,?)", List.of("b" + i, "k=v")),
+                insert("INSERT INTO metrics_b_tag VALUES (?,?)", List.of("b" + i, "k=w"))
+            ));
+            requests.add(executor);
+        }
+
+        batchDAO.flush(requests).join();
+
+        assertThat(count("metrics_a")).isEqualTo(5);
+        assertThat(count("metrics_b")).isEqualTo(3);
+        assertThat(count("metrics_b_tag")).isEqualTo(6);
+        assertThat(insertCompleted.get()).isEqualTo(14);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void failedGroupShouldNotFailOthers(boolean multiRowInsert) throws SQLException {
+        batchDAO = new JDBCBatchDAO(jdbcClient, 10, 1, 2, multiRowInsert);
+        final var requests = new ArrayList<PrepareRequest>();
+        requests.add(insert("INSERT INTO metrics_a(id,table_name,v) VALUES (?,?,?)", List.of("a", "metrics_a", 1)));
+        requests.add(insert("INSERT INTO metrics_absent(id,table_name,v) VALUES (?,?,?)", List.of("a", "metrics_absent", 1)));
+
+        assertThat(batchDAO.flush(requests)).failsWithin(Duration.ofSeconds(10));
+        batchDAO.endOfFlush();
+
+        assertThat(count("metrics_a")).isEqualTo(1);
+        assertThat(insertCompleted.get()).isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void conflictedRowShouldNotFailRowsBeforeIt(boolean multiRowInsert) throws SQLException {
+        batchDAO = new JDBCBatchDAO(jdbcClient, 10, 1, 2, multiRowInsert);
+        final var requests = new ArrayList<PrepareRequest>();
+        // The multi-row statement of both rows fails, the first row is still inserted by the single row statement.
+        requests.add(insert("INSERT INTO metrics_a(id,table_name,v) VALUES (?,?,?)", List.of("a", "metrics_a", 1)));
+        requests.add(insert("INSERT INTO metrics_a(id,table_name,v) VALUES (?,?,?)", List.of("a", "metrics_a", 2)));
+
+        assertThat(batchDAO.flush(requests)).failsWithin(Duration.ofSeconds(10));
+        batchDAO.endOfFlush();
+
+        assertThat(count("metrics_a")).isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void flushShouldFailAfterShutdown(boolean multiRowInsert) {
+        batchDAO = new JDBCBatchDAO(jdbcClient, 10, 1, 2, multiRowInsert);
+        batchDAO.shutdown();
+        final var requests = new ArrayList<PrepareRequest>();
+        requests.add(insert("INSERT INTO metrics_a(id,table_name,v) VALUES (?,?,?)", List.of("a", "metrics_a", 1)));
+
+        assertThat(batchDAO.flush(requests)).failsWithin(Duration.ofSeconds(10));
+    }
+
+    private SQLExecutor insert(String sql, List<Object> param) {
+        return new SQLExecutor(sql, new ArrayList<>(param), null) {
+            @Override
+            public void onInsertCompleted() {
+                insertCompleted.incrementAndGet();
+            }
+        };
+    }
+
+    private int count(String table) throws SQLException {
+        return jdbcClient.executeQuery("SELECT COUNT(1) FROM " + table, resultSet -> {
+            resultSet.next();
+            return resultSet.getInt(1);
+        });
+    }
+}